@@ -2,6 +2,7 @@ plugins {
     application
     java
     id ("com.gradleup.shadow") version "9.3.0"
+    id ("me.champeau.jmh") version "0.7.2"
 }
 
 application.mainClass = "org.ToastiCodingStuff.Sloth.Sloth"
@@ -19,6 +20,28 @@ dependencies {
     implementation("org.mariadb.jdbc:mariadb-java-client:3.3.3")
     implementation("io.github.cdimascio:dotenv-java:3.0.0")
     implementation("com.zaxxer:HikariCP:5.1.0")
+
+    // Embedded MariaDB for the data layer benchmarks (src/jmh) and tests (src/test)
+    jmh("ch.vorburger.mariaDB4j:mariaDB4j:3.1.0")
+    testImplementation("ch.vorburger.mariaDB4j:mariaDB4j:3.1.0")
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.2")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+// Benchmarks: ./gradlew jmh [-PjmhThreads=8] [-PjmhInclude=getActiveWarningsCount]
+// Results are written as JSON to build/results/jmh/results.json
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    threads.set((findProperty("jmhThreads") as String?)?.toInt() ?: 1)
+    (findProperty("jmhInclude") as String?)?.let { includes.set(listOf(it)) }
+    fork.set(1)
+    warmupIterations.set(2)
+    iterations.set(5)
 }
 
 tasks.withType<JavaCompile> {
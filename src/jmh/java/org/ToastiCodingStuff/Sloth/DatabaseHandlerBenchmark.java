@@ -0,0 +1,201 @@
+package org.ToastiCodingStuff.Sloth;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Benchmarks for the DatabaseHandler hot paths against an embedded MariaDB.
+ * {@code rows} controls the size of the seeded warnings, role_events and active_timers tables;
+ * concurrency is set with the JMH thread count (-PjmhThreads=N).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DatabaseHandlerBenchmark {
+
+    private static final int GUILDS = 100;
+    private static final int USERS_PER_GUILD = 200;
+    private static final int SEED_BATCH = 1000;
+    // TimedRoleScheduler: chunk size of a sweep and default TIMER_SWEEP_SECONDS
+    private static final int CLAIM_BATCH = 500;
+    private static final long SWEEP_MILLIS = 300_000;
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private EmbeddedDatabase database;
+    private DatabaseHandler handler;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = EmbeddedDatabase.start();
+        handler = new DatabaseHandler();
+        seed();
+    }
+
+    /**
+     * The sweep deletes the timers it claims, so the expired ones are added again for every iteration
+     */
+    @Setup(Level.Iteration)
+    public void seedExpiredTimers() throws Exception {
+        try (Connection connection = handler.getConnection()) {
+            connection.setAutoCommit(false);
+            insertTimers(connection, rows / 100, i -> -60);
+            connection.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        handler.closeConnection();
+        database.stop();
+    }
+
+    private void seed() throws Exception {
+        try (Connection connection = handler.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DELETE FROM warnings");
+                stmt.execute("DELETE FROM role_events");
+                stmt.execute("DELETE FROM active_timers");
+            }
+            String warning = "INSERT INTO warnings (guild_id, user_id, moderator_id, reason, severity, active, expires_at) " +
+                    "VALUES (?, ?, '1', 'benchmark', 'LOW', ?, DATE_ADD(NOW(), INTERVAL ? DAY))";
+            try (PreparedStatement stmt = connection.prepareStatement(warning)) {
+                for (int i = 0; i < rows; i++) {
+                    stmt.setString(1, guildId(i));
+                    stmt.setString(2, userId(i));
+                    stmt.setInt(3, i % 4 == 0 ? 0 : 1);
+                    stmt.setInt(4, i % 3 == 0 ? -1 : 30);
+                    stmt.addBatch();
+                    if (i % SEED_BATCH == SEED_BATCH - 1) stmt.executeBatch();
+                }
+                stmt.executeBatch();
+            }
+            String roleEvent = "INSERT INTO role_events (guild_id, name, event_type, role_id, action_type, duration_seconds, trigger_data, active) " +
+                    "VALUES (?, ?, ?, ?, 'ADD', 3600, ?, 1)";
+            RoleEventType[] types = RoleEventType.values();
+            try (PreparedStatement stmt = connection.prepareStatement(roleEvent)) {
+                for (int i = 0; i < rows / 10; i++) {
+                    stmt.setString(1, guildId(i));
+                    stmt.setString(2, "event-" + i);
+                    stmt.setString(3, types[i % types.length].toString());
+                    stmt.setString(4, String.valueOf(500000 + i));
+                    stmt.setString(5, "{\"trigger_role_id\": \"" + (600000 + i) + "\"}");
+                    stmt.addBatch();
+                    if (i % SEED_BATCH == SEED_BATCH - 1) stmt.executeBatch();
+                }
+                stmt.executeBatch();
+            }
+            // 1% of the timers are due within one sweep, the rest expire within the next day;
+            // expired ones are added per iteration
+            insertTimers(connection, rows, i -> i % 100 == 0 ? 120 : 3600 + i % 86400);
+            connection.commit();
+        }
+    }
+
+    private void insertTimers(Connection connection, int count, IntUnaryOperator expiresInSeconds) throws Exception {
+        String timer = "INSERT INTO active_timers (guild_id, user_id, role_id, expires_at, source_event_id) " +
+                "VALUES (?, ?, ?, DATE_ADD(NOW(), INTERVAL ? SECOND), 0)";
+        try (PreparedStatement stmt = connection.prepareStatement(timer)) {
+            for (int i = 0; i < count; i++) {
+                stmt.setString(1, guildId(i));
+                stmt.setString(2, userId(i));
+                stmt.setString(3, String.valueOf(500000 + i % 50));
+                stmt.setInt(4, expiresInSeconds.applyAsInt(i));
+                stmt.addBatch();
+                if (i % SEED_BATCH == SEED_BATCH - 1) stmt.executeBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static String guildId(int i) {
+        return String.valueOf(100000 + i % GUILDS);
+    }
+
+    private static String userId(int i) {
+        return String.valueOf(200000 + i % (GUILDS * USERS_PER_GUILD));
+    }
+
+    private static int randomRow() {
+        return ThreadLocalRandom.current().nextInt(GUILDS * USERS_PER_GUILD);
+    }
+
+    @Benchmark
+    public int getActiveWarningsCount() {
+        int i = randomRow();
+        return handler.getActiveWarningsCount(guildId(i), userId(i));
+    }
+
+    /**
+     * Rule lookup of the role trigger listeners; compiled once per guild, then served from memory
+     */
+    @Benchmark
+    public List<RoleEventRuleEngine.CompiledRule> matchRoleEventRules() {
+        int i = ThreadLocalRandom.current().nextInt(Math.max(1, rows / 10));
+        return handler.getRoleEventRuleEngine().match(guildId(i), RoleEventType.ROLE_ADD, String.valueOf(600000 + i));
+    }
+
+    /**
+     * First step of a timer sweep; mostly finds nothing once the iteration's expired timers are claimed
+     */
+    @Benchmark
+    public List<DatabaseHandler.ActiveTimerData> claimExpiredTimers() {
+        return handler.claimExpiredTimers(CLAIM_BATCH);
+    }
+
+    /**
+     * Second step of a timer sweep: timers due before the next one
+     */
+    @Benchmark
+    public List<DatabaseHandler.ActiveTimerData> getActiveTimersExpiringBefore() {
+        return handler.getActiveTimersExpiringBefore(new Timestamp(System.currentTimeMillis() + SWEEP_MILLIS));
+    }
+
+    @Benchmark
+    public void insertOrUpdateUser() {
+        int i = randomRow();
+        handler.insertOrUpdateUser(userId(i), "user-" + i, "0", null);
+    }
+
+    /**
+     * One moderation action worth of statistics (guild + both users); buffered in memory
+     */
+    @Benchmark
+    public void updateStatistics() {
+        int i = randomRow();
+        String guildId = guildId(i);
+        handler.incrementWarningsIssued(guildId);
+        handler.incrementUserWarningsIssued(guildId, userId(i + 1));
+        handler.incrementUserWarningsReceived(guildId, userId(i));
+    }
+
+    /**
+     * Writing 100 buffered moderation actions to the statistics tables
+     */
+    @Benchmark
+    public void updateStatisticsAndFlush() {
+        for (int n = 0; n < 100; n++) {
+            updateStatistics();
+        }
+        handler.flushStatistics();
+    }
+}
@@ -0,0 +1,40 @@
+package org.ToastiCodingStuff.Sloth;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+/**
+ * Embedded MariaDB (MariaDB4j) for the benchmarks. A real MariaDB is used instead of H2
+ * because the data layer relies on MariaDB syntax (ON DUPLICATE KEY UPDATE, DELETE ... RETURNING).
+ * The connection settings are published as system properties, which DatabaseHandler falls
+ * back to when the DB_* environment variables are not set.
+ */
+final class EmbeddedDatabase {
+
+    static final String DATABASE_NAME = "sloth_bench";
+
+    private final DB db;
+
+    private EmbeddedDatabase(DB db) {
+        this.db = db;
+    }
+
+    static EmbeddedDatabase start() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0); // any free port
+        DB db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB(DATABASE_NAME);
+
+        System.setProperty("DB_HOST", "localhost");
+        System.setProperty("DB_PORT", String.valueOf(db.getConfiguration().getPort()));
+        System.setProperty("DB_NAME", DATABASE_NAME);
+        System.setProperty("DB_USER", "root");
+        System.setProperty("DB_PASSWORD", "");
+        return new EmbeddedDatabase(db);
+    }
+
+    void stop() throws Exception {
+        db.stop();
+    }
+}
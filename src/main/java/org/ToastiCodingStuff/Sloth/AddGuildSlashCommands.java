@@ -175,8 +175,11 @@ public class AddGuildSlashCommands {
                                 .addOption(OptionType.USER, "user", "User to remove timeout from", true)
                                 .addOption(OptionType.STRING, "reason", "Reason for removing timeout", false),
                         new SubcommandData("purge", "Delete multiple messages from the channel")
-                                .addOption(OptionType.INTEGER, "amount", "Number of messages to delete (1-100)", true)
-                                .addOption(OptionType.USER, "user", "Only delete messages from this user", false),
+                                .addOption(OptionType.INTEGER, "amount", "Number of matching messages to delete (1-1000)", true)
+                                .addOption(OptionType.USER, "user", "Only delete messages from this user", false)
+                                .addOption(OptionType.STRING, "contains", "Only delete messages containing this text", false)
+                                .addOption(OptionType.BOOLEAN, "bots", "Only delete messages from bots", false)
+                                .addOption(OptionType.BOOLEAN, "attachments", "Only delete messages with attachments", false),
                         new SubcommandData("slowmode", "Set slowmode for the current channel")
                                 .addOption(OptionType.INTEGER, "seconds", "Slowmode delay in seconds (0 to disable, max 21600)", true)
                 );
@@ -191,7 +194,8 @@ public class AddGuildSlashCommands {
                         new SubcommandData("setup", "Configure the ticket system for this server")
                                 .addOption(OptionType.CHANNEL, "category", "Category for ticket channels", true)
                                 .addOption(OptionType.CHANNEL, "channel", "Channel for ticket creation panel", true)
-                                .addOption(OptionType.ROLE, "support-role", "Role that can manage tickets", false),
+                                .addOption(OptionType.ROLE, "support-role", "Role that can manage tickets", false)
+                                .addOption(OptionType.BOOLEAN, "transcript_enabled", "Allow /ticket transcript (default: true)", false),
                         new SubcommandData("panel", "Create a ticket creation panel in current channel"),
                         new SubcommandData("config", "Set custom title and description for the ticket panel")
                                 .addOption(OptionType.STRING, "title", "Title for the ticket panel embed", true)
@@ -206,7 +210,12 @@ public class AddGuildSlashCommands {
                                         .addChoice("Medium", "MEDIUM")
                                         .addChoice("High", "HIGH")
                                         .addChoice("Urgent", "URGENT")),
-                        new SubcommandData("info", "Get information about the current ticket")
+                        new SubcommandData("info", "Get information about the current ticket"),
+                        new SubcommandData("transcript", "Generate a transcript of the current ticket")
+                                .addOptions(new OptionData(OptionType.STRING, "format", "File format of the transcript", false)
+                                        .addChoice("Text", "text")
+                                        .addChoice("Text (gzip)", "gzip")
+                                        .addChoice("HTML", "html"))
                 );
     }
 
@@ -282,7 +291,8 @@ public class AddGuildSlashCommands {
                                 .addOption(OptionType.STRING, "date", "Date in YYYY-MM-DD format (e.g., 2024-01-15)", true),
                         new SubcommandData("user", "View user information and statistics")
                                 .addOption(OptionType.USER, "user", "User to view information for", true)
-                                .addOption(OptionType.STRING, "date", "Date in YYYY-MM-DD format to view stats for (optional)", false)
+                                .addOption(OptionType.STRING, "date", "Date in YYYY-MM-DD format to view stats for (optional)", false),
+                        new SubcommandData("rebuild", "Recalculate the lifetime statistics of this server from the daily statistics")
                 );
     }
 
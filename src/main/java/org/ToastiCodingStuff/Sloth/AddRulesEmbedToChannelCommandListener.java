@@ -80,6 +80,10 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
             event.reply("❌ This command can only be used in a server!").setEphemeral(true).queue();
             return;
         }
+        handler.runDeferred(event, true, () -> handleRulesModal(event));
+    }
+
+    private void handleRulesModal(ModalInteractionEvent event) {
         String title = Objects.requireNonNull(event.getValue("rules_title")).getAsString();
         String description = Objects.requireNonNull(event.getValue("rules_description")).getAsString();
         Role mentionRole = event.getGuild().getRoleById(guildAndRoleIDs.get(event.getGuild().getId()));
@@ -108,18 +112,18 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
         // Validate inputs with formatting awareness
         String titleValidation = validateTextWithFormatting(title, "Title", 256);
         if (titleValidation != null) {
-            event.reply(titleValidation + getFormattingHelpText()).setEphemeral(true).queue();
+            event.getHook().sendMessage(titleValidation + getFormattingHelpText()).queue();
             return;
         }
 
         String descriptionValidation = validateTextWithFormatting(description, "Description", 4096);
         if (descriptionValidation != null) {
-            event.reply(descriptionValidation).setEphemeral(true).queue();
+            event.getHook().sendMessage(descriptionValidation).queue();
             return;
         }
 
         if (buttonLabel.length() > 80) {
-            event.reply("❌ Button label must be 80 characters or less!").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Button label must be 80 characters or less!").queue();
             return;
         }
 
@@ -127,11 +131,17 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
         if (footer != null && !footer.isEmpty()) {
             String footerValidation = validateTextWithFormatting(footer, "Footer", 2048);
             if (footerValidation != null) {
-                event.reply(footerValidation).setEphemeral(true).queue();
+                event.getHook().sendMessage(footerValidation).queue();
                 return;
             }
         }
 
+        // Check if guild already has maximum embeds
+        if (handler.getNumberOfEmbedsInDataBase(event.getGuild().getId()) >= 3) {
+            event.getHook().sendMessage("❌ This server already has the maximum number of rules embeds (3). Please remove one before adding a new one.").queue();
+            return;
+        }
+
         // Add to database
         boolean success = handler.addRulesEmbedToDatabase(
                 Objects.requireNonNull(event.getGuild()).getId(),
@@ -157,9 +167,9 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
                 successMessage += "\n\n✨ **Formatting detected!** Your embed will display with Discord markdown formatting.";
             }
 
-            event.reply(successMessage).setEphemeral(true).queue();
+            event.getHook().sendMessage(successMessage).queue();
         } else {
-            event.reply("❌ Failed to add rules embed to database. Please try again or contact an administrator.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Failed to add rules embed to database. Please try again or contact an administrator.").queue();
         }
     }
 
@@ -180,35 +190,23 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
             case "add":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("rules-add");
+                // Answered with a modal right away; the embed limit is checked when it is submitted
                 handleAddRulesEmbedCommand(event, guildId);
                 break;
             case "setup":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("rules-setup");
-                handleSetupRulesCommand(event, guildId);
+                handler.runDeferred(event, true, () -> handleSetupRulesCommand(event, guildId));
                 break;
             case "remove":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("rules-remove");
-                handleRemoveEmbedCommand(event, guildId);
+                handler.runDeferred(event, true, () -> handleRemoveEmbedCommand(event, guildId));
                 break;
             case "list":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("rules-list");
-                List<DatabaseHandler.RulesEmbedData> embeds = handler.getAllRulesEmbedDataFromDatabase(guildId);
-                if (embeds.isEmpty()) {
-                    event.reply("❌ No rules embeds found in the database! Use `/rules add` to create some first.").setEphemeral(true).queue();
-                    return;
-                }
-
-                StringBuilder embedList = new StringBuilder("📋 **Current Rules Embeds in Database:**\n");
-                for (DatabaseHandler.RulesEmbedData embedData : embeds) {
-                    embedList.append("• ID: ").append(embedData.id)
-                             .append(" | Title: ").append(embedData.title)
-                             .append(" | Role ID: ").append(embedData.roleId)
-                             .append("\n");
-                }
-                event.reply(embedList.toString()).setEphemeral(true).queue();
+                handler.runDeferred(event, true, () -> handleListRulesCommand(event, guildId));
                 break;
             default:
                 break;
@@ -220,10 +218,27 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
         String customId = event.getComponentId();
         
         if (customId.startsWith("rules_verify_")) {
-            handleRulesVerificationButton(event, customId);
+            handler.runDeferred(event, true, () -> handleRulesVerificationButton(event, customId));
         }
     }
 
+    private void handleListRulesCommand(SlashCommandInteractionEvent event, String guildId) {
+        List<DatabaseHandler.RulesEmbedData> embeds = handler.getAllRulesEmbedDataFromDatabase(guildId);
+        if (embeds.isEmpty()) {
+            event.getHook().sendMessage("❌ No rules embeds found in the database! Use `/rules add` to create some first.").queue();
+            return;
+        }
+
+        StringBuilder embedList = new StringBuilder("📋 **Current Rules Embeds in Database:**\n");
+        for (DatabaseHandler.RulesEmbedData embedData : embeds) {
+            embedList.append("• ID: ").append(embedData.id)
+                     .append(" | Title: ").append(embedData.title)
+                     .append(" | Role ID: ").append(embedData.roleId)
+                     .append("\n");
+        }
+        event.getHook().sendMessage(embedList.toString()).queue();
+    }
+
     private void handleAddRulesEmbedCommand(SlashCommandInteractionEvent event, String guildId) {
         // Check if user has permission to manage server
         Member member = event.getMember();
@@ -232,12 +247,6 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
             return;
         }
 
-        // Check if guild already has maximum embeds
-        if (handler.getNumberOfEmbedsInDataBase(guildId) >= 3) {
-            event.reply("❌ This server already has the maximum number of rules embeds (3). Please remove one before adding a new one.").setEphemeral(true).queue();
-            return;
-        }
-
         if (event.getOption("role_to_give") == null) {
             event.reply("❌ You must specify a role to assign upon verification!").setEphemeral(true).queue();
             return;
@@ -291,7 +300,7 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
         // Check if user has permission to manage server
         Member member = event.getMember();
         if (member == null || !member.hasPermission(Permission.MANAGE_SERVER)) {
-            event.reply("❌ You need the **Manage Server** permission to use this command!").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You need the **Manage Server** permission to use this command!").queue();
             return;
         }
 
@@ -299,7 +308,7 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
         ArrayList<DatabaseHandler.RulesEmbedData> embedDataList = handler.getAllRulesEmbedDataFromDatabase(guildId);
         
         if (embedDataList.isEmpty()) {
-            event.reply("❌ No rules embeds found in the database! Use `/rules add` to create some first.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ No rules embeds found in the database! Use `/rules add` to create some first.").queue();
             return;
         }
 
@@ -331,29 +340,28 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
             }
 
         }
-        event.reply("✅ Successfully set up " + embedDataList.size() + " rules embed(s) in this channel!").setEphemeral(true).queue();
-        //event.getHook().editOriginal("✅ Successfully set up " + embedDataList.size() + " rules embed(s) in this channel!").queue();
+        event.getHook().sendMessage("✅ Successfully set up " + embedDataList.size() + " rules embed(s) in this channel!").queue();
     }
 
     private void handleRemoveEmbedCommand(SlashCommandInteractionEvent event, String guildId) {
         // Check if user has permission to manage server
         Member member = event.getMember();
         if (member == null || !member.hasPermission(Permission.MANAGE_SERVER)) {
-            event.reply("❌ You need the **Manage Server** permission to use this command!").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You need the **Manage Server** permission to use this command!").queue();
             return;
         }
 
         if (event.getOption("embed_id") == null) {
-            event.reply("❌ You must specify the ID of the embed to remove!").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You must specify the ID of the embed to remove!").queue();
             return;
         }
         String embedId = Objects.requireNonNull(event.getOption("embed_id")).getAsString();
 
         boolean success = handler.removeRulesEmbedFromDatabase(guildId, embedId);
         if (success) {
-            event.reply("✅ Successfully removed the rules embed with ID " + embedId + " from the database!").setEphemeral(true).queue();
+            event.getHook().sendMessage("✅ Successfully removed the rules embed with ID " + embedId + " from the database!").queue();
         } else {
-            event.reply("❌ Failed to remove the rules embed. Please ensure the ID is correct and try again.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Failed to remove the rules embed. Please ensure the ID is correct and try again.").queue();
         }
     }
 
@@ -366,19 +374,19 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
             // Get the role
             Role verificationRole = Objects.requireNonNull(event.getGuild()).getRoleById(embedId);
             if (verificationRole == null) {
-                event.reply("❌ Error: The verification role no longer exists. Please contact an administrator.").setEphemeral(true).queue();
+                event.getHook().sendMessage("❌ Error: The verification role no longer exists. Please contact an administrator.").queue();
                 return;
             }
             
             Member member = event.getMember();
             if (member == null) {
-                event.reply("❌ Error: Could not find your member information.").setEphemeral(true).queue();
+                event.getHook().sendMessage("❌ Error: Could not find your member information.").queue();
                 return;
             }
             
             // Check if user already has the role
             if (member.getRoles().contains(verificationRole)) {
-                event.reply("✅ You already have the " + verificationRole.getName() + " role!").setEphemeral(true).queue();
+                event.getHook().sendMessage("✅ You already have the " + verificationRole.getName() + " role!").queue();
                 return;
             }
             
@@ -387,17 +395,17 @@ public class AddRulesEmbedToChannelCommandListener extends ListenerAdapter {
                 success -> {
                     // Track verification statistics
                     handler.incrementVerificationsPerformed(event.getGuild().getId());
-                    event.reply("✅ Successfully verified! You have been given the " + verificationRole.getName() + " role.").setEphemeral(true).queue();
+                    event.getHook().sendMessage("✅ Successfully verified! You have been given the " + verificationRole.getName() + " role.").queue();
                 },
                 error -> {
-                    event.reply("❌ Failed to assign role. The bot may not have permission to manage this role.").setEphemeral(true).queue();
+                    event.getHook().sendMessage("❌ Failed to assign role. The bot may not have permission to manage this role.").queue();
                 }
             );
             
         } catch (NumberFormatException e) {
-            event.reply("❌ Error: Invalid button configuration.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Error: Invalid button configuration.").queue();
         } catch (Exception e) {
-            event.reply("❌ An unexpected error occurred. Please try again later.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ An unexpected error occurred. Please try again later.").queue();
             System.err.println("Error in rules verification button: " + e.getMessage());
             e.printStackTrace();
         }
@@ -0,0 +1,196 @@
+package org.ToastiCodingStuff.Sloth;
+
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which members and entities JDA keeps in memory. The "lean" profile caches only
+ * members in voice channels, guild owners and members that recently used an interaction
+ * (bounded LRU), plus every member of guilds whose role events react to role changes - JDA
+ * only fires role update events for cached members, so those guilds are chunked (at startup,
+ * or as soon as such a rule is created). Everything else is addressed by id; the cache is
+ * pruned periodically so members that no longer match the policy are dropped.
+ * The "full" profile caches and chunks all members.
+ *
+ * Configuration (environment):
+ * SLOTH_CACHE_PROFILE         - lean or full (default lean)
+ * SLOTH_MEMBER_LRU_SIZE       - recently interacting members kept cached (default 10000)
+ * SLOTH_MEMBER_PRUNE_MINUTES  - how often the member cache is pruned (default 10)
+ */
+public class CacheProfile extends ListenerAdapter {
+
+    private final DatabaseHandler handler;
+    private final boolean full;
+    private final Set<String> fullMemberGuilds = ConcurrentHashMap.newKeySet();
+    // "guildId:userId" of members that used an interaction, LRU-bounded
+    private final LinkedHashMap<String, Boolean> recentMembers;
+    private final ScheduledExecutorService scheduler;
+    private final int pruneMinutes;
+    private volatile ShardManager shardManager;
+
+    public CacheProfile(DatabaseHandler handler) {
+        this(handler, EnvConfig.getString("SLOTH_CACHE_PROFILE", "lean"),
+                EnvConfig.getInt("SLOTH_MEMBER_LRU_SIZE", 10000), EnvConfig.getInt("SLOTH_MEMBER_PRUNE_MINUTES", 10));
+    }
+
+    /**
+     * @param profile "full", anything else (or null) selects the lean profile
+     */
+    public CacheProfile(DatabaseHandler handler, String profile, int lruSize, int pruneMinutes) {
+        this.handler = handler;
+        this.full = "full".equalsIgnoreCase(profile);
+        this.pruneMinutes = Math.max(1, pruneMinutes);
+        int maxSize = Math.max(1, lruSize);
+        this.recentMembers = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Sloth-CacheProfile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!full) {
+            loadFullMemberGuilds();
+        }
+    }
+
+    /**
+     * Guilds with active role events triggered by role changes need their full member list
+     */
+    private void loadFullMemberGuilds() {
+        String query = "SELECT DISTINCT guild_id FROM role_events WHERE active = 1 " +
+                "AND event_type IN ('" + RoleEventType.ROLE_ADD + "', '" + RoleEventType.ROLE_REMOVE + "')" +
+                handler.getShardRange().sqlFilter("guild_id");
+        try (Connection connection = handler.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                fullMemberGuilds.add(rs.getString("guild_id"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading guilds with role triggers: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Configure member cache, chunking and cache flags of the builder
+     */
+    public DefaultShardManagerBuilder apply(DefaultShardManagerBuilder builder) {
+        // Presence data is never used (and needs the presence intent)
+        builder.disableCache(CacheFlag.ACTIVITY, CacheFlag.CLIENT_STATUS, CacheFlag.ONLINE_STATUS,
+                CacheFlag.EMOJI, CacheFlag.STICKER, CacheFlag.SCHEDULED_EVENTS);
+        if (full) {
+            System.out.println("Cache profile: full (all members cached and chunked)");
+            return builder.setMemberCachePolicy(MemberCachePolicy.ALL).setChunkingFilter(ChunkingFilter.ALL);
+        }
+        System.out.println("Cache profile: lean (" + fullMemberGuilds.size() + " guilds with full member lists)");
+        return builder
+                .setMemberCachePolicy(MemberCachePolicy.VOICE.or(MemberCachePolicy.OWNER).or(this::keepMember))
+                .setChunkingFilter(guildId -> fullMemberGuilds.contains(Long.toUnsignedString(guildId)));
+    }
+
+    private boolean keepMember(Member member) {
+        if (fullMemberGuilds.contains(member.getGuild().getId())) {
+            return true;
+        }
+        synchronized (recentMembers) {
+            return recentMembers.containsKey(member.getGuild().getId() + ":" + member.getId());
+        }
+    }
+
+    /**
+     * Start pruning once the shards are ready
+     */
+    public void start(ShardManager shardManager) {
+        this.shardManager = shardManager;
+        if (full) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::prune, pruneMinutes, pruneMinutes, TimeUnit.MINUTES);
+    }
+
+    private void prune() {
+        try {
+            ShardManager current = shardManager;
+            if (current == null) return;
+            for (Guild guild : current.getGuilds()) {
+                if (!fullMemberGuilds.contains(guild.getId())) {
+                    guild.pruneMemberCache();
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error pruning member cache: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void onGenericInteractionCreate(GenericInteractionCreateEvent event) {
+        if (full || event.getGuild() == null || event.getMember() == null) {
+            return;
+        }
+        synchronized (recentMembers) {
+            recentMembers.put(event.getGuild().getId() + ":" + event.getMember().getId(), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Called when the role events of a guild changed; loads the member list if the guild
+     * now has rules that react to role changes
+     */
+    public void roleEventsChanged(String guildId) {
+        if (full || fullMemberGuilds.contains(guildId)) {
+            return;
+        }
+        scheduler.execute(() -> {
+            RoleEventRuleEngine engine = handler.getRoleEventRuleEngine();
+            if (!engine.hasRules(guildId, RoleEventType.ROLE_ADD) && !engine.hasRules(guildId, RoleEventType.ROLE_REMOVE)) {
+                return;
+            }
+            ShardManager current = shardManager;
+            Guild guild = current != null ? current.getGuildById(guildId) : null;
+            if (guild == null || !fullMemberGuilds.add(guildId)) {
+                return;
+            }
+            guild.loadMembers().onError(error -> {
+                fullMemberGuilds.remove(guildId);
+                System.err.println("Could not load members of guild " + guildId + ": " + error.getMessage());
+            });
+        });
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public int getFullMemberGuildCount() {
+        return fullMemberGuilds.size();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
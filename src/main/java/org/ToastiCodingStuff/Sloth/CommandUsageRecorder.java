@@ -0,0 +1,169 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records slash command usage for the global_statistics table without touching the
+ * database on the interaction thread. Command names are queued in a lock-free buffer,
+ * coalesced per command and written with one multi-row upsert every few seconds.
+ *
+ * Configuration (environment):
+ * COMMAND_STATS_FLUSH_SECONDS    - how often the buffer is written (default 5)
+ * COMMAND_STATS_QUEUE_CAPACITY   - maximum number of buffered usages (default 10000)
+ */
+public class CommandUsageRecorder {
+
+    private final DatabaseHandler handler;
+    private final ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int capacity;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    // Usages that were counted but could not be written yet (failed flush), retried next time
+    private final Map<String, Long> carryOver = new HashMap<>();
+
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private volatile boolean shutdown = false;
+
+    public CommandUsageRecorder(DatabaseHandler handler) {
+        this(handler, EnvConfig.getInt("COMMAND_STATS_FLUSH_SECONDS", 5), EnvConfig.getInt("COMMAND_STATS_QUEUE_CAPACITY", 10000));
+    }
+
+    public CommandUsageRecorder(DatabaseHandler handler, int flushSeconds, int capacity) {
+        this.handler = handler;
+        this.capacity = Math.max(1, capacity);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Sloth-CommandUsageFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, flushSeconds);
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Count one usage of the given command. Never blocks; if the buffer is full the usage
+     * is dropped and counted in {@link #getDroppedCount()}.
+     */
+    public void record(String command) {
+        if (command == null || shutdown) {
+            return;
+        }
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            droppedCount.incrementAndGet();
+            // Drain early so the following usages fit again
+            if (drainScheduled.compareAndSet(false, true)) {
+                overflowCount.incrementAndGet();
+                flusher.execute(() -> {
+                    drainScheduled.set(false);
+                    flushQuietly();
+                });
+            }
+            return;
+        }
+        queue.offer(command);
+        recordedCount.incrementAndGet();
+    }
+
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    /**
+     * Number of usages discarded because the buffer was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Number of times the buffer hit its capacity and forced an early flush
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Error flushing command usage statistics: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Drain the buffer and write the coalesced counts in one upsert
+     */
+    public synchronized void flush() {
+        Map<String, Long> counts = new HashMap<>(carryOver);
+        carryOver.clear();
+        String command;
+        while ((command = queue.poll()) != null) {
+            queued.decrementAndGet();
+            counts.merge(command, 1L, Long::sum);
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO global_statistics (command, number, last_used) VALUES ");
+        for (int i = 0; i < counts.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE number = number + VALUES(number), last_used = VALUES(last_used)");
+
+        String today = java.time.LocalDate.now().toString();
+        try (Connection connection = handler.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                stmt.setString(index++, entry.getKey());
+                stmt.setLong(index++, entry.getValue());
+                stmt.setString(index++, today);
+            }
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error updating global statistics (" + counts.size() + " commands): " + e.getMessage());
+            carryOver.putAll(counts);
+        }
+    }
+
+    /**
+     * Stop accepting usages, stop the flusher and write what is still buffered
+     */
+    public void shutdown() {
+        shutdown = true;
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (!carryOver.isEmpty()) {
+            System.err.println("Could not persist usage counts for " + carryOver.size() + " commands on shutdown");
+        }
+    }
+}
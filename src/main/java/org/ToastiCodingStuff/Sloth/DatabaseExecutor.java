@@ -0,0 +1,183 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for database work, so JDA event threads never wait on JDBC.
+ * Uses virtual threads when the runtime provides them (Java 21+), otherwise a fixed pool
+ * of platform threads. In both cases at most {@code threads} tasks touch the database at
+ * the same time and at most {@code queueCapacity} more are waiting; further tasks are
+ * rejected with a failed future instead of piling up behind a slow database.
+ *
+ * Configuration (environment):
+ * DB_EXECUTOR_THREADS         - concurrent database tasks (default: the connection pool size)
+ * DB_EXECUTOR_QUEUE_CAPACITY  - waiting tasks before new ones are rejected (default 1000)
+ * DB_EXECUTOR_VIRTUAL_THREADS - use virtual threads if available (default true)
+ */
+public class DatabaseExecutor {
+
+    private final ExecutorService executor;
+    // Limits concurrency of virtual threads, which are not pooled; null for the platform pool
+    private final Semaphore permits;
+    private final int maxPending;
+    private final boolean virtualThreads;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public DatabaseExecutor(int poolSize) {
+        this(EnvConfig.getInt("DB_EXECUTOR_THREADS", poolSize), EnvConfig.getInt("DB_EXECUTOR_QUEUE_CAPACITY", 1000),
+                EnvConfig.getBoolean("DB_EXECUTOR_VIRTUAL_THREADS", true));
+    }
+
+    public DatabaseExecutor(int threads, int queueCapacity, boolean preferVirtualThreads) {
+        int size = Math.max(1, threads);
+        this.maxPending = size + Math.max(0, queueCapacity);
+
+        ExecutorService virtual = preferVirtualThreads ? createVirtualThreadExecutor() : null;
+        if (virtual != null) {
+            this.executor = virtual;
+            this.permits = new Semaphore(size);
+            this.virtualThreads = true;
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "Sloth-DB-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.permits = null;
+            this.virtualThreads = false;
+        }
+        System.out.println("Database executor started with " + size + " " + (virtualThreads ? "virtual" : "platform")
+                + " threads, queue capacity " + (maxPending - size));
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() via reflection, the project still compiles for Java 11
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (Exception e) {
+            System.err.println("Virtual threads unavailable, using platform threads: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Run a database call asynchronously and complete the future with its result
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            future.completeExceptionally(new RejectedExecutionException("Database executor queue is full"));
+            return future;
+        }
+        try {
+            executor.execute(() -> runTask(task, future));
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private <T> void runTask(Supplier<T> task, CompletableFuture<T> future) {
+        try {
+            if (permits != null) {
+                permits.acquire();
+            }
+            try {
+                T result = task.get();
+                completedCount.incrementAndGet();
+                future.complete(result);
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedCount.incrementAndGet();
+            future.completeExceptionally(e);
+        } catch (Throwable t) {
+            failedCount.incrementAndGet();
+            future.completeExceptionally(t);
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stop accepting work and wait for running and queued tasks to finish; does nothing if the
+     * executor was already shut down and drained
+     */
+    public void shutdown(long timeoutSeconds) {
+        if (executor.isTerminated()) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                System.err.println("Database executor did not finish within " + timeoutSeconds + "s, "
+                        + pending.get() + " tasks abandoned");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Tasks that are running or waiting to run
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
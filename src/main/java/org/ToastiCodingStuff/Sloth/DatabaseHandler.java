@@ -2,8 +2,10 @@ package org.ToastiCodingStuff.Sloth;
 
 import java.awt.Color;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -11,6 +13,9 @@ import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.entities.emoji.Emoji;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.interactions.callbacks.IMessageEditCallback;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
 import net.dv8tion.jda.api.interactions.components.buttons.Button;
 
 public class DatabaseHandler {
@@ -25,7 +30,8 @@ public class DatabaseHandler {
                 "SUM(tickets_created) AS total_tickets_created, " +
                 "SUM(tickets_closed) AS total_tickets_closed, " +
                 "SUM(verifications_performed) AS total_verifications " +
-                "FROM statistics WHERE guild_id = ?";
+                // Rollup: at most one row per guild, SUM keeps a result row for guilds without statistics
+                "FROM statistics_guild_lifetime WHERE guild_id = ?";
 
         try (Connection connection = getConnection();
              PreparedStatement pstmt = connection.prepareStatement(query)) {
@@ -153,18 +159,36 @@ public class DatabaseHandler {
         }
     }
 
+    // Rows per JDBC batch when syncing guilds at startup
+    private static final int GUILD_SYNC_BATCH_SIZE = 500;
+
     private final HikariDataSource dataSource;
+    private final DatabaseMetrics databaseMetrics = new DatabaseMetrics();
     private final DatabaseMigrationManager migrationManager;
+    private final StatisticsAggregator statisticsAggregator;
+    private final CommandUsageRecorder commandUsageRecorder;
+    private final UserProfileSink userProfileSink;
+    private final GuildConfigCache guildConfigCache;
+    private final RoleEventRuleEngine roleEventRuleEngine;
+    private final RoleSelectIndex roleSelectIndex;
+    private final GlobalStatsCache globalStatsCache;
+    private final TicketMessageRecorder ticketMessageRecorder;
+    private final TicketChannelSorter ticketChannelSorter;
+    private final DatabaseExecutor databaseExecutor;
+    private final ShardRange shardRange = ShardRange.fromEnvironment();
+    private volatile TimedRoleScheduler timerScheduler;
+    private volatile CacheProfile cacheProfile;
     
     public DatabaseHandler() {
         HikariDataSource ds = null;
+        int poolSize = EnvConfig.getInt("DB_POOL_MAX_SIZE", 10);
         try {
             // Configure HikariCP connection pool
-            String host = System.getenv().getOrDefault("DB_HOST", "localhost");
-            String port = System.getenv().getOrDefault("DB_PORT", "3306");
-            String database = System.getenv().getOrDefault("DB_NAME", "sloth");
-            String user = System.getenv().getOrDefault("DB_USER", "root");
-            String password = System.getenv().getOrDefault("DB_PASSWORD", "admin");
+            String host = readSetting("DB_HOST", "localhost");
+            String port = readSetting("DB_PORT", "3306");
+            String database = readSetting("DB_NAME", "sloth");
+            String user = readSetting("DB_USER", "root");
+            String password = readSetting("DB_PASSWORD", "admin");
             
             String url = String.format("jdbc:mariadb://%s:%s/%s", host, port, database);
             System.out.println("Configuring HikariCP connection pool for MariaDB: " + url);
@@ -173,11 +197,13 @@ public class DatabaseHandler {
             config.setJdbcUrl(url);
             config.setUsername(user);
             config.setPassword(password);
-            config.setMaximumPoolSize(10);
-            config.setMinimumIdle(2);
-            config.setIdleTimeout(300000); // 5 minutes
-            config.setConnectionTimeout(30000); // 30 seconds
-            config.setMaxLifetime(1800000); // 30 minutes
+            config.setMaximumPoolSize(poolSize);
+            config.setMinimumIdle(Math.min(poolSize, EnvConfig.getInt("DB_POOL_MIN_IDLE", 2)));
+            config.setIdleTimeout(EnvConfig.getInt("DB_POOL_IDLE_TIMEOUT_MS", 300000)); // 5 minutes
+            config.setConnectionTimeout(EnvConfig.getInt("DB_POOL_CONNECTION_TIMEOUT_MS", 30000)); // 30 seconds
+            config.setMaxLifetime(EnvConfig.getInt("DB_POOL_MAX_LIFETIME_MS", 1800000)); // 30 minutes
+            // Logs a stack trace for connections held longer than this (0 = off, Hikari minimum is 2s)
+            config.setLeakDetectionThreshold(EnvConfig.getInt("DB_POOL_LEAK_DETECTION_MS", 60000));
             config.setAutoCommit(true);
             config.setPoolName("SlothDBPool");
             
@@ -187,42 +213,61 @@ public class DatabaseHandler {
             config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
             
             ds = new HikariDataSource(config);
-            System.out.println("Successfully created HikariCP connection pool");
+            databaseMetrics.bindPool(ds);
+            System.out.println("Successfully created HikariCP connection pool (max " + poolSize + " connections)");
             
         } catch (Exception e) {
             System.err.println("Database connection pool error: " + e.getMessage());
         }
         this.dataSource = ds;
         this.migrationManager = new DatabaseMigrationManager(this);
+        this.statisticsAggregator = new StatisticsAggregator(this);
+        this.commandUsageRecorder = new CommandUsageRecorder(this);
+        this.userProfileSink = new UserProfileSink(this);
+        this.guildConfigCache = new GuildConfigCache(this::loadGuildConfig);
+        this.roleEventRuleEngine = new RoleEventRuleEngine(this::getActiveRoleEvents);
+        this.roleSelectIndex = new RoleSelectIndex(this::loadRoleSelectIndex);
+        this.databaseExecutor = new DatabaseExecutor(poolSize);
         initializeTables();
+        this.globalStatsCache = new GlobalStatsCache(this::loadGlobalStatsSnapshot);
+        this.ticketMessageRecorder = new TicketMessageRecorder(this);
+        ticketMessageRecorder.loadOpenTickets();
+        this.ticketChannelSorter = new TicketChannelSorter(this);
+        ticketChannelSorter.loadOpenTickets();
+        if (IndexAdvisor.isEnabled()) {
+            // Query plans are only checked, never changed, so startup does not wait for it
+            runAsync(() -> new IndexAdvisor(this).run());
+        }
     }
     
+    /**
+     * Connection setting from the environment, or from a system property of the same name
+     * (used by the benchmarks to point the handler at an embedded database)
+     */
+    private static String readSetting(String name, String defaultValue) {
+        String value = System.getenv(name);
+        if (value == null) {
+            value = System.getProperty(name);
+        }
+        return value != null ? value : defaultValue;
+    }
+
     /**
      * Get a connection from the pool. Callers should use try-with-resources to ensure proper release.
+     * The connection is wrapped so acquisition time and statement latency are recorded in {@link DatabaseMetrics}.
      */
     public Connection getConnection() throws SQLException {
         if (dataSource == null) {
             throw new SQLException("DataSource is not initialized");
         }
-        return dataSource.getConnection();
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        databaseMetrics.recordConnectionAcquire(System.nanoTime() - start);
+        return databaseMetrics.wrap(connection);
     }
 
-    /**
-     * Check if database tables already exist
-     */
-    private boolean tableAlreadyExist (String tableName) {
-        try (Connection connection = getConnection()) {
-            DatabaseMetaData meta = connection.getMetaData();
-            ResultSet rs = meta.getTables(null, null, tableName, null);
-            if (!rs.next()) {
-                return false; // If any table does not exist, return false
-            }
-            return true; // All tables exist
-        } catch (SQLException e) {
-            System.err.println("Error checking database tables: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+    public DatabaseMetrics getDatabaseMetrics() {
+        return databaseMetrics;
     }
 
     /**
@@ -242,100 +287,151 @@ public class DatabaseHandler {
      * - Data preservation during migrations
      * - Rollback safety (additive changes only)
      * - Migration history and performance tracking
+     *
+     * Column and index introspection (steps 2-5) only runs when a table had to be created or
+     * the schema definitions changed since the last verified run (see
+     * {@link DatabaseMigrationManager#isSchemaUpToDate()}); an unchanged schema costs one
+     * metadata query and one lookup in database_migrations.
      */
     protected void initializeTables() {
-        try (Connection connection = getConnection()) {
+        try {
+            boolean tablesCreated = createMissingTables();
 
-            // Check for every table if already exist, if so apply migrations instead of full initialization
-            String[] tableNames = {
-                    "users", "warnings", "moderation_actions", "tickets", "ticket_messages",
-                    "guild_settings", "role_permissions", "statistics", "guilds", "guild_systems", "rules_embeds_channel", "just_verify_button", "user_statistics", "role_select", "role_select_embeds", "active_timers", "role_events"
-            };
-            for (String tableName : tableNames) {
-                if (!tableAlreadyExist(tableName)) {
-                    System.out.println("Table '" + tableName + "' does not exist. Proceeding with full initialization.");
-                    switch (tableName) {
-                        case "users":
-                            createUsersTable();
-                            break;
-                        case "guilds":
-                            createGuildsTable();
-                            break;
-                        case "warnings":
-                            createWarningsTable();
-                            break;
-                        case "moderation_actions":
-                            createModerationActionsTable();
-                            break;
-                        case "tickets":
-                            createTicketsTable();
-                            break;
-                        case "ticket_messages":
-                            createTicketMessagesTable();
-                            break;
-                        case "guild_settings":
-                            createGuildSettingsTable();
-                            break;
-                        case "statistics":
-                            createStatisticsTable();
-                            break;
-                        case "user_statistics":
-                            createUserStatisticsTable();
-                            break;
-                        case "rules_embeds_channel":
-                            createRulesEmbedsChannel();
-                            break;
-                        case "just_verify_button":
-                            createJustVerifyButtonTable();
-                            break;
-                        case "role_select":
-                            createSelectRolesTable();
-                            break;
-                        case "role_select_embeds":
-                            createSelectRolesEmbedsTable();
-                            break;
-                        case "active_timers":
-                            createActiveTimersTable();
-                            break;
-                        case "role_events":
-                            createRoleEventsTable();
-                            break;
-                    }
-                    return;
-                }
-            }
-            
-            // Handle statistics table migrations (legacy compatibility)
-            migrateStatisticsTable();
-            
             // Create legacy tables for backward compatibility
             createLegacyTables();
-            
-            // Run migration check to ensure everything is up to date
-            migrationManager.detectAndApplyMissingColumns();
-            
-            // Validate the final schema
-            migrationManager.validateDatabaseSchema();
-            
+
+            // Runs on every start: the counter upserts are wrong without these keys, whatever the fingerprint says
+            migrateStatisticsUniqueKeys();
+
+            if (!tablesCreated && migrationManager.isSchemaUpToDate()) {
+                System.out.println("Database schema unchanged since last verified run, skipping migration checks.");
+                return;
+            }
+            runSchemaMigrations();
         } catch (SQLException e) {
             System.err.println("Error initializing database tables: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Create every table that does not exist yet, existing tables are looked up with a single information_schema query
+     * @return true if at least one table was created
+     */
+    private boolean createMissingTables() throws SQLException {
+        Set<String> existingTables = migrationManager.loadCurrentSchema().getTableNames();
+
+        String[] tableNames = {
+                "users", "warnings", "moderation_actions", "tickets", "ticket_messages",
+                "guild_settings", "statistics", "guilds", "rules_embeds_channel", "just_verify_button", "user_statistics", "role_select", "role_select_embeds", "active_timers", "role_events",
+                "statistics_guild_lifetime", "statistics_guild_monthly", "user_statistics_lifetime"
+        };
+        boolean created = false;
+        boolean rollupsCreated = false;
+        for (String tableName : tableNames) {
+            if (!existingTables.contains(tableName)) {
+                System.out.println("Table '" + tableName + "' does not exist. Creating it.");
+                switch (tableName) {
+                    case "users":
+                        createUsersTable();
+                        break;
+                    case "guilds":
+                        createGuildsTable();
+                        break;
+                    case "warnings":
+                        createWarningsTable();
+                        break;
+                    case "moderation_actions":
+                        createModerationActionsTable();
+                        break;
+                    case "tickets":
+                        createTicketsTable();
+                        break;
+                    case "ticket_messages":
+                        createTicketMessagesTable();
+                        break;
+                    case "guild_settings":
+                        createGuildSettingsTable();
+                        break;
+                    case "statistics":
+                        createStatisticsTable();
+                        break;
+                    case "user_statistics":
+                        createUserStatisticsTable();
+                        break;
+                    case "rules_embeds_channel":
+                        createRulesEmbedsChannel();
+                        break;
+                    case "just_verify_button":
+                        createJustVerifyButtonTable();
+                        break;
+                    case "role_select":
+                        createSelectRolesTable();
+                        break;
+                    case "role_select_embeds":
+                        createSelectRolesEmbedsTable();
+                        break;
+                    case "active_timers":
+                        createActiveTimersTable();
+                        break;
+                    case "role_events":
+                        createRoleEventsTable();
+                        break;
+                    case "statistics_guild_lifetime":
+                    case "statistics_guild_monthly":
+                    case "user_statistics_lifetime":
+                        createStatisticsRollupTable(tableName);
+                        rollupsCreated = true;
+                        break;
+                }
+                created = true;
+            }
+        }
+        if (rollupsCreated) {
+            // Backfill new rollup tables from the existing daily statistics
+            statisticsAggregator.rebuildRollups(null);
+        }
+        return created;
+    }
+
+    /**
+     * Bring existing tables up to date: legacy statistics migration, missing columns, missing indexes.
+     * The schema fingerprint is only recorded if the result validates, so a failed run is retried on the next start.
+     */
+    private void runSchemaMigrations() throws SQLException {
+        long startTime = System.currentTimeMillis();
+
+        // Handle statistics table migrations (legacy compatibility)
+        migrateStatisticsTable();
+        migrateTicketMessagesTable();
+
+        // Run migration check to ensure everything is up to date
+        migrationManager.detectAndApplyMissingColumns();
+        applyMissingIndexes();
+
+        // Validate the final schema
+        if (migrationManager.validateDatabaseSchema()) {
+            migrationManager.recordSchemaFingerprint(System.currentTimeMillis() - startTime);
+        }
+    }
+
     /**
      * Apply any missing indexes for existing tables using the migration manager
      */
     private void applyMissingIndexes() {
         try {
             Map<String, DatabaseMigrationManager.TableSchema> expectedSchemas = migrationManager.getExpectedSchemas();
+            DatabaseMigrationManager.SchemaSnapshot currentSchema = migrationManager.loadCurrentSchema();
             
             for (Map.Entry<String, DatabaseMigrationManager.TableSchema> entry : expectedSchemas.entrySet()) {
                 String tableName = entry.getKey();
                 DatabaseMigrationManager.TableSchema schema = entry.getValue();
+                if (!currentSchema.hasTable(tableName)) {
+                    continue;
+                }
                 
                 try {
-                    migrationManager.applyIndexes(tableName, schema);
+                    migrationManager.applyIndexes(tableName, schema, currentSchema);
                 } catch (SQLException e) {
                     System.err.println("Error applying indexes for table '" + tableName + "': " + e.getMessage());
                 }
@@ -499,7 +595,8 @@ public class DatabaseHandler {
             "closed_reason TEXT, " +
             "created_at DATETIME DEFAULT CURRENT_TIMESTAMP, " +
             "updated_at DATETIME DEFAULT CURRENT_TIMESTAMP, " +
-            "closed_at DATETIME)";
+            "closed_at DATETIME, " +
+            "messages_incomplete INT DEFAULT 0)";
         try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
             stmt.execute(createTable);
         }
@@ -510,14 +607,15 @@ public class DatabaseHandler {
      */
     private void createTicketMessagesTable() throws SQLException {
         String createTable = "CREATE TABLE IF NOT EXISTS ticket_messages (" +
-            "id INTEGER PRIMARY KEY AUTO_INCREMENT, " +
-            "ticket_id INTEGER NOT NULL, " +
-            "user_id INTEGER NOT NULL, " +
-            "message_id INTEGER NOT NULL, " +
+            "id BIGINT PRIMARY KEY AUTO_INCREMENT, " +
+            "ticket_id INT NOT NULL, " +
+            "user_id BIGINT NOT NULL, " +
+            "author_name VARCHAR(255), " +
+            "message_id BIGINT NOT NULL, " +
             "content TEXT NOT NULL, " +
             "attachments TEXT, " +
-            "is_staff INTEGER DEFAULT 0, " +
-            "created_at TEXT DEFAULT CURRENT_TIMESTAMP)";
+            "is_staff INT DEFAULT 0, " +
+            "created_at DATETIME DEFAULT CURRENT_TIMESTAMP)";
         try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
             stmt.execute(createTable);
         }
@@ -565,7 +663,7 @@ public class DatabaseHandler {
                 "tickets_closed INT DEFAULT 0, " +
                 "verifications_performed INT DEFAULT 0, " +
                 "created_at DATETIME DEFAULT CURRENT_TIMESTAMP, " +
-                "UNIQUE(guild_id, user_id, date))";
+                "UNIQUE KEY uq_statistics_guild_date (guild_id, date))";
         try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
             stmt.execute(createTable);
         }
@@ -595,12 +693,39 @@ public class DatabaseHandler {
                 "verifications_performed INT DEFAULT 0, " +
                 "messages_sent INT DEFAULT 0, " +
                 "created_at DATETIME DEFAULT CURRENT_TIMESTAMP, " +
-                "UNIQUE(guild_id, user_id))";
+                "UNIQUE KEY uq_user_statistics_guild_user_date (guild_id, user_id, date))";
         try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
             stmt.execute(createTable);
         }
     }
 
+    /**
+     * Create one of the statistics rollup tables maintained by the StatisticsAggregator
+     */
+    private void createStatisticsRollupTable(String tableName) throws SQLException {
+        boolean userTable = "user_statistics_lifetime".equals(tableName);
+        StringBuilder createTable = new StringBuilder("CREATE TABLE IF NOT EXISTS ").append(tableName).append(" (")
+                .append("guild_id VARCHAR(32) NOT NULL, ");
+        if (userTable) {
+            createTable.append("user_id VARCHAR(32) NOT NULL, ");
+        } else if ("statistics_guild_monthly".equals(tableName)) {
+            createTable.append("month CHAR(7) NOT NULL, ");
+        }
+        for (String column : userTable ? StatisticsAggregator.USER_COLUMNS : StatisticsAggregator.GUILD_COLUMNS) {
+            createTable.append(column).append(" BIGINT DEFAULT 0, ");
+        }
+        if (userTable) {
+            createTable.append("PRIMARY KEY (guild_id, user_id))");
+        } else if ("statistics_guild_monthly".equals(tableName)) {
+            createTable.append("PRIMARY KEY (guild_id, month))");
+        } else {
+            createTable.append("PRIMARY KEY (guild_id))");
+        }
+        try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute(createTable.toString());
+        }
+    }
+
     /**
      * Create role_events table for the Timed Roles feature
      */
@@ -651,6 +776,145 @@ public class DatabaseHandler {
         }
     }
 
+    /**
+     * Give statistics and user_statistics exactly the unique key the StatisticsAggregator upserts on.
+     * Older tables have UNIQUE(guild_id, user_id) on user_statistics (all days end up in the first row)
+     * and UNIQUE(guild_id, user_id, date) on statistics (NULL user ids never collide). Duplicate rows
+     * of the new key are merged into the oldest one, the old keys are dropped and the new key is added.
+     *
+     * @throws IllegalStateException if a key is still missing afterwards - the bot must not start,
+     *         every flush would insert new rows instead of adding to the existing ones
+     */
+    private void migrateStatisticsUniqueKeys() {
+        try {
+            migrateUniqueKey("statistics", "uq_statistics_guild_date",
+                    List.of("guild_id", "date"), StatisticsAggregator.GUILD_COLUMNS);
+            migrateUniqueKey("user_statistics", "uq_user_statistics_guild_user_date",
+                    List.of("guild_id", "user_id", "date"), StatisticsAggregator.USER_COLUMNS);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not migrate the unique keys of the statistics tables: " + e.getMessage(), e);
+        }
+    }
+
+    private void migrateUniqueKey(String table, String keyName, List<String> keyColumns, List<String> counterColumns) throws SQLException {
+        String expected = String.join(",", keyColumns);
+        Map<String, String> uniqueKeys = loadUniqueKeys(table);
+        boolean hasKey = expected.equals(uniqueKeys.get(keyName));
+        List<String> obsolete = new ArrayList<>();
+        for (Map.Entry<String, String> key : uniqueKeys.entrySet()) {
+            if (!key.getKey().equals(keyName)) {
+                obsolete.add(key.getKey());
+            }
+        }
+        if (hasKey && obsolete.isEmpty()) {
+            return;
+        }
+        System.out.println("Migrating unique keys of " + table + ": dropping " + obsolete
+                + (hasKey ? "" : ", adding " + keyName + " (" + expected + ")"));
+
+        String keyList = String.join(", ", keyColumns);
+        StringBuilder join = new StringBuilder();
+        for (String column : keyColumns) {
+            join.append(join.length() == 0 ? "" : " AND ").append("t.").append(column).append(" <=> d.").append(column);
+        }
+        StringBuilder sums = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        for (String column : counterColumns) {
+            sums.append(", SUM(").append(column).append(") AS ").append(column);
+            assignments.append(assignments.length() == 0 ? "" : ", ").append("t.").append(column).append(" = d.").append(column);
+        }
+        String duplicates = "SELECT " + keyList + ", MIN(id) AS keep_id" + sums + " FROM " + table +
+                " GROUP BY " + keyList + " HAVING COUNT(*) > 1";
+
+        try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            try {
+                // Alle Zähler einer Gruppe in die älteste Zeile, danach die übrigen Zeilen löschen
+                int merged = stmt.executeUpdate("UPDATE " + table + " t JOIN (" + duplicates + ") d ON t.id = d.keep_id SET " + assignments);
+                int deleted = stmt.executeUpdate("DELETE t FROM " + table + " t JOIN (" + duplicates + ") d ON " + join + " AND t.id <> d.keep_id");
+                connection.commit();
+                if (merged > 0 || deleted > 0) {
+                    System.out.println("Merged " + deleted + " duplicate rows of " + table + " into " + merged + " rows.");
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+            StringBuilder alter = new StringBuilder("ALTER TABLE ").append(table);
+            for (int i = 0; i < obsolete.size(); i++) {
+                alter.append(i == 0 ? " " : ", ").append("DROP INDEX `").append(obsolete.get(i)).append('`');
+            }
+            if (!hasKey) {
+                if (uniqueKeys.containsKey(keyName) || hasIndexNamed(table, keyName)) {
+                    // Same name, wrong columns (or not unique)
+                    alter.append(obsolete.isEmpty() ? " " : ", ").append("DROP INDEX ").append(keyName).append(", ");
+                } else {
+                    alter.append(obsolete.isEmpty() ? " " : ", ");
+                }
+                alter.append("ADD UNIQUE KEY ").append(keyName).append(" (").append(keyList).append(')');
+            }
+            stmt.execute(alter.toString());
+        }
+
+        if (!expected.equals(loadUniqueKeys(table).get(keyName))) {
+            throw new IllegalStateException("Unique key " + keyName + " (" + expected + ") is missing on " + table
+                    + ", buffered statistics cannot be written");
+        }
+    }
+
+    /**
+     * Unique keys of a table except the primary key: index name -> comma separated columns
+     */
+    private Map<String, String> loadUniqueKeys(String table) throws SQLException {
+        String query = "SELECT INDEX_NAME, GROUP_CONCAT(COLUMN_NAME ORDER BY SEQ_IN_INDEX) AS columns_list " +
+                "FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? " +
+                "AND NON_UNIQUE = 0 AND INDEX_NAME <> 'PRIMARY' GROUP BY INDEX_NAME";
+        Map<String, String> keys = new HashMap<>();
+        try (Connection connection = getConnection(); PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    keys.put(rs.getString("INDEX_NAME"), rs.getString("columns_list"));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private boolean hasIndexNamed(String table, String indexName) throws SQLException {
+        return migrationManager.loadCurrentSchema().hasIndex(table, indexName);
+    }
+
+    /**
+     * Widen the id columns of ticket_messages created with the old INTEGER schema
+     */
+    private void migrateTicketMessagesTable() throws SQLException {
+        try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
+            // Die alte Tabelle hatte INTEGER-Spalten, Discord-IDs passen da nicht hinein
+            ResultSet rs = stmt.executeQuery("SHOW COLUMNS FROM ticket_messages");
+            boolean needsWidening = false;
+            while (rs.next()) {
+                String columnName = rs.getString("Field");
+                String type = rs.getString("Type").toLowerCase();
+                if (("user_id".equals(columnName) || "message_id".equals(columnName)) && type.startsWith("int")) {
+                    needsWidening = true;
+                } else if ("created_at".equals(columnName) && type.contains("text")) {
+                    needsWidening = true;
+                }
+            }
+            if (needsWidening) {
+                System.out.println("Widening ticket_messages id columns for Discord snowflakes.");
+                stmt.execute("ALTER TABLE ticket_messages " +
+                        "MODIFY COLUMN user_id BIGINT NOT NULL, " +
+                        "MODIFY COLUMN message_id BIGINT NOT NULL, " +
+                        "MODIFY COLUMN created_at DATETIME DEFAULT CURRENT_TIMESTAMP");
+            }
+        }
+    }
+
     /**
      * Migrate existing statistics table to add timeout and verification columns
      * Note: This method is kept for backward compatibility. 
@@ -659,7 +923,7 @@ public class DatabaseHandler {
     private void migrateStatisticsTable() throws SQLException {
         try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
             // Prüfe, ob die Spalten bereits existieren
-            String checkColumns = "SHOW COLUMNS FROM statistics FROM sloth";
+            String checkColumns = "SHOW COLUMNS FROM statistics";
             ResultSet rs = stmt.executeQuery(checkColumns);
             boolean hasTimeouts = false;
             boolean hasUntimeouts = false;
@@ -861,6 +1125,113 @@ public class DatabaseHandler {
         }
     }
 
+    /**
+     * Recompute the lifetime and monthly statistics rollups of a guild (all guilds if null)
+     * from the daily statistics
+     */
+    public boolean rebuildStatisticsRollups(String guildId) {
+        return statisticsAggregator.rebuildRollups(guildId);
+    }
+
+    /**
+     * Run a database call on the database executor instead of the calling (JDA event) thread,
+     * e.g. {@code handler.supplyAsync(() -> handler.getUserInfoEmbed(guildId, userId))}.
+     * The future fails if the call throws or the executor is saturated.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        return databaseExecutor.supply(call);
+    }
+
+    public CompletableFuture<Void> runAsync(Runnable call) {
+        return databaseExecutor.run(call);
+    }
+
+    /**
+     * Acknowledge an interaction right away and run its handler on the database executor;
+     * the handler answers through {@code event.getHook()}. If the handler fails or the executor
+     * is saturated the user gets an error message instead of "The application did not respond".
+     */
+    public void runDeferred(IReplyCallback event, boolean ephemeral, Runnable handler) {
+        event.deferReply(ephemeral).queue();
+        whenFailed(runAsync(handler), event.getHook());
+    }
+
+    /**
+     * Like {@link #runDeferred(IReplyCallback, boolean, Runnable)} for components that edit the
+     * message they are attached to; the handler edits it with {@code event.getHook().editOriginal...}
+     */
+    public void runDeferredEdit(IMessageEditCallback event, Runnable handler) {
+        event.deferEdit().queue();
+        whenFailed(runAsync(handler), event.getHook());
+    }
+
+    /**
+     * Run database work for an interaction that is already acknowledged, e.g. from the success
+     * callback of a REST action; if it fails or is rejected the user gets an error through the hook.
+     */
+    public void runFollowUp(InteractionHook hook, Runnable work) {
+        whenFailed(runAsync(work), hook);
+    }
+
+    /**
+     * Answer a publicly deferred interaction with a message only the user sees. The first
+     * follow-up takes over the visibility of the deferred response, so that is deleted first.
+     */
+    public static void sendEphemeral(InteractionHook hook, String message) {
+        hook.deleteOriginal().queue(
+                deleted -> hook.sendMessage(message).setEphemeral(true).queue(),
+                error -> hook.sendMessage(message).setEphemeral(true).queue());
+    }
+
+    private static void whenFailed(CompletableFuture<Void> future, InteractionHook hook) {
+        future.exceptionally(error -> {
+            System.err.println("Error handling interaction: " + error.getMessage());
+            error.printStackTrace();
+            hook.sendMessage("❌ Something went wrong, please try again later.").setEphemeral(true).queue(null, e -> { });
+            return null;
+        });
+    }
+
+    public DatabaseExecutor getDatabaseExecutor() {
+        return databaseExecutor;
+    }
+
+    /**
+     * Get the compiled role event rules used by the trigger listeners
+     */
+    public RoleEventRuleEngine getRoleEventRuleEngine() {
+        return roleEventRuleEngine;
+    }
+
+    /**
+     * The shards of this process; background jobs only load rows of guilds on these shards
+     */
+    public ShardRange getShardRange() {
+        return shardRange;
+    }
+
+    /**
+     * Register the JDA cache profile, it loads member lists when role triggers are added
+     */
+    public void setCacheProfile(CacheProfile cacheProfile) {
+        this.cacheProfile = cacheProfile;
+    }
+
+    private void roleEventsChanged(String guildId) {
+        roleEventRuleEngine.invalidate(guildId);
+        CacheProfile profile = cacheProfile;
+        if (profile != null) {
+            profile.roleEventsChanged(guildId);
+        }
+    }
+
+    /**
+     * Register the scheduler that fires timed roles, so timer changes are mirrored in memory
+     */
+    public void setTimerScheduler(TimedRoleScheduler timerScheduler) {
+        this.timerScheduler = timerScheduler;
+    }
+
     /**
      * Get the migration manager instance for advanced migration operations
      */
@@ -870,15 +1241,15 @@ public class DatabaseHandler {
 
     /**
      * Manually trigger the comprehensive migration check
-     * This can be called to check for and apply any missing columns
+     * This can be called to check for and apply any missing columns,
+     * it runs regardless of the stored schema fingerprint
      */
     public void runMigrationCheck() {
         try {
             System.out.println("Manually triggering migration check...");
-            initializeTables();
-            migrationManager.detectAndApplyMissingColumns();
-            applyMissingIndexes();
-            migrationManager.validateDatabaseSchema();
+            createMissingTables();
+            createLegacyTables();
+            runSchemaMigrations();
         } catch (SQLException e) {
             System.err.println("Error during manual migration check: " + e.getMessage());
             e.printStackTrace();
@@ -910,6 +1281,16 @@ public class DatabaseHandler {
     }
 
     public void closeConnection() {
+        globalStatsCache.shutdown();
+        ticketChannelSorter.shutdown();
+        // No-op when the lifecycle already drained it before the shards stopped
+        databaseExecutor.shutdown(10);
+        statisticsAggregator.shutdown();
+        commandUsageRecorder.shutdown();
+        userProfileSink.shutdown();
+        ticketMessageRecorder.shutdown();
+        databaseMetrics.logSummary();
+        databaseMetrics.shutdown();
         if (dataSource != null) {
             dataSource.close();
         }
@@ -924,17 +1305,18 @@ public class DatabaseHandler {
             }
             // MariaDB-Syntax: IDs als VARCHAR(32)
             String insertEmbed = "INSERT INTO rules_embeds_channel (guild_id, title, description, footer, color, role_id, button_label, button_emoji_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-            PreparedStatement pstmt = connection.prepareStatement(insertEmbed);
-            pstmt.setString(1, guildID);
-            pstmt.setString(2, title);
-            pstmt.setString(3, description);
-            pstmt.setString(4, footer);
-            pstmt.setString(5, color);
-            pstmt.setString(6, roleId);
-            pstmt.setString(7, buttonLabel);
-            pstmt.setString(8, buttonEmoji);
-            pstmt.executeUpdate();
-            System.out.println("Successfully added rules embed to database for guild: " + guildID);
+            try (PreparedStatement pstmt = connection.prepareStatement(insertEmbed)) {
+                pstmt.setString(1, guildID);
+                pstmt.setString(2, title);
+                pstmt.setString(3, description);
+                pstmt.setString(4, footer);
+                pstmt.setString(5, color);
+                pstmt.setString(6, roleId);
+                pstmt.setString(7, buttonLabel);
+                pstmt.setString(8, buttonEmoji);
+                pstmt.executeUpdate();
+                System.out.println("Successfully added rules embed to database for guild: " + guildID);
+            }
         } catch (SQLException e) {
             System.err.println("Error adding rules embed to database: " + e.getMessage());
             e.printStackTrace();
@@ -946,11 +1328,12 @@ public class DatabaseHandler {
     public int getNumberOfEmbedsInDataBase(String guildID) {
         try (Connection connection = getConnection()) {
             String query = "SELECT COUNT(*) AS count FROM rules_embeds_channel WHERE guild_id = ?";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            pstmt.setString(1, guildID);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("count");
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setString(1, guildID);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    return rs.getInt("count");
+                }
             }
         } catch (SQLException e) {
             System.err.println("Fehler beim Abrufen der Anzahl der Embeds in der Datenbank: " + e.getMessage());
@@ -964,24 +1347,25 @@ public class DatabaseHandler {
             ArrayList<RulesEmbedData> embedDataList = new ArrayList<>();
             // MariaDB-Syntax: IDs als VARCHAR(32) oder TEXT
             String query = "SELECT * FROM rules_embeds_channel WHERE guild_id = ?";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            pstmt.setString(1, guildID);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String title = rs.getString("title");
-                String description = rs.getString("description");
-                String footer = rs.getString("footer");
-                String color = rs.getString("color");
-                String roleId = rs.getString("role_id");
-                String buttonLabel = rs.getString("button_label");
-                String buttonEmoji = rs.getString("button_emoji_id");
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setString(1, guildID);
+                ResultSet rs = pstmt.executeQuery();
 
-                RulesEmbedData embedData = new RulesEmbedData(id, title, processLinebreaks(description), footer, color, roleId, buttonLabel, buttonEmoji);
-                embedDataList.add(embedData);
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String title = rs.getString("title");
+                    String description = rs.getString("description");
+                    String footer = rs.getString("footer");
+                    String color = rs.getString("color");
+                    String roleId = rs.getString("role_id");
+                    String buttonLabel = rs.getString("button_label");
+                    String buttonEmoji = rs.getString("button_emoji_id");
+
+                    RulesEmbedData embedData = new RulesEmbedData(id, title, processLinebreaks(description), footer, color, roleId, buttonLabel, buttonEmoji);
+                    embedDataList.add(embedData);
+                }
+                return embedDataList;
             }
-            return embedDataList;
         } catch (SQLException e) {
             System.err.println("Fehler beim Abrufen der Rules-Embed-Daten aus der Datenbank: " + e.getMessage());
             e.printStackTrace();
@@ -994,16 +1378,17 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // MariaDB-Syntax: IDs als VARCHAR(32) oder TEXT
             String query = "SELECT role_id FROM rules_embeds_channel WHERE guild_id = ?";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            pstmt.setString(1, guildID);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                roleId = rs.getString("role_id");
-                if (!roleId.equals("0")) {
-                    break;
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setString(1, guildID);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    roleId = rs.getString("role_id");
+                    if (!roleId.equals("0")) {
+                        break;
+                    }
                 }
+                return roleId;
             }
-            return roleId;
         } catch (SQLException e) {
             System.err.println("Error getting role ID from rules embed: " + e.getMessage());
             e.printStackTrace();
@@ -1011,147 +1396,163 @@ public class DatabaseHandler {
         return roleId;
     }
 
+    // Guild configuration cache
+
+    /**
+     * Get the cached settings snapshot of a guild, or null if it could not be loaded
+     */
+    public GuildConfig getGuildConfig(String guildId) {
+        try {
+            return guildConfigCache.get(guildId);
+        } catch (SQLException e) {
+            System.err.println("Error loading guild config: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Load all settings of a guild with one query over guild_settings, log_channels,
+     * warn_system_settings and just_verify_button
+     */
+    private GuildConfig loadGuildConfig(String guildId) throws SQLException {
+        String query = "SELECT lc.channelid, " +
+                "ws.guild_id AS warn_guild_id, ws.max_warns, ws.minutes_muted, ws.role_id, ws.warn_time_hours, " +
+                "gs.guild_id AS settings_guild_id, gs.ticket_category, gs.ticket_channel, gs.ticket_role, " +
+                "gs.ticket_transcript, gs.ticket_title, gs.ticket_description, " +
+                "jv.guild_id AS verify_guild_id, jv.role_to_give_id, jv.role_to_remove_id, jv.button_label, jv.button_emoji_id " +
+                "FROM (SELECT ? AS guild_id) g " +
+                "LEFT JOIN log_channels lc ON lc.guildid = g.guild_id " +
+                "LEFT JOIN warn_system_settings ws ON ws.guild_id = g.guild_id " +
+                "LEFT JOIN guild_settings gs ON gs.guild_id = g.guild_id " +
+                "LEFT JOIN just_verify_button jv ON jv.guild_id = g.guild_id";
+        try (Connection connection = getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, guildId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return new GuildConfig(guildId, null, false, 0, 0, null, 0,
+                            false, null, null, null, false, null, null,
+                            false, null, null, null, null);
+                }
+                boolean hasGuildSettings = rs.getString("settings_guild_id") != null;
+                int transcript = rs.getInt("ticket_transcript");
+                boolean transcriptsEnabled = hasGuildSettings && !rs.wasNull() && transcript == 1;
+                return new GuildConfig(guildId,
+                        rs.getString("channelid"),
+                        rs.getString("warn_guild_id") != null,
+                        rs.getInt("max_warns"),
+                        rs.getInt("minutes_muted"),
+                        rs.getString("role_id"),
+                        rs.getInt("warn_time_hours"),
+                        hasGuildSettings,
+                        rs.getString("ticket_category"),
+                        rs.getString("ticket_channel"),
+                        rs.getString("ticket_role"),
+                        transcriptsEnabled,
+                        rs.getString("ticket_title"),
+                        rs.getString("ticket_description"),
+                        rs.getString("verify_guild_id") != null,
+                        rs.getString("role_to_give_id"),
+                        rs.getString("role_to_remove_id"),
+                        rs.getString("button_label"),
+                        rs.getString("button_emoji_id"));
+            }
+        }
+    }
+
     //Log Channel Databasekram
 
     public String getLogChannelID(String guildID) {
-        try (Connection connection = getConnection()) {
-            String query = "SELECT channelid FROM log_channels WHERE guildid = ?";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            pstmt.setString(1, guildID);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String channelid = rs.getString("channelid");
-                if (channelid == null || channelid.equals("0")) {
-                    return "Couldnt find a Log Channel";
-                }
-                return channelid;
-            } else {
+        try {
+            GuildConfig config = guildConfigCache.get(guildID);
+            if (!config.hasLogChannel()) {
                 return "Couldnt find a Log Channel";
             }
+            return config.logChannelId;
         } catch (SQLException e) {
             e.printStackTrace();
             return "Error: " + e;
         }
     }
 
-   public boolean hasLogChannel(String guildID) {
-       try (Connection connection = getConnection()) {
-           String query = "SELECT channelid FROM log_channels WHERE guildid = ?";
-           PreparedStatement pstmt = connection.prepareStatement(query);
-           pstmt.setString(1, guildID);
-           ResultSet rs = pstmt.executeQuery();
-           if (rs.next()) {
-               String channelid = rs.getString("channelid");
-               return channelid != null && !channelid.equals("0");
-           }
-           return false;
-       } catch (SQLException e) {
-           e.printStackTrace();
-           return false;
-       }
-   }
+    public boolean hasLogChannel(String guildID) {
+        try {
+            return guildConfigCache.get(guildID).hasLogChannel();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
 
     public String setLogChannel (String guildID, String channelID) {
         try (Connection connection = getConnection()) {
             connection.setAutoCommit(false);
             if (hasLogChannel(guildID)) {
                 String setLogChannel = "UPDATE log_channels SET channelid=? WHERE guildid=?";
-                PreparedStatement updateLogChannel = connection.prepareStatement(setLogChannel);
-                updateLogChannel.setString(1, channelID);
-                updateLogChannel.setString(2, guildID);
-                updateLogChannel.executeUpdate();
-                connection.commit();
-                return channelID;
+                try (PreparedStatement updateLogChannel = connection.prepareStatement(setLogChannel)) {
+                    updateLogChannel.setString(1, channelID);
+                    updateLogChannel.setString(2, guildID);
+                    updateLogChannel.executeUpdate();
+                    connection.commit();
+                    return channelID;
+                }
             } else {
                 String setLogChannel = "INSERT INTO log_channels(guildid, channelid) VALUES(?,?)";
-                PreparedStatement updateLogChannel = connection.prepareStatement(setLogChannel);
-                updateLogChannel.setString(1, guildID);
-                updateLogChannel.setString(2, channelID);
-                updateLogChannel.executeUpdate();
-                connection.commit();
-                return channelID;
+                try (PreparedStatement updateLogChannel = connection.prepareStatement(setLogChannel)) {
+                    updateLogChannel.setString(1, guildID);
+                    updateLogChannel.setString(2, channelID);
+                    updateLogChannel.executeUpdate();
+                    connection.commit();
+                    return channelID;
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
             return "Error";
+        } finally {
+            guildConfigCache.invalidate(guildID);
         }
     }
 
 
     //Warn System Kram
     public boolean hasWarnSystemSettings(String guildID) {
-        try (Connection connection = getConnection()) {
-            String query = "SELECT max_warns, minutes_muted, role_id, warn_time_hours FROM warn_system_settings WHERE guild_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildID);
-            ResultSet rs = stmt.executeQuery();
-            boolean exists = rs.next();
-            rs.close();
-            stmt.close();
-            return exists;
+        try {
+            return guildConfigCache.get(guildID).hasWarnSettings;
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
     public int getMaxWarns(String guildID) {
-        try (Connection connection = getConnection()) {
-            String query = "SELECT max_warns FROM warn_system_settings WHERE guild_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildID);
-            ResultSet rs = stmt.executeQuery();
-            int maxWarns = 0;
-            if (rs.next()) {
-                maxWarns = rs.getInt("max_warns");
-            }
-            rs.close();
-            stmt.close();
-            return maxWarns;
+        try {
+            return guildConfigCache.get(guildID).maxWarns;
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
     public int getTimeMuted(String guildID) {
-        try (Connection connection = getConnection()) {
-            String getMinutesMutedString = "SELECT minutes_muted FROM warn_system_settings WHERE guild_id = ?";
-            PreparedStatement getMinutesMutedStatement = connection.prepareStatement(getMinutesMutedString);
-            getMinutesMutedStatement.setString(1, guildID);
-            ResultSet rs = getMinutesMutedStatement.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("minutes_muted");
-            }
-            return 0;
+        try {
+            return guildConfigCache.get(guildID).minutesMuted;
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
     public int getWarnTimeHours(String guildID) {
-        try (Connection connection = getConnection()) {
-            String getWarnTimeHoursString = "SELECT warn_time_hours FROM warn_system_settings WHERE guild_id = ?";
-            PreparedStatement getWarnTimeHoursStatement = connection.prepareStatement(getWarnTimeHoursString);
-            getWarnTimeHoursStatement.setString(1, guildID);
-            ResultSet rs = getWarnTimeHoursStatement.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("warn_time_hours");
-            }
-            return 0;
+        try {
+            return guildConfigCache.get(guildID).warnTimeHours;
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
     public String getWarnRoleID(String guildID) {
-        try (Connection connection = getConnection()) {
-            String getRoleIDString = "SELECT role_id FROM warn_system_settings WHERE guild_id = ?";
-            PreparedStatement getRoleIDStatement = connection.prepareStatement(getRoleIDString);
-            getRoleIDStatement.setString(1, guildID);
-            ResultSet rs = getRoleIDStatement.executeQuery();
-            if (rs.next()) {
-                return rs.getString("role_id");
-            }
-            return "0";
+        try {
+            GuildConfig config = guildConfigCache.get(guildID);
+            return config.hasWarnSettings ? config.warnRoleId : "0";
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -1161,45 +1562,50 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             if (hasWarnSystemSettings(guildID)) {
                 String setWarnSettings1 = "UPDATE warn_system_settings SET max_warns=?, minutes_muted=?, role_id=?, warn_time_hours=? WHERE guild_id=?";
-                PreparedStatement setWarnSettings2 = connection.prepareStatement(setWarnSettings1);
-                setWarnSettings2.setInt(1, maxWarns);
-                setWarnSettings2.setInt(2, minutesMuted);
-                if (roleID != null) {
-                    setWarnSettings2.setString(3, roleID);
-                } else {
-                    setWarnSettings2.setNull(3, java.sql.Types.VARCHAR);
+                try (PreparedStatement setWarnSettings2 = connection.prepareStatement(setWarnSettings1)) {
+                    setWarnSettings2.setInt(1, maxWarns);
+                    setWarnSettings2.setInt(2, minutesMuted);
+                    if (roleID != null) {
+                        setWarnSettings2.setString(3, roleID);
+                    } else {
+                        setWarnSettings2.setNull(3, java.sql.Types.VARCHAR);
+                    }
+                    setWarnSettings2.setInt(4, warnTimeHours);
+                    setWarnSettings2.setString(5, guildID);
+                    setWarnSettings2.execute();
+                    return;
                 }
-                setWarnSettings2.setInt(4, warnTimeHours);
-                setWarnSettings2.setString(5, guildID);
-                setWarnSettings2.execute();
-                return;
             }
             // MariaDB-Syntax: IDs als VARCHAR(32)
             String setWarnSettings3 = "INSERT INTO warn_system_settings (guild_id, max_warns, minutes_muted, role_id, warn_time_hours) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement setWarnSettings4 = connection.prepareStatement(setWarnSettings3);
-            setWarnSettings4.setString(1, guildID);
-            setWarnSettings4.setInt(2, maxWarns);
-            setWarnSettings4.setInt(3, minutesMuted);
-            if (roleID != null) {
-                setWarnSettings4.setString(4, roleID);
-            } else {
-                setWarnSettings4.setNull(4, java.sql.Types.VARCHAR);
+            try (PreparedStatement setWarnSettings4 = connection.prepareStatement(setWarnSettings3)) {
+                setWarnSettings4.setString(1, guildID);
+                setWarnSettings4.setInt(2, maxWarns);
+                setWarnSettings4.setInt(3, minutesMuted);
+                if (roleID != null) {
+                    setWarnSettings4.setString(4, roleID);
+                } else {
+                    setWarnSettings4.setNull(4, java.sql.Types.VARCHAR);
+                }
+                setWarnSettings4.setInt(5, warnTimeHours);
+                setWarnSettings4.execute();
             }
-            setWarnSettings4.setInt(5, warnTimeHours);
-            setWarnSettings4.execute();
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            guildConfigCache.invalidate(guildID);
         }
     }
 
     public boolean userInWarnTable(String guildID, String userID) {
         try (Connection connection = getConnection()) {
             String checkIfUserIsInGuildTable = "SELECT user_id FROM warnings WHERE guild_id = ? AND user_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(checkIfUserIsInGuildTable);
-            stmt.setString(1, guildID);
-            stmt.setString(2, userID);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next();
+            try (PreparedStatement stmt = connection.prepareStatement(checkIfUserIsInGuildTable)) {
+                stmt.setString(1, guildID);
+                stmt.setString(2, userID);
+                ResultSet rs = stmt.executeQuery();
+                return rs.next();
+            }
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -1208,14 +1614,15 @@ public class DatabaseHandler {
     public int getActiveWarningsCount(String guildID, String userID) {
         try (Connection connection = getConnection()) {
             String query = "SELECT COUNT(*) as count FROM warnings WHERE guild_id = ? AND user_id = ? AND active = 1 AND (expires_at IS NULL OR expires_at > CURRENT_TIMESTAMP)";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildID);
-            stmt.setString(2, userID);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("count");
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setString(1, guildID);
+                stmt.setString(2, userID);
+                ResultSet rs = stmt.executeQuery();
+                if (rs.next()) {
+                    return rs.getInt("count");
+                }
+                return 0;
             }
-            return 0;
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -1226,19 +1633,20 @@ public class DatabaseHandler {
             // MariaDB-Syntax: IDs als VARCHAR(32) oder TEXT
             String insertAction = "INSERT INTO moderation_actions (guild_id, user_id, moderator_id, action_type, reason, duration, expires_at) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?)";
-            PreparedStatement stmt = connection.prepareStatement(insertAction);
-            stmt.setString(1, guildId); // VARCHAR(32) für guild_id
-            stmt.setString(2, userId);  // VARCHAR(32) für user_id
-            stmt.setString(3, moderatorId); // VARCHAR(32) für moderator_id
-            stmt.setString(4, actionType);
-            stmt.setString(5, reason);
-            if (duration != null) {
-                stmt.setObject(6, duration);
-            } else {
-                stmt.setNull(6, Types.INTEGER);
+            try (PreparedStatement stmt = connection.prepareStatement(insertAction)) {
+                stmt.setString(1, guildId); // VARCHAR(32) für guild_id
+                stmt.setString(2, userId);  // VARCHAR(32) für user_id
+                stmt.setString(3, moderatorId); // VARCHAR(32) für moderator_id
+                stmt.setString(4, actionType);
+                stmt.setString(5, reason);
+                if (duration != null) {
+                    stmt.setObject(6, duration);
+                } else {
+                    stmt.setNull(6, Types.INTEGER);
+                }
+                stmt.setString(7, expiresAt);
+                stmt.executeUpdate();
             }
-            stmt.setString(7, expiresAt);
-            stmt.executeUpdate();
         } catch (SQLException e) {
             System.err.println("Error inserting moderation action: " + e.getMessage());
             e.printStackTrace();
@@ -1249,22 +1657,23 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             String insertWarning = "INSERT INTO warnings (guild_id, user_id, moderator_id, reason, severity, expires_at) " +
                 "VALUES (?, ?, ?, ?, ?, ?)";
-            PreparedStatement stmt = connection.prepareStatement(insertWarning, Statement.RETURN_GENERATED_KEYS);
-            stmt.setString(1, guildId);
-            stmt.setString(2, userId);
-            stmt.setString(3, moderatorId);
-            stmt.setString(4, reason);
-            stmt.setString(5, severity);
-            stmt.setString(6, expiresAt);
+            try (PreparedStatement stmt = connection.prepareStatement(insertWarning, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, guildId);
+                stmt.setString(2, userId);
+                stmt.setString(3, moderatorId);
+                stmt.setString(4, reason);
+                stmt.setString(5, severity);
+                stmt.setString(6, expiresAt);
             
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected > 0) {
-                ResultSet generatedKeys = stmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1);
+                int rowsAffected = stmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    ResultSet generatedKeys = stmt.getGeneratedKeys();
+                    if (generatedKeys.next()) {
+                        return generatedKeys.getInt(1);
+                    }
                 }
+                return 0;
             }
-            return 0;
         } catch (SQLException e) {
             System.err.println("Error inserting warning: " + e.getMessage());
             e.printStackTrace();
@@ -1272,49 +1681,12 @@ public class DatabaseHandler {
         }
     }
 
+    /**
+     * Insert or update a user's profile. Unchanged profiles are skipped and changed ones are
+     * written in batches by the {@link UserProfileSink}.
+     */
     public void insertOrUpdateUser(String userId, String effectiveName, String discriminator, String avatarUrl) {
-        try (Connection connection = getConnection()) {
-            if (isUserInDatabase(userId)) {
-                String updateUser = "UPDATE users SET username = ?, discriminator = ?, avatar = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-                PreparedStatement updateStmt = connection.prepareStatement(updateUser);
-                updateStmt.setString(1, effectiveName);
-                updateStmt.setString(2, discriminator);
-                updateStmt.setString(3, avatarUrl);
-                updateStmt.setString(4, userId);
-                updateStmt.executeUpdate();
-            } else {
-                String upsertUser = "INSERT INTO users (id, username, discriminator, avatar, created_at, updated_at) " +
-                        "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
-                        "ON DUPLICATE KEY UPDATE " +
-                        "username = VALUES(username), " +
-                        "discriminator = VALUES(discriminator), " +
-                        "avatar = VALUES(avatar), " +
-                        "updated_at = CURRENT_TIMESTAMP";
-                PreparedStatement stmt = connection.prepareStatement(upsertUser);
-                stmt.setString(1, userId);
-                stmt.setString(2, effectiveName);
-                stmt.setString(3, discriminator);
-                stmt.setString(4, avatarUrl);
-                stmt.executeUpdate();
-            }
-        } catch (SQLException e) {
-            System.err.println("Error inserting/updating user: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private boolean isUserInDatabase(String userId) {
-        String checkUser = "SELECT id FROM users WHERE id = ?";
-        try (Connection connection = getConnection()) {
-            PreparedStatement stmt = connection.prepareStatement(checkUser);
-            stmt.setString(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next();
-        } catch (SQLException e) {
-            System.err.println("Error checking if user exists: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+        userProfileSink.record(userId, effectiveName, discriminator, avatarUrl);
     }
 
     /**
@@ -1329,10 +1701,11 @@ public class DatabaseHandler {
                     "name = VALUES(name), " +
                     "updated_at = CURRENT_TIMESTAMP, " +
                     "active = 1";
-            PreparedStatement stmt = connection.prepareStatement(upsertGuild);
-            stmt.setString(1, guildId); // discord_id ist VARCHAR(32)
-            stmt.setString(2, guildName);
-            stmt.executeUpdate();
+            try (PreparedStatement stmt = connection.prepareStatement(upsertGuild)) {
+                stmt.setString(1, guildId); // discord_id ist VARCHAR(32)
+                stmt.setString(2, guildName);
+                stmt.executeUpdate();
+            }
         } catch (SQLException e) {
             System.err.println("Error inserting/updating guild: " + e.getMessage());
             e.printStackTrace();
@@ -1344,15 +1717,16 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // MariaDB-Syntax: IDs als VARCHAR(32)
             String query = "SELECT prefix FROM guilds WHERE id = ? AND active = 1";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setString(1, guildId);
+                ResultSet rs = stmt.executeQuery();
 
-            if (rs.next()) {
-                String prefix = rs.getString("prefix");
-                return prefix != null ? prefix : "!";
+                if (rs.next()) {
+                    String prefix = rs.getString("prefix");
+                    return prefix != null ? prefix : "!";
+                }
+                return "!"; // Standard-Prefix
             }
-            return "!"; // Standard-Prefix
         } catch (SQLException e) {
             System.err.println("Error getting guild prefix: " + e.getMessage());
             e.printStackTrace();
@@ -1367,15 +1741,16 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // MariaDB-Syntax: IDs als VARCHAR(32)
             String query = "SELECT language FROM guilds WHERE id = ? AND active = 1";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setString(1, guildId);
+                ResultSet rs = stmt.executeQuery();
 
-            if (rs.next()) {
-                String language = rs.getString("language");
-                return language != null ? language : "de";
+                if (rs.next()) {
+                    String language = rs.getString("language");
+                    return language != null ? language : "de";
+                }
+                return "de"; // Standard-Sprache
             }
-            return "de"; // Standard-Sprache
         } catch (SQLException e) {
             System.err.println("Error getting guild language: " + e.getMessage());
             e.printStackTrace();
@@ -1390,12 +1765,13 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // MariaDB-Syntax: guildId ist VARCHAR(32)
             String updatePrefix = "UPDATE guilds SET prefix = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND active = 1";
-            PreparedStatement stmt = connection.prepareStatement(updatePrefix);
-            stmt.setString(1, prefix != null ? prefix : "!");
-            stmt.setString(2, guildId);
+            try (PreparedStatement stmt = connection.prepareStatement(updatePrefix)) {
+                stmt.setString(1, prefix != null ? prefix : "!");
+                stmt.setString(2, guildId);
 
-            int rowsUpdated = stmt.executeUpdate();
-            return rowsUpdated > 0;
+                int rowsUpdated = stmt.executeUpdate();
+                return rowsUpdated > 0;
+            }
         } catch (SQLException e) {
             System.err.println("Error updating guild prefix: " + e.getMessage());
             e.printStackTrace();
@@ -1410,12 +1786,13 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // MariaDB-Syntax: guildId ist VARCHAR(32)
             String updateLanguage = "UPDATE guilds SET language = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND active = 1";
-            PreparedStatement stmt = connection.prepareStatement(updateLanguage);
-            stmt.setString(1, language != null ? language : "de");
-            stmt.setString(2, guildId);
+            try (PreparedStatement stmt = connection.prepareStatement(updateLanguage)) {
+                stmt.setString(1, language != null ? language : "de");
+                stmt.setString(2, guildId);
 
-            int rowsUpdated = stmt.executeUpdate();
-            return rowsUpdated > 0;
+                int rowsUpdated = stmt.executeUpdate();
+                return rowsUpdated > 0;
+            }
         } catch (SQLException e) {
             System.err.println("Error updating guild language: " + e.getMessage());
             e.printStackTrace();
@@ -1429,10 +1806,11 @@ public class DatabaseHandler {
     public void deactivateGuild(String guildId) {
         try (Connection connection = getConnection()) {
             String query = "UPDATE guilds SET active = 0 WHERE id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            stmt.executeUpdate();
-            System.out.println("Deactivated guild: " + guildId);
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setString(1, guildId);
+                stmt.executeUpdate();
+                System.out.println("Deactivated guild: " + guildId);
+            }
         } catch (SQLException e) {
             System.err.println("Error deactivating guild: " + e.getMessage());
         }
@@ -1447,23 +1825,27 @@ public class DatabaseHandler {
             connection.setAutoCommit(false);
 
             try {
-                for (Guild guild : currentGuilds) {
-                    String guildId = guild.getId();
-                    String guildName = guild.getName();
-                    System.out.println("Syncing guild: " + guildName + " (" + guildId + ")");
-
-                    // INSERT ... ON DUPLICATE KEY UPDATE verwenden statt Trigger
-                    String upsertQuery = "INSERT INTO guilds (id, name) VALUES (?, ?) " +
-                            "ON DUPLICATE KEY UPDATE name = ?";
-                    PreparedStatement stmt = connection.prepareStatement(upsertQuery);
-                    stmt.setString(1, guildId);
-                    stmt.setString(2, guildName);
-                    stmt.setString(3, guildName);
-                    stmt.executeUpdate();
+                // INSERT ... ON DUPLICATE KEY UPDATE verwenden statt Trigger, gebündelt statt ein Roundtrip pro Guild
+                String upsertQuery = "INSERT INTO guilds (id, name) VALUES (?, ?) " +
+                        "ON DUPLICATE KEY UPDATE name = VALUES(name)";
+                try (PreparedStatement stmt = connection.prepareStatement(upsertQuery)) {
+                    int batched = 0;
+                    for (Guild guild : currentGuilds) {
+                        stmt.setString(1, guild.getId());
+                        stmt.setString(2, guild.getName());
+                        stmt.addBatch();
+                        if (++batched % GUILD_SYNC_BATCH_SIZE == 0) {
+                            stmt.executeBatch();
+                        }
+                    }
+                    if (batched % GUILD_SYNC_BATCH_SIZE != 0) {
+                        stmt.executeBatch();
+                    }
                 }
 
                 // Transaktion bestätigen
                 connection.commit();
+                System.out.println("Synced " + currentGuilds.size() + " guilds.");
             } catch (SQLException e) {
                 // Bei Fehler: Rollback
                 connection.rollback();
@@ -1479,24 +1861,8 @@ public class DatabaseHandler {
     }
 
     public boolean isTicketSystem(String guildId) {
-        try (Connection connection = getConnection()) {
-            // MariaDB-Syntax: IDs als VARCHAR(32) oder TEXT
-            String query = "SELECT ticket_category, ticket_channel FROM guild_settings WHERE guild_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                // Prüfe, ob ticket_category oder ticket_channel gesetzt ist (nicht null und nicht leer/"0")
-                String ticketCategory = rs.getString("ticket_category");
-                boolean hasCategorySet = ticketCategory != null && !ticketCategory.equals("0") && !ticketCategory.isEmpty();
-
-                String ticketChannel = rs.getString("ticket_channel");
-                boolean hasChannelSet = ticketChannel != null && !ticketChannel.equals("0") && !ticketChannel.isEmpty();
-
-                return hasCategorySet || hasChannelSet;
-            }
-            return false;
+        try {
+            return guildConfigCache.get(guildId).isTicketSystem();
         } catch (SQLException e) {
             System.err.println("Error checking ticket system status: " + e.getMessage());
             e.printStackTrace();
@@ -1508,20 +1874,9 @@ public class DatabaseHandler {
      * Get ticket category ID for a guild
      */
     public String getTicketCategory(String guildId) {
-        try (Connection connection = getConnection()) {
-            // MariaDB-Syntax: IDs als VARCHAR(32) oder TEXT
-            String query = "SELECT ticket_category FROM guild_settings WHERE guild_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                String categoryId = rs.getString("ticket_category");
-                if (categoryId != null && !categoryId.equals("0") && !categoryId.isEmpty()) {
-                    return categoryId;
-                }
-            }
-            return null;
+        try {
+            String id = guildConfigCache.get(guildId).ticketCategory;
+            return GuildConfig.isSet(id) ? id : null;
         } catch (SQLException e) {
             System.err.println("Error getting ticket category: " + e.getMessage());
             e.printStackTrace();
@@ -1533,20 +1888,9 @@ public class DatabaseHandler {
      * Get ticket channel ID for a guild
      */
     public String getTicketChannel(String guildId) {
-        try (Connection connection = getConnection()) {
-            // MariaDB-Syntax: IDs als VARCHAR(32) oder TEXT
-            String query = "SELECT ticket_channel FROM guild_settings WHERE guild_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                String channelId = rs.getString("ticket_channel");
-                if (channelId != null && !channelId.equals("0") && !channelId.isEmpty()) {
-                    return channelId;
-                }
-            }
-            return null;
+        try {
+            String id = guildConfigCache.get(guildId).ticketChannel;
+            return GuildConfig.isSet(id) ? id : null;
         } catch (SQLException e) {
             System.err.println("Error getting ticket channel: " + e.getMessage());
             e.printStackTrace();
@@ -1561,72 +1905,77 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // Zuerst prüfen, ob Einstellungen für die Guild existieren
             String checkQuery = "SELECT id FROM guild_settings WHERE guild_id = ?";
-            PreparedStatement checkStmt = connection.prepareStatement(checkQuery);
-            checkStmt.setString(1, guildId);
-            ResultSet rs = checkStmt.executeQuery();
+            try (PreparedStatement checkStmt = connection.prepareStatement(checkQuery)) {
+                checkStmt.setString(1, guildId);
+                ResultSet rs = checkStmt.executeQuery();
+
+                if (rs.next()) {
+                    // Update bestehender Einstellungen
+                    String updateQuery = "UPDATE guild_settings SET ticket_category = ?, ticket_channel = ?, ticket_role = ?, ticket_transcript = ? WHERE guild_id = ?";
+                    try (PreparedStatement updateStmt = connection.prepareStatement(updateQuery)) {
+
+                        // IDs als VARCHAR(32) oder TEXT behandeln
+                        if (categoryId != null && !categoryId.isEmpty()) {
+                            updateStmt.setString(1, categoryId);
+                        } else {
+                            updateStmt.setNull(1, Types.VARCHAR);
+                        }
 
-            if (rs.next()) {
-                // Update bestehender Einstellungen
-                String updateQuery = "UPDATE guild_settings SET ticket_category = ?, ticket_channel = ?, ticket_role = ?, ticket_transcript = ? WHERE guild_id = ?";
-                PreparedStatement updateStmt = connection.prepareStatement(updateQuery);
+                        if (channelId != null && !channelId.isEmpty()) {
+                            updateStmt.setString(2, channelId);
+                        } else {
+                            updateStmt.setNull(2, Types.VARCHAR);
+                        }
 
-                // IDs als VARCHAR(32) oder TEXT behandeln
-                if (categoryId != null && !categoryId.isEmpty()) {
-                    updateStmt.setString(1, categoryId);
-                } else {
-                    updateStmt.setNull(1, Types.VARCHAR);
-                }
+                        if (roleId != null && !roleId.isEmpty()) {
+                            updateStmt.setString(3, roleId);
+                        } else {
+                            updateStmt.setNull(3, Types.VARCHAR);
+                        }
 
-                if (channelId != null && !channelId.isEmpty()) {
-                    updateStmt.setString(2, channelId);
-                } else {
-                    updateStmt.setNull(2, Types.VARCHAR);
-                }
+                        updateStmt.setInt(4, transcriptEnabled ? 1 : 0);
+                        updateStmt.setString(5, guildId);
 
-                if (roleId != null && !roleId.isEmpty()) {
-                    updateStmt.setString(3, roleId);
+                        int rowsUpdated = updateStmt.executeUpdate();
+                        return rowsUpdated > 0;
+                    }
                 } else {
-                    updateStmt.setNull(3, Types.VARCHAR);
-                }
+                    // Neue Einstellungen einfügen
+                    String insertQuery = "INSERT INTO guild_settings (guild_id, ticket_category, ticket_channel, ticket_role, ticket_transcript) VALUES (?, ?, ?, ?, ?)";
+                    try (PreparedStatement insertStmt = connection.prepareStatement(insertQuery)) {
+                        insertStmt.setString(1, guildId);
+
+                        if (categoryId != null && !categoryId.isEmpty()) {
+                            insertStmt.setString(2, categoryId);
+                        } else {
+                            insertStmt.setNull(2, Types.VARCHAR);
+                        }
 
-                updateStmt.setInt(4, transcriptEnabled ? 1 : 0);
-                updateStmt.setString(5, guildId);
+                        if (channelId != null && !channelId.isEmpty()) {
+                            insertStmt.setString(3, channelId);
+                        } else {
+                            insertStmt.setNull(3, Types.VARCHAR);
+                        }
 
-                int rowsUpdated = updateStmt.executeUpdate();
-                return rowsUpdated > 0;
-            } else {
-                // Neue Einstellungen einfügen
-                String insertQuery = "INSERT INTO guild_settings (guild_id, ticket_category, ticket_channel, ticket_role, ticket_transcript) VALUES (?, ?, ?, ?, ?)";
-                PreparedStatement insertStmt = connection.prepareStatement(insertQuery);
-                insertStmt.setString(1, guildId);
+                        if (roleId != null && !roleId.isEmpty()) {
+                            insertStmt.setString(4, roleId);
+                        } else {
+                            insertStmt.setNull(4, Types.VARCHAR);
+                        }
 
-                if (categoryId != null && !categoryId.isEmpty()) {
-                    insertStmt.setString(2, categoryId);
-                } else {
-                    insertStmt.setNull(2, Types.VARCHAR);
-                }
+                        insertStmt.setInt(5, transcriptEnabled ? 1 : 0);
 
-                if (channelId != null && !channelId.isEmpty()) {
-                    insertStmt.setString(3, channelId);
-                } else {
-                    insertStmt.setNull(3, Types.VARCHAR);
-                }
-
-                if (roleId != null && !roleId.isEmpty()) {
-                    insertStmt.setString(4, roleId);
-                } else {
-                    insertStmt.setNull(4, Types.VARCHAR);
+                        int rowsInserted = insertStmt.executeUpdate();
+                        return rowsInserted > 0;
+                    }
                 }
-
-                insertStmt.setInt(5, transcriptEnabled ? 1 : 0);
-
-                int rowsInserted = insertStmt.executeUpdate();
-                return rowsInserted > 0;
             }
         } catch (SQLException e) {
             System.err.println("Fehler beim Setzen der Ticket-Einstellungen: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            guildConfigCache.invalidate(guildId);
         }
     }
 
@@ -1637,38 +1986,44 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // Sicherstellen, dass die Guild in der Tabelle existiert (MariaDB: discord_id als VARCHAR(32))
             String checkGuildQuery = "SELECT id FROM guilds WHERE id = ?";
-            PreparedStatement checkGuildStmt = connection.prepareStatement(checkGuildQuery);
-            checkGuildStmt.setString(1, guildId);
-            ResultSet guildResult = checkGuildStmt.executeQuery();
-
-            if (!guildResult.next()) {
-                String insertGuildQuery = "INSERT INTO guilds (id) VALUES (?)";
-                PreparedStatement insertGuildStmt = connection.prepareStatement(insertGuildQuery);
-                insertGuildStmt.setString(1, guildId);
-                insertGuildStmt.executeUpdate();
-            }
-
-            // Sicherstellen, dass der User in der Tabelle existiert (MariaDB: id als VARCHAR(32))
-            insertOrUpdateUser(userId, username, discriminator, avatarUrl);
+            try (PreparedStatement checkGuildStmt = connection.prepareStatement(checkGuildQuery)) {
+                checkGuildStmt.setString(1, guildId);
+                ResultSet guildResult = checkGuildStmt.executeQuery();
+
+                if (!guildResult.next()) {
+                    String insertGuildQuery = "INSERT INTO guilds (id) VALUES (?)";
+                    try (PreparedStatement insertGuildStmt = connection.prepareStatement(insertGuildQuery)) {
+                        insertGuildStmt.setString(1, guildId);
+                        insertGuildStmt.executeUpdate();
+                    }
+                }
 
-            // Ticket einfügen (guild_id, user_id, channel_id als VARCHAR(32))
-            String insertTicket = "INSERT INTO tickets (guild_id, user_id, channel_id, category, subject, priority, status) VALUES (?, ?, ?, ?, ?, ?, 'OPEN')";
-            PreparedStatement stmt = connection.prepareStatement(insertTicket, Statement.RETURN_GENERATED_KEYS);
-            stmt.setString(1, guildId);
-            stmt.setString(2, userId);
-            stmt.setString(3, channelId);
-            stmt.setString(4, category != null ? category : "general");
-            stmt.setString(5, subject);
-            stmt.setString(6, priority != null ? priority : "MEDIUM");
+                // User-Profil vormerken, es wird gebündelt vom UserProfileSink geschrieben
+                insertOrUpdateUser(userId, username, discriminator, avatarUrl);
 
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected > 0) {
-                ResultSet generatedKeys = stmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1); // Gibt die generierte Ticket-ID zurück
+                // Ticket einfügen (guild_id, user_id, channel_id als VARCHAR(32))
+                String insertTicket = "INSERT INTO tickets (guild_id, user_id, channel_id, category, subject, priority, status) VALUES (?, ?, ?, ?, ?, ?, 'OPEN')";
+                try (PreparedStatement stmt = connection.prepareStatement(insertTicket, Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setString(1, guildId);
+                    stmt.setString(2, userId);
+                    stmt.setString(3, channelId);
+                    stmt.setString(4, category != null ? category : "general");
+                    stmt.setString(5, subject);
+                    stmt.setString(6, priority != null ? priority : "MEDIUM");
+
+                    int rowsAffected = stmt.executeUpdate();
+                    if (rowsAffected > 0) {
+                        ResultSet generatedKeys = stmt.getGeneratedKeys();
+                        if (generatedKeys.next()) {
+                            int ticketId = generatedKeys.getInt(1);
+                            ticketMessageRecorder.registerTicket(channelId, ticketId);
+                            ticketChannelSorter.ticketOpened(ticketId, guildId, channelId, priority != null ? priority : "MEDIUM");
+                            return ticketId; // Gibt die generierte Ticket-ID zurück
+                        }
+                    }
+                    return 0;
                 }
             }
-            return 0;
         } catch (SQLException e) {
             System.err.println("Error creating ticket: " + e.getMessage());
             e.printStackTrace();
@@ -1683,13 +2038,18 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // MariaDB-Syntax: IDs als VARCHAR(32) oder TEXT behandeln
             String closeTicket = "UPDATE tickets SET status = 'CLOSED', closed_by = ?, closed_reason = ?, closed_at = CURRENT_TIMESTAMP WHERE id = ?";
-            PreparedStatement stmt = connection.prepareStatement(closeTicket);
-            stmt.setString(1, closedById); // VARCHAR(32) statt Long
-            stmt.setString(2, reason);
-            stmt.setInt(3, ticketId);
-
-            int rowsUpdated = stmt.executeUpdate();
-            return rowsUpdated > 0;
+            try (PreparedStatement stmt = connection.prepareStatement(closeTicket)) {
+                stmt.setString(1, closedById); // VARCHAR(32) statt Long
+                stmt.setString(2, reason);
+                stmt.setInt(3, ticketId);
+
+                int rowsUpdated = stmt.executeUpdate();
+                if (rowsUpdated > 0) {
+                    ticketMessageRecorder.unregisterTicket(ticketId);
+                    ticketChannelSorter.ticketClosed(ticketId);
+                }
+                return rowsUpdated > 0;
+            }
         } catch (SQLException e) {
             System.err.println("Error closing ticket: " + e.getMessage());
             e.printStackTrace();
@@ -1703,17 +2063,18 @@ public class DatabaseHandler {
     public String getTicketByChannelId(String channelId) {
         try (Connection connection = getConnection()) {
             String query = "SELECT id, user_id, category, subject, status, priority, assigned_to, created_at FROM tickets WHERE channel_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, channelId); // VARCHAR(32) für channel_id (MariaDB)
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                return String.format("ID: %d | User: <@%s> | Category: %s | Subject: %s | Status: %s | Priority: %s | Created: %s",
-                    rs.getInt("id"), rs.getString("user_id"), rs.getString("category"),
-                    rs.getString("subject"), rs.getString("status"), rs.getString("priority"),
-                    rs.getString("created_at"));
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setString(1, channelId); // VARCHAR(32) für channel_id (MariaDB)
+                ResultSet rs = stmt.executeQuery();
+
+                if (rs.next()) {
+                    return String.format("ID: %d | User: <@%s> | Category: %s | Subject: %s | Status: %s | Priority: %s | Created: %s",
+                        rs.getInt("id"), rs.getString("user_id"), rs.getString("category"),
+                        rs.getString("subject"), rs.getString("status"), rs.getString("priority"),
+                        rs.getString("created_at"));
+                }
+                return null;
             }
-            return null;
         } catch (SQLException e) {
             System.err.println("Error getting ticket by channel: " + e.getMessage());
             e.printStackTrace();
@@ -1725,19 +2086,9 @@ public class DatabaseHandler {
      * Get ticket role ID for a guild
      */
     public String getTicketRole(String guildId) {
-        try (Connection connection = getConnection()) {
-            String query = "SELECT ticket_role FROM guild_settings WHERE guild_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                String roleId = rs.getString("ticket_role"); // VARCHAR(32) oder TEXT für IDs
-                if (roleId != null && !roleId.equals("0") && !roleId.isEmpty()) {
-                    return roleId;
-                }
-            }
-            return null;
+        try {
+            String id = guildConfigCache.get(guildId).ticketRole;
+            return GuildConfig.isSet(id) ? id : null;
         } catch (SQLException e) {
             System.err.println("Error getting ticket role: " + e.getMessage());
             e.printStackTrace();
@@ -1749,12 +2100,13 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // MariaDB-Syntax: assigned_to als VARCHAR(32) oder TEXT behandeln
             String assignTicket = "UPDATE tickets SET assigned_to = ?, status = 'IN_PROGRESS' WHERE id = ?";
-            PreparedStatement stmt = connection.prepareStatement(assignTicket);
-            stmt.setString(1, assignedToId);
-            stmt.setInt(2, ticketId);
+            try (PreparedStatement stmt = connection.prepareStatement(assignTicket)) {
+                stmt.setString(1, assignedToId);
+                stmt.setInt(2, ticketId);
 
-            int rowsUpdated = stmt.executeUpdate();
-            return rowsUpdated > 0;
+                int rowsUpdated = stmt.executeUpdate();
+                return rowsUpdated > 0;
+            }
         } catch (SQLException e) {
             System.err.println("Error assigning ticket: " + e.getMessage());
             e.printStackTrace();
@@ -1766,17 +2118,8 @@ public class DatabaseHandler {
      * Prüft, ob Transkripte für eine Guild aktiviert sind (MariaDB-Syntax)
      */
     public boolean areTranscriptsEnabled(String guildId) {
-        try (Connection connection = getConnection()) {
-            String query = "SELECT ticket_transcript FROM guild_settings WHERE guild_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                int transcriptEnabled = rs.getInt("ticket_transcript");
-                return !rs.wasNull() && transcriptEnabled == 1;
-            }
-            return false; // Standard: deaktiviert, falls keine Einstellung gefunden
+        try {
+            return guildConfigCache.get(guildId).transcriptsEnabled;
         } catch (SQLException e) {
             System.err.println("Error checking transcript settings: " + e.getMessage());
             e.printStackTrace();
@@ -1788,17 +2131,10 @@ public class DatabaseHandler {
      * Get ticket panel title for a guild
      */
     public String getTicketTitle(String guildId) {
-        try (Connection connection = getConnection()) {
-            String query = "SELECT ticket_title FROM guild_settings WHERE guild_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                String title = rs.getString("ticket_title");
-                if (title != null && !title.isEmpty()) {
-                    return title;
-                }
+        try {
+            String title = guildConfigCache.get(guildId).ticketTitle;
+            if (title != null && !title.isEmpty()) {
+                return title;
             }
             return "🎫 Create a Ticket"; // Default title
         } catch (SQLException e) {
@@ -1812,17 +2148,10 @@ public class DatabaseHandler {
      * Get ticket panel description for a guild
      */
     public String getTicketDescription(String guildId) {
-        try (Connection connection = getConnection()) {
-            String query = "SELECT ticket_description FROM guild_settings WHERE guild_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                String description = rs.getString("ticket_description");
-                if (description != null && !description.isEmpty()) {
-                    return description;
-                }
+        try {
+            String description = guildConfigCache.get(guildId).ticketDescription;
+            if (description != null && !description.isEmpty()) {
+                return description;
             }
             return "Need help or have a question? Click the button below to create a ticket!\n\nOur support team will assist you as soon as possible."; // Default description
         } catch (SQLException e) {
@@ -1839,35 +2168,40 @@ public class DatabaseHandler {
         try (Connection connection = getConnection()) {
             // Check if settings exist for the guild
             String checkQuery = "SELECT id FROM guild_settings WHERE guild_id = ?";
-            PreparedStatement checkStmt = connection.prepareStatement(checkQuery);
-            checkStmt.setString(1, guildId);
-            ResultSet rs = checkStmt.executeQuery();
-
-            if (rs.next()) {
-                // Update existing settings
-                String updateQuery = "UPDATE guild_settings SET ticket_title = ?, ticket_description = ? WHERE guild_id = ?";
-                PreparedStatement updateStmt = connection.prepareStatement(updateQuery);
-                updateStmt.setString(1, title);
-                updateStmt.setString(2, description);
-                updateStmt.setString(3, guildId);
-
-                int rowsUpdated = updateStmt.executeUpdate();
-                return rowsUpdated > 0;
-            } else {
-                // Insert new settings
-                String insertQuery = "INSERT INTO guild_settings (guild_id, ticket_title, ticket_description) VALUES (?, ?, ?)";
-                PreparedStatement insertStmt = connection.prepareStatement(insertQuery);
-                insertStmt.setString(1, guildId);
-                insertStmt.setString(2, title);
-                insertStmt.setString(3, description);
-
-                int rowsInserted = insertStmt.executeUpdate();
-                return rowsInserted > 0;
+            try (PreparedStatement checkStmt = connection.prepareStatement(checkQuery)) {
+                checkStmt.setString(1, guildId);
+                ResultSet rs = checkStmt.executeQuery();
+
+                if (rs.next()) {
+                    // Update existing settings
+                    String updateQuery = "UPDATE guild_settings SET ticket_title = ?, ticket_description = ? WHERE guild_id = ?";
+                    try (PreparedStatement updateStmt = connection.prepareStatement(updateQuery)) {
+                        updateStmt.setString(1, title);
+                        updateStmt.setString(2, description);
+                        updateStmt.setString(3, guildId);
+
+                        int rowsUpdated = updateStmt.executeUpdate();
+                        return rowsUpdated > 0;
+                    }
+                } else {
+                    // Insert new settings
+                    String insertQuery = "INSERT INTO guild_settings (guild_id, ticket_title, ticket_description) VALUES (?, ?, ?)";
+                    try (PreparedStatement insertStmt = connection.prepareStatement(insertQuery)) {
+                        insertStmt.setString(1, guildId);
+                        insertStmt.setString(2, title);
+                        insertStmt.setString(3, description);
+
+                        int rowsInserted = insertStmt.executeUpdate();
+                        return rowsInserted > 0;
+                    }
+                }
             }
         } catch (SQLException e) {
             System.err.println("Error setting ticket config: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            guildConfigCache.invalidate(guildId);
         }
     }
 
@@ -1877,12 +2211,16 @@ public class DatabaseHandler {
     public boolean updateTicketPriority(int ticketId, String priority) {
         try (Connection connection = getConnection()) {
             String updatePriority = "UPDATE tickets SET priority = ? WHERE id = ?";
-            PreparedStatement stmt = connection.prepareStatement(updatePriority);
-            stmt.setString(1, priority);
-            stmt.setInt(2, ticketId);
+            try (PreparedStatement stmt = connection.prepareStatement(updatePriority)) {
+                stmt.setString(1, priority);
+                stmt.setInt(2, ticketId);
 
-            int rowsUpdated = stmt.executeUpdate();
-            return rowsUpdated > 0;
+                int rowsUpdated = stmt.executeUpdate();
+                if (rowsUpdated > 0) {
+                    ticketChannelSorter.priorityChanged(ticketId, priority);
+                }
+                return rowsUpdated > 0;
+            }
         } catch (SQLException e) {
             System.err.println("Error updating ticket priority: " + e.getMessage());
             e.printStackTrace();
@@ -1904,16 +2242,17 @@ public class DatabaseHandler {
                     "WHEN 'MEDIUM' THEN 3 " +
                     "WHEN 'LOW' THEN 4 " +
                     "ELSE 5 END";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setString(1, guildId);
+                ResultSet rs = stmt.executeQuery();
 
-            while (rs.next()) {
-                java.util.Map<String, String> ticket = new java.util.HashMap<>();
-                // channel_id als VARCHAR(32) oder TEXT behandeln
-                ticket.put("channel_id", rs.getString("channel_id"));
-                ticket.put("priority", rs.getString("priority"));
-                tickets.add(ticket);
+                while (rs.next()) {
+                    java.util.Map<String, String> ticket = new java.util.HashMap<>();
+                    // channel_id als VARCHAR(32) oder TEXT behandeln
+                    ticket.put("channel_id", rs.getString("channel_id"));
+                    ticket.put("priority", rs.getString("priority"));
+                    tickets.add(ticket);
+                }
             }
         } catch (SQLException e) {
             System.err.println("Error getting tickets by guild: " + e.getMessage());
@@ -1932,58 +2271,11 @@ public class DatabaseHandler {
     }
 
     /**
-     * Update statistics for a guild and specific action type
+     * Update statistics for a guild and specific action type.
+     * The increment is buffered and written by the StatisticsAggregator.
      */
     private void updateStatistics(String guildId, String actionType) {
-        try (Connection connection = getConnection()) {
-            String currentDate = getCurrentDate();
-
-            // Spaltennamen validieren (nur erlaubte Aktionen zulassen)
-            java.util.Set<String> allowedActions = java.util.Set.of(
-                "messages_sent", "commands_used", "timeouts_performed", "untimeouts_performed", "verifications_performed", "untimeouts_received", "timeouts_received",
-                "bans_performed", "bans_received", "kicks_performed", "kicks_received", "warnings_issued", "warnings_received",
-                "tickets_created", "tickets_closed"
-            );
-            if (!allowedActions.contains(actionType)) {
-                throw new IllegalArgumentException("Ungültiger Spaltenname für Statistik: " + actionType);
-            }
-
-            // MariaDB-Syntax: guild_id als VARCHAR(32)
-            if (guildExistsInStatisticsTable(guildId, currentDate)) {
-                String insertGuildQuery = "UPDATE statistics SET " + actionType + " = " + actionType + " WHERE guild_id = ? AND date = ?";
-                PreparedStatement insertGuildStmt = connection.prepareStatement(insertGuildQuery);
-                insertGuildStmt.setString(1, guildId);
-                insertGuildStmt.setString(2, currentDate);
-                insertGuildStmt.executeUpdate();
-                return;
-            }
-
-            // Wenn kein Datensatz existiert, neuen einfügen
-            String insertQuery = "INSERT INTO statistics (guild_id, date, " + actionType + ") VALUES (?, ?, ?)";
-            PreparedStatement insertStmt = connection.prepareStatement(insertQuery);
-            insertStmt.setString(1, guildId);
-            insertStmt.setString(2, currentDate);
-            insertStmt.setInt(3, 1);
-            insertStmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error updating statistics: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private boolean guildExistsInStatisticsTable(String guildId, String currentDate) {
-        try (Connection connection = getConnection()) {
-            String checkQuery = "SELECT guild_id FROM statistics WHERE guild_id = ? AND date = ?";
-            PreparedStatement checkStmt = connection.prepareStatement(checkQuery);
-            checkStmt.setString(1, guildId);
-            checkStmt.setString(2, currentDate);
-            ResultSet rs = checkStmt.executeQuery();
-            return rs.next();
-        } catch (SQLException e) {
-            System.err.println("Error checking guild in statistics table: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+        statisticsAggregator.increment(guildId, null, actionType);
     }
 
     /**
@@ -2046,100 +2338,35 @@ public class DatabaseHandler {
 
     /**
      * Insert or update global command statistics
-     * This method tracks how many times each command has been used globally
+     * This method tracks how many times each command has been used globally.
+     * Usages are buffered by the CommandUsageRecorder and written in batches.
      */
     public void insertOrUpdateGlobalStatistic(String command) {
-        try (Connection connection = getConnection()) {
-            // Try to update existing record
-            String updateQuery = "UPDATE global_statistics SET number = number + 1, last_used = ? WHERE command = ?";
-            PreparedStatement updateStmt = connection.prepareStatement(updateQuery);
-            updateStmt.setString(1, getCurrentDate());
-            updateStmt.setString(2, command);
-            
-            int rowsUpdated = updateStmt.executeUpdate();
+        commandUsageRecorder.record(command);
+    }
 
-            // If no record exists, insert new one
-            if (rowsUpdated == 0) {
-                String insertQuery = "INSERT INTO global_statistics (command, number, last_used) VALUES (?, ?, ?)";
-                PreparedStatement insertStmt = connection.prepareStatement(insertQuery);
-                insertStmt.setString(1, command);
-                insertStmt.setInt(2, 1);
-                insertStmt.setString(3, getCurrentDate());
-                insertStmt.executeUpdate();
-            }
-        } catch (SQLException e) {
-            System.err.println("Error updating global statistics: " + e.getMessage());
-            e.printStackTrace();
-        }
+    /**
+     * Get the recorder that buffers command usage statistics
+     */
+    public CommandUsageRecorder getCommandUsageRecorder() {
+        return commandUsageRecorder;
     }
 
     // USER STATISTICS FUNCTIONS
 
     /**
-     * Update statistics for a user and specific action type
+     * Update statistics for a user and specific action type.
+     * The increment is buffered and written by the StatisticsAggregator.
      */
     private void updateUserStatistics(String guildId, String userId, String actionType) {
-        try (Connection connection = getConnection()) {
-            String currentDate = getCurrentDate();
-
-            // Nur erlaubte Spaltennamen zulassen (SQL-Injection vermeiden)
-            java.util.Set<String> allowedActions = java.util.Set.of(
-                    "messages_sent", "commands_used", "timeouts_performed", "untimeouts_performed",
-                    "verifications_performed", "untimeouts_received", "timeouts_received",
-                    "bans_performed", "bans_received", "kicks_performed", "kicks_received",
-                    "warnings_issued", "warnings_received", "tickets_created", "tickets_closed"
-            );
-
-            if (!allowedActions.contains(actionType)) {
-                throw new IllegalArgumentException("Ungültiger Spaltenname für Statistik: " + actionType);
-            }
-
-            // UPDATE versuchen
-            String updateQuery = null;
-            if (userExistsInUserStatistics(guildId, userId)) {
-            }updateQuery = "UPDATE user_statistics SET " + actionType + " = " + actionType +
-                    " + ? WHERE guild_id = ? AND user_id = ? AND date = ?";
-            PreparedStatement updateStmt = connection.prepareStatement(updateQuery);
-            updateStmt.setInt(1, 1);
-            updateStmt.setString(2, guildId);
-            updateStmt.setString(3, userId);
-            updateStmt.setString(4, currentDate);
-
-            int rowsUpdated = updateStmt.executeUpdate();
-
-            // Wenn kein Datensatz existiert, neuen einfügen
-            if (rowsUpdated == 0) {
-                // ID wird durch AUTO_INCREMENT in der Datenbank generiert
-                String insertQuery = "INSERT INTO user_statistics (guild_id, user_id, date, " +
-                        actionType + ") VALUES (?, ?, ?, ?)";
-                PreparedStatement insertStmt = connection.prepareStatement(insertQuery);
-                insertStmt.setString(1, guildId);
-                insertStmt.setString(2, userId);
-                insertStmt.setString(3, currentDate);
-                insertStmt.setInt(4, 1);
-                insertStmt.executeUpdate();
-            }
-        } catch (SQLException e) {
-            System.err.println("Error updating user statistics: " + e.getMessage());
-            e.printStackTrace();
-        }
+        statisticsAggregator.increment(guildId, userId, actionType);
     }
 
-    private boolean userExistsInUserStatistics(String guildId, String userId) {
-        String currentDate = getCurrentDate();
-        String checkQuery = "SELECT id FROM user_statistics WHERE guild_id = ? AND user_id = ? AND date = ?";
-        try (Connection connection = getConnection()) {
-            PreparedStatement checkStmt = connection.prepareStatement(checkQuery);
-            checkStmt.setString(1, guildId);
-            checkStmt.setString(2, userId);
-            checkStmt.setString(3, currentDate);
-            ResultSet rs = checkStmt.executeQuery();
-            return rs.next();
-        } catch (SQLException e) {
-            System.err.println("Error checking user in user_statistics table: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+    /**
+     * Write all buffered statistics counters to the database immediately
+     */
+    public void flushStatistics() {
+        statisticsAggregator.flush();
     }
 
     /**
@@ -2245,128 +2472,131 @@ public class DatabaseHandler {
      */
     public EmbedBuilder getUserInfoEmbed(String guildId, String userId) {
         try (Connection connection = getConnection()) {
-            // Hole Benutzerinformationen (MariaDB: id als VARCHAR(32))
-            String userQuery = "SELECT username, discriminator, avatar, created_at FROM users WHERE id = ?";
-            PreparedStatement userStmt = connection.prepareStatement(userQuery);
-            userStmt.setString(1, userId);
-            ResultSet userRs = userStmt.executeQuery();
-
-            if (!userRs.next()) {
-                return new EmbedBuilder()
-                    .setTitle("❌ User Not Found")
-                    .setDescription("User information not available in database.")
-                    .setColor(Color.RED);
-            }
-
-            String username = userRs.getString("username");
-            String discriminator = userRs.getString("discriminator");
-            String avatar = userRs.getString("avatar");
-            String createdAt = userRs.getString("created_at");
-
-            // Erstelle Embed mit Benutzerinfo
-            EmbedBuilder embed = new EmbedBuilder()
-                .setTitle("👤 User Information: " + username + (discriminator != null ? "#" + discriminator : ""))
-                .setColor(Color.BLUE)
-                .setTimestamp(java.time.Instant.now());
-
-            if (avatar != null && !avatar.isEmpty()) {
-                embed.setThumbnail(avatar);
-            }
-
-            // Füge Basisinfos hinzu
-            embed.addField("📅 Joined Database", createdAt != null ? createdAt : "Unknown", true);
-            embed.addField("🆔 User ID", userId, true);
-
-            // Hole Benutzerstatistiken (MariaDB: guild_id, user_id als VARCHAR(32))
-            String statsQuery = "SELECT " +
-                "SUM(warnings_received) as total_warnings_received, " +
-                "SUM(warnings_issued) as total_warnings_issued, " +
-                "SUM(kicks_received) as total_kicks_received, " +
-                "SUM(kicks_performed) as total_kicks_performed, " +
-                "SUM(bans_received) as total_bans_received, " +
-                "SUM(bans_performed) as total_bans_performed, " +
-                "SUM(timeouts_received) as total_timeouts_received, " +
-                "SUM(timeouts_performed) as total_timeouts_performed, " +
-                "SUM(untimeouts_received) as total_untimeouts_received, " +
-                "SUM(untimeouts_performed) as total_untimeouts_performed, " +
-                "SUM(tickets_created) as total_tickets_created, " +
-                "SUM(tickets_closed) as total_tickets_closed, " +
-                "SUM(verifications_performed) as total_verifications_performed, " +
-                "SUM(messages_sent) as total_messages_sent " +
-                "FROM user_statistics WHERE guild_id = ? AND user_id = ?";
-            PreparedStatement statsStmt = connection.prepareStatement(statsQuery);
-            statsStmt.setString(1, guildId);
-            statsStmt.setString(2, userId);
-            ResultSet statsRs = statsStmt.executeQuery();
-
-            if (statsRs.next()) {
-                StringBuilder moderationStats = new StringBuilder();
-                StringBuilder activityStats = new StringBuilder();
-
-                // Moderation erhalten
-                int warningsReceived = statsRs.getInt("total_warnings_received");
-                int kicksReceived = statsRs.getInt("total_kicks_received");
-                int bansReceived = statsRs.getInt("total_bans_received");
-                int timeoutsReceived = statsRs.getInt("total_timeouts_received");
-                int untimeoutsReceived = statsRs.getInt("total_untimeouts_received");
-
-                if (warningsReceived > 0 || kicksReceived > 0 || bansReceived > 0 || timeoutsReceived > 0 || untimeoutsReceived > 0) {
-                    moderationStats.append("**Moderation Received:**\n");
-                    if (warningsReceived > 0) moderationStats.append("⚠️ Warnings: ").append(warningsReceived).append("\n");
-                    if (kicksReceived > 0) moderationStats.append("🦶 Kicks: ").append(kicksReceived).append("\n");
-                    if (bansReceived > 0) moderationStats.append("🔨 Bans: ").append(bansReceived).append("\n");
-                    if (timeoutsReceived > 0) moderationStats.append("⏱️ Timeouts: ").append(timeoutsReceived).append("\n");
-                    if (untimeoutsReceived > 0) moderationStats.append("⏰ Untimeouts: ").append(untimeoutsReceived).append("\n");
+            // Hole Benutzerinformationen (MariaDB: user_id als VARCHAR(32), id ist der AUTO_INCREMENT-Schlüssel)
+            String userQuery = "SELECT username, discriminator, avatar, created_at FROM users WHERE user_id = ?";
+            try (PreparedStatement userStmt = connection.prepareStatement(userQuery)) {
+                userStmt.setString(1, userId);
+                ResultSet userRs = userStmt.executeQuery();
+
+                if (!userRs.next()) {
+                    return new EmbedBuilder()
+                        .setTitle("❌ User Not Found")
+                        .setDescription("User information not available in database.")
+                        .setColor(Color.RED);
                 }
 
-                // Moderation durchgeführt
-                int warningsIssued = statsRs.getInt("total_warnings_issued");
-                int kicksPerformed = statsRs.getInt("total_kicks_performed");
-                int bansPerformed = statsRs.getInt("total_bans_performed");
-                int timeoutsPerformed = statsRs.getInt("total_timeouts_performed");
-                int untimeoutsPerformed = statsRs.getInt("total_untimeouts_performed");
-
-                if (warningsIssued > 0 || kicksPerformed > 0 || bansPerformed > 0 || timeoutsPerformed > 0 || untimeoutsPerformed > 0) {
-                    if (moderationStats.length() > 0) moderationStats.append("\n");
-                    moderationStats.append("**Moderation Performed:**\n");
-                    if (warningsIssued > 0) moderationStats.append("⚠️ Warnings Issued: ").append(warningsIssued).append("\n");
-                    if (kicksPerformed > 0) moderationStats.append("🦶 Kicks Performed: ").append(kicksPerformed).append("\n");
-                    if (bansPerformed > 0) moderationStats.append("🔨 Bans Performed: ").append(bansPerformed).append("\n");
-                    if (timeoutsPerformed > 0) moderationStats.append("⏱️ Timeouts Performed: ").append(timeoutsPerformed).append("\n");
-                    if (untimeoutsPerformed > 0) moderationStats.append("⏰ Untimeouts Performed: ").append(untimeoutsPerformed).append("\n");
-                }
+                String username = userRs.getString("username");
+                String discriminator = userRs.getString("discriminator");
+                String avatar = userRs.getString("avatar");
+                String createdAt = userRs.getString("created_at");
 
-                // Aktivitätsstatistiken
-                int ticketsCreated = statsRs.getInt("total_tickets_created");
-                int ticketsClosed = statsRs.getInt("total_tickets_closed");
-                int verificationsPerformed = statsRs.getInt("total_verifications_performed");
-                int messagesSent = statsRs.getInt("total_messages_sent");
-
-                if (ticketsCreated > 0 || ticketsClosed > 0 || verificationsPerformed > 0 || messagesSent > 0) {
-                    activityStats.append("**Activity Stats:**\n");
-                    if (ticketsCreated > 0) activityStats.append("🎫 Tickets Created: ").append(ticketsCreated).append("\n");
-                    if (ticketsClosed > 0) activityStats.append("✅ Tickets Closed: ").append(ticketsClosed).append("\n");
-                    if (verificationsPerformed > 0) activityStats.append("✅ Verifications: ").append(verificationsPerformed).append("\n");
-                    if (messagesSent > 0) activityStats.append("💬 Messages Sent: ").append(messagesSent).append("\n");
-                }
+                // Erstelle Embed mit Benutzerinfo
+                EmbedBuilder embed = new EmbedBuilder()
+                    .setTitle("👤 User Information: " + username + (discriminator != null ? "#" + discriminator : ""))
+                    .setColor(Color.BLUE)
+                    .setTimestamp(java.time.Instant.now());
 
-                // Felder zum Embed hinzufügen
-                if (moderationStats.length() > 0) {
-                    embed.addField("📊 Moderation Statistics", moderationStats.toString(), false);
-                }
-                if (activityStats.length() > 0) {
-                    embed.addField("📈 Activity Statistics", activityStats.toString(), false);
+                if (avatar != null && !avatar.isEmpty()) {
+                    embed.setThumbnail(avatar);
                 }
 
-                if (moderationStats.length() == 0 && activityStats.length() == 0) {
-                    embed.addField("📊 Statistics", "No activity recorded yet.", false);
-                }
-            } else {
-                embed.addField("📊 Statistics", "No activity recorded yet.", false);
-            }
+                // Füge Basisinfos hinzu
+                embed.addField("📅 Joined Database", createdAt != null ? createdAt : "Unknown", true);
+                embed.addField("🆔 User ID", userId, true);
+
+                // Hole Benutzerstatistiken (MariaDB: guild_id, user_id als VARCHAR(32))
+                String statsQuery = "SELECT " +
+                    "SUM(warnings_received) as total_warnings_received, " +
+                    "SUM(warnings_issued) as total_warnings_issued, " +
+                    "SUM(kicks_received) as total_kicks_received, " +
+                    "SUM(kicks_performed) as total_kicks_performed, " +
+                    "SUM(bans_received) as total_bans_received, " +
+                    "SUM(bans_performed) as total_bans_performed, " +
+                    "SUM(timeouts_received) as total_timeouts_received, " +
+                    "SUM(timeouts_performed) as total_timeouts_performed, " +
+                    "SUM(untimeouts_received) as total_untimeouts_received, " +
+                    "SUM(untimeouts_performed) as total_untimeouts_performed, " +
+                    "SUM(tickets_created) as total_tickets_created, " +
+                    "SUM(tickets_closed) as total_tickets_closed, " +
+                    "SUM(verifications_performed) as total_verifications_performed, " +
+                    "SUM(messages_sent) as total_messages_sent " +
+                    // Rollup: at most one row per guild and user
+                    "FROM user_statistics_lifetime WHERE guild_id = ? AND user_id = ?";
+                try (PreparedStatement statsStmt = connection.prepareStatement(statsQuery)) {
+                    statsStmt.setString(1, guildId);
+                    statsStmt.setString(2, userId);
+                    ResultSet statsRs = statsStmt.executeQuery();
+
+                    if (statsRs.next()) {
+                        StringBuilder moderationStats = new StringBuilder();
+                        StringBuilder activityStats = new StringBuilder();
+
+                        // Moderation erhalten
+                        int warningsReceived = statsRs.getInt("total_warnings_received");
+                        int kicksReceived = statsRs.getInt("total_kicks_received");
+                        int bansReceived = statsRs.getInt("total_bans_received");
+                        int timeoutsReceived = statsRs.getInt("total_timeouts_received");
+                        int untimeoutsReceived = statsRs.getInt("total_untimeouts_received");
+
+                        if (warningsReceived > 0 || kicksReceived > 0 || bansReceived > 0 || timeoutsReceived > 0 || untimeoutsReceived > 0) {
+                            moderationStats.append("**Moderation Received:**\n");
+                            if (warningsReceived > 0) moderationStats.append("⚠️ Warnings: ").append(warningsReceived).append("\n");
+                            if (kicksReceived > 0) moderationStats.append("🦶 Kicks: ").append(kicksReceived).append("\n");
+                            if (bansReceived > 0) moderationStats.append("🔨 Bans: ").append(bansReceived).append("\n");
+                            if (timeoutsReceived > 0) moderationStats.append("⏱️ Timeouts: ").append(timeoutsReceived).append("\n");
+                            if (untimeoutsReceived > 0) moderationStats.append("⏰ Untimeouts: ").append(untimeoutsReceived).append("\n");
+                        }
 
-            return embed;
+                        // Moderation durchgeführt
+                        int warningsIssued = statsRs.getInt("total_warnings_issued");
+                        int kicksPerformed = statsRs.getInt("total_kicks_performed");
+                        int bansPerformed = statsRs.getInt("total_bans_performed");
+                        int timeoutsPerformed = statsRs.getInt("total_timeouts_performed");
+                        int untimeoutsPerformed = statsRs.getInt("total_untimeouts_performed");
+
+                        if (warningsIssued > 0 || kicksPerformed > 0 || bansPerformed > 0 || timeoutsPerformed > 0 || untimeoutsPerformed > 0) {
+                            if (moderationStats.length() > 0) moderationStats.append("\n");
+                            moderationStats.append("**Moderation Performed:**\n");
+                            if (warningsIssued > 0) moderationStats.append("⚠️ Warnings Issued: ").append(warningsIssued).append("\n");
+                            if (kicksPerformed > 0) moderationStats.append("🦶 Kicks Performed: ").append(kicksPerformed).append("\n");
+                            if (bansPerformed > 0) moderationStats.append("🔨 Bans Performed: ").append(bansPerformed).append("\n");
+                            if (timeoutsPerformed > 0) moderationStats.append("⏱️ Timeouts Performed: ").append(timeoutsPerformed).append("\n");
+                            if (untimeoutsPerformed > 0) moderationStats.append("⏰ Untimeouts Performed: ").append(untimeoutsPerformed).append("\n");
+                        }
+
+                        // Aktivitätsstatistiken
+                        int ticketsCreated = statsRs.getInt("total_tickets_created");
+                        int ticketsClosed = statsRs.getInt("total_tickets_closed");
+                        int verificationsPerformed = statsRs.getInt("total_verifications_performed");
+                        int messagesSent = statsRs.getInt("total_messages_sent");
+
+                        if (ticketsCreated > 0 || ticketsClosed > 0 || verificationsPerformed > 0 || messagesSent > 0) {
+                            activityStats.append("**Activity Stats:**\n");
+                            if (ticketsCreated > 0) activityStats.append("🎫 Tickets Created: ").append(ticketsCreated).append("\n");
+                            if (ticketsClosed > 0) activityStats.append("✅ Tickets Closed: ").append(ticketsClosed).append("\n");
+                            if (verificationsPerformed > 0) activityStats.append("✅ Verifications: ").append(verificationsPerformed).append("\n");
+                            if (messagesSent > 0) activityStats.append("💬 Messages Sent: ").append(messagesSent).append("\n");
+                        }
+
+                        // Felder zum Embed hinzufügen
+                        if (moderationStats.length() > 0) {
+                            embed.addField("📊 Moderation Statistics", moderationStats.toString(), false);
+                        }
+                        if (activityStats.length() > 0) {
+                            embed.addField("📈 Activity Statistics", activityStats.toString(), false);
+                        }
 
+                        if (moderationStats.length() == 0 && activityStats.length() == 0) {
+                            embed.addField("📊 Statistics", "No activity recorded yet.", false);
+                        }
+                    } else {
+                        embed.addField("📊 Statistics", "No activity recorded yet.", false);
+                    }
+
+                    return embed;
+
+                }
+            }
         } catch (SQLException e) {
             System.err.println("Error getting user info: " + e.getMessage());
             e.printStackTrace();
@@ -2382,63 +2612,65 @@ public class DatabaseHandler {
      */
     public EmbedBuilder getUserStatisticsForDateEmbed(String guildId, String userId, String date) {
         try (Connection connection = getConnection()) {
-            // Hole Benutzerinformationen (MariaDB: id als VARCHAR(32) oder TEXT)
-            String userQuery = "SELECT username, discriminator FROM users WHERE id = ?";
-            PreparedStatement userStmt = connection.prepareStatement(userQuery);
-            userStmt.setString(1, userId);
-            ResultSet userRs = userStmt.executeQuery();
-
-            String displayName = "Unknown User";
-            if (userRs.next()) {
-                String username = userRs.getString("username");
-                String discriminator = userRs.getString("discriminator");
-                displayName = username + (discriminator != null ? "#" + discriminator : "");
-            }
+            // Hole Benutzerinformationen (MariaDB: user_id als VARCHAR(32))
+            String userQuery = "SELECT username, discriminator FROM users WHERE user_id = ?";
+            try (PreparedStatement userStmt = connection.prepareStatement(userQuery)) {
+                userStmt.setString(1, userId);
+                ResultSet userRs = userStmt.executeQuery();
+
+                String displayName = "Unknown User";
+                if (userRs.next()) {
+                    String username = userRs.getString("username");
+                    String discriminator = userRs.getString("discriminator");
+                    displayName = username + (discriminator != null ? "#" + discriminator : "");
+                }
 
-            EmbedBuilder embed = new EmbedBuilder()
-                .setTitle("📊 User Statistics for " + date)
-                .setDescription("Statistics for " + displayName)
-                .setColor(Color.BLUE)
-                .setTimestamp(java.time.Instant.now());
+                EmbedBuilder embed = new EmbedBuilder()
+                    .setTitle("📊 User Statistics for " + date)
+                    .setDescription("Statistics for " + displayName)
+                    .setColor(Color.BLUE)
+                    .setTimestamp(java.time.Instant.now());
+
+                // Hole Statistiken für das spezifische Datum (MariaDB: guild_id, user_id als VARCHAR(32) oder TEXT)
+                String statsQuery = "SELECT * FROM user_statistics WHERE guild_id = ? AND user_id = ? AND date = ?";
+                try (PreparedStatement statsStmt = connection.prepareStatement(statsQuery)) {
+                    statsStmt.setString(1, guildId);
+                    statsStmt.setString(2, userId);
+                    statsStmt.setString(3, date);
+                    ResultSet statsRs = statsStmt.executeQuery();
+
+                    if (statsRs.next()) {
+                        StringBuilder stats = new StringBuilder();
+
+                        // Prüfe jede Statistik und füge sie hinzu, wenn > 0
+                        if (statsRs.getInt("warnings_received") > 0) stats.append("⚠️ Warnings Received: ").append(statsRs.getInt("warnings_received")).append("\n");
+                        if (statsRs.getInt("warnings_issued") > 0) stats.append("⚠️ Warnings Issued: ").append(statsRs.getInt("warnings_issued")).append("\n");
+                        if (statsRs.getInt("kicks_received") > 0) stats.append("🦶 Kicks Received: ").append(statsRs.getInt("kicks_received")).append("\n");
+                        if (statsRs.getInt("kicks_performed") > 0) stats.append("🦶 Kicks Performed: ").append(statsRs.getInt("kicks_performed")).append("\n");
+                        if (statsRs.getInt("bans_received") > 0) stats.append("🔨 Bans Received: ").append(statsRs.getInt("bans_received")).append("\n");
+                        if (statsRs.getInt("bans_performed") > 0) stats.append("🔨 Bans Performed: ").append(statsRs.getInt("bans_performed")).append("\n");
+                        if (statsRs.getInt("timeouts_received") > 0) stats.append("⏱️ Timeouts Received: ").append(statsRs.getInt("timeouts_received")).append("\n");
+                        if (statsRs.getInt("timeouts_performed") > 0) stats.append("⏱️ Timeouts Performed: ").append(statsRs.getInt("timeouts_performed")).append("\n");
+                        if (statsRs.getInt("untimeouts_received") > 0) stats.append("⏰ Untimeouts Received: ").append(statsRs.getInt("untimeouts_received")).append("\n");
+                        if (statsRs.getInt("untimeouts_performed") > 0) stats.append("⏰ Untimeouts Performed: ").append(statsRs.getInt("untimeouts_performed")).append("\n");
+                        if (statsRs.getInt("tickets_created") > 0) stats.append("🎫 Tickets Created: ").append(statsRs.getInt("tickets_created")).append("\n");
+                        if (statsRs.getInt("tickets_closed") > 0) stats.append("✅ Tickets Closed: ").append(statsRs.getInt("tickets_closed")).append("\n");
+                        if (statsRs.getInt("verifications_performed") > 0) stats.append("✅ Verifications: ").append(statsRs.getInt("verifications_performed")).append("\n");
+                        if (statsRs.getInt("messages_sent") > 0) stats.append("💬 Messages Sent: ").append(statsRs.getInt("messages_sent")).append("\n");
+
+                        if (stats.length() > 0) {
+                            embed.addField("📈 Daily Activity", stats.toString(), false);
+                        } else {
+                            embed.addField("📈 Daily Activity", "No activity recorded for this date.", false);
+                        }
+                    } else {
+                        embed.addField("📈 Daily Activity", "No activity recorded for this date.", false);
+                    }
+
+                    return embed;
 
-            // Hole Statistiken für das spezifische Datum (MariaDB: guild_id, user_id als VARCHAR(32) oder TEXT)
-            String statsQuery = "SELECT * FROM user_statistics WHERE guild_id = ? AND user_id = ? AND date = ?";
-            PreparedStatement statsStmt = connection.prepareStatement(statsQuery);
-            statsStmt.setString(1, guildId);
-            statsStmt.setString(2, userId);
-            statsStmt.setString(3, date);
-            ResultSet statsRs = statsStmt.executeQuery();
-
-            if (statsRs.next()) {
-                StringBuilder stats = new StringBuilder();
-
-                // Prüfe jede Statistik und füge sie hinzu, wenn > 0
-                if (statsRs.getInt("warnings_received") > 0) stats.append("⚠️ Warnings Received: ").append(statsRs.getInt("warnings_received")).append("\n");
-                if (statsRs.getInt("warnings_issued") > 0) stats.append("⚠️ Warnings Issued: ").append(statsRs.getInt("warnings_issued")).append("\n");
-                if (statsRs.getInt("kicks_received") > 0) stats.append("🦶 Kicks Received: ").append(statsRs.getInt("kicks_received")).append("\n");
-                if (statsRs.getInt("kicks_performed") > 0) stats.append("🦶 Kicks Performed: ").append(statsRs.getInt("kicks_performed")).append("\n");
-                if (statsRs.getInt("bans_received") > 0) stats.append("🔨 Bans Received: ").append(statsRs.getInt("bans_received")).append("\n");
-                if (statsRs.getInt("bans_performed") > 0) stats.append("🔨 Bans Performed: ").append(statsRs.getInt("bans_performed")).append("\n");
-                if (statsRs.getInt("timeouts_received") > 0) stats.append("⏱️ Timeouts Received: ").append(statsRs.getInt("timeouts_received")).append("\n");
-                if (statsRs.getInt("timeouts_performed") > 0) stats.append("⏱️ Timeouts Performed: ").append(statsRs.getInt("timeouts_performed")).append("\n");
-                if (statsRs.getInt("untimeouts_received") > 0) stats.append("⏰ Untimeouts Received: ").append(statsRs.getInt("untimeouts_received")).append("\n");
-                if (statsRs.getInt("untimeouts_performed") > 0) stats.append("⏰ Untimeouts Performed: ").append(statsRs.getInt("untimeouts_performed")).append("\n");
-                if (statsRs.getInt("tickets_created") > 0) stats.append("🎫 Tickets Created: ").append(statsRs.getInt("tickets_created")).append("\n");
-                if (statsRs.getInt("tickets_closed") > 0) stats.append("✅ Tickets Closed: ").append(statsRs.getInt("tickets_closed")).append("\n");
-                if (statsRs.getInt("verifications_performed") > 0) stats.append("✅ Verifications: ").append(statsRs.getInt("verifications_performed")).append("\n");
-                if (statsRs.getInt("messages_sent") > 0) stats.append("💬 Messages Sent: ").append(statsRs.getInt("messages_sent")).append("\n");
-
-                if (stats.length() > 0) {
-                    embed.addField("📈 Daily Activity", stats.toString(), false);
-                } else {
-                    embed.addField("📈 Daily Activity", "No activity recorded for this date.", false);
                 }
-            } else {
-                embed.addField("📈 Daily Activity", "No activity recorded for this date.", false);
             }
-
-            return embed;
-
         } catch (SQLException e) {
             System.err.println("Error getting user statistics for date: " + e.getMessage());
             e.printStackTrace();
@@ -2453,36 +2685,30 @@ public class DatabaseHandler {
      * Get statistics for a guild for a specific date
      */
     public String getStatisticsForDate(String guildId, String date) {
-        try (Connection connection = getConnection()) {
-            // MariaDB-Syntax: guild_id als VARCHAR(32) oder TEXT behandeln
-            String query = "SELECT warnings_issued, kicks_performed, bans_performed, timeouts_performed, untimeouts_performed, tickets_created, tickets_closed " +
-                    "FROM statistics WHERE guild_id = ? AND date = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId); // guild_id als VARCHAR(32) oder TEXT
-            stmt.setString(2, date);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                StringBuilder result = new StringBuilder();
-                result.append("**Statistics for ").append(date).append(":**\n");
-                result.append("🔸 Warnings Issued: ").append(rs.getInt("warnings_issued")).append("\n");
-                result.append("🦶 Kicks Performed: ").append(rs.getInt("kicks_performed")).append("\n");
-                result.append("🔨 Bans Performed: ").append(rs.getInt("bans_performed")).append("\n");
-                result.append("⏱️ Timeouts Performed: ").append(rs.getInt("timeouts_performed")).append("\n");
-                result.append("⏰ Untimeouts Performed: ").append(rs.getInt("untimeouts_performed")).append("\n");
-                result.append("🎫 Tickets Created: ").append(rs.getInt("tickets_created")).append("\n");
-                result.append("✅ Tickets Closed: ").append(rs.getInt("tickets_closed"));
-                return result.toString();
-            } else {
+        try {
+            LocalDate day = LocalDate.parse(date);
+            StatisticsSeries series = getStatisticsSeries(guildId, null, day, day, StatisticsSeries.Bucket.DAY);
+            if (series.getRowCount() == 0) {
                 return "No statistics found for " + date + ".";
             }
+            StringBuilder result = new StringBuilder();
+            result.append("**Statistics for ").append(date).append(":**\n");
+            result.append("🔸 Warnings Issued: ").append(series.get(0, "warnings_issued")).append("\n");
+            result.append("🦶 Kicks Performed: ").append(series.get(0, "kicks_performed")).append("\n");
+            result.append("🔨 Bans Performed: ").append(series.get(0, "bans_performed")).append("\n");
+            result.append("⏱️ Timeouts Performed: ").append(series.get(0, "timeouts_performed")).append("\n");
+            result.append("⏰ Untimeouts Performed: ").append(series.get(0, "untimeouts_performed")).append("\n");
+            result.append("🎫 Tickets Created: ").append(series.get(0, "tickets_created")).append("\n");
+            result.append("✅ Tickets Closed: ").append(series.get(0, "tickets_closed"));
+            return result.toString();
+        } catch (java.time.format.DateTimeParseException e) {
+            return "Invalid date: " + date + ".";
         } catch (SQLException e) {
             System.err.println("Error getting statistics: " + e.getMessage());
             e.printStackTrace();
             return "Error retrieving statistics.";
         }
     }
-
     /**
      * Get statistics for a guild for today
      */
@@ -2494,57 +2720,34 @@ public class DatabaseHandler {
      * Get statistics for a guild for the last 7 days
      */
     public String getWeeklyStatistics(String guildId) {
-        try (Connection connection = getConnection()) {
-            String query = "SELECT date, warnings_issued, kicks_performed, bans_performed, timeouts_performed, untimeouts_performed, tickets_created, tickets_closed " +
-                    "FROM statistics WHERE guild_id = ? AND date >= date('now', '-7 days') ORDER BY date DESC";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            ResultSet rs = stmt.executeQuery();
-            
+        try {
+            LocalDate today = LocalDate.now();
+            StatisticsSeries series = getStatisticsSeries(guildId, null, today.minusDays(7), today, StatisticsSeries.Bucket.DAY);
+            if (series.getRowCount() == 0) {
+                return "No statistics found for the last 7 days.";
+            }
+
             StringBuilder result = new StringBuilder();
             result.append("**Weekly Statistics (Last 7 Days):**\n");
-            
-            int totalWarnings = 0, totalKicks = 0, totalBans = 0, totalTimeouts = 0, totalUntimeouts = 0, totalTicketsCreated = 0, totalTicketsClosed = 0;
-            boolean hasData = false;
-            
-            while (rs.next()) {
-                hasData = true;
-                String date = rs.getString("date");
-                int warnings = rs.getInt("warnings_issued");
-                int kicks = rs.getInt("kicks_performed");
-                int bans = rs.getInt("bans_performed");
-                int timeouts = rs.getInt("timeouts_performed");
-                int untimeouts = rs.getInt("untimeouts_performed");
-                int ticketsCreated = rs.getInt("tickets_created");
-                int ticketsClosed = rs.getInt("tickets_closed");
-                
-                totalWarnings += warnings;
-                totalKicks += kicks;
-                totalBans += bans;
-                totalTimeouts += timeouts;
-                totalUntimeouts += untimeouts;
-                totalTicketsCreated += ticketsCreated;
-                totalTicketsClosed += ticketsClosed;
-                
-                result.append("\n**").append(date).append(":**\n");
-                result.append("🔸 ").append(warnings).append(" | 🦶 ").append(kicks).append(" | 🔨 ").append(bans);
-                result.append(" | ⏱️ ").append(timeouts).append(" | ⏰ ").append(untimeouts);
-                result.append(" | 🎫 ").append(ticketsCreated).append(" | ✅ ").append(ticketsClosed);
-            }
-            
-            if (hasData) {
-                result.append("\n\n**Weekly Totals:**\n");
-                result.append("🔸 Warnings: ").append(totalWarnings).append("\n");
-                result.append("🦶 Kicks: ").append(totalKicks).append("\n");
-                result.append("🔨 Bans: ").append(totalBans).append("\n");
-                result.append("⏱️ Timeouts: ").append(totalTimeouts).append("\n");
-                result.append("⏰ Untimeouts: ").append(totalUntimeouts).append("\n");
-                result.append("🎫 Tickets Created: ").append(totalTicketsCreated).append("\n");
-                result.append("✅ Tickets Closed: ").append(totalTicketsClosed);
-                return result.toString();
-            } else {
-                return "No statistics found for the last 7 days.";
+            // Newest day first
+            for (int i = series.size() - 1; i >= 0; i--) {
+                if (!series.hasRows(i)) continue;
+                result.append("\n**").append(series.getBucketStart(i)).append(":**\n");
+                result.append("🔸 ").append(series.get(i, "warnings_issued")).append(" | 🦶 ").append(series.get(i, "kicks_performed"))
+                        .append(" | 🔨 ").append(series.get(i, "bans_performed"));
+                result.append(" | ⏱️ ").append(series.get(i, "timeouts_performed")).append(" | ⏰ ").append(series.get(i, "untimeouts_performed"));
+                result.append(" | 🎫 ").append(series.get(i, "tickets_created")).append(" | ✅ ").append(series.get(i, "tickets_closed"));
             }
+
+            result.append("\n\n**Weekly Totals:**\n");
+            result.append("🔸 Warnings: ").append(series.getTotal("warnings_issued")).append("\n");
+            result.append("🦶 Kicks: ").append(series.getTotal("kicks_performed")).append("\n");
+            result.append("🔨 Bans: ").append(series.getTotal("bans_performed")).append("\n");
+            result.append("⏱️ Timeouts: ").append(series.getTotal("timeouts_performed")).append("\n");
+            result.append("⏰ Untimeouts: ").append(series.getTotal("untimeouts_performed")).append("\n");
+            result.append("🎫 Tickets Created: ").append(series.getTotal("tickets_created")).append("\n");
+            result.append("✅ Tickets Closed: ").append(series.getTotal("tickets_closed"));
+            return result.toString();
         } catch (SQLException e) {
             System.err.println("Error getting weekly statistics: " + e.getMessage());
             e.printStackTrace();
@@ -2552,6 +2755,16 @@ public class DatabaseHandler {
         }
     }
 
+    /**
+     * Counters of a guild (userId == null) or of one user over a date range, from and to inclusive,
+     * summed per day, week or month with a single range query
+     */
+    public StatisticsSeries getStatisticsSeries(String guildId, String userId, LocalDate from, LocalDate to,
+                                                StatisticsSeries.Bucket bucket) throws SQLException {
+        try (Connection connection = getConnection()) {
+            return StatisticsSeries.load(connection, guildId, userId, from, to, bucket);
+        }
+    }
     public String processLinebreaks(String text) {
         if (text == null) return null;
 
@@ -2562,90 +2775,43 @@ public class DatabaseHandler {
     }
 
     /**
-     * Get moderation statistics for a guild for a specific date using embeds
+     * Get moderation statistics for a guild for today using embeds
      */
     public EmbedBuilder getModerationStatisticsForDateEmbed(String guildId) {
-        String date = getCurrentDate();
+        return getModerationStatisticsForDateEmbed(guildId, getCurrentDate());
+    }
+
+    /**
+     * Get moderation statistics for a guild for the given date (YYYY-MM-DD) using embeds
+     */
+    public EmbedBuilder getModerationStatisticsForDateEmbed(String guildId, String date) {
         EmbedBuilder embed = new EmbedBuilder()
                 .setTitle("📊 Moderation Statistics")
                 .setDescription("Statistics for " + date)
                 .setColor(Color.BLUE)
                 .setTimestamp(java.time.Instant.now());
 
-        try (Connection connection = getConnection()) {
-            // Get counts from moderation_actions table
-            ArrayList<String> actionTypes = new ArrayList<>();
-            actionTypes.add("warnings_issued");
-            actionTypes.add("kicks_performed");
-            actionTypes.add("bans_performed");
-            actionTypes.add("timeouts_performed");
-            actionTypes.add("untimeouts_performed");
-            actionTypes.add("tickets_created");
-            actionTypes.add("tickets_closed");
-            actionTypes.add("verifications_performed");
-
-            String query = "SELECT warnings_issued, kicks_performed, bans_performed, timeouts_performed, untimeouts_performed, tickets_created, tickets_closed, verifications_performed FROM statistics WHERE guild_id = ? AND date = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            stmt.setString(2, date);
-            ResultSet rs = stmt.executeQuery();
+        try {
+            LocalDate day = LocalDate.parse(date);
+            StatisticsSeries series = getStatisticsSeries(guildId, null, day, day, StatisticsSeries.Bucket.DAY);
 
-            boolean hasData = false;
             StringBuilder moderationStats = new StringBuilder();
-
-            System.out.println("Abfrage von Statistiken für Guild: " + guildId + ", Datum: " + date);
-
-            if (rs.next()) {
-                int warnings = rs.getInt("warnings_issued");
-                int kicks = rs.getInt("kicks_performed");
-                int bans = rs.getInt("bans_performed");
-                int timeouts = rs.getInt("timeouts_performed");
-                int untimeouts = rs.getInt("untimeouts_performed");
-                int ticketsCreated = rs.getInt("tickets_created");
-                int ticketsClosed = rs.getInt("tickets_closed");
-                int verifications = rs.getInt("verifications_performed");
-                if (warnings > 0) {
-                    moderationStats.append("⚠️ Warnings Issued: ").append(warnings).append("\n");
-                    hasData = true;
-                }
-                if (kicks > 0) {
-                    moderationStats.append("🦶 Kicks Performed: ").append(kicks).append("\n");
-                    hasData = true;
-                }
-                if (bans > 0) {
-                    moderationStats.append("🔨 Bans Performed: ").append(bans).append("\n");
-                    hasData = true;
-                }
-                if (timeouts > 0) {
-                    moderationStats.append("⏱️ Timeouts Performed: ").append(timeouts).append("\n");
-                    hasData = true;
-                }
-                if (untimeouts > 0) {
-                    moderationStats.append("⏰ Untimeouts Performed: ").append(untimeouts).append("\n");
-                    hasData = true;
-                }
-                if (ticketsCreated > 0) {
-                    moderationStats.append("🎫 Tickets Created: ").append(ticketsCreated).append("\n");
-                    hasData = true;
-                }
-                if (ticketsClosed > 0) {
-                    moderationStats.append("✅ Tickets Closed: ").append(ticketsClosed).append("\n");
-                    hasData = true;
-                }
-                if (verifications > 0) {
-                    moderationStats.append("✅ Verifications Performed: ").append(verifications).append("\n");
-                    hasData = true;
-                }
-            }
-
-            System.out.println("Moderation Aktionen gefunden: " + (hasData ? "Ja" : "Nein"));
-
-            if (hasData) {
+            appendIfPositive(moderationStats, "⚠️ Warnings Issued: ", series.get(0, "warnings_issued"));
+            appendIfPositive(moderationStats, "🦶 Kicks Performed: ", series.get(0, "kicks_performed"));
+            appendIfPositive(moderationStats, "🔨 Bans Performed: ", series.get(0, "bans_performed"));
+            appendIfPositive(moderationStats, "⏱️ Timeouts Performed: ", series.get(0, "timeouts_performed"));
+            appendIfPositive(moderationStats, "⏰ Untimeouts Performed: ", series.get(0, "untimeouts_performed"));
+            appendIfPositive(moderationStats, "🎫 Tickets Created: ", series.get(0, "tickets_created"));
+            appendIfPositive(moderationStats, "✅ Tickets Closed: ", series.get(0, "tickets_closed"));
+            appendIfPositive(moderationStats, "✅ Verifications Performed: ", series.get(0, "verifications_performed"));
+
+            if (moderationStats.length() > 0) {
                 embed.addField("Moderation Actions", moderationStats.toString(), false);
             } else {
                 embed.addField("No Activity", "No moderation actions or ticket activity found for " + date, false);
             }
-
+        } catch (java.time.format.DateTimeParseException e) {
+            embed.addField("Error", "Invalid date " + date, false);
         } catch (SQLException e) {
             System.err.println("Error getting moderation statistics: " + e.getMessage());
             e.printStackTrace();
@@ -2655,6 +2821,11 @@ public class DatabaseHandler {
         return embed;
     }
 
+    private static void appendIfPositive(StringBuilder text, String label, long value) {
+        if (value > 0) {
+            text.append(label).append(value).append("\n");
+        }
+    }
     /**
      * Get moderation statistics for today using embeds
      */
@@ -2718,61 +2889,30 @@ public class DatabaseHandler {
                 .setColor(Color.BLUE)
                 .setTimestamp(java.time.Instant.now());
 
-        System.out.println("Hole wöchentliche Moderations-Statistiken für Guild: " + guildId + " ab Datum (exklusiv): " + afterDate);
-
-        StringBuilder dailyBreakdown = new StringBuilder();
-        int totalWarnings = 0, totalKicks = 0, totalBans = 0, totalTimeouts = 0, totalUntimeouts = 0, totalTicketsCreated = 0, totalTicketsClosed = 0, totalVerifications = 0;
-
-        try (Connection connection = getConnection()) {
-            String query = "SELECT date, warnings_issued, kicks_performed, bans_performed, timeouts_performed, " +
-                    "untimeouts_performed, tickets_created, tickets_closed, verifications_performed " +
-                    "FROM statistics WHERE guild_id = ? AND date > ? ORDER BY date ASC";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, guildId);
-            stmt.setString(2, afterDate);
-            ResultSet rs = stmt.executeQuery();
-
-            boolean hasData = false;
+        try {
+            LocalDate from = LocalDate.parse(afterDate).plusDays(1);
+            LocalDate to = LocalDate.now();
+            if (to.isBefore(from)) {
+                to = from;
+            }
+            StatisticsSeries series = getStatisticsSeries(guildId, null, from, to, StatisticsSeries.Bucket.DAY);
+
+            if (series.getRowCount() > 0) {
+                StringBuilder dailyBreakdown = new StringBuilder();
+                for (int i = 0; i < series.size(); i++) {
+                    if (!series.hasRows(i)) continue;
+                    dailyBreakdown.append("**").append(series.getBucketStart(i)).append("**\n")
+                            .append("⚠️ ").append(series.get(i, "warnings_issued"))
+                            .append(" | 🦶 ").append(series.get(i, "kicks_performed"))
+                            .append(" | 🔨 ").append(series.get(i, "bans_performed"))
+                            .append(" | ⏱️ ").append(series.get(i, "timeouts_performed"))
+                            .append(" | ⏰ ").append(series.get(i, "untimeouts_performed"))
+                            .append(" | 🎫 ").append(series.get(i, "tickets_created"))
+                            .append(" | ✅ ").append(series.get(i, "tickets_closed"))
+                            .append(" | ✔️ ").append(series.get(i, "verifications_performed"))
+                            .append("\n\n");
+                }
 
-            while (rs.next()) {
-                hasData = true;
-                String day = rs.getString("date");
-                int warnings = rs.getInt("warnings_issued");
-                int kicks = rs.getInt("kicks_performed");
-                int bans = rs.getInt("bans_performed");
-                int timeouts = rs.getInt("timeouts_performed");
-                int untimeouts = rs.getInt("untimeouts_performed");
-                int ticketsCreated = rs.getInt("tickets_created");
-                int ticketsClosed = rs.getInt("tickets_closed");
-                int verifications = rs.getInt("verifications_performed");
-
-                totalWarnings += warnings;
-                totalKicks += kicks;
-                totalBans += bans;
-                totalTimeouts += timeouts;
-                totalUntimeouts += untimeouts;
-                totalTicketsCreated += ticketsCreated;
-                totalTicketsClosed += ticketsClosed;
-                totalVerifications += verifications;
-
-                System.out.println("Tag: " + day + ", Warnungen: " + warnings + ", Kicks: " + kicks + ", Bans: " + bans +
-                        ", Timeouts: " + timeouts + ", Untimeouts: " + untimeouts +
-                        ", Tickets Erstellt: " + ticketsCreated + ", Tickets Geschlossen: " + ticketsClosed +
-                        ", Verifizierungen: " + verifications);
-
-                dailyBreakdown.append("**").append(day).append("**\n")
-                        .append("⚠️ ").append(warnings)
-                        .append(" | 🦶 ").append(kicks)
-                        .append(" | 🔨 ").append(bans)
-                        .append(" | ⏱️ ").append(timeouts)
-                        .append(" | ⏰ ").append(untimeouts)
-                        .append(" | 🎫 ").append(ticketsCreated)
-                        .append(" | ✅ ").append(ticketsClosed)
-                        .append(" | ✔️ ").append(verifications)
-                        .append("\n\n");
-            }
-
-            if (hasData) {
                 String dailyContent = dailyBreakdown.toString();
                 if (dailyContent.length() > 1024) {
                     dailyContent = dailyContent.substring(0, 1000) + "...\n*(gekürzt)*";
@@ -2780,18 +2920,20 @@ public class DatabaseHandler {
                 embed.addField("Daily Breakdown", dailyContent.isEmpty() ? "Keine Tagesdaten." : dailyContent, false);
 
                 StringBuilder totals = new StringBuilder()
-                        .append("⚠️ Warnings: ").append(totalWarnings).append("\n")
-                        .append("🦶 Kicks: ").append(totalKicks).append("\n")
-                        .append("🔨 Bans: ").append(totalBans).append("\n")
-                        .append("⏱️ Timeouts: ").append(totalTimeouts).append("\n")
-                        .append("⏰ Untimeouts: ").append(totalUntimeouts).append("\n")
-                        .append("🎫 Tickets Created: ").append(totalTicketsCreated).append("\n")
-                        .append("✅ Tickets Closed: ").append(totalTicketsClosed).append("\n")
-                        .append("✔️ Verifications: ").append(totalVerifications);
+                        .append("⚠️ Warnings: ").append(series.getTotal("warnings_issued")).append("\n")
+                        .append("🦶 Kicks: ").append(series.getTotal("kicks_performed")).append("\n")
+                        .append("🔨 Bans: ").append(series.getTotal("bans_performed")).append("\n")
+                        .append("⏱️ Timeouts: ").append(series.getTotal("timeouts_performed")).append("\n")
+                        .append("⏰ Untimeouts: ").append(series.getTotal("untimeouts_performed")).append("\n")
+                        .append("🎫 Tickets Created: ").append(series.getTotal("tickets_created")).append("\n")
+                        .append("✅ Tickets Closed: ").append(series.getTotal("tickets_closed")).append("\n")
+                        .append("✔️ Verifications: ").append(series.getTotal("verifications_performed"));
                 embed.addField("Totals", totals.toString(), true);
             } else {
                 embed.addField("No Activity", "Keine Aktionen für Datum > " + afterDate, false);
             }
+        } catch (java.time.format.DateTimeParseException e) {
+            embed.addField("Error", "Invalid date " + afterDate, false);
         } catch (SQLException e) {
             System.err.println("Error getting weekly moderation statistics: " + e.getMessage());
             e.printStackTrace();
@@ -2800,7 +2942,6 @@ public class DatabaseHandler {
 
         return embed;
     }
-
     /**
      * Get appropriate emoji for moderation action type
      */
@@ -2820,36 +2961,80 @@ public class DatabaseHandler {
         }
     }
 
-    public EmbedBuilder getGlobalStats () {
-        EmbedBuilder embed = new EmbedBuilder()
-                .setTitle("🌐 Global Bot Statistics")
-                .setColor(Color.MAGENTA)
-                .setTimestamp(java.time.Instant.now());
+    /**
+     * Compute the global metrics for /global-stats, called periodically by the GlobalStatsCache
+     */
+    private GlobalStatsCache.Snapshot loadGlobalStatsSnapshot() {
+        try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
+            List<GlobalStatsCache.CommandUsage> commandUsage = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery("SELECT command, number, last_used FROM global_statistics ORDER BY number DESC")) {
+                while (rs.next()) {
+                    Timestamp lastUsed = rs.getTimestamp("last_used");
+                    commandUsage.add(new GlobalStatsCache.CommandUsage(rs.getString("command"), rs.getLong("number"),
+                            lastUsed != null ? lastUsed.toString() : null));
+                }
+            }
 
-        try (Connection connection = getConnection()) {
-            String query = "SELECT * FROM global_statistics";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-            StringBuilder description = new StringBuilder();
+            // Rollup: one row per guild
+            StringBuilder totalsQuery = new StringBuilder("SELECT ");
+            for (String column : StatisticsAggregator.GUILD_COLUMNS) {
+                if (totalsQuery.length() > 7) totalsQuery.append(", ");
+                totalsQuery.append("COALESCE(SUM(").append(column).append("), 0) AS ").append(column);
+            }
+            totalsQuery.append(" FROM statistics_guild_lifetime");
+            Map<String, Long> moderationTotals = new LinkedHashMap<>();
+            try (ResultSet rs = stmt.executeQuery(totalsQuery.toString())) {
+                if (rs.next()) {
+                    for (String column : StatisticsAggregator.GUILD_COLUMNS) {
+                        moderationTotals.put(column, rs.getLong(column));
+                    }
+                }
+            }
 
-            while (rs.next()) {
-                String command = rs.getString("command");
-                int count = rs.getInt("number");
-                System.out.println("Anzahl: " + count);
-                String lastUsed = rs.getTimestamp("last_used").toString();
-                description.append("Command Name: ").append(command).append("; Total Uses: ").append(count).append("\n");
-                description.append(lastUsed).append("\n");
+            int totalGuilds = 0;
+            int activeGuilds = 0;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) AS total, COALESCE(SUM(active = 1), 0) AS active FROM guilds")) {
+                if (rs.next()) {
+                    totalGuilds = rs.getInt("total");
+                    activeGuilds = rs.getInt("active");
+                }
+            }
+
+            int activeTimers = 0;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM active_timers")) {
+                if (rs.next()) {
+                    activeTimers = rs.getInt(1);
+                }
             }
-            embed.setDescription(description);
+
+            return new GlobalStatsCache.Snapshot(commandUsage, moderationTotals, totalGuilds, activeGuilds, activeTimers);
         } catch (SQLException e) {
             System.err.println("Error getting global statistics: " + e.getMessage());
             e.printStackTrace();
-            embed.setDescription("Error retrieving global statistics.");
+            return null;
         }
+    }
 
-        return embed;
+    /**
+     * Global metrics for /global-stats, refreshed in the background
+     */
+    public GlobalStatsCache getGlobalStatsCache() {
+        return globalStatsCache;
+    }
+
+    /**
+     * Debounced ordering of the ticket category by priority
+     */
+    public TicketChannelSorter getTicketChannelSorter() {
+        return ticketChannelSorter;
     }
 
+    /**
+     * Messages of open ticket channels, written to ticket_messages in batches
+     */
+    public TicketMessageRecorder getTicketMessageRecorder() {
+        return ticketMessageRecorder;
+    }
 
     /**
      * Send an audit log entry to the configured log channel
@@ -2905,18 +3090,8 @@ public class DatabaseHandler {
     }
 
     public String getJustVerifyButtonRoleToGiveID(String guildId) {
-        String query = "SELECT role_to_give_id FROM just_verify_button WHERE guild_id = ?";
-        try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, guildId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String roleId = rs.getString("role_to_give_id");
-                System.out.println("Just Verify Button Role ID for guild " + guildId + ": " + roleId);
-                return roleId;
-            } else {
-                System.out.println("No Just Verify Button Role ID found for guild " + guildId);
-                return null;
-            }
+        try {
+            return guildConfigCache.get(guildId).verifyRoleToGiveId;
         } catch (SQLException e) {
             System.err.println("Error getting Just Verify Button Role ID: " + e.getMessage());
             e.printStackTrace();
@@ -2925,18 +3100,8 @@ public class DatabaseHandler {
     }
 
     public String getJustVerifyButtonRoleToRemoveID(String guildId) {
-        String query = "SELECT role_to_remove_id FROM just_verify_button WHERE guild_id = ?";
-        try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, guildId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String roleId = rs.getString("role_to_remove_id");
-                System.out.println("Just Verify Button Role to Remove ID for guild " + guildId + ": " + roleId);
-                return roleId;
-            } else {
-                System.out.println("No Just Verify Button Role to Remove ID found for guild " + guildId);
-                return null;
-            }
+        try {
+            return guildConfigCache.get(guildId).verifyRoleToRemoveId;
         } catch (SQLException e) {
             System.err.println("Error getting Just Verify Button Role to Remove ID: " + e.getMessage());
             e.printStackTrace();
@@ -2945,18 +3110,12 @@ public class DatabaseHandler {
     }
 
     public String getJustVerifyButtonLabel (String guildId) {
-        String query = "SELECT button_label FROM just_verify_button WHERE guild_id = ?";
-        try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, guildId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String label = rs.getString("button_label");
-                System.out.println("Just Verify Button Label for guild " + guildId + ": " + label);
-                return label != null ? label : "✅ Verify!";
-            } else {
-                System.out.println("No Just Verify Button Label found for guild " + guildId);
+        try {
+            GuildConfig config = guildConfigCache.get(guildId);
+            if (!config.hasJustVerifyButton) {
                 return "Verify";
             }
+            return config.verifyButtonLabel != null ? config.verifyButtonLabel : "✅ Verify!";
         } catch (SQLException e) {
             System.err.println("Error getting Just Verify Button Label: " + e.getMessage());
             e.printStackTrace();
@@ -2965,18 +3124,8 @@ public class DatabaseHandler {
     }
 
     public String getJustVerifyButtonEmojiID (String guildId) {
-        String query = "SELECT button_emoji_id FROM just_verify_button WHERE guild_id = ?";
-        try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, guildId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String emojiId = rs.getString("button_emoji_id");
-                System.out.println("Just Verify Button Emoji ID for guild " + guildId + ": " + emojiId);
-                return emojiId;
-            } else {
-                System.out.println("No Just Verify Button Emoji ID found for guild " + guildId);
-                return null;
-            }
+        try {
+            return guildConfigCache.get(guildId).verifyButtonEmojiId;
         } catch (SQLException e) {
             System.err.println("Error getting Just Verify Button Emoji ID: " + e.getMessage());
             e.printStackTrace();
@@ -2985,17 +3134,8 @@ public class DatabaseHandler {
     }
 
     public boolean isJustVerifyButton(String guildId) {
-        String query = "SELECT * FROM just_verify_button WHERE guild_id = ?";
-        try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, guildId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                System.out.println("Just Verify Button Enabled for guild " + guildId + ": " + true);
-                return true;
-            } else {
-                System.out.println("No Just Verify Button setting found for guild " + guildId);
-                return false;
-            }
+        try {
+            return guildConfigCache.get(guildId).hasJustVerifyButton;
         } catch (SQLException e) {
             System.err.println("Error getting Just Verify Button setting: " + e.getMessage());
             e.printStackTrace();
@@ -3038,6 +3178,7 @@ public class DatabaseHandler {
                 e.printStackTrace();
             }
         }
+        guildConfigCache.invalidate(guildId);
     }
     public void removeJustVerifyButton(String guildId) {
         String query = "DELETE FROM just_verify_button WHERE guild_id = ?";
@@ -3052,6 +3193,8 @@ public class DatabaseHandler {
         } catch (SQLException e) {
             System.err.println("Error removing Just Verify Button entry: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            guildConfigCache.invalidate(guildId);
         }
     }
 
@@ -3068,33 +3211,42 @@ public class DatabaseHandler {
         }
         return button;
     }
+    /**
+     * Mark the given guilds active and every other guild inactive with two set-based updates.
+     * The current guild ids are loaded into a session-local temporary table, so the guilds table
+     * is neither read into memory nor updated row by row.
+     */
     public void updateGuildActivityStatus(List<Guild> guilds) {
-        String query = "SELECT * FROM guilds";
-        try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
-            ResultSet rs = pstmt.executeQuery();
-            Set<String> activeGuildIds = guilds.stream().map(Guild::getId).collect(Collectors.toSet());
-
-            while (rs.next()) {
-                String guildId = rs.getString("id");
-                boolean isActive = rs.getBoolean("active");
-
-                if (activeGuildIds.contains(guildId) && !isActive) {
-                    // Guild is now active but marked as inactive in DB
-                    String updateQuery = "UPDATE guilds SET active = 1, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-                    try (PreparedStatement updatePstmt = connection.prepareStatement(updateQuery)) {
-                        updatePstmt.setString(1, guildId);
-                        updatePstmt.executeUpdate();
-                        System.out.println("Marked guild " + guildId + " as active.");
+        try (Connection connection = getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TEMPORARY TABLE IF NOT EXISTS sync_guild_ids (id VARCHAR(32) PRIMARY KEY)");
+            try {
+                stmt.execute("DELETE FROM sync_guild_ids");
+                try (PreparedStatement insertStmt = connection.prepareStatement("INSERT IGNORE INTO sync_guild_ids (id) VALUES (?)")) {
+                    int batched = 0;
+                    for (Guild guild : guilds) {
+                        insertStmt.setString(1, guild.getId());
+                        insertStmt.addBatch();
+                        if (++batched % GUILD_SYNC_BATCH_SIZE == 0) {
+                            insertStmt.executeBatch();
+                        }
                     }
-                } else if (!activeGuildIds.contains(guildId) && isActive) {
-                    // Guild is no longer active but marked as active in DB
-                    String updateQuery = "UPDATE guilds SET active = 0, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
-                    try (PreparedStatement updatePstmt = connection.prepareStatement(updateQuery)) {
-                        updatePstmt.setString(1, guildId);
-                        updatePstmt.executeUpdate();
-                        System.out.println("Marked guild " + guildId + " as inactive.");
+                    if (batched % GUILD_SYNC_BATCH_SIZE != 0) {
+                        insertStmt.executeBatch();
                     }
                 }
+
+                // Guilds the bot is in again but which are marked as inactive in DB
+                int activated = stmt.executeUpdate("UPDATE guilds g JOIN sync_guild_ids s ON s.id = g.id " +
+                        "SET g.active = 1, g.updated_at = CURRENT_TIMESTAMP WHERE g.active = 0");
+                // Guilds the bot has left but which are still marked as active in DB;
+                // guilds of other processes' shards are not in the list and must not be touched
+                int deactivated = stmt.executeUpdate("UPDATE guilds g LEFT JOIN sync_guild_ids s ON s.id = g.id " +
+                        "SET g.active = 0, g.updated_at = CURRENT_TIMESTAMP WHERE s.id IS NULL AND g.active = 1" +
+                        shardRange.sqlFilter("g.id"));
+                System.out.println("Guild activity updated: " + activated + " marked active, " + deactivated + " marked inactive.");
+            } finally {
+                // Pooled connections outlive this call, so the temporary table is dropped explicitly
+                stmt.execute("DROP TEMPORARY TABLE IF EXISTS sync_guild_ids");
             }
         } catch (SQLException e) {
             System.err.println("Error updating guild activity status: " + e.getMessage());
@@ -3132,6 +3284,8 @@ public class DatabaseHandler {
                 System.err.println("Error adding role select to guild: " + e.getMessage());
                 e.printStackTrace();
                 return false;
+            } finally {
+                roleSelectIndex.invalidate(guildId);
             }
         } else {
             System.out.println("Role select " + roleSelectId + " is already added to guild " + guildId);
@@ -3157,6 +3311,8 @@ public class DatabaseHandler {
                 System.err.println("Error removing role select from guild: " + e.getMessage());
                 e.printStackTrace();
                 return false;
+            } finally {
+                roleSelectIndex.invalidate(guildId);
             }
         } else {
             System.out.println("Role select " + roleSelectId + " is not added to guild " + guildId);
@@ -3198,6 +3354,8 @@ public class DatabaseHandler {
             System.err.println("Error adding Select Roles Embed: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            roleSelectIndex.invalidate(guildId);
         }
     }
 
@@ -3226,6 +3384,8 @@ public class DatabaseHandler {
             System.err.println("Error adding Role Select Embed: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            roleSelectIndex.invalidate(guildId);
         }
     }
 
@@ -3246,6 +3406,54 @@ public class DatabaseHandler {
             System.err.println("Error removing Role Select Embed: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            roleSelectIndex.invalidate(guildId);
+        }
+    }
+
+    /**
+     * Get the in-memory role selection index used by the role select listeners
+     */
+    public RoleSelectIndex getRoleSelectIndex() {
+        return roleSelectIndex;
+    }
+
+    /**
+     * Load the role selection of a guild (roles and recorded message ids) for the index.
+     * Returns null if the database could not be read.
+     */
+    private RoleSelectIndex.GuildIndex loadRoleSelectIndex(String guildId) {
+        String rolesQuery = "SELECT id, role_id, description, emoji_id FROM role_select WHERE guild_id = ? ORDER BY id";
+        String messagesQuery = "SELECT message_id FROM role_select_embeds WHERE guild_id = ?";
+        List<RoleSelectIndex.Entry> entries = new ArrayList<>();
+        Set<String> messageIds = new HashSet<>();
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement pstmt = connection.prepareStatement(rolesQuery)) {
+                pstmt.setString(1, guildId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        entries.add(new RoleSelectIndex.Entry(rs.getInt("id"), rs.getString("role_id"),
+                                rs.getString("description"), rs.getString("emoji_id")));
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement(messagesQuery)) {
+                pstmt.setString(1, guildId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        // Settings-only rows written by editSelectRoleEmbed have no message
+                        String messageId = rs.getString("message_id");
+                        if (GuildConfig.isSet(messageId)) {
+                            messageIds.add(messageId);
+                        }
+                    }
+                }
+            }
+            return new RoleSelectIndex.GuildIndex(entries, messageIds);
+        } catch (SQLException e) {
+            System.err.println("Error loading role select index: " + e.getMessage());
+            e.printStackTrace();
+            return null;
         }
     }
 
@@ -3330,56 +3538,6 @@ public class DatabaseHandler {
         }
     }
 
-    public EmbedBuilder getGlobalModStats() {
-        try (Connection connection = getConnection()) {
-            String query = "SELECT " +
-                    "SUM(warnings_issued) AS total_warnings, " +
-                    "SUM(kicks_performed) AS total_kicks, " +
-                    "SUM(bans_performed) AS total_bans, " +
-                    "SUM(timeouts_performed) AS total_timeouts, " +
-                    "SUM(untimeouts_performed) AS total_untimeouts, " +
-                    "SUM(tickets_created) AS total_tickets_created, " +
-                    "SUM(tickets_closed) AS total_tickets_closed, " +
-                    "SUM(verifications_performed) AS total_verifications " +
-                    "FROM statistics";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            ResultSet rs = pstmt.executeQuery();
-
-            EmbedBuilder embed = new EmbedBuilder();
-            if (rs.next()) {
-                int totalWarnings = rs.getInt("total_warnings");
-                int totalKicks = rs.getInt("total_kicks");
-                int totalBans = rs.getInt("total_bans");
-                int totalTimeouts = rs.getInt("total_timeouts");
-                int totalUntimeouts = rs.getInt("total_untimeouts");
-                int totalTicketsCreated = rs.getInt("total_tickets_created");
-                int totalTicketsClosed = rs.getInt("total_tickets_closed");
-                int totalVerifications = rs.getInt("total_verifications");
-
-
-                embed.setTitle("Lifetime Moderation Statistics");
-                embed.setColor(Color.BLUE);
-                embed.addField("Total Warnings Issued", String.valueOf(totalWarnings), true);
-                embed.addField("Total Kicks Performed", String.valueOf(totalKicks), true);
-                embed.addField("Total Bans Performed", String.valueOf(totalBans), true);
-                embed.addField("Total Timeouts Performed", String.valueOf(totalTimeouts), true);
-                embed.addField("Total Untimeouts Performed", String.valueOf(totalUntimeouts), true);
-                embed.addField("Total Tickets Created", String.valueOf(totalTicketsCreated), true);
-                embed.addField("Total Tickets Closed", String.valueOf(totalTicketsClosed), true);
-                embed.addField("Total Verifications Performed", String.valueOf(totalVerifications), true);
-
-                return embed;
-            } else {
-                embed.setDescription("Nothing.");
-                return embed;
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting global statistics: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return null;
-    }
-
     public boolean isSelectRoleEmbedExist (String guildId) {
         String query = "SELECT * FROM role_select_embeds WHERE guild_id = ?";
         try (Connection connection = getConnection(); PreparedStatement pstmt = connection.prepareStatement(query)) {
@@ -3546,6 +3704,7 @@ public class DatabaseHandler {
             stmt.setString(8, triggerData); // Kann null sein
 
             stmt.executeUpdate();
+            roleEventsChanged(guildId);
             System.out.println("Created role event: " + name + " for guild " + guildId);
 
         } catch (SQLException e) {
@@ -3571,6 +3730,7 @@ public class DatabaseHandler {
 
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
+                roleEventsChanged(guildId);
                 System.out.println("Deleted role event " + eventId + " for guild " + guildId);
                 return true;
             } else {
@@ -3625,6 +3785,7 @@ public class DatabaseHandler {
 
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
+                roleEventsChanged(guildId);
                 System.out.println("Updated role event " + eventId + " (" + name + ")");
                 return true;
             } else {
@@ -3676,6 +3837,7 @@ public class DatabaseHandler {
             stmt.setString(3, guildId);
 
             stmt.executeUpdate();
+            roleEventsChanged(guildId);
 
         } catch (SQLException e) {
             System.err.println("Error toggling role event status: " + e.getMessage());
@@ -3694,7 +3856,7 @@ public class DatabaseHandler {
         String query = "INSERT INTO active_timers (guild_id, user_id, role_id, expires_at, source_event_id) VALUES (?, ?, ?, ?, ?)";
 
         try (Connection connection = getConnection();
-             PreparedStatement stmt = connection.prepareStatement(query)) {
+             PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
             // Ablaufzeitpunkt in Java berechnen (Sicherer als DB-spezifische SQL-Funktionen)
             long expiryMillis = System.currentTimeMillis() + (durationSeconds * 1000);
@@ -3714,6 +3876,20 @@ public class DatabaseHandler {
             stmt.executeUpdate();
             System.out.println("Added active timer for user " + userId + " (Expires: " + expiresAt + ")");
 
+            TimedRoleScheduler scheduler = timerScheduler;
+            if (scheduler != null) {
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        String actionType = null;
+                        if (sourceEventId > 0) {
+                            RoleEventData event = getRoleEvent(sourceEventId);
+                            actionType = event != null ? event.actionType : null;
+                        }
+                        scheduler.schedule(new ActiveTimerData(keys.getInt(1), guildId, userId, roleId, expiresAt, sourceEventId, actionType));
+                    }
+                }
+            }
+
         } catch (SQLException e) {
             System.err.println("Error adding active timer: " + e.getMessage());
             e.printStackTrace();
@@ -3721,53 +3897,145 @@ public class DatabaseHandler {
     }
 
     /**
-     * Holt alle Timer, die abgelaufen sind (expires_at <= JETZT).
-     * Wird vom Background-Loop aufgerufen.
+     * Löscht einen Timer anhand seiner ID.
+     * Aufrufen, NACHDEM die Rolle im Discord entfernt wurde.
      */
-    public List<ActiveTimerData> getExpiredTimers() {
-        List<ActiveTimerData> expiredTimers = new ArrayList<>();
-        String query = "SELECT * FROM active_timers LEFT JOIN role_events ON source_event_id = role_events.id WHERE expires_at <= CURRENT_TIMESTAMP";
+    public void removeTimer (int timerId) {
+        String query = "DELETE FROM active_timers WHERE id = ?";
 
         try (Connection connection = getConnection();
-             PreparedStatement stmt = connection.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
+             PreparedStatement stmt = connection.prepareStatement(query)) {
 
-            while (rs.next()) {
-                expiredTimers.add(new ActiveTimerData(
-                        rs.getInt("id"),
-                        rs.getString("guild_id"),
-                        rs.getString("user_id"),
-                        rs.getString("role_id"),
-                        rs.getTimestamp("expires_at"),
-                        rs.getInt("source_event_id"),
-                        rs.getString("role_events.action_type")
-                ));
+            stmt.setInt(1, timerId);
+            stmt.executeUpdate();
+            // System.out.println("Removed active timer with ID: " + timerId);
+            if (timerScheduler != null) {
+                timerScheduler.cancel(timerId);
             }
+
         } catch (SQLException e) {
-            System.err.println("Error fetching expired timers: " + e.getMessage());
+            System.err.println("Error removing timer " + timerId + ": " + e.getMessage());
             e.printStackTrace();
         }
-        return expiredTimers;
     }
 
     /**
-     * Löscht einen Timer anhand seiner ID.
-     * Aufrufen, NACHDEM die Rolle im Discord entfernt wurde.
+     * Beansprucht Timer, indem sie mit einem einzigen Statement gelöscht werden.
+     * Gibt nur die IDs zurück, die dieser Aufruf tatsächlich gelöscht hat – ein Timer,
+     * den ein anderer Prozess schon verarbeitet hat, ist nicht enthalten.
      */
-    public void removeTimer (int timerId) {
-        String query = "DELETE FROM active_timers WHERE id = ?";
+    public Set<Integer> claimTimers(java.util.Collection<Integer> timerIds) {
+        Set<Integer> claimed = new HashSet<>();
+        if (timerIds.isEmpty()) return claimed;
+        String placeholders = String.join(", ", java.util.Collections.nCopies(timerIds.size(), "?"));
+        // MariaDB: DELETE ... RETURNING liefert die tatsächlich gelöschten Zeilen
+        String query = "DELETE FROM active_timers WHERE id IN (" + placeholders + ") RETURNING id";
 
         try (Connection connection = getConnection();
              PreparedStatement stmt = connection.prepareStatement(query)) {
 
-            stmt.setInt(1, timerId);
-            stmt.executeUpdate();
-            // System.out.println("Removed active timer with ID: " + timerId);
+            int index = 1;
+            for (Integer timerId : timerIds) {
+                stmt.setInt(index++, timerId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    claimed.add(rs.getInt("id"));
+                }
+            }
 
         } catch (SQLException e) {
-            System.err.println("Error removing timer " + timerId + ": " + e.getMessage());
+            System.err.println("Error claiming " + timerIds.size() + " timers: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return claimed;
+    }
+
+    /**
+     * Beansprucht bis zu {@code limit} abgelaufene Timer (älteste zuerst) und gibt die
+     * beanspruchten Timer zurück. Für Batch-Verarbeitung nach Ausfallzeiten.
+     */
+    public List<ActiveTimerData> claimExpiredTimers(int limit) {
+        List<ActiveTimerData> candidates = new ArrayList<>();
+        String query = "SELECT active_timers.id, active_timers.guild_id, active_timers.user_id, active_timers.role_id, " +
+                "active_timers.expires_at, active_timers.source_event_id, role_events.action_type " +
+                "FROM active_timers LEFT JOIN role_events ON active_timers.source_event_id = role_events.id " +
+                "WHERE active_timers.expires_at <= CURRENT_TIMESTAMP" + shardRange.sqlFilter("active_timers.guild_id") +
+                " ORDER BY active_timers.expires_at LIMIT ?";
+
+        try (Connection connection = getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    candidates.add(new ActiveTimerData(
+                            rs.getInt("id"),
+                            rs.getString("guild_id"),
+                            rs.getString("user_id"),
+                            rs.getString("role_id"),
+                            rs.getTimestamp("expires_at"),
+                            rs.getInt("source_event_id"),
+                            rs.getString("action_type")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error fetching expired timers: " + e.getMessage());
+            e.printStackTrace();
+            return candidates;
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        for (ActiveTimerData timer : candidates) {
+            ids.add(timer.id);
+        }
+        Set<Integer> claimed = claimTimers(ids);
+        candidates.removeIf(timer -> !claimed.contains(timer.id));
+        return candidates;
+    }
+
+    /**
+     * Holt alle Timer (zum Laden des TimedRoleSchedulers beim Start).
+     */
+    public List<ActiveTimerData> getAllActiveTimers() {
+        return getActiveTimersExpiringBefore(null);
+    }
+
+    /**
+     * Holt alle Timer, die vor dem angegebenen Zeitpunkt ablaufen (null = alle).
+     */
+    public List<ActiveTimerData> getActiveTimersExpiringBefore(Timestamp limit) {
+        List<ActiveTimerData> timers = new ArrayList<>();
+        String query = "SELECT active_timers.id, active_timers.guild_id, active_timers.user_id, active_timers.role_id, " +
+                "active_timers.expires_at, active_timers.source_event_id, role_events.action_type " +
+                "FROM active_timers LEFT JOIN role_events ON active_timers.source_event_id = role_events.id WHERE 1 = 1" +
+                (limit != null ? " AND active_timers.expires_at <= ?" : "") + shardRange.sqlFilter("active_timers.guild_id");
+
+        try (Connection connection = getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+
+            if (limit != null) {
+                stmt.setTimestamp(1, limit);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    timers.add(new ActiveTimerData(
+                            rs.getInt("id"),
+                            rs.getString("guild_id"),
+                            rs.getString("user_id"),
+                            rs.getString("role_id"),
+                            rs.getTimestamp("expires_at"),
+                            rs.getInt("source_event_id"),
+                            rs.getString("action_type")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading active timers: " + e.getMessage());
             e.printStackTrace();
         }
+        return timers;
     }
 
     /**
@@ -3784,6 +4052,9 @@ public class DatabaseHandler {
             stmt.setString(3, roleId);
 
             int rows = stmt.executeUpdate();
+            if (timerScheduler != null) {
+                timerScheduler.cancel(guildId, userId, roleId);
+            }
             return rows > 0;
 
         } catch (SQLException e) {
@@ -3809,7 +4080,11 @@ public class DatabaseHandler {
             stmt.setString(3, userId);
             stmt.setString(4, roleId);
 
-            return stmt.executeUpdate() > 0;
+            boolean extended = stmt.executeUpdate() > 0;
+            if (extended && timerScheduler != null) {
+                timerScheduler.extend(guildId, userId, roleId, additionalSeconds);
+            }
+            return extended;
 
         } catch (SQLException e) {
             System.err.println("Error extending timer: " + e.getMessage());
@@ -3934,4 +4209,41 @@ public class DatabaseHandler {
         }
         return events;
     }
+
+    /**
+     * Holt alle aktiven Events einer Guild (alle Typen) zum Kompilieren der Regeln.
+     * Gibt null zurück, wenn die Datenbank nicht gelesen werden konnte.
+     */
+    public List<RoleEventData> getActiveRoleEvents(String guildId) {
+        List<RoleEventData> events = new ArrayList<>();
+        String query = "SELECT * FROM role_events WHERE guild_id = ? AND active = 1";
+
+        try (Connection connection = getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+
+            stmt.setString(1, guildId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    events.add(new RoleEventData(
+                            rs.getInt("id"),
+                            rs.getString("name"),
+                            rs.getString("event_type"),
+                            rs.getString("role_id"),
+                            rs.getString("action_type"),
+                            rs.getLong("duration_seconds"),
+                            rs.getString("trigger_data"),
+                            rs.getInt("active") == 1,
+                            rs.getString("stack_type")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading role events of guild " + guildId + ": " + e.getMessage());
+            e.printStackTrace();
+            // Not an empty list, the rule engine must not cache "no rules" for this guild
+            return null;
+        }
+        return events;
+    }
 }
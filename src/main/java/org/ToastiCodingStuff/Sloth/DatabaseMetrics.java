@@ -0,0 +1,332 @@
+package org.ToastiCodingStuff.Sloth;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Metrics for the HikariCP pool and the queries that run on it.
+ * Pool gauges (active, idle, pending, total) are read from the pool MXBean; query latency is
+ * measured by wrapping the connections handed out by {@link DatabaseHandler#getConnection()},
+ * so every statement is timed without changing the call sites. Latencies are kept in
+ * fixed-bucket histograms per (normalized) SQL statement plus one for connection acquisition.
+ * A summary is logged periodically and a warning whenever threads wait for a connection.
+ *
+ * Configuration (environment):
+ * DB_METRICS_LOG_SECONDS - interval of the summary log, 0 disables it (default 300)
+ */
+public class DatabaseMetrics {
+
+    // Upper bounds of the histogram buckets in milliseconds, the last bucket is unbounded
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+    // Distinct statements to track; dynamically built SQL beyond this is counted as "other"
+    private static final int MAX_TRACKED_QUERIES = 500;
+    private static final int LABEL_LENGTH = 120;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern VALUES_LIST = Pattern.compile("\\(\\?[^()]*\\)(\\s*,\\s*\\(\\?[^()]*\\))+");
+
+    /**
+     * Latency histogram with fixed buckets
+     */
+    public static final class LatencyHistogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        LatencyHistogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && millis > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getTotalMillis() {
+            return totalNanos.sum() / 1_000_000.0;
+        }
+
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : getTotalMillis() / n;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        /**
+         * Upper bound (ms) of the bucket containing the given percentile (0-100),
+         * the maximum for the unbounded bucket
+         */
+        public double getPercentileMillis(double percentile) {
+            long n = count.sum();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(n * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], getMaxMillis()) : getMaxMillis();
+                }
+            }
+            return getMaxMillis();
+        }
+
+        public String summary() {
+            return String.format("n=%d mean=%.1fms p50<=%.0fms p95<=%.0fms p99<=%.0fms max=%.1fms",
+                    getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(95),
+                    getPercentileMillis(99), getMaxMillis());
+        }
+    }
+
+    private final ConcurrentHashMap<String, LatencyHistogram> queries = new ConcurrentHashMap<>();
+    private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+    private final LongAdder queryErrors = new LongAdder();
+    private final AtomicLong peakActive = new AtomicLong();
+    private final AtomicLong peakPending = new AtomicLong();
+    private volatile HikariDataSource dataSource;
+    private volatile long lastSaturationWarning = 0;
+    private ScheduledExecutorService reporter;
+
+    public DatabaseMetrics() {
+    }
+
+    /**
+     * Attach the pool whose gauges are reported and start the periodic summary
+     */
+    public void bindPool(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+        int logSeconds = EnvConfig.getInt("DB_METRICS_LOG_SECONDS", 300);
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Sloth-DatabaseMetrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleWithFixedDelay(this::samplePool, 10, 10, TimeUnit.SECONDS);
+        if (logSeconds > 0) {
+            reporter.scheduleWithFixedDelay(this::logSummary, logSeconds, logSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public void shutdown() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+    }
+
+    // --- Pool gauges ---
+
+    private HikariPoolMXBean pool() {
+        HikariDataSource ds = dataSource;
+        return ds != null ? ds.getHikariPoolMXBean() : null;
+    }
+
+    public int getActiveConnections() {
+        HikariPoolMXBean pool = pool();
+        return pool != null ? pool.getActiveConnections() : 0;
+    }
+
+    public int getIdleConnections() {
+        HikariPoolMXBean pool = pool();
+        return pool != null ? pool.getIdleConnections() : 0;
+    }
+
+    /**
+     * Threads currently waiting for a connection; anything above 0 means the pool is saturated
+     */
+    public int getPendingThreads() {
+        HikariPoolMXBean pool = pool();
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+    }
+
+    public int getTotalConnections() {
+        HikariPoolMXBean pool = pool();
+        return pool != null ? pool.getTotalConnections() : 0;
+    }
+
+    private void samplePool() {
+        try {
+            int active = getActiveConnections();
+            int pending = getPendingThreads();
+            peakActive.accumulateAndGet(active, Math::max);
+            peakPending.accumulateAndGet(pending, Math::max);
+            long now = System.currentTimeMillis();
+            if (pending > 0 && now - lastSaturationWarning > 60_000) {
+                lastSaturationWarning = now;
+                System.err.println("Database pool saturated: " + pending + " threads waiting, "
+                        + active + "/" + getTotalConnections() + " connections in use");
+            }
+        } catch (Exception e) {
+            System.err.println("Error sampling database pool: " + e.getMessage());
+        }
+    }
+
+    // --- Query latency ---
+
+    public LatencyHistogram getConnectionAcquireLatency() {
+        return connectionAcquire;
+    }
+
+    public Map<String, LatencyHistogram> getQueryLatencies() {
+        return queries;
+    }
+
+    public long getQueryErrorCount() {
+        return queryErrors.sum();
+    }
+
+    void recordConnectionAcquire(long nanos) {
+        connectionAcquire.record(nanos);
+    }
+
+    void recordQuery(String sql, long nanos) {
+        String label = normalize(sql);
+        LatencyHistogram histogram = queries.get(label);
+        if (histogram == null) {
+            if (queries.size() >= MAX_TRACKED_QUERIES) {
+                label = "other";
+            }
+            histogram = queries.computeIfAbsent(label, k -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Collapse whitespace and placeholder lists so dynamically sized IN (...) and VALUES lists
+     * of the same statement share one histogram
+     */
+    static String normalize(String sql) {
+        if (sql == null) return "unknown";
+        String label = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        label = VALUES_LIST.matcher(label).replaceAll("(?...)");
+        label = PLACEHOLDER_LIST.matcher(label).replaceAll("?...");
+        return label.length() > LABEL_LENGTH ? label.substring(0, LABEL_LENGTH) : label;
+    }
+
+    /**
+     * Log pool state, connection acquisition and the most expensive statements since startup
+     */
+    public void logSummary() {
+        try {
+            System.out.println("Database pool: active=" + getActiveConnections() + " idle=" + getIdleConnections()
+                    + " pending=" + getPendingThreads() + " total=" + getTotalConnections()
+                    + " peakActive=" + peakActive.getAndSet(0) + " peakPending=" + peakPending.getAndSet(0)
+                    + " queryErrors=" + queryErrors.sum());
+            System.out.println("Connection acquire: " + connectionAcquire.summary());
+
+            List<Map.Entry<String, LatencyHistogram>> top = new ArrayList<>(queries.entrySet());
+            top.sort((a, b) -> Double.compare(b.getValue().getTotalMillis(), a.getValue().getTotalMillis()));
+            for (int i = 0; i < Math.min(5, top.size()); i++) {
+                Map.Entry<String, LatencyHistogram> entry = top.get(i);
+                System.out.println("  " + entry.getValue().summary() + " | " + entry.getKey());
+            }
+        } catch (Exception e) {
+            System.err.println("Error logging database metrics: " + e.getMessage());
+        }
+    }
+
+    // --- JDBC wrapping ---
+
+    /**
+     * Wrap a pooled connection so the statements created from it are timed
+     */
+    Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(DatabaseMetrics.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection delegate;
+
+        ConnectionHandler(Connection delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("unwrap") && args != null && args[0] == Connection.class) {
+                return delegate;
+            }
+            Object result = DatabaseMetrics.invoke(delegate, method, args);
+            if (result instanceof Statement) {
+                String sql = (name.equals("prepareStatement") || name.equals("prepareCall")) ? (String) args[0] : null;
+                Class<?> type = result instanceof PreparedStatement ? method.getReturnType() : Statement.class;
+                return Proxy.newProxyInstance(DatabaseMetrics.class.getClassLoader(),
+                        new Class<?>[] {type}, new StatementHandler((Statement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement delegate;
+        private final String sql;
+
+        StatementHandler(Statement delegate, String sql) {
+            this.delegate = delegate;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return DatabaseMetrics.invoke(delegate, method, args);
+            }
+            String label = sql;
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                label = (String) args[0];
+            }
+            long start = System.nanoTime();
+            try {
+                return DatabaseMetrics.invoke(delegate, method, args);
+            } catch (Throwable t) {
+                queryErrors.increment();
+                throw t;
+            } finally {
+                recordQuery(label, System.nanoTime() - start);
+            }
+        }
+    }
+}
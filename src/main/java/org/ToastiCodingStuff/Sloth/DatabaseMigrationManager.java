@@ -15,7 +15,7 @@ import java.util.*;
  *   <li><strong>SQLite Compatibility:</strong> Handles SQLite-specific constraints like CURRENT_TIMESTAMP defaults</li>
  *   <li><strong>Migration Tracking:</strong> Records all migrations with timestamps and execution times</li>
  *   <li><strong>Schema Validation:</strong> Verifies database structure matches expected definitions</li>
- *   <li><strong>Index Management:</strong> Applies missing indexes</li>
+ *   <li><strong>Index Management:</strong> Applies missing composite and unique indexes, see {@link IndexAdvisor} for query plan checks</li>
  * </ul>
  * 
  * <h2>Usage Example:</h2>
@@ -36,8 +36,8 @@ import java.util.*;
  * <h2>How It Works:</h2>
  * <ol>
  *   <li>Define expected table schemas in {@link #getExpectedSchemas()}</li>
- *   <li>Compare expected columns with actual database columns</li>
- *   <li>Automatically add any missing columns with proper defaults</li>
+ *   <li>Load the actual tables, columns and indexes with one information_schema query ({@link #loadCurrentSchema()})</li>
+ *   <li>Add any missing columns with proper defaults, one ALTER TABLE per table</li>
  *   <li>Apply missing indexes</li>
  *   <li>Record migration in tracking table for audit purposes</li>
  * </ol>
@@ -57,6 +57,9 @@ import java.util.*;
 public class DatabaseMigrationManager {
     
     private final DatabaseHandler databaseHandler;
+
+    // database_migrations row whose version holds the fingerprint of the last verified schema
+    static final String SCHEMA_FINGERPRINT_MIGRATION = "schema_fingerprint";
     
     /**
      * Represents a column definition with its SQL properties
@@ -80,12 +83,32 @@ public class DatabaseMigrationManager {
     }
     
     /**
-     * Represents a complete table schema with all its columns
+     * Represents a (composite) index or unique key of a table
+     */
+    public static class IndexDefinition {
+        public final String name;
+        public final List<String> columns;
+        public final boolean unique;
+
+        public IndexDefinition(String name, boolean unique, String... columns) {
+            this.name = name;
+            this.unique = unique;
+            this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        }
+
+        public String toSql(String tableName) {
+            return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX IF NOT EXISTS " + name +
+                    " ON " + tableName + "(" + String.join(", ", columns) + ")";
+        }
+    }
+    
+    /**
+     * Represents a complete table schema with all its columns and indexes
      */
     public static class TableSchema {
         public final String tableName;
         public final Map<String, ColumnDefinition> columns;
-        public final List<String> indexes;
+        public final List<IndexDefinition> indexes;
         
         public TableSchema(String tableName) {
             this.tableName = tableName;
@@ -103,11 +126,65 @@ public class DatabaseMigrationManager {
             return this;
         }
         
-        public TableSchema addIndex(String indexDefinition) {
-            indexes.add(indexDefinition);
+        public TableSchema addIndex(String name, String... columns) {
+            indexes.add(new IndexDefinition(name, false, columns));
+            return this;
+        }
+
+        public TableSchema addUniqueIndex(String name, String... columns) {
+            indexes.add(new IndexDefinition(name, true, columns));
             return this;
         }
     }
+
+    /**
+     * Tables, columns and index names that currently exist in the database, loaded with a single
+     * information_schema query by {@link #loadCurrentSchema()}. Names are lower case.
+     */
+    public static class SchemaSnapshot {
+        private final Map<String, Set<String>> columnsByTable = new HashMap<>();
+        private final Map<String, Set<String>> indexesByTable = new HashMap<>();
+
+        void addColumn(String tableName, String columnName) {
+            columnsByTable.computeIfAbsent(tableName.toLowerCase(), k -> new HashSet<>()).add(columnName.toLowerCase());
+        }
+
+        void addIndex(String tableName, String indexName) {
+            indexesByTable.computeIfAbsent(tableName.toLowerCase(), k -> new HashSet<>()).add(indexName.toLowerCase());
+        }
+
+        public Set<String> getTableNames() {
+            return Collections.unmodifiableSet(columnsByTable.keySet());
+        }
+
+        public boolean hasTable(String tableName) {
+            return columnsByTable.containsKey(tableName.toLowerCase());
+        }
+
+        public Set<String> getColumns(String tableName) {
+            Set<String> columns = columnsByTable.get(tableName.toLowerCase());
+            return columns != null ? Collections.unmodifiableSet(columns) : Collections.<String>emptySet();
+        }
+
+        public boolean hasIndex(String tableName, String indexName) {
+            Set<String> indexes = indexesByTable.get(tableName.toLowerCase());
+            return indexes != null && indexes.contains(indexName.toLowerCase());
+        }
+
+        /**
+         * Expected columns of a table that do not exist yet, in definition order
+         */
+        public List<ColumnDefinition> getMissingColumns(TableSchema expectedSchema) {
+            Set<String> existingColumns = getColumns(expectedSchema.tableName);
+            List<ColumnDefinition> missing = new ArrayList<>();
+            for (ColumnDefinition column : expectedSchema.columns.values()) {
+                if (!existingColumns.contains(column.name.toLowerCase())) {
+                    missing.add(column);
+                }
+            }
+            return missing;
+        }
+    }
     
     public DatabaseMigrationManager(DatabaseHandler databaseHandler) {
         this.databaseHandler = databaseHandler;
@@ -139,6 +216,9 @@ public class DatabaseMigrationManager {
         // In DatabaseMigrationManager.java -> getExpectedSchemas()
         schemas.put("role_events", createRoleEventsSchema());
         schemas.put("active_timers", createActiveTimersSchema());
+        schemas.put("statistics_guild_lifetime", createStatisticsRollupSchema("statistics_guild_lifetime"));
+        schemas.put("statistics_guild_monthly", createStatisticsRollupSchema("statistics_guild_monthly"));
+        schemas.put("user_statistics_lifetime", createStatisticsRollupSchema("user_statistics_lifetime"));
 
         return schemas;
     }
@@ -193,7 +273,9 @@ public class DatabaseMigrationManager {
             .addColumn("severity", "TEXT DEFAULT 'MEDIUM' CHECK(severity IN ('LOW', 'MEDIUM', 'HIGH', 'SEVERE'))")
             .addColumn("active", "INTEGER DEFAULT 1")
             .addColumn("expires_at", "TEXT")
-            .addColumn("created_at", "TEXT DEFAULT CURRENT_TIMESTAMP");
+            .addColumn("created_at", "TEXT DEFAULT CURRENT_TIMESTAMP")
+            // Active warning count per user: guild_id = ? AND user_id = ? AND active = 1 AND expires_at ...
+            .addIndex("idx_warnings_guild_user_active", "guild_id", "user_id", "active", "expires_at");
     }
     
     /**
@@ -231,7 +313,11 @@ public class DatabaseMigrationManager {
             .addColumn("closed_reason", "TEXT")
             .addColumn("created_at", "TEXT DEFAULT CURRENT_TIMESTAMP")
             .addColumn("updated_at", "TEXT DEFAULT CURRENT_TIMESTAMP")
-            .addColumn("closed_at", "TEXT");
+            .addColumn("closed_at", "TEXT")
+            // Set if the recorder may have missed messages, the transcript then pages the channel history
+            .addColumn("messages_incomplete", "INTEGER DEFAULT 0")
+            // Open tickets of a guild for the channel ordering
+            .addIndex("idx_tickets_guild_status", "guild_id", "status");
     }
     
     /**
@@ -239,14 +325,18 @@ public class DatabaseMigrationManager {
      */
     private TableSchema createTicketMessagesSchema() {
         return new TableSchema("ticket_messages")
-            .addColumn("id", "INTEGER PRIMARY KEY AUTO_INCREMENT")
-            .addColumn("ticket_id", "INTEGER NOT NULL")
-            .addColumn("user_id", "INTEGER NOT NULL")
-            .addColumn("message_id", "INTEGER NOT NULL")
+            .addColumn("id", "BIGINT PRIMARY KEY AUTO_INCREMENT")
+            .addColumn("ticket_id", "INT NOT NULL")
+            .addColumn("user_id", "BIGINT NOT NULL")
+            .addColumn("author_name", "VARCHAR(255)")
+            .addColumn("message_id", "BIGINT NOT NULL")
             .addColumn("content", "TEXT NOT NULL")
             .addColumn("attachments", "TEXT")
-            .addColumn("is_staff", "INTEGER DEFAULT 0")
-            .addColumn("created_at", "TEXT DEFAULT CURRENT_TIMESTAMP");
+            .addColumn("is_staff", "INT DEFAULT 0")
+            .addColumn("created_at", "DATETIME DEFAULT CURRENT_TIMESTAMP")
+            // Messages are recorded at most once; transcripts read one ticket in message order
+            .addUniqueIndex("uq_ticket_messages_message", "message_id")
+            .addIndex("idx_ticket_messages_ticket", "ticket_id", "message_id");
     }
     
     /**
@@ -285,7 +375,9 @@ public class DatabaseMigrationManager {
             .addColumn("untimeouts_performed", "INTEGER DEFAULT 0")
             .addColumn("tickets_created", "INTEGER DEFAULT 0")
             .addColumn("tickets_closed", "INTEGER DEFAULT 0")
-            .addColumn("verifications_performed", "INTEGER DEFAULT 0");
+            .addColumn("verifications_performed", "INTEGER DEFAULT 0")
+            // Required by the batched counter upserts of StatisticsAggregator
+            .addUniqueIndex("uq_statistics_guild_date", "guild_id", "date");
     }
     
     /**
@@ -311,7 +403,9 @@ public class DatabaseMigrationManager {
             .addColumn("tickets_closed", "INTEGER DEFAULT 0")
             .addColumn("verifications_performed", "INTEGER DEFAULT 0")
             .addColumn("messages_sent", "INTEGER DEFAULT 0")
-            .addColumn("created_at", "TEXT DEFAULT CURRENT_TIMESTAMP");
+            .addColumn("created_at", "TEXT DEFAULT CURRENT_TIMESTAMP")
+            // Required by the batched counter upserts of StatisticsAggregator
+            .addUniqueIndex("uq_user_statistics_guild_user_date", "guild_id", "user_id", "date");
     }
 
     /**
@@ -376,6 +470,24 @@ public class DatabaseMigrationManager {
             .addColumn("last_used", "TEXT DEFAULT CURRENT_TIMESTAMP");
     }
 
+    /**
+     * Define the schema of a statistics rollup table (see StatisticsAggregator)
+     */
+    private TableSchema createStatisticsRollupSchema(String tableName) {
+        boolean userTable = "user_statistics_lifetime".equals(tableName);
+        TableSchema schema = new TableSchema(tableName)
+                .addColumn("guild_id", "VARCHAR(32) NOT NULL");
+        if (userTable) {
+            schema.addColumn("user_id", "VARCHAR(32) NOT NULL");
+        } else if ("statistics_guild_monthly".equals(tableName)) {
+            schema.addColumn("month", "CHAR(7) NOT NULL");
+        }
+        for (String column : userTable ? StatisticsAggregator.USER_COLUMNS : StatisticsAggregator.GUILD_COLUMNS) {
+            schema.addColumn(column, "BIGINT DEFAULT 0");
+        }
+        return schema;
+    }
+
     /**
      * Define the role_events table schema for timed roles configuration
      */
@@ -391,7 +503,9 @@ public class DatabaseMigrationManager {
                 .addColumn("stack_type", "VARCHAR(16) DEFAULT 'REFRESH'")
                 .addColumn("trigger_data", "TEXT") // JSON String
                 .addColumn("active", "TINYINT(1) DEFAULT 1")
-                .addColumn("created_at", "DATETIME DEFAULT CURRENT_TIMESTAMP");
+                .addColumn("created_at", "DATETIME DEFAULT CURRENT_TIMESTAMP")
+                // Rules of a guild, loaded by the RoleEventRuleEngine
+                .addIndex("idx_role_events_guild_active", "guild_id", "active", "event_type");
     }
 
     /**
@@ -407,7 +521,9 @@ public class DatabaseMigrationManager {
                 .addColumn("source_event_id", "INTEGER")
                 .addColumn("created_at", "DATETIME DEFAULT CURRENT_TIMESTAMP")
                 // Index für schnelle Abfragen im Background-Loop
-                .addIndex("CREATE INDEX IF NOT EXISTS idx_timers_expires ON active_timers(expires_at)");
+                .addIndex("idx_timers_expires", "expires_at")
+                // Timer eines Users (Trigger-Auswertung, Entfernen per guild/user/role)
+                .addIndex("idx_timers_guild_user", "guild_id", "user_id", "role_id");
     }
 
     /**
@@ -425,14 +541,17 @@ public class DatabaseMigrationManager {
         
         // Create migrations tracking table first if it doesn't exist
         ensureMigrationsTableExists();
+
+        // One round trip for the whole schema instead of a metadata query and SHOW COLUMNS per table
+        SchemaSnapshot currentSchema = loadCurrentSchema();
         
         for (Map.Entry<String, TableSchema> entry : expectedSchemas.entrySet()) {
             String tableName = entry.getKey();
             TableSchema expectedSchema = entry.getValue();
             
             try {
-                if (tableExists(tableName)) {
-                    int columnsAdded = checkAndAddMissingColumns(tableName, expectedSchema);
+                if (currentSchema.hasTable(tableName)) {
+                    int columnsAdded = checkAndAddMissingColumns(tableName, expectedSchema, currentSchema);
                     totalColumnsAdded += columnsAdded;
                     tablesProcessed++;
                     
@@ -458,69 +577,129 @@ public class DatabaseMigrationManager {
     }
     
     /**
-     * Check if a table exists in the database
+     * Fingerprint (SHA-256) of the expected schemas: tables, column definitions and indexes.
+     * It changes whenever a create*Schema() definition changes.
      */
-    private boolean tableExists(String tableName) throws SQLException {
-        try (Connection connection = databaseHandler.getConnection()) {
-            DatabaseMetaData meta = connection.getMetaData();
-            try (ResultSet rs = meta.getTables(null, null, tableName, null)) {
-                return rs.next();
+    public String computeSchemaFingerprint() {
+        Map<String, TableSchema> schemas = new TreeMap<>(getExpectedSchemas());
+        StringBuilder canonical = new StringBuilder();
+        for (TableSchema schema : schemas.values()) {
+            canonical.append("table ").append(schema.tableName).append('\n');
+            for (ColumnDefinition column : schema.columns.values()) {
+                canonical.append("  ").append(column.name).append(' ').append(column.sqlDefinition).append('\n');
+            }
+            for (IndexDefinition index : schema.indexes) {
+                canonical.append("  ").append(index.toSql(schema.tableName)).append('\n');
             }
         }
+        try {
+            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(canonical.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-    
+
     /**
-     * Check for missing columns in a specific table and add them
+     * Whether the schema fingerprint stored by the last successful migration run matches the
+     * current schema definitions, i.e. column introspection can be skipped.
+     * Setting SCHEMA_FORCE_CHECK=true in the environment always runs the full check.
      */
-    private int checkAndAddMissingColumns(String tableName, TableSchema expectedSchema) throws SQLException {
-        Set<String> existingColumns = getExistingColumns(tableName);
-        Map<String, String> columnsToAdd = new HashMap<>();
-        
-        // Find missing columns
-        for (Map.Entry<String, ColumnDefinition> entry : expectedSchema.columns.entrySet()) {
-            String columnName = entry.getKey();
-            ColumnDefinition columnDef = entry.getValue();
-            
-            if (!existingColumns.contains(columnName.toLowerCase())) {
-                columnsToAdd.put(columnName, columnDef.sqlDefinition);
+    public boolean isSchemaUpToDate() {
+        if (EnvConfig.getBoolean("SCHEMA_FORCE_CHECK", false)) {
+            return false;
+        }
+        String query = "SELECT version FROM database_migrations WHERE migration_name = ? AND success = 1";
+        try {
+            ensureMigrationsTableExists();
+            try (Connection connection = databaseHandler.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setString(1, SCHEMA_FINGERPRINT_MIGRATION);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() && computeSchemaFingerprint().equals(rs.getString("version"));
+                }
             }
+        } catch (SQLException e) {
+            System.err.println("Could not read schema fingerprint: " + e.getMessage());
+            return false;
         }
-        
-        // Add missing columns if any found
-        if (!columnsToAdd.isEmpty()) {
-            System.out.println("Found " + columnsToAdd.size() + " missing columns in table '" + tableName + "': " + 
-                             String.join(", ", columnsToAdd.keySet()));
-            
-            for (Map.Entry<String, String> column : columnsToAdd.entrySet()) {
-                try {
-                    addColumnToTable(tableName, column.getKey(), column.getValue());
-                } catch (SQLException e) {
-                    System.err.println("Failed to add column '" + column.getKey() + "' to table '" + tableName + "': " + e.getMessage());
-                    // Continue with other columns
+    }
+
+    /**
+     * Store the fingerprint of the current schema definitions after a successful migration run
+     */
+    public void recordSchemaFingerprint(long executionTimeMs) {
+        recordMigrationRun(SCHEMA_FINGERPRINT_MIGRATION, computeSchemaFingerprint(), executionTimeMs, true);
+    }
+
+    /**
+     * Load all tables, columns and indexes of the current database with one information_schema query
+     */
+    public SchemaSnapshot loadCurrentSchema() throws SQLException {
+        String query = "SELECT 'C' AS kind, TABLE_NAME, COLUMN_NAME AS name FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() " +
+                "UNION ALL " +
+                "SELECT DISTINCT 'I', TABLE_NAME, INDEX_NAME FROM information_schema.STATISTICS " +
+                "WHERE TABLE_SCHEMA = DATABASE()";
+        SchemaSnapshot snapshot = new SchemaSnapshot();
+        try (Connection connection = databaseHandler.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                if ("C".equals(rs.getString("kind"))) {
+                    snapshot.addColumn(rs.getString("TABLE_NAME"), rs.getString("name"));
+                } else {
+                    snapshot.addIndex(rs.getString("TABLE_NAME"), rs.getString("name"));
                 }
             }
         }
-        
-        return columnsToAdd.size();
+        return snapshot;
     }
     
     /**
-     * Get existing column names for a table
+     * Add the missing columns of a table with a single multi-clause ALTER TABLE, so a large table
+     * is rebuilt at most once. Falls back to one ALTER per column if the combined statement fails.
      */
-    private Set<String> getExistingColumns(String tableName) throws SQLException {
-        Set<String> columns = new HashSet<>();
-        
+    private int checkAndAddMissingColumns(String tableName, TableSchema expectedSchema, SchemaSnapshot currentSchema) throws SQLException {
+        List<ColumnDefinition> columnsToAdd = currentSchema.getMissingColumns(expectedSchema);
+        if (columnsToAdd.isEmpty()) {
+            return 0;
+        }
+
+        List<String> columnNames = new ArrayList<>();
+        StringBuilder alterQuery = new StringBuilder("ALTER TABLE ").append(tableName);
+        for (int i = 0; i < columnsToAdd.size(); i++) {
+            ColumnDefinition column = columnsToAdd.get(i);
+            columnNames.add(column.name);
+            alterQuery.append(i == 0 ? " " : ", ").append("ADD COLUMN ").append(column.name).append(' ').append(column.sqlDefinition);
+        }
+        System.out.println("Found " + columnsToAdd.size() + " missing columns in table '" + tableName + "': " +
+                         String.join(", ", columnNames));
+
         try (Connection connection = databaseHandler.getConnection();
              Statement stmt = connection.createStatement()) {
-            String query = "SHOW COLUMNS FROM " + tableName;
-            try (ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    columns.add(rs.getString("Field").toLowerCase()); // MariaDB uses "Field" column name
-                }
+            stmt.execute(alterQuery.toString());
+            return columnsToAdd.size();
+        } catch (SQLException e) {
+            System.err.println("Combined ALTER TABLE on '" + tableName + "' failed, adding columns one by one: " + e.getMessage());
+        }
+
+        int added = 0;
+        for (ColumnDefinition column : columnsToAdd) {
+            try {
+                addColumnToTable(tableName, column.name, column.sqlDefinition);
+                added++;
+            } catch (SQLException e) {
+                System.err.println("Failed to add column '" + column.name + "' to table '" + tableName + "': " + e.getMessage());
+                // Continue with other columns
             }
         }
-        
-        return columns;
+        return added;
     }
     
     /**
@@ -636,14 +815,27 @@ public class DatabaseMigrationManager {
      * Apply all indexes for a table if they don't already exist
      */
     public void applyIndexes(String tableName, TableSchema schema) throws SQLException {
-        // Apply indexes
-        for (String indexDefinition : schema.indexes) {
+        applyIndexes(tableName, schema, loadCurrentSchema());
+    }
+
+    /**
+     * Apply the indexes of a table that are missing in the given snapshot
+     */
+    public void applyIndexes(String tableName, TableSchema schema, SchemaSnapshot currentSchema) throws SQLException {
+        for (IndexDefinition index : schema.indexes) {
+            if (currentSchema.hasIndex(tableName, index.name)) {
+                continue;
+            }
             try (Connection connection = databaseHandler.getConnection();
                  Statement stmt = connection.createStatement()) {
-                stmt.execute(indexDefinition);
+                stmt.execute(index.toSql(tableName));
+                System.out.println("Created " + (index.unique ? "unique " : "") + "index '" + index.name + "' on table '" + tableName + "'");
             } catch (SQLException e) {
                 // Index might already exist, which is fine
-                if (!e.getMessage().contains("already exists")) {
+                if (e.getMessage().contains("Duplicate entry")) {
+                    System.err.println("Warning: Unique index '" + index.name + "' on table '" + tableName +
+                            "' could not be created, existing rows contain duplicates: " + e.getMessage());
+                } else if (!e.getMessage().contains("already exists")) {
                     System.err.println("Warning: Failed to create index for table '" + tableName + "': " + e.getMessage());
                 }
             }
@@ -658,23 +850,21 @@ public class DatabaseMigrationManager {
         boolean isValid = true;
         
         System.out.println("Validating database schema...");
+        SchemaSnapshot currentSchema = loadCurrentSchema();
         
         for (Map.Entry<String, TableSchema> entry : expectedSchemas.entrySet()) {
             String tableName = entry.getKey();
             TableSchema expectedSchema = entry.getValue();
             
-            if (!tableExists(tableName)) {
+            if (!currentSchema.hasTable(tableName)) {
                 System.err.println("Missing table: " + tableName);
                 isValid = false;
                 continue;
             }
             
-            Set<String> existingColumns = getExistingColumns(tableName);
-            for (String expectedColumn : expectedSchema.columns.keySet()) {
-                if (!existingColumns.contains(expectedColumn.toLowerCase())) {
-                    System.err.println("Missing column '" + expectedColumn + "' in table '" + tableName + "'");
-                    isValid = false;
-                }
+            for (ColumnDefinition missingColumn : currentSchema.getMissingColumns(expectedSchema)) {
+                System.err.println("Missing column '" + missingColumn.name + "' in table '" + tableName + "'");
+                isValid = false;
             }
         }
         
@@ -12,10 +12,13 @@ import java.util.Objects;
 
 public class FeedbackCommandListener extends ListenerAdapter {
 
-    private Guild guild;
+    private final String guildId;
 
-    public FeedbackCommandListener(Guild guild) {
-        this.guild = guild;
+    /**
+     * @param guildId the guild whose owner receives the feedback
+     */
+    public FeedbackCommandListener(String guildId) {
+        this.guildId = guildId;
     }
 
     @Override
@@ -34,7 +37,19 @@ public class FeedbackCommandListener extends ListenerAdapter {
             eb2.addField("User ID", event.getUser().getId(), false);
             eb2.setColor(Color.BLUE);
             eb2.setTimestamp(Instant.now());
-            Objects.requireNonNull(guild.getOwner()).getUser().openPrivateChannel().complete().sendMessageEmbeds(eb2.build()).queue();
+            // The guild may be on a shard of another process
+            Guild guild = event.getJDA().getShardManager() != null
+                    ? event.getJDA().getShardManager().getGuildById(guildId)
+                    : event.getJDA().getGuildById(guildId);
+            if (guild == null) {
+                System.err.println("Could not forward feedback: guild " + guildId + " is not on the shards of this process");
+                return;
+            }
+            // The owner is not necessarily cached, retrieve it instead of blocking on the private channel
+            guild.retrieveOwner()
+                    .flatMap(owner -> owner.getUser().openPrivateChannel())
+                    .flatMap(channel -> channel.sendMessageEmbeds(eb2.build()))
+                    .queue(null, error -> System.err.println("Could not forward feedback: " + error.getMessage()));
         }
     }
 }
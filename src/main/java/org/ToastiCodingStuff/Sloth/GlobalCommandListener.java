@@ -3,7 +3,12 @@ package org.ToastiCodingStuff.Sloth;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 
+import java.awt.Color;
+
 public class GlobalCommandListener extends ListenerAdapter {
+    // Discord limit for embed descriptions is 4096 characters
+    private static final int MAX_DESCRIPTION_LENGTH = 4000;
+
     private final DatabaseHandler handler;
 
     public GlobalCommandListener(DatabaseHandler handler) {
@@ -14,9 +19,47 @@ public class GlobalCommandListener extends ListenerAdapter {
     public void onSlashCommandInteraction(net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent event) {
         if (!event.getName().equals("global-stats")) {return;}
 
-        EmbedBuilder embed = handler.getGlobalStats();
-        EmbedBuilder embed2 = handler.getGlobalModStats();
-        event.replyEmbeds(embed.build()).setEphemeral(false).queue();
-        event.getChannel().sendMessageEmbeds(embed2.build()).queue();
+        GlobalStatsCache.Snapshot snapshot = handler.getGlobalStatsCache().get();
+        if (snapshot == null) {
+            event.reply("❌ Global statistics could not be loaded. Please try again later.").setEphemeral(true).queue();
+            return;
+        }
+        event.replyEmbeds(buildCommandUsageEmbed(snapshot).build(), buildModerationEmbed(snapshot).build()).queue();
+    }
+
+    private static EmbedBuilder buildCommandUsageEmbed(GlobalStatsCache.Snapshot snapshot) {
+        StringBuilder description = new StringBuilder();
+        for (GlobalStatsCache.CommandUsage usage : snapshot.commandUsage) {
+            String entry = "Command Name: " + usage.command + "; Total Uses: " + usage.count + "\n" +
+                    (usage.lastUsed != null ? usage.lastUsed + "\n" : "");
+            if (description.length() + entry.length() > MAX_DESCRIPTION_LENGTH) {
+                description.append("…");
+                break;
+            }
+            description.append(entry);
+        }
+
+        return new EmbedBuilder()
+                .setTitle("🌐 Global Bot Statistics")
+                .setColor(Color.MAGENTA)
+                .setDescription(description)
+                .addField("Servers", snapshot.activeGuilds + " active / " + snapshot.totalGuilds + " total", true)
+                .addField("Running Timed Roles", String.valueOf(snapshot.activeTimers), true)
+                .setFooter("Updated")
+                .setTimestamp(snapshot.createdAt);
+    }
+
+    private static EmbedBuilder buildModerationEmbed(GlobalStatsCache.Snapshot snapshot) {
+        return new EmbedBuilder()
+                .setTitle("Lifetime Moderation Statistics")
+                .setColor(Color.BLUE)
+                .addField("Total Warnings Issued", String.valueOf(snapshot.getModerationTotal("warnings_issued")), true)
+                .addField("Total Kicks Performed", String.valueOf(snapshot.getModerationTotal("kicks_performed")), true)
+                .addField("Total Bans Performed", String.valueOf(snapshot.getModerationTotal("bans_performed")), true)
+                .addField("Total Timeouts Performed", String.valueOf(snapshot.getModerationTotal("timeouts_performed")), true)
+                .addField("Total Untimeouts Performed", String.valueOf(snapshot.getModerationTotal("untimeouts_performed")), true)
+                .addField("Total Tickets Created", String.valueOf(snapshot.getModerationTotal("tickets_created")), true)
+                .addField("Total Tickets Closed", String.valueOf(snapshot.getModerationTotal("tickets_closed")), true)
+                .addField("Total Verifications Performed", String.valueOf(snapshot.getModerationTotal("verifications_performed")), true);
     }
 }
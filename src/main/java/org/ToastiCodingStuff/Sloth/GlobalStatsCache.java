@@ -0,0 +1,131 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds an immutable snapshot of the global bot metrics shown by /global-stats
+ * (command usage, moderation totals, guild and timer counts). The snapshot is computed on
+ * a background thread and served from memory, so the command never runs the aggregate queries.
+ *
+ * Configuration (environment):
+ * GLOBAL_STATS_REFRESH_SECONDS - how often the snapshot is recomputed (default 300)
+ */
+public class GlobalStatsCache {
+
+    /**
+     * Computes a snapshot from the database, null if it could not be read
+     */
+    public interface Loader {
+        Snapshot load();
+    }
+
+    /**
+     * Usage of one command from global_statistics
+     */
+    public static final class CommandUsage {
+        public final String command;
+        public final long count;
+        public final String lastUsed;
+
+        public CommandUsage(String command, long count, String lastUsed) {
+            this.command = command;
+            this.count = count;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * Global metrics at one point in time
+     */
+    public static final class Snapshot {
+        public final List<CommandUsage> commandUsage;
+        // Counter column of StatisticsAggregator.GUILD_COLUMNS -> total over all guilds
+        public final Map<String, Long> moderationTotals;
+        public final int totalGuilds;
+        public final int activeGuilds;
+        public final int activeTimers;
+        public final Instant createdAt;
+
+        public Snapshot(List<CommandUsage> commandUsage, Map<String, Long> moderationTotals,
+                        int totalGuilds, int activeGuilds, int activeTimers) {
+            this.commandUsage = Collections.unmodifiableList(commandUsage);
+            this.moderationTotals = Collections.unmodifiableMap(new LinkedHashMap<>(moderationTotals));
+            this.totalGuilds = totalGuilds;
+            this.activeGuilds = activeGuilds;
+            this.activeTimers = activeTimers;
+            this.createdAt = Instant.now();
+        }
+
+        public long getModerationTotal(String column) {
+            Long total = moderationTotals.get(column);
+            return total != null ? total : 0;
+        }
+    }
+
+    private final Loader loader;
+    private final ScheduledExecutorService refresher;
+    private volatile Snapshot snapshot;
+
+    public GlobalStatsCache(Loader loader) {
+        this(loader, EnvConfig.getInt("GLOBAL_STATS_REFRESH_SECONDS", 300));
+    }
+
+    public GlobalStatsCache(Loader loader, int refreshSeconds) {
+        this.loader = loader;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Sloth-GlobalStats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, refreshSeconds);
+        this.refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, interval, TimeUnit.SECONDS);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            System.err.println("Error refreshing global statistics: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Recompute the snapshot now; the previous one is kept if loading fails
+     */
+    public Snapshot refresh() {
+        Snapshot loaded = loader.load();
+        if (loaded != null) {
+            snapshot = loaded;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Latest snapshot. Only loads synchronously if no snapshot was computed yet (right after startup).
+     * @return the snapshot, or null if none could be loaded
+     */
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current;
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,78 @@
+package org.ToastiCodingStuff.Sloth;
+
+/**
+ * Immutable snapshot of all per-guild settings (log channel, warn system, ticket system
+ * and just-verify button), loaded with a single query by {@link DatabaseHandler}.
+ * Raw column values are kept as stored; the DatabaseHandler getters apply their defaults.
+ */
+public final class GuildConfig {
+    public final String guildId;
+
+    // log_channels
+    public final String logChannelId;
+
+    // warn_system_settings
+    public final boolean hasWarnSettings;
+    public final int maxWarns;
+    public final int minutesMuted;
+    public final String warnRoleId;
+    public final int warnTimeHours;
+
+    // guild_settings
+    public final boolean hasGuildSettings;
+    public final String ticketCategory;
+    public final String ticketChannel;
+    public final String ticketRole;
+    public final boolean transcriptsEnabled;
+    public final String ticketTitle;
+    public final String ticketDescription;
+
+    // just_verify_button
+    public final boolean hasJustVerifyButton;
+    public final String verifyRoleToGiveId;
+    public final String verifyRoleToRemoveId;
+    public final String verifyButtonLabel;
+    public final String verifyButtonEmojiId;
+
+    public GuildConfig(String guildId, String logChannelId,
+                       boolean hasWarnSettings, int maxWarns, int minutesMuted, String warnRoleId, int warnTimeHours,
+                       boolean hasGuildSettings, String ticketCategory, String ticketChannel, String ticketRole,
+                       boolean transcriptsEnabled, String ticketTitle, String ticketDescription,
+                       boolean hasJustVerifyButton, String verifyRoleToGiveId, String verifyRoleToRemoveId,
+                       String verifyButtonLabel, String verifyButtonEmojiId) {
+        this.guildId = guildId;
+        this.logChannelId = logChannelId;
+        this.hasWarnSettings = hasWarnSettings;
+        this.maxWarns = maxWarns;
+        this.minutesMuted = minutesMuted;
+        this.warnRoleId = warnRoleId;
+        this.warnTimeHours = warnTimeHours;
+        this.hasGuildSettings = hasGuildSettings;
+        this.ticketCategory = ticketCategory;
+        this.ticketChannel = ticketChannel;
+        this.ticketRole = ticketRole;
+        this.transcriptsEnabled = transcriptsEnabled;
+        this.ticketTitle = ticketTitle;
+        this.ticketDescription = ticketDescription;
+        this.hasJustVerifyButton = hasJustVerifyButton;
+        this.verifyRoleToGiveId = verifyRoleToGiveId;
+        this.verifyRoleToRemoveId = verifyRoleToRemoveId;
+        this.verifyButtonLabel = verifyButtonLabel;
+        this.verifyButtonEmojiId = verifyButtonEmojiId;
+    }
+
+    /**
+     * Discord IDs are stored as NULL, "" or "0" when a setting is not configured
+     */
+    static boolean isSet(String id) {
+        return id != null && !id.isEmpty() && !id.equals("0");
+    }
+
+    public boolean hasLogChannel() {
+        return logChannelId != null && !logChannelId.equals("0");
+    }
+
+    public boolean isTicketSystem() {
+        return isSet(ticketCategory) || isSet(ticketChannel);
+    }
+}
@@ -0,0 +1,105 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of {@link GuildConfig} snapshots with a time-to-live.
+ * Entries are dropped by the DatabaseHandler setters whenever a guild's settings change.
+ *
+ * Configuration (environment):
+ * GUILD_CONFIG_CACHE_SIZE        - maximum number of cached guilds (default 1000)
+ * GUILD_CONFIG_CACHE_TTL_SECONDS - maximum age of a cached snapshot (default 300)
+ */
+public class GuildConfigCache {
+
+    /**
+     * Loads the current configuration of a guild from the database
+     */
+    public interface Loader {
+        GuildConfig load(String guildId) throws SQLException;
+    }
+
+    private static final class Entry {
+        final GuildConfig config;
+        final long loadedAt;
+
+        Entry(GuildConfig config, long loadedAt) {
+            this.config = config;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final Loader loader;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public GuildConfigCache(Loader loader) {
+        this(loader, EnvConfig.getInt("GUILD_CONFIG_CACHE_SIZE", 1000), EnvConfig.getInt("GUILD_CONFIG_CACHE_TTL_SECONDS", 300) * 1000L);
+    }
+
+    public GuildConfigCache(Loader loader, int maxSize, long ttlMillis) {
+        this.loader = loader;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > GuildConfigCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the configuration of a guild, loading it if it is not cached or expired
+     */
+    public GuildConfig get(String guildId) throws SQLException {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(guildId);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlMillis) {
+                    return entry.config;
+                }
+                entries.remove(guildId);
+            }
+        }
+
+        long generationBefore = generation.get();
+        GuildConfig config = loader.load(guildId);
+        synchronized (entries) {
+            if (generation.get() == generationBefore) {
+                entries.put(guildId, new Entry(config, now));
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Drop the cached configuration of a guild after its settings were changed
+     */
+    public void invalidate(String guildId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(guildId);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -27,7 +27,7 @@ public class GuildEventListener extends ListenerAdapter {
         String guildName = guild.getName();
         
         System.out.println("Bot joined guild: " + guildName + " (ID: " + guildId + ")");
-        handler.insertOrUpdateGuild(guildId, guildName);
+        handler.runAsync(() -> handler.insertOrUpdateGuild(guildId, guildName));
     }
     
     /**
@@ -52,6 +52,6 @@ public class GuildEventListener extends ListenerAdapter {
         String newGuildName = event.getNewName();
         
         System.out.println("Guild name updated: " + newGuildName + " (ID: " + guildId + ")");
-        handler.insertOrUpdateGuild(guildId, newGuildName);
+        handler.runAsync(() -> handler.insertOrUpdateGuild(guildId, newGuildName));
     }
 }
\ No newline at end of file
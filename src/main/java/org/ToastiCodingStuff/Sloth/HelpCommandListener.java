@@ -216,18 +216,20 @@ public class HelpCommandListener extends ListenerAdapter {
                                 "`/ticket close` - Close current ticket\n" +
                                 "`/ticket assign` - Assign to staff member\n" +
                                 "`/ticket priority` - Change ticket priority\n" +
-                                "`/ticket info` - Get ticket information\n", false)
+                                "`/ticket info` - Get ticket information\n" +
+                                "`/ticket transcript` - Export the ticket history\n", false)
                         .addField("**Moderation System**",
                                 "`/mod kick` `/mod ban` `/mod unban` - User management\n" +
                                 "`/mod timeout` `/mod untimeout` - Temporary restrictions\n" +
-                                "`/mod purge` - Delete multiple messages\n" +
+                                "`/mod purge` - Delete messages, filter by user, text, bots or attachments\n" +
                                 "`/mod slowmode` - Set channel slowmode", false)
                         .addField("**Statistics System**",
                                 "`/stats lifetime` - Lifetime server statistics\n" +
                                 "`/stats today` - Today's server statistics\n" +
                                 "`/stats week` - Weekly statistics\n" +
                                 "`/stats date` - Statistics for specific date\n" +
-                                "`/stats user` - View user information and statistics", false)
+                                "`/stats user` - View user information and statistics\n" +
+                                "`/stats rebuild` - Recalculate lifetime statistics", false)
                         .addField("**Select Roles System**",
                                 "`/select-roles add` - Add role to selection list\n" +
                                 "`/select-roles remove` - Remove role from selection list\n" +
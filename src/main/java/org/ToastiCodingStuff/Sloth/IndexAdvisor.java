@@ -0,0 +1,122 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs EXPLAIN on the hot queries of the bot once at startup and warns when one of them
+ * would scan a whole table. The expected indexes are defined in {@link DatabaseMigrationManager};
+ * a warning here usually means an index could not be created (e.g. duplicates blocking a
+ * unique key) or a query shape changed without a matching index.
+ *
+ * Configuration (environment):
+ * INDEX_ADVISOR_ENABLED  - run the advisor at startup (default true)
+ * INDEX_ADVISOR_MIN_ROWS - full scans on tables estimated below this size are ignored
+ *                          if an index could be used (default 1000)
+ */
+public class IndexAdvisor {
+
+    /**
+     * A registered query with sample parameters for EXPLAIN
+     */
+    public static final class HotQuery {
+        public final String name;
+        public final String sql;
+        private final Object[] sampleParameters;
+
+        public HotQuery(String name, String sql, Object... sampleParameters) {
+            this.name = name;
+            this.sql = sql;
+            this.sampleParameters = sampleParameters;
+        }
+    }
+
+    private final DatabaseHandler handler;
+    private final List<HotQuery> queries = new ArrayList<>();
+    private final long minRows;
+
+    public IndexAdvisor(DatabaseHandler handler) {
+        this.handler = handler;
+        this.minRows = EnvConfig.getInt("INDEX_ADVISOR_MIN_ROWS", 1000);
+
+        register("statistics by guild and date",
+                "SELECT warnings_issued FROM statistics WHERE guild_id = ? AND date = ?", "0", "2025-01-01");
+        register("user_statistics by guild, user and date",
+                "SELECT * FROM user_statistics WHERE guild_id = ? AND user_id = ? AND date = ?", "0", "0", "2025-01-01");
+        register("active warnings of a user",
+                "SELECT COUNT(*) FROM warnings WHERE guild_id = ? AND user_id = ? AND active = 1 " +
+                        "AND (expires_at IS NULL OR expires_at > CURRENT_TIMESTAMP)", "0", "0");
+        register("timers of a user",
+                "SELECT * FROM active_timers WHERE guild_id = ? AND user_id = ? ORDER BY expires_at ASC", "0", "0");
+        register("expired timers",
+                "SELECT id FROM active_timers WHERE expires_at <= CURRENT_TIMESTAMP ORDER BY expires_at LIMIT 100");
+        register("open tickets of a guild",
+                "SELECT channel_id, priority FROM tickets WHERE guild_id = ? AND status IN ('OPEN', 'IN_PROGRESS')", "0");
+        register("active role events of a guild",
+                "SELECT * FROM role_events WHERE guild_id = ? AND active = 1", "0");
+    }
+
+    public static boolean isEnabled() {
+        return EnvConfig.getBoolean("INDEX_ADVISOR_ENABLED", true);
+    }
+
+    public void register(String name, String sql, Object... sampleParameters) {
+        queries.add(new HotQuery(name, sql, sampleParameters));
+    }
+
+    /**
+     * EXPLAIN every registered query and log the ones doing a full table scan
+     * @return number of queries with a warning
+     */
+    public int run() {
+        int warnings = 0;
+        try (Connection connection = handler.getConnection()) {
+            for (HotQuery query : queries) {
+                try {
+                    if (!checkQuery(connection, query)) {
+                        warnings++;
+                    }
+                } catch (SQLException e) {
+                    System.err.println("Index advisor could not explain '" + query.name + "': " + e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Index advisor failed: " + e.getMessage());
+            return warnings;
+        }
+        if (warnings == 0) {
+            System.out.println("Index advisor: all " + queries.size() + " hot queries use an index.");
+        } else {
+            System.err.println("Index advisor: " + warnings + " of " + queries.size() + " hot queries scan a full table.");
+        }
+        return warnings;
+    }
+
+    private boolean checkQuery(Connection connection, HotQuery query) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("EXPLAIN " + query.sql)) {
+            for (int i = 0; i < query.sampleParameters.length; i++) {
+                stmt.setObject(i + 1, query.sampleParameters[i]);
+            }
+            boolean ok = true;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString("table");
+                    String type = rs.getString("type");
+                    String possibleKeys = rs.getString("possible_keys");
+                    long rows = rs.getLong("rows");
+                    // The optimizer may prefer a scan on tiny tables even if an index exists
+                    if ("ALL".equalsIgnoreCase(type) && (possibleKeys == null || rows >= minRows)) {
+                        System.err.println("Index advisor: '" + query.name + "' scans table '" + table + "' (~" + rows
+                                + " rows, possible keys: " + (possibleKeys != null ? possibleKeys : "none") + ")");
+                        ok = false;
+                    }
+                }
+            }
+            return ok;
+        }
+    }
+}
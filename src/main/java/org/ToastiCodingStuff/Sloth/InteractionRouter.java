@@ -0,0 +1,246 @@
+package org.ToastiCodingStuff.Sloth;
+
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Single JDA listener for slash commands, buttons, select menus and modals. Handlers are
+ * registered by command name (or "name subcommand") and by exact component/modal id or id
+ * prefix; an event is delivered only to its handler, found with a hash lookup and, for ids
+ * with a dynamic suffix (e.g. "event_toggle_12"), the longest registered prefix in a trie.
+ * The synchronous run time of every handler is recorded per route.
+ *
+ * Configuration (environment):
+ * ROUTER_SLOW_HANDLER_MS - handlers running longer than this on the event thread are logged (default 500)
+ */
+public class InteractionRouter extends ListenerAdapter {
+
+    /**
+     * Handlers of one event type: exact ids in a hash map, prefixes in a trie
+     */
+    private static final class Routes<E> {
+        private final String kind;
+        private final Map<String, Route<E>> exact = new HashMap<>();
+        private final PrefixTrie<Route<E>> prefixes = new PrefixTrie<>();
+
+        Routes(String kind) {
+            this.kind = kind;
+        }
+
+        Route<E> find(String id) {
+            Route<E> route = exact.get(id);
+            return route != null ? route : prefixes.longestPrefixOf(id);
+        }
+    }
+
+    private static final class Route<E> {
+        final String name;
+        final Consumer<E> handler;
+        final DatabaseMetrics.LatencyHistogram latency = new DatabaseMetrics.LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+
+        Route(String name, Consumer<E> handler) {
+            this.name = name;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Character trie for id prefixes
+     */
+    private static final class PrefixTrie<V> {
+        private static final class Node<V> {
+            final Map<Character, Node<V>> children = new HashMap<>();
+            V value;
+        }
+
+        private final Node<V> root = new Node<>();
+
+        void put(String prefix, V value) {
+            Node<V> node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node<>());
+            }
+            node.value = value;
+        }
+
+        V longestPrefixOf(String key) {
+            Node<V> node = root;
+            V match = root.value;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+                if (node != null && node.value != null) {
+                    match = node.value;
+                }
+            }
+            return match;
+        }
+    }
+
+    private final Routes<SlashCommandInteractionEvent> commands = new Routes<>("command");
+    private final Routes<ButtonInteractionEvent> buttons = new Routes<>("button");
+    private final Routes<StringSelectInteractionEvent> stringSelects = new Routes<>("string select");
+    private final Routes<EntitySelectInteractionEvent> entitySelects = new Routes<>("entity select");
+    private final Routes<ModalInteractionEvent> modals = new Routes<>("modal");
+    private final List<Route<?>> allRoutes = new ArrayList<>();
+    private final LongAdder unrouted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final long slowHandlerNanos;
+    private volatile boolean accepting = true;
+
+    public InteractionRouter() {
+        this.slowHandlerNanos = TimeUnit.MILLISECONDS.toNanos(EnvConfig.getInt("ROUTER_SLOW_HANDLER_MS", 500));
+    }
+
+    // --- Registration (at startup, before the router is added to JDA) ---
+
+    /**
+     * @param path command name, or "name subcommand" for a single subcommand
+     */
+    public InteractionRouter command(String path, Consumer<SlashCommandInteractionEvent> handler) {
+        return add(commands, path, false, handler);
+    }
+
+    public InteractionRouter button(String id, Consumer<ButtonInteractionEvent> handler) {
+        return add(buttons, id, false, handler);
+    }
+
+    public InteractionRouter buttonPrefix(String prefix, Consumer<ButtonInteractionEvent> handler) {
+        return add(buttons, prefix, true, handler);
+    }
+
+    public InteractionRouter stringSelect(String id, Consumer<StringSelectInteractionEvent> handler) {
+        return add(stringSelects, id, false, handler);
+    }
+
+    public InteractionRouter stringSelectPrefix(String prefix, Consumer<StringSelectInteractionEvent> handler) {
+        return add(stringSelects, prefix, true, handler);
+    }
+
+    public InteractionRouter entitySelectPrefix(String prefix, Consumer<EntitySelectInteractionEvent> handler) {
+        return add(entitySelects, prefix, true, handler);
+    }
+
+    public InteractionRouter modal(String id, Consumer<ModalInteractionEvent> handler) {
+        return add(modals, id, false, handler);
+    }
+
+    public InteractionRouter modalPrefix(String prefix, Consumer<ModalInteractionEvent> handler) {
+        return add(modals, prefix, true, handler);
+    }
+
+    private <E> InteractionRouter add(Routes<E> routes, String key, boolean prefix, Consumer<E> handler) {
+        Route<E> route = new Route<>(routes.kind + " " + key + (prefix ? "*" : ""), handler);
+        Route<E> previous = prefix ? routes.prefixes.longestPrefixOf(key) : routes.exact.get(key);
+        if (previous != null && previous.name.equals(route.name)) {
+            throw new IllegalStateException("Duplicate route: " + route.name);
+        }
+        if (prefix) {
+            routes.prefixes.put(key, route);
+        } else {
+            routes.exact.put(key, route);
+        }
+        allRoutes.add(route);
+        return this;
+    }
+
+    /**
+     * Answer all further interactions with a short notice instead of running their handlers
+     * (during shutdown, so no new work is started while queues are drained)
+     */
+    public void stopAccepting() {
+        accepting = false;
+    }
+
+    // --- Dispatch ---
+
+    @Override
+    public void onSlashCommandInteraction(SlashCommandInteractionEvent event) {
+        Route<SlashCommandInteractionEvent> route = null;
+        if (event.getSubcommandName() != null) {
+            route = commands.exact.get(event.getFullCommandName());
+        }
+        if (route == null) {
+            route = commands.exact.get(event.getName());
+        }
+        dispatch(route, event);
+    }
+
+    @Override
+    public void onButtonInteraction(ButtonInteractionEvent event) {
+        dispatch(buttons.find(event.getComponentId()), event);
+    }
+
+    @Override
+    public void onStringSelectInteraction(StringSelectInteractionEvent event) {
+        dispatch(stringSelects.find(event.getComponentId()), event);
+    }
+
+    @Override
+    public void onEntitySelectInteraction(EntitySelectInteractionEvent event) {
+        dispatch(entitySelects.find(event.getComponentId()), event);
+    }
+
+    @Override
+    public void onModalInteraction(ModalInteractionEvent event) {
+        dispatch(modals.find(event.getModalId()), event);
+    }
+
+    private <E> void dispatch(Route<E> route, E event) {
+        if (!accepting) {
+            rejected.increment();
+            if (event instanceof IReplyCallback) {
+                ((IReplyCallback) event).reply("Sloth is restarting, please try again in a moment.")
+                        .setEphemeral(true).queue(null, error -> { });
+            }
+            return;
+        }
+        if (route == null) {
+            // e.g. components of messages sent by an older version of the bot
+            unrouted.increment();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            route.handler.accept(event);
+        } catch (Exception e) {
+            route.errors.increment();
+            System.err.println("Error in " + route.name + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            route.latency.record(elapsed);
+            if (elapsed > slowHandlerNanos) {
+                System.err.println("Slow interaction handler: " + route.name + " blocked the event thread for "
+                        + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+            }
+        }
+    }
+
+    /**
+     * Log the timing of the most expensive routes
+     */
+    public void logSummary() {
+        List<Route<?>> top = new ArrayList<>(allRoutes);
+        top.removeIf(route -> route.latency.getCount() == 0);
+        top.sort((a, b) -> Double.compare(b.latency.getTotalMillis(), a.latency.getTotalMillis()));
+        System.out.println("Interaction routes: " + allRoutes.size() + " registered, " + unrouted.sum() + " unrouted events, " + rejected.sum() + " rejected during shutdown");
+        for (int i = 0; i < Math.min(10, top.size()); i++) {
+            Route<?> route = top.get(i);
+            System.out.println("  " + route.latency.summary() + " errors=" + route.errors.sum() + " | " + route.name);
+        }
+    }
+}
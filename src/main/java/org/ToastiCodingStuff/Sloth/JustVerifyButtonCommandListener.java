@@ -29,17 +29,17 @@ public class JustVerifyButtonCommandListener extends ListenerAdapter {
             case "add":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("verify-button-add");
-                handleJustVerifyButtonCommand(event);
+                handler.runDeferred(event, true, () -> handleJustVerifyButtonCommand(event));
                 break;
             case "remove":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("verify-button-remove");
-                handleJustVerifyButtonRemove(event);
+                handler.runDeferred(event, true, () -> handleJustVerifyButtonRemove(event));
                 break;
             case "send":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("verify-button-send");
-                handleSendJustVerifyButtonCommand(event);
+                handler.runDeferred(event, true, () -> handleSendJustVerifyButtonCommand(event));
                 break;
         }
     }
@@ -47,13 +47,13 @@ public class JustVerifyButtonCommandListener extends ListenerAdapter {
     @Override
     public void onButtonInteraction(ButtonInteractionEvent event) {
         if (event.getButton().getId().equals("just_verify")) {
-            handleJustVerifyButtonClick(event);
+            handler.runDeferred(event, true, () -> handleJustVerifyButtonClick(event));
         }
     }
 
     private void handleJustVerifyButtonClick(ButtonInteractionEvent event) {
         if (!event.getButton().getId().equals("just_verify")) {
-            event.reply("❌ Invalid button configuration.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Invalid button configuration.").queue();
             return;
         }
 
@@ -71,7 +71,7 @@ public class JustVerifyButtonCommandListener extends ListenerAdapter {
         }
 
         if (event.getMember().getRoles().contains(roleToGive)) {
-            event.reply("❌ You are already verified!").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You are already verified!").queue();
             return;
         }
 
@@ -87,7 +87,7 @@ public class JustVerifyButtonCommandListener extends ListenerAdapter {
 
         handler.incrementVerificationsPerformed(event.getGuild().getId());
 
-        event.reply("✅ You have been verified!").setEphemeral(true).queue();
+        event.getHook().sendMessage("✅ You have been verified!").queue();
     }
 
     private void handleSendJustVerifyButtonCommand(SlashCommandInteractionEvent event) {
@@ -95,7 +95,7 @@ public class JustVerifyButtonCommandListener extends ListenerAdapter {
 
         // Check if user has manage server permission
         if (!event.getMember().hasPermission(net.dv8tion.jda.api.Permission.MANAGE_SERVER)) {
-            event.reply("❌ You need Manage Server permission to use this command.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You need Manage Server permission to use this command.").queue();
             return;
         }
         String roleToGiveID = handler.getJustVerifyButtonRoleToGiveID(guildId);
@@ -104,14 +104,14 @@ public class JustVerifyButtonCommandListener extends ListenerAdapter {
         String buttonEmoji = handler.getJustVerifyButtonEmojiID(guildId);
 
         if (roleToGiveID == null) {
-            event.reply("❌ No verify button configured for this server. Please use `/verify-button add` first.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ No verify button configured for this server. Please use `/verify-button add` first.").queue();
             return;
         }
 
         event.getChannel().sendMessage("Click the button below to verify!").setActionRow(
             handler.createJustVerifyButton(roleToGiveID, roleToRemoveID, buttonLabel, buttonEmoji)
         ).queue();
-        event.reply("✅ Verify button sent!").setEphemeral(true).queue();
+        event.getHook().sendMessage("✅ Verify button sent!").queue();
     }
 
     private void handleJustVerifyButtonCommand(SlashCommandInteractionEvent event) {
@@ -119,7 +119,7 @@ public class JustVerifyButtonCommandListener extends ListenerAdapter {
 
         // Check if user has manage server permission
         if (!event.getMember().hasPermission(net.dv8tion.jda.api.Permission.MANAGE_SERVER)) {
-            event.reply("❌ You need Manage Server permission to use this command.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You need Manage Server permission to use this command.").queue();
             return;
         }
 
@@ -130,7 +130,7 @@ public class JustVerifyButtonCommandListener extends ListenerAdapter {
 
         handler.setJustVerifyButton(guildId, roleToGiveID, roleToRemoveID, buttonLabel, buttonEmoji);
 
-        event.reply("✅ Verify button configuration added!").setEphemeral(true).queue();
+        event.getHook().sendMessage("✅ Verify button configuration added!").queue();
     }
 
     private void handleJustVerifyButtonRemove(SlashCommandInteractionEvent event) {
@@ -138,12 +138,12 @@ public class JustVerifyButtonCommandListener extends ListenerAdapter {
 
         // Check if user has manage server permission
         if (!event.getMember().hasPermission(net.dv8tion.jda.api.Permission.MANAGE_SERVER)) {
-            event.reply("❌ You need Manage Server permission to use this command.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You need Manage Server permission to use this command.").queue();
             return;
         }
 
         handler.removeJustVerifyButton(guildId);
 
-        event.reply("✅ Verify button configuration removed!").setEphemeral(true).queue();
+        event.getHook().sendMessage("✅ Verify button configuration removed!").queue();
     }
 }
@@ -0,0 +1,100 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the shutdown steps of the bot in registration order when the JVM is asked to exit
+ * (SIGTERM, Ctrl+C). Every step is timed and a failing step does not stop the following ones,
+ * so buffered statistics are still written and the pool is still closed if e.g. the gateway
+ * does not disconnect cleanly. Steps waiting on something use {@link #remainingMillis()} to
+ * stay within the overall deadline.
+ *
+ * Configuration (environment):
+ * SHUTDOWN_TIMEOUT_SECONDS - time the whole shutdown should take at most (default 30)
+ */
+public class LifecycleManager {
+
+    private static final class Step {
+        final String name;
+        final Runnable action;
+
+        Step(String name, Runnable action) {
+            this.name = name;
+            this.action = action;
+        }
+    }
+
+    private final List<Step> steps = new ArrayList<>();
+    private final AtomicBoolean stopping = new AtomicBoolean(false);
+    private final long timeoutMillis;
+    private volatile long deadline;
+
+    public LifecycleManager() {
+        this(EnvConfig.getInt("SHUTDOWN_TIMEOUT_SECONDS", 30));
+    }
+
+    public LifecycleManager(int timeoutSeconds) {
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, timeoutSeconds));
+    }
+
+    /**
+     * Add a step; steps run in the order they were added
+     */
+    public synchronized LifecycleManager onShutdown(String name, Runnable action) {
+        steps.add(new Step(name, action));
+        return this;
+    }
+
+    /**
+     * Run the shutdown steps from a JVM shutdown hook
+     */
+    public void installShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "Sloth-Shutdown"));
+    }
+
+    /**
+     * Time left until the deadline, at least 1ms so it can be passed to awaits directly
+     */
+    public long remainingMillis() {
+        return Math.max(1, deadline - System.currentTimeMillis());
+    }
+
+    public boolean isStopping() {
+        return stopping.get();
+    }
+
+    /**
+     * Run all steps once; later calls return immediately
+     */
+    public void shutdown() {
+        if (!stopping.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        deadline = start + timeoutMillis;
+        List<Step> toRun;
+        synchronized (this) {
+            toRun = new ArrayList<>(steps);
+        }
+        System.out.println("Shutting down (" + toRun.size() + " steps, deadline " + timeoutMillis / 1000 + "s)...");
+
+        for (Step step : toRun) {
+            long stepStart = System.currentTimeMillis();
+            try {
+                step.action.run();
+            } catch (Exception e) {
+                System.err.println("Shutdown step '" + step.name + "' failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+            long now = System.currentTimeMillis();
+            System.out.println("  " + step.name + ": " + (now - stepStart) + "ms");
+            if (now > deadline) {
+                System.err.println("Shutdown is past its deadline after step '" + step.name + "'");
+            }
+        }
+        System.out.println("Shutdown finished in " + (System.currentTimeMillis() - start) + "ms");
+    }
+}
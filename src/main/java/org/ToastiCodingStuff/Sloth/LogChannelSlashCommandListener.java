@@ -29,22 +29,31 @@ public class LogChannelSlashCommandListener extends ListenerAdapter {
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("log-channel-set");
                 Channel channel = event.getOption("channel").getAsChannel();
-                String channelID = handler.setLogChannel(event.getGuild().getId(), channel.getId());
-                if (!channelID.equals("Error")) {
-                    event.reply("Set log channel to: " + channel.getAsMention()).queue();
-                } else {
-                    event.reply("There was an Error. Please try again or contact the developer!");
-                }
+                String guildId = event.getGuild().getId();
+                event.deferReply().queue();
+                handler.supplyAsync(() -> handler.setLogChannel(guildId, channel.getId()))
+                        .whenComplete((channelID, error) -> {
+                            if (error == null && !"Error".equals(channelID)) {
+                                event.getHook().sendMessage("Set log channel to: " + channel.getAsMention()).queue();
+                            } else {
+                                event.getHook().sendMessage("There was an Error. Please try again or contact the developer!").queue();
+                            }
+                        });
                 break;
             case "get":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("log-channel-get");
-                if (handler.hasLogChannel(event.getGuild().getId())) {
-                    Channel logChannel = event.getGuild().getTextChannelById(handler.getLogChannelID(event.getGuild().getId()));
-                    event.reply("Log Channel set to: " + logChannel.getAsMention()).queue();
-                    return;
-                }
-                event.reply("Couldn't find a Log Channel.").queue();
+                String currentGuildId = event.getGuild().getId();
+                event.deferReply().queue();
+                handler.supplyAsync(() -> handler.hasLogChannel(currentGuildId) ? handler.getLogChannelID(currentGuildId) : null)
+                        .whenComplete((logChannelId, error) -> {
+                            Channel logChannel = logChannelId != null ? event.getGuild().getTextChannelById(logChannelId) : null;
+                            if (logChannel != null) {
+                                event.getHook().sendMessage("Log Channel set to: " + logChannel.getAsMention()).queue();
+                                return;
+                            }
+                            event.getHook().sendMessage("Couldn't find a Log Channel.").queue();
+                        });
                 break;
         }
     }
@@ -3,14 +3,12 @@ package org.ToastiCodingStuff.Sloth;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Member;
-import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 
 import java.awt.Color;
 import java.time.Duration;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class ModerationCommandListener extends ListenerAdapter {
@@ -110,36 +108,40 @@ public class ModerationCommandListener extends ListenerAdapter {
         String targetName = targetMember.getEffectiveName();
         String moderatorName = event.getMember().getEffectiveName();
 
-        // Insert or update user data
-        handler.insertOrUpdateUser(userId, targetName, 
-                targetMember.getUser().getDiscriminator(), 
-                targetMember.getUser().getAvatarUrl());
-        
-        handler.insertOrUpdateUser(moderatorId, moderatorName,
-                event.getMember().getUser().getDiscriminator(),
-                event.getMember().getUser().getAvatarUrl());
+        event.deferReply().queue();
 
         // Kick the member
         targetMember.kick().reason(reason).queue(
             success -> {
                 // Kick successful
-                event.reply("✅ Kicked " + targetName + " for: " + reason).queue();
+                event.getHook().sendMessage("✅ Kicked " + targetName + " for: " + reason).queue();
                 
-                // Log moderation action
-                handler.insertModerationAction(guildId, userId, moderatorId, "KICK", reason, null, null);
-                
-                // Update statistics
-                handler.incrementKicksPerformed(guildId);
-                
-                // Update user statistics
-                handler.incrementUserKicksReceived(guildId, userId);
-                handler.incrementUserKicksPerformed(guildId, moderatorId);
-                
-                // Send to log channel if configured
-                sendToLogChannel(event, guildId, "KICK", targetName, moderatorName, reason);
+                handler.runFollowUp(event.getHook(), () -> {
+                    // Insert or update user data
+                    handler.insertOrUpdateUser(userId, targetName, 
+                            targetMember.getUser().getDiscriminator(), 
+                            targetMember.getUser().getAvatarUrl());
+                    
+                    handler.insertOrUpdateUser(moderatorId, moderatorName,
+                            event.getMember().getUser().getDiscriminator(),
+                            event.getMember().getUser().getAvatarUrl());
+                    
+                    // Log moderation action
+                    handler.insertModerationAction(guildId, userId, moderatorId, "KICK", reason, null, null);
+                    
+                    // Update statistics
+                    handler.incrementKicksPerformed(guildId);
+                    
+                    // Update user statistics
+                    handler.incrementUserKicksReceived(guildId, userId);
+                    handler.incrementUserKicksPerformed(guildId, moderatorId);
+                    
+                    // Send to log channel if configured
+                    sendToLogChannel(event, guildId, "KICK", targetName, moderatorName, reason);
+                });
             },
             error -> {
-                event.reply("❌ Failed to kick " + targetName + ". Please try again.").setEphemeral(true).queue();
+                DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to kick " + targetName + ". Please try again.");
             }
         );
     }
@@ -181,36 +183,40 @@ public class ModerationCommandListener extends ListenerAdapter {
         String targetName = targetMember.getEffectiveName();
         String moderatorName = event.getMember().getEffectiveName();
 
-        // Insert or update user data
-        handler.insertOrUpdateUser(userId, targetName, 
-                targetMember.getUser().getDiscriminator(), 
-                targetMember.getUser().getAvatarUrl());
-        
-        handler.insertOrUpdateUser(moderatorId, moderatorName,
-                event.getMember().getUser().getDiscriminator(),
-                event.getMember().getUser().getAvatarUrl());
+        event.deferReply().queue();
 
         // Ban the member (0 means no message deletion)
         targetMember.ban(0, TimeUnit.SECONDS).reason(reason).queue(
             success -> {
                 // Ban successful
-                event.reply("✅ Banned " + targetName + " for: " + reason).queue();
-                
-                // Log moderation action
-                handler.insertModerationAction(guildId, userId, moderatorId, "BAN", reason, null, null);
-                
-                // Update statistics
-                handler.incrementBansPerformed(guildId);
-                
-                // Update user statistics
-                handler.incrementUserBansReceived(guildId, userId);
-                handler.incrementUserBansPerformed(guildId, moderatorId);
+                event.getHook().sendMessage("✅ Banned " + targetName + " for: " + reason).queue();
                 
-                // Send to log channel if configured
-                sendToLogChannel(event, guildId, "BAN", targetName, moderatorName, reason);
+                handler.runFollowUp(event.getHook(), () -> {
+                    // Insert or update user data
+                    handler.insertOrUpdateUser(userId, targetName, 
+                            targetMember.getUser().getDiscriminator(), 
+                            targetMember.getUser().getAvatarUrl());
+                    
+                    handler.insertOrUpdateUser(moderatorId, moderatorName,
+                            event.getMember().getUser().getDiscriminator(),
+                            event.getMember().getUser().getAvatarUrl());
+                    
+                    // Log moderation action
+                    handler.insertModerationAction(guildId, userId, moderatorId, "BAN", reason, null, null);
+                    
+                    // Update statistics
+                    handler.incrementBansPerformed(guildId);
+                    
+                    // Update user statistics
+                    handler.incrementUserBansReceived(guildId, userId);
+                    handler.incrementUserBansPerformed(guildId, moderatorId);
+                    
+                    // Send to log channel if configured
+                    sendToLogChannel(event, guildId, "BAN", targetName, moderatorName, reason);
+                });
             },
             error -> {
-                event.reply("❌ Failed to ban " + targetName + ". Please try again.").setEphemeral(true).queue();
+                DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to ban " + targetName + ". Please try again.");
             }
         );
     }
@@ -229,25 +235,28 @@ public class ModerationCommandListener extends ListenerAdapter {
         String moderatorId = event.getMember().getId();
         String moderatorName = event.getMember().getEffectiveName();
 
+        event.deferReply().queue();
+
         // Unban the user
         event.getGuild().unban(net.dv8tion.jda.api.entities.UserSnowflake.fromId(userId)).reason(reason).queue(
             success -> {
-                event.reply("✅ Unbanned user with ID " + userId + " for: " + reason).queue();
+                event.getHook().sendMessage("✅ Unbanned user with ID " + userId + " for: " + reason).queue();
                 
-                // Insert or update moderator data
-                handler.insertOrUpdateUser(moderatorId, moderatorName,
-                        event.getMember().getUser().getDiscriminator(),
-                        event.getMember().getUser().getAvatarUrl());
-                
-                // Log moderation action
-                handler.insertModerationAction(guildId, userId, moderatorId, "UNBAN", reason, null, null);
-                // Update statistics
-                
-                // Send to log channel if configured
-                sendToLogChannel(event, guildId, "UNBAN", "User ID: " + userId, moderatorName, reason);
+                handler.runFollowUp(event.getHook(), () -> {
+                    // Insert or update moderator data
+                    handler.insertOrUpdateUser(moderatorId, moderatorName,
+                            event.getMember().getUser().getDiscriminator(),
+                            event.getMember().getUser().getAvatarUrl());
+                    
+                    // Log moderation action
+                    handler.insertModerationAction(guildId, userId, moderatorId, "UNBAN", reason, null, null);
+                    
+                    // Send to log channel if configured
+                    sendToLogChannel(event, guildId, "UNBAN", "User ID: " + userId, moderatorName, reason);
+                });
             },
             error -> {
-                event.reply("❌ Failed to unban user. Please verify the user ID is correct.").setEphemeral(true).queue();
+                DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to unban user. Please verify the user ID is correct.");
             }
         );
     }
@@ -291,32 +300,36 @@ public class ModerationCommandListener extends ListenerAdapter {
         String targetName = targetMember.getEffectiveName();
         String moderatorName = event.getMember().getEffectiveName();
 
+        event.deferReply().queue();
+
         // Apply timeout
         Duration duration = Duration.ofMinutes(minutes);
         targetMember.timeoutFor(duration).reason(reason).queue(
             success -> {
-                event.reply("✅ Timed out " + targetName + " for " + minutes + " minutes. Reason: " + reason).queue();
+                event.getHook().sendMessage("✅ Timed out " + targetName + " for " + minutes + " minutes. Reason: " + reason).queue();
                 
-                // Insert or update user data
-                handler.insertOrUpdateUser(userId, targetName, 
-                        targetMember.getUser().getDiscriminator(), 
-                        targetMember.getUser().getAvatarUrl());
-                
-                // Log moderation action
-                String expiresAt = java.time.LocalDateTime.now().plusMinutes(minutes)
-                        .format(java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                handler.insertModerationAction(guildId, userId, moderatorId, "TIMEOUT", reason, duration.toString(), expiresAt);
-                
-                // Update statistics
-                handler.incrementTimeoutsPerformed(guildId);
-                handler.incrementUserTimeoutsReceived(guildId, userId);
-                handler.incrementUserTimeoutsPerformed(guildId, moderatorId);
-                
-                // Send to log channel if configured
-                sendToLogChannel(event, guildId, "TIMEOUT (" + minutes + "m)", targetName, moderatorName, reason);
+                handler.runFollowUp(event.getHook(), () -> {
+                    // Insert or update user data
+                    handler.insertOrUpdateUser(userId, targetName, 
+                            targetMember.getUser().getDiscriminator(), 
+                            targetMember.getUser().getAvatarUrl());
+                    
+                    // Log moderation action
+                    String expiresAt = java.time.LocalDateTime.now().plusMinutes(minutes)
+                            .format(java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                    handler.insertModerationAction(guildId, userId, moderatorId, "TIMEOUT", reason, duration.toString(), expiresAt);
+                    
+                    // Update statistics
+                    handler.incrementTimeoutsPerformed(guildId);
+                    handler.incrementUserTimeoutsReceived(guildId, userId);
+                    handler.incrementUserTimeoutsPerformed(guildId, moderatorId);
+                    
+                    // Send to log channel if configured
+                    sendToLogChannel(event, guildId, "TIMEOUT (" + minutes + "m)", targetName, moderatorName, reason);
+                });
             },
             error -> {
-                event.reply("❌ Failed to timeout " + targetName + ". Please try again.").setEphemeral(true).queue();
+                DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to timeout " + targetName + ". Please try again.");
             }
         );
     }
@@ -348,29 +361,33 @@ public class ModerationCommandListener extends ListenerAdapter {
         String targetName = targetMember.getEffectiveName();
         String moderatorName = event.getMember().getEffectiveName();
 
+        event.deferReply().queue();
+
         // Remove timeout
         targetMember.removeTimeout().reason(reason).queue(
             success -> {
-                event.reply("✅ Removed timeout from " + targetName + ". Reason: " + reason).queue();
-                
-                // Insert or update user data
-                handler.insertOrUpdateUser(userId, targetName, 
-                        targetMember.getUser().getDiscriminator(), 
-                        targetMember.getUser().getAvatarUrl());
-                
-                // Log moderation action
-                handler.insertModerationAction(guildId, userId, moderatorId, "UNTIMEOUT", reason, null, null);
+                event.getHook().sendMessage("✅ Removed timeout from " + targetName + ". Reason: " + reason).queue();
                 
-                // Update statistics
-                handler.incrementUntimeoutsPerformed(guildId);
-                handler.incrementUserUntimeoutsReceived(guildId, userId);
-                handler.incrementUserUntimeoutsPerformed(guildId, moderatorId);
-                
-                // Send to log channel if configured
-                sendToLogChannel(event, guildId, "UNTIMEOUT", targetName, moderatorName, reason);
+                handler.runFollowUp(event.getHook(), () -> {
+                    // Insert or update user data
+                    handler.insertOrUpdateUser(userId, targetName, 
+                            targetMember.getUser().getDiscriminator(), 
+                            targetMember.getUser().getAvatarUrl());
+                    
+                    // Log moderation action
+                    handler.insertModerationAction(guildId, userId, moderatorId, "UNTIMEOUT", reason, null, null);
+                    
+                    // Update statistics
+                    handler.incrementUntimeoutsPerformed(guildId);
+                    handler.incrementUserUntimeoutsReceived(guildId, userId);
+                    handler.incrementUserUntimeoutsPerformed(guildId, moderatorId);
+                    
+                    // Send to log channel if configured
+                    sendToLogChannel(event, guildId, "UNTIMEOUT", targetName, moderatorName, reason);
+                });
             },
             error -> {
-                event.reply("❌ Failed to remove timeout from " + targetName + ". Please try again.").setEphemeral(true).queue();
+                DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to remove timeout from " + targetName + ". Please try again.");
             }
         );
     }
@@ -385,78 +402,61 @@ public class ModerationCommandListener extends ListenerAdapter {
         int amount = event.getOption("amount").getAsInt();
         Member targetUser = event.getOption("user") != null ? event.getOption("user").getAsMember() : null;
 
-        if (amount < 1 || amount > 100) {
-            event.reply("❌ Amount must be between 1 and 100 messages.").setEphemeral(true).queue();
+        if (amount < 1 || amount > PurgeEngine.MAX_MESSAGES) {
+            event.reply("❌ Amount must be between 1 and " + PurgeEngine.MAX_MESSAGES + " messages.").setEphemeral(true).queue();
             return;
         }
 
+        PurgeEngine.Criteria criteria = new PurgeEngine.Criteria()
+                .user(targetUser != null ? targetUser.getId() : null)
+                .contains(event.getOption("contains") != null ? event.getOption("contains").getAsString() : null)
+                .botsOnly(event.getOption("bots") != null && event.getOption("bots").getAsBoolean())
+                .attachmentsOnly(event.getOption("attachments") != null && event.getOption("attachments").getAsBoolean());
+
         TextChannel channel = event.getChannel().asTextChannel();
         String moderatorName = event.getMember().getEffectiveName();
 
         event.deferReply(true).queue(); // Defer reply as this might take time
 
-        // Retrieve messages
-        channel.getHistory().retrievePast(amount + 1).queue(messages -> {
-            // Filter out system messages and messages that might be problematic
-            List<Message> messagesToDelete;
-            if (targetUser != null) {
-                // Filter messages from specific user
-                messagesToDelete = messages.stream()
-                    .filter(msg -> msg.getAuthor().getId().equals(targetUser.getId()))
-                    .limit(amount)
-                    .collect(java.util.stream.Collectors.toList());
-            } else {
-                // Take up to the amount requested
-                messagesToDelete = messages.stream()
-                    .limit(amount)
-                    .collect(java.util.stream.Collectors.toList());
+        // Edit the reply at most every few seconds, the edits share the rate limit of the deletes
+        long[] lastUpdate = {0};
+        PurgeEngine.ProgressListener progressListener = progress -> {
+            long now = System.currentTimeMillis();
+            if (now - lastUpdate[0] < 3000) return;
+            lastUpdate[0] = now;
+            String text = progress.collecting
+                    ? "🔎 Scanning history... " + progress.scanned + " messages checked, " + progress.matched + " found"
+                    : "🧹 Deleting... " + progress.deleted + "/" + progress.matched + " deleted"
+                        + (progress.oldRemaining > 0 ? " (" + progress.oldRemaining + " older than 14 days, deleted one by one)" : "");
+            event.getHook().editOriginal(text).queue(null, error -> {});
+        };
+
+        new PurgeEngine(channel, criteria, amount, progressListener).run().whenComplete((progress, error) -> {
+            if (error != null) {
+                event.getHook().editOriginal("❌ Failed to retrieve messages.").queue();
+                return;
             }
-
-            if (messagesToDelete.isEmpty()) {
-                event.getHook().sendMessage("❌ No messages found to delete.").queue();
+            if (progress.matched == 0) {
+                event.getHook().editOriginal("❌ No messages found to delete (" + progress.scanned + " messages checked).").queue();
                 return;
             }
-
-            // Delete messages
-            if (messagesToDelete.size() == 1) {
-                messagesToDelete.get(0).delete().queue(
-                    success -> {
-                        String response = targetUser != null ?
-                            "✅ Deleted " + messagesToDelete.size() + " message(s) from " + targetUser.getEffectiveName() :
-                            "✅ Deleted " + messagesToDelete.size() + " message(s)";
-                        event.getHook().sendMessage(response).queue();
-                        
-                        // Log the action
-                        String reason = targetUser != null ? 
-                            "Purged " + messagesToDelete.size() + " messages from " + targetUser.getEffectiveName() :
-                            "Purged " + messagesToDelete.size() + " messages";
-                        sendToLogChannel(event, guildId, "PURGE", channel.getName(), moderatorName, reason);
-                    },
-                    error -> {
-                        event.getHook().sendMessage("❌ Failed to delete messages.").queue();
-                    }
-                );
-            } else {
-                channel.deleteMessages(messagesToDelete).queue(
-                    success -> {
-                        String response = targetUser != null ?
-                            "✅ Deleted " + messagesToDelete.size() + " message(s) from " + targetUser.getEffectiveName() :
-                            "✅ Deleted " + messagesToDelete.size() + " message(s)";
-                        event.getHook().sendMessage(response).queue();
-                        
-                        // Log the action
-                        String reason = targetUser != null ? 
-                            "Purged " + messagesToDelete.size() + " messages from " + targetUser.getEffectiveName() :
-                            "Purged " + messagesToDelete.size() + " messages";
-                        sendToLogChannel(event, guildId, "PURGE", channel.getName(), moderatorName, reason);
-                    },
-                    error -> {
-                        event.getHook().sendMessage("❌ Failed to delete messages. Messages older than 2 weeks cannot be bulk deleted.").queue();
-                    }
-                );
+            if (progress.deleted == 0) {
+                event.getHook().editOriginal("❌ Failed to delete messages.").queue();
+                return;
             }
-        }, error -> {
-            event.getHook().sendMessage("❌ Failed to retrieve messages.").queue();
+
+            String response = "✅ Deleted " + progress.deleted + " message(s)"
+                    + (targetUser != null ? " from " + targetUser.getEffectiveName() : "")
+                    + (progress.failed > 0 ? " (" + progress.failed + " could not be deleted)" : "")
+                    + (progress.matched < amount ? " - only " + progress.matched + " matching messages in the last "
+                        + progress.scanned + " messages" : "");
+            event.getHook().editOriginal(response).queue();
+
+            // Log the action
+            String reason = targetUser != null ?
+                "Purged " + progress.deleted + " messages from " + targetUser.getEffectiveName() :
+                "Purged " + progress.deleted + " messages";
+            handler.runFollowUp(event.getHook(), () -> sendToLogChannel(event, guildId, "PURGE", channel.getName(), moderatorName, reason));
         });
     }
 
@@ -477,19 +477,21 @@ public class ModerationCommandListener extends ListenerAdapter {
         TextChannel channel = event.getChannel().asTextChannel();
         String moderatorName = event.getMember().getEffectiveName();
 
+        event.deferReply().queue();
+
         channel.getManager().setSlowmode(seconds).queue(
             success -> {
                 String response = seconds == 0 ?
                     "✅ Slowmode disabled in " + channel.getAsMention() :
                     "✅ Slowmode set to " + seconds + " seconds in " + channel.getAsMention();
-                event.reply(response).queue();
+                event.getHook().sendMessage(response).queue();
                 
                 // Log the action
                 String reason = seconds == 0 ? "Disabled slowmode" : "Set slowmode to " + seconds + " seconds";
-                sendToLogChannel(event, guildId, "SLOWMODE", channel.getName(), moderatorName, reason);
+                handler.runFollowUp(event.getHook(), () -> sendToLogChannel(event, guildId, "SLOWMODE", channel.getName(), moderatorName, reason));
             },
             error -> {
-                event.reply("❌ Failed to set slowmode. Please try again.").setEphemeral(true).queue();
+                DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to set slowmode. Please try again.");
             }
         );
     }
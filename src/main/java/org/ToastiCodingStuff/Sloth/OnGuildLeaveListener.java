@@ -15,6 +15,6 @@ public class OnGuildLeaveListener extends ListenerAdapter {
         String guildName = event.getGuild().getName();
 
         System.out.println("Bot left guild: " + guildName + " (ID: " + guildId + ")");
-        handler.deactivateGuild(guildId);
+        handler.runAsync(() -> handler.deactivateGuild(guildId));
     }
 }
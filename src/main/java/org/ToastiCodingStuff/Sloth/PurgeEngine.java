@@ -0,0 +1,193 @@
+package org.ToastiCodingStuff.Sloth;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageHistory;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Deletes the newest messages of a channel that match a filter. The history is paged lazily
+ * (100 messages per request) until enough matches are collected or the scan limit is reached.
+ * Messages younger than 14 days are removed with bulk deletes of up to 100, older ones (which
+ * Discord does not bulk delete) one after another, so a large purge never floods the rate limit.
+ *
+ * Configuration (environment):
+ * PURGE_MAX_MESSAGES - largest amount a single purge may delete (default 1000)
+ * PURGE_MAX_SCANNED  - messages looked at before giving up on finding more matches (default 5000)
+ */
+public class PurgeEngine {
+
+    private static final int PAGE_SIZE = 100;
+    // Discord rejects bulk deletes of messages older than two weeks, keep a margin for clock skew
+    private static final long BULK_DELETE_MAX_AGE_SECONDS = 14L * 24 * 60 * 60 - 60;
+
+    public static final int MAX_MESSAGES = EnvConfig.getInt("PURGE_MAX_MESSAGES", 1000);
+    public static final int MAX_SCANNED = EnvConfig.getInt("PURGE_MAX_SCANNED", 5000);
+
+    /**
+     * Which messages are deleted; unset fields do not filter
+     */
+    public static final class Criteria {
+        String userId;
+        String contains;
+        boolean botsOnly;
+        boolean attachmentsOnly;
+
+        public Criteria user(String userId) {
+            this.userId = userId;
+            return this;
+        }
+
+        public Criteria contains(String text) {
+            this.contains = text != null && !text.isEmpty() ? text.toLowerCase() : null;
+            return this;
+        }
+
+        public Criteria botsOnly(boolean botsOnly) {
+            this.botsOnly = botsOnly;
+            return this;
+        }
+
+        public Criteria attachmentsOnly(boolean attachmentsOnly) {
+            this.attachmentsOnly = attachmentsOnly;
+            return this;
+        }
+
+        boolean matches(Message message) {
+            if (userId != null && !message.getAuthor().getId().equals(userId)) return false;
+            if (botsOnly && !message.getAuthor().isBot()) return false;
+            if (attachmentsOnly && message.getAttachments().isEmpty()) return false;
+            return contains == null || message.getContentRaw().toLowerCase().contains(contains);
+        }
+    }
+
+    /**
+     * Called whenever the purge made progress
+     */
+    public interface ProgressListener {
+        void onProgress(Progress progress);
+    }
+
+    /**
+     * State of a running or finished purge
+     */
+    public static final class Progress {
+        public volatile int scanned;
+        public volatile int matched;
+        public volatile int deleted;
+        public volatile int failed;
+        public volatile boolean collecting = true;
+        // Old messages still waiting for their single delete
+        public volatile int oldRemaining;
+    }
+
+    private final TextChannel channel;
+    private final Criteria criteria;
+    private final int amount;
+    private final ProgressListener listener;
+    private final Progress progress = new Progress();
+    private final List<Message> bulkDeletable = new ArrayList<>();
+    private final List<Message> old = new ArrayList<>();
+
+    public PurgeEngine(TextChannel channel, Criteria criteria, int amount, ProgressListener listener) {
+        this.channel = channel;
+        this.criteria = criteria;
+        this.amount = Math.min(amount, MAX_MESSAGES);
+        this.listener = listener;
+    }
+
+    /**
+     * Collect and delete the messages; the future completes with the final progress
+     * (failed deletes are counted, not thrown) and fails only if the history cannot be read
+     */
+    public CompletableFuture<Progress> run() {
+        // Messages sent after the command started are not touched
+        String anchor = Long.toUnsignedString(TimeUtil.getDiscordTimestamp(System.currentTimeMillis()));
+        return collectBefore(anchor).thenCompose(v -> {
+            progress.collecting = false;
+            progress.oldRemaining = old.size();
+            notifyListener();
+            return deleteBulk(0);
+        }).thenCompose(v -> deleteOld(0)).thenApply(v -> progress);
+    }
+
+    private CompletableFuture<Void> collectBefore(String messageId) {
+        return MessageHistory.getHistoryBefore(channel, messageId).limit(PAGE_SIZE).submit()
+                .thenCompose(history -> {
+                    // A page is ordered newest first, so the newest matches are taken first
+                    List<Message> page = history.getRetrievedHistory();
+                    OffsetDateTime bulkLimit = OffsetDateTime.now().minusSeconds(BULK_DELETE_MAX_AGE_SECONDS);
+                    for (Message message : page) {
+                        progress.scanned++;
+                        if (!criteria.matches(message)) continue;
+                        progress.matched++;
+                        if (message.getTimeCreated().isAfter(bulkLimit)) {
+                            bulkDeletable.add(message);
+                        } else {
+                            old.add(message);
+                        }
+                        if (progress.matched >= amount) {
+                            return CompletableFuture.completedFuture(null);
+                        }
+                    }
+                    notifyListener();
+                    if (page.size() < PAGE_SIZE || progress.scanned >= MAX_SCANNED) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return collectBefore(page.get(page.size() - 1).getId());
+                });
+    }
+
+    private CompletableFuture<Void> deleteBulk(int from) {
+        if (from >= bulkDeletable.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<Message> chunk = bulkDeletable.subList(from, Math.min(from + PAGE_SIZE, bulkDeletable.size()));
+        // A bulk delete needs at least two messages
+        CompletableFuture<Void> request = chunk.size() == 1
+                ? chunk.get(0).delete().submit()
+                : channel.deleteMessages(new ArrayList<>(chunk)).submit();
+        return request.handle((v, error) -> {
+            if (error != null) {
+                System.err.println("Bulk delete in #" + channel.getName() + " failed: " + error.getMessage());
+                progress.failed += chunk.size();
+            } else {
+                progress.deleted += chunk.size();
+            }
+            notifyListener();
+            return null;
+        }).thenCompose(v -> deleteBulk(from + chunk.size()));
+    }
+
+    private CompletableFuture<Void> deleteOld(int index) {
+        if (index >= old.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // One at a time, the next delete is only sent when the previous one is done
+        return old.get(index).delete().submit().handle((v, error) -> {
+            if (error != null) {
+                progress.failed++;
+            } else {
+                progress.deleted++;
+            }
+            progress.oldRemaining = old.size() - index - 1;
+            notifyListener();
+            return null;
+        }).thenCompose(v -> deleteOld(index + 1));
+    }
+
+    private void notifyListener() {
+        if (listener != null) {
+            try {
+                listener.onProgress(progress);
+            } catch (Exception e) {
+                System.err.println("Error reporting purge progress: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -50,24 +50,28 @@ public class RoleEventConfigListener extends ListenerAdapter {
         switch (subcommand) {
             case "create":
                 String name = event.getOption("name").getAsString();
-                // Standard: MEMBER_JOIN
-                handler.createRoleEvent(guildId, name, "MEMBER_JOIN", "0", "ADD", 0, "REFRESH", null);
-
-                List<DatabaseHandler.RoleEventData> events = handler.getRoleEventsByType(guildId, RoleEventType.MEMBER_JOIN);
-                if (!events.isEmpty()) {
-                    DatabaseHandler.RoleEventData newEvent = events.get(events.size() - 1);
-                    sendEventDashboard(event, newEvent);
-                } else {
-                    event.reply("Fehler beim Erstellen des Events.").setEphemeral(true).queue();
-                }
+                handler.runDeferred(event, true, () -> createEvent(event, guildId, name));
                 break;
 
             case "list":
-                showEventList(event, guildId);
+                handler.runDeferred(event, true, () -> showEventList(event, guildId));
                 break;
         }
     }
 
+    private void createEvent(SlashCommandInteractionEvent event, String guildId, String name) {
+        // Standard: MEMBER_JOIN
+        handler.createRoleEvent(guildId, name, "MEMBER_JOIN", "0", "ADD", 0, "REFRESH", null);
+
+        List<DatabaseHandler.RoleEventData> events = handler.getRoleEventsByType(guildId, RoleEventType.MEMBER_JOIN);
+        if (!events.isEmpty()) {
+            DatabaseHandler.RoleEventData newEvent = events.get(events.size() - 1);
+            sendEventDashboard(event, newEvent);
+        } else {
+            event.getHook().sendMessage("Fehler beim Erstellen des Events.").queue();
+        }
+    }
+
     // ==========================================
     // INTERACTION HANDLERS (Update Logic)
     // ==========================================
@@ -82,6 +86,12 @@ public class RoleEventConfigListener extends ListenerAdapter {
         if (roles.isEmpty()) return;
         Role selectedRole = roles.get(0);
 
+        if (id.startsWith("event_role_select_") || id.startsWith("event_trigger_role_select_")) {
+            handler.runDeferredEdit(event, () -> updateSelectedRole(event, id, guildId, selectedRole));
+        }
+    }
+
+    private void updateSelectedRole(EntitySelectInteractionEvent event, String id, String guildId, Role selectedRole) {
         if (id.startsWith("event_role_select_")) {
             // ZIEL-ROLLE ÄNDERN
             int eventId = Integer.parseInt(id.replace("event_role_select_", ""));
@@ -118,28 +128,38 @@ public class RoleEventConfigListener extends ListenerAdapter {
 
         if (id.equals("event_select_edit")) {
             int eventId = Integer.parseInt(event.getValues().get(0));
-            DatabaseHandler.RoleEventData data = handler.getRoleEvent(eventId);
-            if (data != null) sendEventDashboard(event, data);
+            handler.runDeferredEdit(event, () -> {
+                DatabaseHandler.RoleEventData data = handler.getRoleEvent(eventId);
+                if (data != null) sendEventDashboard(event, data);
+            });
         }
         else if (id.startsWith("event_edit_select_")) {
             int eventId = Integer.parseInt(id.replace("event_edit_select_", ""));
             String action = event.getValues().get(0);
-            handleDashboardAction(event, eventId, action);
+            // Kann mit einem Modal antworten, das nach deferEdit nicht mehr geht; daher ohne Defer auf dem Executor
+            handler.runAsync(() -> handleDashboardAction(event, eventId, action))
+                    .exceptionally(error -> {
+                        System.err.println("Fehler bei der Dashboard-Aktion " + action + " für Event " + eventId + ": " + error.getMessage());
+                        event.reply("❌ Etwas ist schiefgelaufen, bitte versuche es erneut.").setEphemeral(true).queue(null, e -> { });
+                        return null;
+                    });
         }
         else if (id.startsWith("event_trigger_type_select_")) {
             // TRIGGER TYP GEÄNDERT
             int eventId = Integer.parseInt(id.replace("event_trigger_type_select_", ""));
             String newType = event.getValues().get(0);
-            DatabaseHandler.RoleEventData data = handler.getRoleEvent(eventId);
+            handler.runDeferredEdit(event, () -> {
+                DatabaseHandler.RoleEventData data = handler.getRoleEvent(eventId);
 
-            if (data != null) {
-                // Reset trigger_data bei Typwechsel (Sicherheit)
-                handler.updateRoleEvent(eventId, guildId, data.name, newType, data.roleId,
-                        data.actionType, data.durationSeconds, "REFRESH", null, data.active);
+                if (data != null) {
+                    // Reset trigger_data bei Typwechsel (Sicherheit)
+                    handler.updateRoleEvent(eventId, guildId, data.name, newType, data.roleId,
+                            data.actionType, data.durationSeconds, "REFRESH", null, data.active);
 
-                // Dashboard neu laden (zeigt jetzt ggf. neue Felder an)
-                sendEventDashboard(event, handler.getRoleEvent(eventId));
-            }
+                    // Dashboard neu laden (zeigt jetzt ggf. neue Felder an)
+                    sendEventDashboard(event, handler.getRoleEvent(eventId));
+                }
+            });
         }
     }
 
@@ -151,17 +171,21 @@ public class RoleEventConfigListener extends ListenerAdapter {
 
         if (id.startsWith("event_toggle_")) {
             int eventId = Integer.parseInt(id.replace("event_toggle_", ""));
-            DatabaseHandler.RoleEventData data = handler.getRoleEvent(eventId);
-            if (data != null) {
-                handler.toggleRoleEventActive(guildId, eventId, !data.active);
-                sendEventDashboard(event, handler.getRoleEvent(eventId));
-            }
+            handler.runDeferredEdit(event, () -> {
+                DatabaseHandler.RoleEventData data = handler.getRoleEvent(eventId);
+                if (data != null) {
+                    handler.toggleRoleEventActive(guildId, eventId, !data.active);
+                    sendEventDashboard(event, handler.getRoleEvent(eventId));
+                }
+            });
         }
         else if (id.startsWith("event_delete_")) {
             int eventId = Integer.parseInt(id.replace("event_delete_", ""));
-            handler.deleteRoleEvent(guildId, eventId);
-            event.reply("🗑️ Event gelöscht.").setEphemeral(true).queue();
-            event.getMessage().delete().queue();
+            handler.runDeferred(event, true, () -> {
+                handler.deleteRoleEvent(guildId, eventId);
+                event.getHook().sendMessage("🗑️ Event gelöscht.").queue();
+                event.getMessage().delete().queue();
+            });
         }
     }
 
@@ -171,51 +195,53 @@ public class RoleEventConfigListener extends ListenerAdapter {
         String modalId = event.getModalId();
 
         if (modalId.startsWith("modal_event_")) {
-            String[] parts = modalId.split("_");
-            String action = parts[2];
-            int eventId = Integer.parseInt(parts[3]);
-            String guildId = event.getGuild().getId();
+            handler.runDeferredEdit(event, () -> handleEventModal(event, modalId));
+        }
+    }
 
-            DatabaseHandler.RoleEventData data = handler.getRoleEvent(eventId);
-            if (data == null) return;
+    private void handleEventModal(ModalInteractionEvent event, String modalId) {
+        String[] parts = modalId.split("_");
+        String action = parts[2];
+        int eventId = Integer.parseInt(parts[3]);
+        String guildId = event.getGuild().getId();
 
-            String input = event.getValue("input_field").getAsString();
-            boolean success = true;
-
-            switch (action) {
-                case "duration":
-                    long seconds = parseDuration(input);
-                    if (seconds >= 0) {
-                        handler.updateRoleEvent(eventId, guildId, data.name, data.eventType, data.roleId, data.actionType, seconds, "REFRESH", data.triggerData, data.active);
-                    } else {
-                        success = false;
-                    }
-                    break;
-                case "name":
-                    handler.updateRoleEvent(eventId, guildId, input, data.eventType, data.roleId, data.actionType, data.durationSeconds, "REFRESH", data.triggerData, data.active);
-                    break;
-                case "data": // Manuelles JSON oder Zahl
-                    if (data.eventType.equals("WARN_THRESHOLD")) {
-                        try {
-                            int count = Integer.parseInt(input);
-                            String json = "{\"threshold\": " + count + "}";
-                            handler.updateRoleEvent(eventId, guildId, data.name, data.eventType, data.roleId, data.actionType, data.durationSeconds, "REFRESH", json, data.active);
-                        } catch (NumberFormatException e) { success = false; }
-                    } else {
-                        handler.updateRoleEvent(eventId, guildId, data.name, data.eventType, data.roleId, data.actionType, data.durationSeconds, "REFRESH", input, data.active);
-                    }
-                    break;
-            }
-
-            if (success) {
-                // WICHTIG: Das Embed aktualisieren!
-                // Bei Modals nutzen wir editMessageEmbeds auf der Source-Interaction, wenn möglich
-                // Da Modals "neue" Interaktionen sind, müssen wir die Originalnachricht bearbeiten.
-                // Trick: editMessageEmbeds auf dem Modal-Event bearbeitet die Nachricht, die das Modal ausgelöst hat (meistens).
-                sendEventDashboard(event, handler.getRoleEvent(eventId));
-            } else {
-                event.reply("❌ Ungültige Eingabe.").setEphemeral(true).queue();
-            }
+        DatabaseHandler.RoleEventData data = handler.getRoleEvent(eventId);
+        if (data == null) return;
+
+        String input = event.getValue("input_field").getAsString();
+        boolean success = true;
+
+        switch (action) {
+            case "duration":
+                long seconds = parseDuration(input);
+                if (seconds >= 0) {
+                    handler.updateRoleEvent(eventId, guildId, data.name, data.eventType, data.roleId, data.actionType, seconds, "REFRESH", data.triggerData, data.active);
+                } else {
+                    success = false;
+                }
+                break;
+            case "name":
+                handler.updateRoleEvent(eventId, guildId, input, data.eventType, data.roleId, data.actionType, data.durationSeconds, "REFRESH", data.triggerData, data.active);
+                break;
+            case "data": // Manuelles JSON oder Zahl
+                if (data.eventType.equals("WARN_THRESHOLD")) {
+                    try {
+                        int count = Integer.parseInt(input);
+                        String json = "{\"threshold\": " + count + "}";
+                        handler.updateRoleEvent(eventId, guildId, data.name, data.eventType, data.roleId, data.actionType, data.durationSeconds, "REFRESH", json, data.active);
+                    } catch (NumberFormatException e) { success = false; }
+                } else {
+                    handler.updateRoleEvent(eventId, guildId, data.name, data.eventType, data.roleId, data.actionType, data.durationSeconds, "REFRESH", input, data.active);
+                }
+                break;
+        }
+
+        if (success) {
+            // WICHTIG: Das Embed aktualisieren!
+            // Das Modal ist per deferEdit bestätigt, der Hook bearbeitet die Nachricht, aus der es geöffnet wurde.
+            sendEventDashboard(event, handler.getRoleEvent(eventId));
+        } else {
+            event.getHook().sendMessage("❌ Ungültige Eingabe.").setEphemeral(true).queue();
         }
     }
 
@@ -346,7 +372,12 @@ public class RoleEventConfigListener extends ListenerAdapter {
         rows.add(ActionRow.of(toggleBtn, deleteBtn));
 
         // Senden oder Editieren
-        if (event instanceof IMessageEditCallback) {
+        if (event.isAcknowledged()) {
+            // Schon per deferReply/deferEdit bestätigt: die Antwort bzw. die Nachricht der Komponente bearbeiten
+            event.getHook().editOriginalEmbeds(embed.build())
+                    .setComponents(rows)
+                    .queue();
+        } else if (event instanceof IMessageEditCallback) {
             // Wenn wir schon eine Nachricht haben (Button/Select Klick oder Modal Submit)
             ((IMessageEditCallback) event).editMessageEmbeds(embed.build())
                     .setComponents(rows)
@@ -399,7 +430,7 @@ public class RoleEventConfigListener extends ListenerAdapter {
         }
 
         if (allEvents.isEmpty()) {
-            event.reply("Keine Events gefunden.").setEphemeral(true).queue();
+            event.getHook().sendMessage("Keine Events gefunden.").queue();
             return;
         }
 
@@ -411,9 +442,8 @@ public class RoleEventConfigListener extends ListenerAdapter {
             menu.addOption(evt.name, String.valueOf(evt.id), evt.eventType + " -> " + evt.actionType);
         }
 
-        event.reply("Wähle ein Event:")
+        event.getHook().sendMessage("Wähle ein Event:")
                 .addActionRow(menu.build())
-                .setEphemeral(true)
                 .queue();
     }
 
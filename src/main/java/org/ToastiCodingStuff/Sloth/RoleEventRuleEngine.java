@@ -0,0 +1,234 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiled, in-memory index of the active role_events of each guild.
+ * Rules are indexed by (guild, {@link RoleEventType}, trigger entity id) so a gateway event
+ * only looks at the rules that can match it. trigger_data is parsed once when a guild is
+ * compiled instead of being string-searched on every event.
+ * A guild is compiled lazily on first use and recompiled after its events are created,
+ * updated, deleted or toggled (see {@link #invalidate(String)}).
+ */
+public class RoleEventRuleEngine {
+
+    /**
+     * Loads the active role events of a guild from the database, null if they could not be read
+     */
+    public interface Loader {
+        List<DatabaseHandler.RoleEventData> load(String guildId);
+    }
+
+    /**
+     * A role event together with its parsed trigger_data
+     */
+    public static final class CompiledRule {
+        public final DatabaseHandler.RoleEventData event;
+        public final RoleEventType type;
+        /** Entity (e.g. role) the rule is bound to, null if it fires for every entity */
+        public final String triggerEntityId;
+        /** All key/value pairs of trigger_data, e.g. "threshold" -> "3" */
+        public final Map<String, String> conditions;
+
+        CompiledRule(DatabaseHandler.RoleEventData event, RoleEventType type, Map<String, String> conditions) {
+            this.event = event;
+            this.type = type;
+            this.conditions = conditions;
+            this.triggerEntityId = conditions.get("trigger_role_id");
+        }
+
+        /**
+         * Integer condition such as "threshold", or the default if it is missing or invalid
+         */
+        public int getIntCondition(String key, int defaultValue) {
+            String value = conditions.get(key);
+            if (value == null) return defaultValue;
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Compiled rules of one event type in one guild
+     */
+    private static final class TypeIndex {
+        final Map<String, List<CompiledRule>> byTriggerEntity = new HashMap<>();
+        final List<CompiledRule> unbound = new ArrayList<>();
+        final List<CompiledRule> all = new ArrayList<>();
+    }
+
+    private static final Map<RoleEventType, TypeIndex> EMPTY = Collections.emptyMap();
+
+    private final Loader loader;
+    private final ConcurrentHashMap<String, Map<RoleEventType, TypeIndex>> guilds = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so rules compiled from data read before a change are not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public RoleEventRuleEngine(Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Rules of the given type that fire for the given trigger entity (unbound rules included)
+     */
+    public List<CompiledRule> match(String guildId, RoleEventType type, String triggerEntityId) {
+        TypeIndex index = getGuild(guildId).get(type);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        List<CompiledRule> bound = triggerEntityId != null ? index.byTriggerEntity.get(triggerEntityId) : null;
+        if (bound == null) {
+            return index.unbound;
+        }
+        if (index.unbound.isEmpty()) {
+            return bound;
+        }
+        List<CompiledRule> result = new ArrayList<>(index.unbound.size() + bound.size());
+        result.addAll(index.unbound);
+        result.addAll(bound);
+        return result;
+    }
+
+    /**
+     * All active rules of the given type, regardless of their trigger entity
+     */
+    public List<CompiledRule> getRules(String guildId, RoleEventType type) {
+        TypeIndex index = getGuild(guildId).get(type);
+        return index != null ? index.all : Collections.emptyList();
+    }
+
+    /**
+     * Whether the guild has any active rule of the given type
+     */
+    public boolean hasRules(String guildId, RoleEventType type) {
+        return getGuild(guildId).containsKey(type);
+    }
+
+    /**
+     * Drop the compiled rules of a guild; they are rebuilt on the next lookup
+     */
+    public void invalidate(String guildId) {
+        generation.incrementAndGet();
+        guilds.remove(guildId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        guilds.clear();
+    }
+
+    private Map<RoleEventType, TypeIndex> getGuild(String guildId) {
+        Map<RoleEventType, TypeIndex> compiled = guilds.get(guildId);
+        if (compiled == null) {
+            long generationBefore = generation.get();
+            List<DatabaseHandler.RoleEventData> events = loader.load(guildId);
+            if (events == null) {
+                // Database error: no rules fire for this event, but the next one loads again
+                return EMPTY;
+            }
+            compiled = compile(events);
+            if (generation.get() == generationBefore) {
+                Map<RoleEventType, TypeIndex> existing = guilds.putIfAbsent(guildId, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    private Map<RoleEventType, TypeIndex> compile(List<DatabaseHandler.RoleEventData> events) {
+        Map<RoleEventType, TypeIndex> compiled = new EnumMap<>(RoleEventType.class);
+        for (DatabaseHandler.RoleEventData event : events) {
+            if (!event.active) continue;
+            RoleEventType type = RoleEventType.fromString(event.eventType);
+            if (type == null) continue;
+
+            Map<String, String> conditions = parseTriggerData(event.triggerData);
+            if (conditions == null) {
+                System.err.println("RoleEvent " + event.id + ": ungültige trigger_data, Event wird ignoriert: " + event.triggerData);
+                continue;
+            }
+            CompiledRule rule = new CompiledRule(event, type, conditions);
+            TypeIndex index = compiled.computeIfAbsent(type, t -> new TypeIndex());
+            index.all.add(rule);
+            if (rule.triggerEntityId != null) {
+                index.byTriggerEntity.computeIfAbsent(rule.triggerEntityId, k -> new ArrayList<>()).add(rule);
+            } else {
+                index.unbound.add(rule);
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Parse trigger_data. It is written as a flat JSON object with string or number values,
+     * e.g. {"trigger_role_id": "123"} or {"threshold": 3}. A bare ID entered through the
+     * dashboard is treated as trigger_role_id. Returns null if the value cannot be parsed.
+     */
+    static Map<String, String> parseTriggerData(String json) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (json == null) return result;
+        String text = json.trim();
+        if (text.isEmpty() || text.equals("{}")) return result;
+        if (text.matches("\\d+")) {
+            result.put("trigger_role_id", text);
+            return result;
+        }
+        if (!text.startsWith("{") || !text.endsWith("}")) return null;
+
+        int pos = 1;
+        int end = text.length() - 1;
+        while (pos < end) {
+            pos = skipWhitespace(text, pos, end);
+            if (pos >= end) break;
+            if (text.charAt(pos) != '"') return null;
+            int keyEnd = text.indexOf('"', pos + 1);
+            if (keyEnd < 0 || keyEnd >= end) return null;
+            String key = text.substring(pos + 1, keyEnd);
+
+            pos = skipWhitespace(text, keyEnd + 1, end);
+            if (pos >= end || text.charAt(pos) != ':') return null;
+            pos = skipWhitespace(text, pos + 1, end);
+            if (pos >= end) return null;
+
+            String value;
+            if (text.charAt(pos) == '"') {
+                int valueEnd = text.indexOf('"', pos + 1);
+                if (valueEnd < 0 || valueEnd >= end) return null;
+                value = text.substring(pos + 1, valueEnd);
+                pos = valueEnd + 1;
+            } else {
+                int valueEnd = pos;
+                while (valueEnd < end && text.charAt(valueEnd) != ',') valueEnd++;
+                value = text.substring(pos, valueEnd).trim();
+                if (value.isEmpty()) return null;
+                pos = valueEnd;
+            }
+            result.put(key, value);
+
+            pos = skipWhitespace(text, pos, end);
+            if (pos < end) {
+                if (text.charAt(pos) != ',') return null;
+                pos++;
+            }
+        }
+        return result;
+    }
+
+    private static int skipWhitespace(String text, int pos, int end) {
+        while (pos < end && Character.isWhitespace(text.charAt(pos))) pos++;
+        return pos;
+    }
+}
@@ -0,0 +1,139 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of the role selection of each guild, built from role_select and
+ * role_select_embeds. Lets the reaction and button listeners resolve emoji -> role and
+ * select id -> role without a query, and reject reactions on unrelated messages in O(1).
+ * A guild is loaded lazily on first use and reloaded after its role selection or its
+ * role selection messages change (see {@link #invalidate(String)}).
+ */
+public class RoleSelectIndex {
+
+    /**
+     * Loads the role selection of a guild from the database, null if it could not be read
+     */
+    public interface Loader {
+        GuildIndex load(String guildId);
+    }
+
+    /**
+     * One row of role_select
+     */
+    public static final class Entry {
+        public final int selectId;
+        public final String roleId;
+        public final String description;
+        public final String emoji;
+
+        public Entry(int selectId, String roleId, String description, String emoji) {
+            this.selectId = selectId;
+            this.roleId = roleId;
+            this.description = description;
+            this.emoji = emoji;
+        }
+    }
+
+    /**
+     * Immutable role selection of one guild
+     */
+    public static final class GuildIndex {
+        private final List<Entry> entries;
+        private final Map<String, String> roleByEmoji = new HashMap<>();
+        private final Map<String, String> roleBySelectId = new HashMap<>();
+        private final Set<String> messageIds;
+
+        public GuildIndex(List<Entry> entries, Set<String> messageIds) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.messageIds = Collections.unmodifiableSet(new HashSet<>(messageIds));
+            for (Entry entry : entries) {
+                if (entry.emoji != null) {
+                    // The oldest row wins for duplicate emojis, as with the previous per-reaction query
+                    roleByEmoji.putIfAbsent(entry.emoji, entry.roleId);
+                }
+                roleBySelectId.put(String.valueOf(entry.selectId), entry.roleId);
+            }
+        }
+
+        /**
+         * Roles of the selection in insertion order
+         */
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        public String getRoleIdByEmoji(String emoji) {
+            return roleByEmoji.get(emoji);
+        }
+
+        public String getRoleIdBySelectId(String selectId) {
+            return roleBySelectId.get(selectId);
+        }
+
+        /**
+         * Whether the message is a recorded role selection message. Messages sent before
+         * their ids were recorded are checked and recorded by the SelectRolesReactionListener.
+         */
+        public boolean hasMessage(String messageId) {
+            return messageIds.contains(messageId);
+        }
+    }
+
+    private static final GuildIndex EMPTY = new GuildIndex(Collections.<Entry>emptyList(), Collections.<String>emptySet());
+
+    private final Loader loader;
+    private final ConcurrentHashMap<String, GuildIndex> guilds = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so an index loaded from data read before a change is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public RoleSelectIndex(Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Role selection of a guild, loading it if it is not cached yet
+     */
+    public GuildIndex get(String guildId) {
+        GuildIndex index = guilds.get(guildId);
+        if (index == null) {
+            long generationBefore = generation.get();
+            index = loader.load(guildId);
+            if (index == null) {
+                // Database error: answer with an empty selection but try again next time
+                return EMPTY;
+            }
+            if (generation.get() == generationBefore) {
+                GuildIndex existing = guilds.putIfAbsent(guildId, index);
+                if (existing != null) {
+                    index = existing;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Drop the index of a guild; it is reloaded on the next lookup
+     */
+    public void invalidate(String guildId) {
+        generation.incrementAndGet();
+        guilds.remove(guildId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        guilds.clear();
+    }
+}
@@ -3,7 +3,6 @@ package org.ToastiCodingStuff.Sloth;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
-import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.Role;
 
 import net.dv8tion.jda.api.entities.channel.Channel;
@@ -11,7 +10,6 @@ import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
 import net.dv8tion.jda.api.entities.emoji.Emoji;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
-import net.dv8tion.jda.api.events.message.react.MessageReactionRemoveEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.requests.restaction.MessageCreateAction;
 
@@ -43,12 +41,12 @@ public class SelectRolesCommandListener extends ListenerAdapter {
             case "remove":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("select-roles-remove");
-                handleRemoveSelectRole(event, Objects.requireNonNull(event.getOption("role")).getAsRole());
+                handler.runDeferred(event, true, () -> handleRemoveSelectRole(event, Objects.requireNonNull(event.getOption("role")).getAsRole()));
                 break;
             case "add":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("select-roles-add");
-                handleAddSelectRole(event);
+                handler.runDeferred(event, true, () -> handleAddSelectRole(event));
                 break;
             case "send":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
@@ -58,80 +56,43 @@ public class SelectRolesCommandListener extends ListenerAdapter {
         }
     }
 
-    @Override
-    public void onMessageReactionAdd (net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent event) {
-        if (event.getUser() == null) {return;}
-        if (handler.getAllRoleSelectForGuild(event.getGuild().getId()).isEmpty()) {return;}
-        if (event.getUser().isBot()) {
-            return;
-        }
-        String guildId = Objects.requireNonNull(event.getGuild()).getId();
-        String emoji = event.getReaction().getEmoji().getFormatted();
-        String roleId = handler.getRoleSelectRoleIDByEmoji(guildId, emoji);
-        if (roleId != null) {
-            Role role = event.getGuild().getRoleById(roleId);
-            if (event.getMember().getRoles().contains(role)) {
-                return;
-            }
-            if (role != null) {
-                Objects.requireNonNull(event.getMember()).getGuild().addRoleToMember(event.getMember(), role).queue();
-            }
-        }
-    }
-
-    @Override
-    public void onMessageReactionRemove (MessageReactionRemoveEvent event) {
-        if (event.getUser() == null) {return;}
-        if (handler.getAllRoleSelectForGuild(event.getGuild().getId()).isEmpty()) {return;}
-        if (event.getUser().isBot()) {
-            return;
-        }
-        String guildId = Objects.requireNonNull(event.getGuild()).getId();
-        String emoji = event.getReaction().getEmoji().getFormatted();
-        String roleId = handler.getRoleSelectRoleIDByEmoji(guildId, emoji);
-        if (roleId != null) {
-            Role role = event.getGuild().getRoleById(roleId);
-            if (!event.getMember().getRoles().contains(role)) {
-                return;
-            }
-            if (role != null) {
-                event.getMember().getGuild().removeRoleFromMember(event.getMember(), role).queue();
-            }
-        }
-    }
-
     @Override
     public void onButtonInteraction (net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent event) {
         if (event.getButton().getId().equals("send_select_roles_reaction")) {
-            handleSendSelectRolesReaction(event.getGuild(), event.getChannel());
-            event.reply("Sent reaction role selection message!").setEphemeral(true).queue();
+            handler.runDeferred(event, true, () -> {
+                handleSendSelectRolesReaction(event.getGuild(), event.getChannel());
+                event.getHook().sendMessage("Sent reaction role selection message!").queue();
+            });
         } else  if (event.getButton().getId().equals("send_select_roles_dropdown")) {
-            handleSendSelectRolesDropdown(event.getGuild(), event.getChannel());
-            event.reply("Sent dropdown role selection message!").setEphemeral(true).queue();
+            handler.runDeferred(event, true, () -> {
+                handleSendSelectRolesDropdown(event.getGuild(), event.getChannel());
+                event.getHook().sendMessage("Sent dropdown role selection message!").queue();
+            });
         } else  if (event.getButton().getId().equals("send_select_roles_buttons")) {
-            handleSendSelectRolesButtons(event.getGuild(), event.getChannel());
-            event.reply("Sent button role selection message!").setEphemeral(true).queue();
+            handler.runDeferred(event, true, () -> {
+                handleSendSelectRolesButtons(event.getGuild(), event.getChannel());
+                event.getHook().sendMessage("Sent button role selection message!").queue();
+            });
         } else {
             if (event.getButton().getId().startsWith("role_select_button_")) {
                 String selectId = event.getButton().getId().replace("role_select_button_", "");
                 String guildId = Objects.requireNonNull(event.getGuild()).getId();
-                List<String> roleId = handler.getAllRoleSelectForGuild(event.getGuild().getId());
-                for (String roleInfo : roleId) {
-                    String currentSelectId = String.valueOf(handler.getRoleSelectID(guildId, roleInfo));
-                    if (currentSelectId.equals(selectId)) {
-                        Role role = event.getGuild().getRoleById(roleInfo);
-                        if (role != null) {
-                            if (Objects.requireNonNull(event.getMember()).getRoles().contains(role)) {
-                                event.getGuild().removeRoleFromMember(event.getMember(), role).queue();
-                                event.reply("Removed role " + role.getAsMention() + ".").setEphemeral(true).queue();
-                            } else {
-                                event.getGuild().addRoleToMember(event.getMember(), role).queue();
-                                event.reply("Added role " + role.getAsMention() + ".").setEphemeral(true).queue();
-                            }
-                            return;
-                        }
+                // The index loads the guild from the database on a miss
+                handler.runDeferred(event, true, () -> {
+                    String roleId = handler.getRoleSelectIndex().get(guildId).getRoleIdBySelectId(selectId);
+                    Role role = roleId != null ? event.getGuild().getRoleById(roleId) : null;
+                    if (role == null) {
+                        event.getHook().sendMessage("❌ This role is no longer available.").queue();
+                        return;
                     }
-                }
+                    if (Objects.requireNonNull(event.getMember()).getRoles().contains(role)) {
+                        event.getGuild().removeRoleFromMember(event.getMember(), role).queue();
+                        event.getHook().sendMessage("Removed role " + role.getAsMention() + ".").queue();
+                    } else {
+                        event.getGuild().addRoleToMember(event.getMember(), role).queue();
+                        event.getHook().sendMessage("Added role " + role.getAsMention() + ".").queue();
+                    }
+                });
             }
         }
     }
@@ -159,7 +120,7 @@ public class SelectRolesCommandListener extends ListenerAdapter {
 
     private void handleRemoveSelectRole(SlashCommandInteractionEvent event, Role role) {
         handler.removeRoleSelectFromGuild(Objects.requireNonNull(event.getGuild()).getId(), role.getId());
-        event.reply("Removed role " + role.getAsMention() + " from the select role list.").setEphemeral(true).queue();
+        event.getHook().sendMessage("Removed role " + role.getAsMention() + " from the select role list.").queue();
     }
 
     private void handleAddSelectRole(SlashCommandInteractionEvent event) {
@@ -173,7 +134,7 @@ public class SelectRolesCommandListener extends ListenerAdapter {
             emoji = Objects.requireNonNull(event.getOption("emoji").getAsString());
         }
         handler.addRoleSelectToGuild(Objects.requireNonNull(event.getGuild()).getId(), role.getId(), description, emoji);
-        event.reply("Added role " + role.getAsMention() + "with emoji " + emoji + " and description: " + description + " to the select role) list.").setEphemeral(true).queue();
+        event.getHook().sendMessage("Added role " + role.getAsMention() + "with emoji " + emoji + " and description: " + description + " to the select role) list.").queue();
     }
 
     private void handleSendSelectRole(SlashCommandInteractionEvent event) {
@@ -213,7 +174,7 @@ public class SelectRolesCommandListener extends ListenerAdapter {
             }
         }
         MessageChannel mChannel = guild.getTextChannelById(channel.getId());
-        List<String> roleList = handler.getAllRoleSelectForGuild(Objects.requireNonNull(guild.getId()));
+        List<RoleSelectIndex.Entry> roleList = handler.getRoleSelectIndex().get(guild.getId()).getEntries();
         List<String> emojiList = new ArrayList<>();
         EmbedBuilder embedBuilder = new EmbedBuilder();
         embedBuilder.setTitle(title);
@@ -227,22 +188,28 @@ public class SelectRolesCommandListener extends ListenerAdapter {
         embedBuilder.setDescription(description);
         embedBuilder.setFooter(footer);
         embedBuilder.setTimestamp(java.time.Instant.now());
-        for (String roleInfo : roleList) {
-            Role role = guild.getRoleById(roleInfo);
+        for (RoleSelectIndex.Entry roleInfo : roleList) {
+            Role role = guild.getRoleById(roleInfo.roleId);
             if (role != null) {
-                String roleDescription = handler.getRoleSelectDescription(Objects.requireNonNull(guild.getId()), role.getId());
-                String roleEmoji = handler.getRoleSelectEmoji(Objects.requireNonNull(guild.getId()), role.getId());
+                String roleDescription = roleInfo.description;
+                String roleEmoji = roleInfo.emoji;
                 emojiList.add(roleEmoji);
                 embedBuilder.addField(roleEmoji + " " + role.getName(), roleDescription, false);
             }
         }
         assert mChannel != null;
-        Message message = mChannel.sendMessageEmbeds(embedBuilder.build()).complete();
-        for (String emoji : emojiList) {
-            Emoji emj = Emoji.fromFormatted(emoji);
-            System.out.println(emj + "; " + emj.getName());
-            message.addReaction(Emoji.fromFormatted(emoji)).queue();
-        }
+        String embedTitle = title;
+        String embedDescription = descriptionText;
+        String embedFooter = footer;
+        String embedColor = color;
+        mChannel.sendMessageEmbeds(embedBuilder.build()).queue(message -> {
+            // Record the message so reactions on other messages can be ignored ("BUTTON" is stored as REACTION)
+            handler.runAsync(() -> handler.addEmbedToDatabase(guild.getId(), mChannel.getId(), message.getId(),
+                    "BUTTON", embedTitle, embedDescription, embedFooter, embedColor));
+            for (String emoji : emojiList) {
+                message.addReaction(Emoji.fromFormatted(emoji)).queue();
+            }
+        });
     }
 
     private void handleSendSelectRolesDropdown (Guild guild, Channel channel) {
@@ -250,7 +217,7 @@ public class SelectRolesCommandListener extends ListenerAdapter {
             return;
         }
         MessageChannel mChannel = guild.getTextChannelById(channel.getId());
-        List<String> roleList = handler.getAllRoleSelectForGuild(Objects.requireNonNull(guild.getId()));
+        List<RoleSelectIndex.Entry> roleList = handler.getRoleSelectIndex().get(guild.getId()).getEntries();
 
         EmbedBuilder embedBuilder = new EmbedBuilder();
         embedBuilder.setTitle("Select Your Roles");
@@ -262,11 +229,11 @@ public class SelectRolesCommandListener extends ListenerAdapter {
                 .setMinValues(0)
                 .setMaxValues(Math.min(roleList.size(), 25));
 
-        for (String roleInfo : roleList) {
-            Role role = guild.getRoleById(roleInfo);
+        for (RoleSelectIndex.Entry roleInfo : roleList) {
+            Role role = guild.getRoleById(roleInfo.roleId);
             if (role != null) {
-                String roleDescription = handler.getRoleSelectDescription(Objects.requireNonNull(guild.getId()), role.getId());
-                String roleEmoji = handler.getRoleSelectEmoji(Objects.requireNonNull(guild.getId()), role.getId());
+                String roleDescription = roleInfo.description;
+                String roleEmoji = roleInfo.emoji;
                 menuBuilder.addOption(role.getName(), role.getId(), roleDescription, Emoji.fromFormatted(roleEmoji));
             }
         }
@@ -282,7 +249,7 @@ public class SelectRolesCommandListener extends ListenerAdapter {
             return;
         }
         MessageChannel mChannel = guild.getTextChannelById(channel.getId());
-        List<String> roleList = handler.getAllRoleSelectForGuild(Objects.requireNonNull(guild.getId()));
+        List<RoleSelectIndex.Entry> roleList = handler.getRoleSelectIndex().get(guild.getId()).getEntries();
 
         EmbedBuilder embedBuilder = new EmbedBuilder();
         embedBuilder.setTitle("Select Your Roles");
@@ -290,13 +257,13 @@ public class SelectRolesCommandListener extends ListenerAdapter {
 
         List<net.dv8tion.jda.api.interactions.components.buttons.Button> buttons = new ArrayList<>();
 
-        for (String roleInfo : roleList) {
-            Role role = guild.getRoleById(roleInfo);
+        for (RoleSelectIndex.Entry roleInfo : roleList) {
+            Role role = guild.getRoleById(roleInfo.roleId);
             if (role != null) {
-                String roleDescription = handler.getRoleSelectDescription(Objects.requireNonNull(guild.getId()), role.getId());
-                String roleEmoji = handler.getRoleSelectEmoji(Objects.requireNonNull(guild.getId()), role.getId());
+                String roleDescription = roleInfo.description;
+                String roleEmoji = roleInfo.emoji;
                 buttons.add(net.dv8tion.jda.api.interactions.components.buttons.Button.primary(
-                        "role_select_button_" + handler.getRoleSelectID(Objects.requireNonNull(guild.getId()), role.getId()),
+                        "role_select_button_" + roleInfo.selectId,
                         role.getName()
                 ).withEmoji(Emoji.fromFormatted(roleEmoji)));
 
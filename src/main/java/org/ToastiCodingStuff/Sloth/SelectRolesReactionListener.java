@@ -0,0 +1,134 @@
+package org.ToastiCodingStuff.Sloth;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.MessageReaction;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.UserSnowflake;
+import net.dv8tion.jda.api.events.message.MessageDeleteEvent;
+import net.dv8tion.jda.api.events.message.react.GenericMessageReactionEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionAddEvent;
+import net.dv8tion.jda.api.events.message.react.MessageReactionRemoveEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reaction roles of role selection messages, and cleanup when such a message is deleted.
+ * Messages sent before their ids were recorded in role_select_embeds are recognised the first
+ * time someone reacts with a configured emoji: the message is fetched once, and if it is a
+ * reaction role message of the bot it is recorded, so later reactions need no request.
+ */
+public class SelectRolesReactionListener extends ListenerAdapter {
+
+    private static final int MAX_CHECKED_MESSAGES = 10000;
+
+    private final DatabaseHandler handler;
+    // Messages fetched once and found not to be role selection messages
+    private final Set<String> otherMessages = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_CHECKED_MESSAGES;
+                }
+            }));
+    // Old messages being recorded, so concurrent reactions do not insert them twice
+    private final Set<String> recording = ConcurrentHashMap.newKeySet();
+
+    public SelectRolesReactionListener(DatabaseHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void onMessageReactionAdd (MessageReactionAddEvent event) {
+        handleReaction(event, true);
+    }
+
+    @Override
+    public void onMessageReactionRemove (MessageReactionRemoveEvent event) {
+        handleReaction(event, false);
+    }
+
+    private void handleReaction(GenericMessageReactionEvent event, boolean add) {
+        if (!event.isFromGuild() || event.getUser() == null) {return;}
+        if (event.getUser().isBot()) {
+            return;
+        }
+        Guild guild = event.getGuild();
+        RoleSelectIndex.GuildIndex index = handler.getRoleSelectIndex().get(guild.getId());
+        String roleId = index.getRoleIdByEmoji(event.getReaction().getEmoji().getFormatted());
+        if (roleId == null) {return;}
+
+        String messageId = event.getMessageId();
+        if (index.hasMessage(messageId)) {
+            updateRole(guild, event.getMember(), event.getUserId(), roleId, add);
+            return;
+        }
+        if (otherMessages.contains(messageId)) {return;}
+
+        // Unrecorded message, possibly sent before message ids were recorded
+        event.retrieveMessage().queue(message -> {
+            if (!isReactionRoleMessage(message)) {
+                otherMessages.add(messageId);
+                return;
+            }
+            if (recording.add(messageId)) {
+                MessageEmbed embed = message.getEmbeds().get(0);
+                String color = embed.getColor() != null ? String.format("#%06X", embed.getColor().getRGB() & 0xFFFFFF) : null;
+                String footer = embed.getFooter() != null ? embed.getFooter().getText() : null;
+                handler.runAsync(() -> handler.addEmbedToDatabase(guild.getId(), message.getChannel().getId(), messageId, "BUTTON",
+                        embed.getTitle(), embed.getDescription(), footer, color))
+                        .whenComplete((v, error) -> recording.remove(messageId));
+            }
+            updateRole(guild, event.getMember(), event.getUserId(), roleId, add);
+        }, error -> otherMessages.add(messageId));
+    }
+
+    /**
+     * Embed sent by the bot that the bot reacted to itself, which is how reaction role messages are posted
+     */
+    private static boolean isReactionRoleMessage(Message message) {
+        if (!message.getAuthor().equals(message.getJDA().getSelfUser()) || message.getEmbeds().isEmpty()) {
+            return false;
+        }
+        for (MessageReaction reaction : message.getReactions()) {
+            if (reaction.isSelf()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void updateRole(Guild guild, Member member, String userId, String roleId, boolean add) {
+        Role role = guild.getRoleById(roleId);
+        if (role == null) {
+            return;
+        }
+        if (member != null && member.getRoles().contains(role) == add) {
+            return;
+        }
+        // By id if the member is not cached
+        UserSnowflake target = member != null ? member : UserSnowflake.fromId(userId);
+        if (add) {
+            guild.addRoleToMember(target, role).queue();
+        } else {
+            guild.removeRoleFromMember(target, role).queue();
+        }
+    }
+
+    @Override
+    public void onMessageDelete (MessageDeleteEvent event) {
+        if (!event.isFromGuild()) {return;}
+        String guildId = event.getGuild().getId();
+        // Forget deleted role selection messages so they no longer count as known messages
+        if (handler.getRoleSelectIndex().get(guildId).hasMessage(event.getMessageId())) {
+            handler.removeEmbedFromDatabase(guildId, event.getMessageId());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.ToastiCodingStuff.Sloth;
+
+/**
+ * The shards this process runs. Discord assigns a guild to shard {@code (guild_id >> 22) % total},
+ * so several processes can share the guilds by running disjoint shard ranges; background jobs
+ * (timed roles, guild activity sync) only touch rows of guilds on the own shards.
+ *
+ * Configuration (environment):
+ * SHARD_TOTAL - number of shards of the bot across all processes (default 1)
+ * SHARD_MIN   - first shard of this process (default 0)
+ * SHARD_MAX   - last shard of this process, inclusive (default SHARD_TOTAL - 1)
+ */
+public class ShardRange {
+
+    private final int total;
+    private final int min;
+    private final int max;
+
+    public ShardRange(int total, int min, int max) {
+        if (total < 1 || min < 0 || max < min || max >= total) {
+            throw new IllegalArgumentException("Invalid shard range " + min + "-" + max + " of " + total);
+        }
+        this.total = total;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a setting is not a number or the range is invalid; falling
+     * back to some default would run shards another process already runs, so startup fails instead
+     */
+    public static ShardRange fromEnvironment() {
+        int total = readSetting("SHARD_TOTAL", 1);
+        int min = readSetting("SHARD_MIN", 0);
+        int max = readSetting("SHARD_MAX", total - 1);
+        try {
+            return new ShardRange(total, min, max);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + ", check SHARD_TOTAL, SHARD_MIN and SHARD_MAX", e);
+        }
+    }
+
+    private static int readSetting(String name, int defaultValue) {
+        String value = EnvConfig.getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + name + ": " + value, e);
+        }
+    }
+
+    public static int shardOf(long guildId, int total) {
+        return (int) ((guildId >>> 22) % total);
+    }
+
+    /**
+     * @return true if the guild is on one of the shards of this process
+     */
+    public boolean owns(String guildId) {
+        if (isAll()) return true;
+        try {
+            int shard = shardOf(Long.parseUnsignedLong(guildId), total);
+            return shard >= min && shard <= max;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * SQL condition restricting a guild id column to the own shards, starting with " AND ";
+     * empty if this process runs every shard. Only numbers are inlined, no parameters needed.
+     */
+    public String sqlFilter(String guildIdColumn) {
+        if (isAll()) return "";
+        String shard = "((CAST(" + guildIdColumn + " AS UNSIGNED) >> 22) % " + total + ")";
+        return min == max
+                ? " AND " + shard + " = " + min
+                : " AND " + shard + " BETWEEN " + min + " AND " + max;
+    }
+
+    public boolean isAll() {
+        return min == 0 && max == total - 1;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "shards " + min + "-" + max + " of " + total;
+    }
+}
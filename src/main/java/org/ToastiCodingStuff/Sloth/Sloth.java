@@ -2,112 +2,199 @@ package org.ToastiCodingStuff.Sloth;
 
 import io.github.cdimascio.dotenv.Dotenv;
 import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.entities.Guild;
-import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class Sloth {
+    // Support server: receives feedback and the global-stats command
+    private static final String HOME_GUILD_ID = "1169699077986988112";
+
     public static void main(String[] args) throws Exception {
         Dotenv dotenv = Dotenv.load();
-        JDA api = JDABuilder.createDefault(dotenv.get("TOKEN_TEST"))
-                .enableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.GUILD_MEMBERS)
-                .build();
-        api.awaitReady();
-
+        // The database comes first, the cache profile needs to know which guilds are chunked
         DatabaseHandler handler = new DatabaseHandler();
+        ShardRange shards = handler.getShardRange();
+        CacheProfile cacheProfile = new CacheProfile(handler);
+        handler.setCacheProfile(cacheProfile);
+
+        ShardManager api = cacheProfile.apply(DefaultShardManagerBuilder.createDefault(dotenv.get("TOKEN_TEST"))
+                .enableIntents(GatewayIntent.GUILD_MESSAGES, GatewayIntent.GUILD_MEMBERS))
+                .setShardsTotal(shards.getTotal())
+                .setShards(shards.getMin(), shards.getMax())
+                // Set bot status to "Playing /help"
+                .setActivity(Activity.playing("/help"))
+                // JDA's own hook would shut the shards down in parallel, the LifecycleManager orders the shutdown
+                .setEnableShutdownHook(false)
+                .addEventListeners(cacheProfile)
+                .build();
+        System.out.println("Starting " + shards);
+        awaitShards(api, shards);
+        cacheProfile.start(api);
 
-        Guild guild = api.getGuildById("1169699077986988112");
-
-        // Set bot status to "Playing /help"
-        api.getPresence().setActivity(Activity.playing("/help"));
+        // Interactions go through one router instead of every listener seeing every event
+        InteractionRouter router = createInteractionRouter(handler);
+        api.addEventListener(router);
 
-        api.addEventListener(new LogChannelSlashCommandListener(handler));
-        api.addEventListener(new WarnCommandListener(handler));
-        api.addEventListener(new TicketCommandListener(handler));
-        api.addEventListener(new StatisticsCommandListener(handler));
-        api.addEventListener(new ModerationCommandListener(handler));
-        api.addEventListener(new AddRulesEmbedToChannelCommandListener(handler));
-        api.addEventListener(new JustVerifyButtonCommandListener(handler));
+        // Gateway events
+        api.addEventListener(new TicketMessageListener(handler));
+        api.addEventListener(new SelectRolesReactionListener(handler));
         api.addEventListener(new OnGuildLeaveListener(handler));
-        api.addEventListener(new GlobalCommandListener(handler));
-        api.addEventListener(new FeedbackCommandListener(guild));
-        api.addEventListener(new SelectRolesCommandListener(handler));
-        api.addEventListener(new TimedRolesCommandListener(handler));
-        api.addEventListener(new RoleEventConfigListener(handler));
         api.addEventListener(new TimedRoleTriggerListener(handler));
-
-        api.addEventListener(new HelpCommandListener(handler));
         api.addEventListener(new GuildEventListener(handler));
         
-        // Register all system commands globally
-        registerGlobalCommands(api, handler);
-
-        handler.initializeTables();
+        // Global commands are shared by all shards, only the process running shard 0 registers them
+        JDA firstShard = api.getShardById(0);
+        if (firstShard != null) {
+            registerGlobalCommands(firstShard, api, handler);
+        }
 
-        handler.runMigrationCheck();
+        // Tables and migrations were already checked by the DatabaseHandler constructor
+        // (skipped if the schema is unchanged), a full check is available via handler.runMigrationCheck()
 
-        // Sync all current guilds to database
+        // Sync the guilds of this process' shards to database, in the background so startup does not wait for it
         List<Guild> guilds = api.getGuilds();
-        handler.syncGuilds(guilds);
-        handler.updateGuildActivityStatus(guilds);
-
-        // Starte den Background-Check für abgelaufene Rollen (jede Minute)
-        java.util.concurrent.ScheduledExecutorService scheduler = java.util.concurrent.Executors.newSingleThreadScheduledExecutor();
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                // 1. Hole abgelaufene Timer aus der DB
-                List<DatabaseHandler.ActiveTimerData> expired = handler.getExpiredTimers();
-
-                for (DatabaseHandler.ActiveTimerData timer : expired) {
-                    // 2. Finde Guild und Member
-                    Guild guild1 = api.getGuildById(timer.guildId);
-                    if (guild1 != null) {
-                        Role role = guild1.getRoleById(timer.roleId);
-                        if (role != null) {
-                            if (timer.actionType.equalsIgnoreCase(String.valueOf(ActionType.REMOVE))) {
-                                guild1.retrieveMemberById(timer.userId).queue(
-                                        member -> {
-                                            // 3. Rolle entfernen
-                                            guild1.removeRoleFromMember(member, role).reason("Timed Role expired").queue();
-                                            // Optional: User benachrichtigen
-                                            // member.getUser().openPrivateChannel().queue(ch -> ch.sendMessage("Deine Rolle " + role.getName() + " ist abgelaufen.").queue());
-                                        },
-                                        error -> System.err.println("Member " + timer.userId + " not found/left guild.")
-                                );
-                            } else if (timer.actionType.equalsIgnoreCase(String.valueOf(ActionType.ADD))) {
-                                guild1.retrieveMemberById(timer.userId).queue(
-                                        member -> {
-                                            // 3. Rolle hinzufügen
-                                            guild1.addRoleToMember(member, role).reason("Timed Role expired").queue();
-                                            // Optional: User benachrichtigen
-                                            // member.getUser().openPrivateChannel().queue(ch -> ch.sendMessage("Deine Rolle " + role.getName() + " wurde dir wieder hinzugefügt.").queue());
-                                        },
-                                        error -> System.err.println("Member " + timer.userId + " not found/left guild.")
-                                );
-                            }
-
-                        }
-                    }
-                    // 4. Timer aus DB löschen (egal ob erfolgreich oder nicht, damit Loop nicht hängt)
-                    handler.removeTimer(timer.id);
+        handler.runAsync(() -> {
+            handler.syncGuilds(guilds);
+            handler.updateGuildActivityStatus(guilds);
+        }).exceptionally(error -> {
+            System.err.println("Error syncing guilds: " + error.getMessage());
+            return null;
+        });
+
+        // Timed Roles: Timer aus der DB laden und sekundengenau ablaufen lassen
+        TimedRoleScheduler timerScheduler = new TimedRoleScheduler(api, handler);
+        handler.setTimerScheduler(timerScheduler);
+        timerScheduler.start();
+
+        // On SIGTERM: stop taking work, finish the queued database work while the shards can still
+        // send its replies, let JDA send what is queued, then flush buffers and close the pool
+        LifecycleManager lifecycle = new LifecycleManager();
+        lifecycle.onShutdown("stop accepting interactions", router::stopAccepting)
+                .onShutdown("stop timed role scheduler", timerScheduler::stop)
+                .onShutdown("stop cache profile", cacheProfile::shutdown)
+                .onShutdown("drain database executor", () -> drainDatabaseExecutor(handler, lifecycle))
+                .onShutdown("shut down shards", () -> shutdownShards(api, lifecycle))
+                .onShutdown("flush buffers and close database", handler::closeConnection)
+                .onShutdown("interaction summary", router::logSummary);
+        lifecycle.installShutdownHook();
+    }
+
+    /**
+     * Let the queued database tasks finish; deferred interactions answer through their hook, so this
+     * has to happen before the shards go down. Gets at most a third of the remaining shutdown time.
+     */
+    private static void drainDatabaseExecutor(DatabaseHandler handler, LifecycleManager lifecycle) {
+        long seconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(lifecycle.remainingMillis() / 3));
+        handler.getDatabaseExecutor().shutdown(seconds);
+    }
+
+    /**
+     * Disconnect all shards; requests that are already queued are still sent. Shards get at most
+     * half of the remaining shutdown time, the rest is left for writing the buffered data.
+     */
+    private static void shutdownShards(ShardManager api, LifecycleManager lifecycle) {
+        List<JDA> shards = new ArrayList<>(api.getShards());
+        api.shutdown();
+        try {
+            for (JDA shard : shards) {
+                if (!shard.awaitShutdown(Duration.ofMillis(lifecycle.remainingMillis() / 2))) {
+                    System.err.println("Shard " + shard.getShardInfo().getShardId() + " did not shut down in time, cancelling its requests");
+                    shard.shutdownNow();
                 }
-            } catch (Exception e) {
-                System.err.println("Error in TimedRole loop: " + e.getMessage());
-                e.printStackTrace();
             }
-        }, 0, 60, java.util.concurrent.TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait until every shard of this process is connected; the shard manager starts
+     * them one after another, so a shard may not exist yet when it is looked up
+     */
+    private static void awaitShards(ShardManager api, ShardRange shards) throws InterruptedException {
+        for (int shardId = shards.getMin(); shardId <= shards.getMax(); shardId++) {
+            JDA shard;
+            while ((shard = api.getShardById(shardId)) == null) {
+                Thread.sleep(250);
+            }
+            shard.awaitReady();
+        }
+        System.out.println("All " + (shards.getMax() - shards.getMin() + 1) + " shards are ready");
+    }
+
+    /**
+     * Map every command, component id and modal id to the listener handling it
+     */
+    private static InteractionRouter createInteractionRouter(DatabaseHandler handler) {
+        LogChannelSlashCommandListener logChannel = new LogChannelSlashCommandListener(handler);
+        WarnCommandListener warn = new WarnCommandListener(handler);
+        TicketCommandListener ticket = new TicketCommandListener(handler);
+        StatisticsCommandListener statistics = new StatisticsCommandListener(handler);
+        ModerationCommandListener moderation = new ModerationCommandListener(handler);
+        AddRulesEmbedToChannelCommandListener rules = new AddRulesEmbedToChannelCommandListener(handler);
+        JustVerifyButtonCommandListener justVerify = new JustVerifyButtonCommandListener(handler);
+        GlobalCommandListener global = new GlobalCommandListener(handler);
+        FeedbackCommandListener feedback = new FeedbackCommandListener(HOME_GUILD_ID);
+        SelectRolesCommandListener selectRoles = new SelectRolesCommandListener(handler);
+        TimedRolesCommandListener timedRoles = new TimedRolesCommandListener(handler);
+        RoleEventConfigListener roleEvents = new RoleEventConfigListener(handler);
+        HelpCommandListener help = new HelpCommandListener(handler);
+
+        return new InteractionRouter()
+                .command("log-channel", logChannel::onSlashCommandInteraction)
+                .command("warn", warn::onSlashCommandInteraction)
+                .command("ticket", ticket::onSlashCommandInteraction)
+                .command("stats", statistics::onSlashCommandInteraction)
+                .command("mod", moderation::onSlashCommandInteraction)
+                .command("rules", rules::onSlashCommandInteraction)
+                .command("verify-button", justVerify::onSlashCommandInteraction)
+                .command("global-stats", global::onSlashCommandInteraction)
+                .command("feedback", feedback::onSlashCommandInteraction)
+                .command("select-roles", selectRoles::onSlashCommandInteraction)
+                .command("my-roles", timedRoles::onSlashCommandInteraction)
+                .command("temprole", timedRoles::onSlashCommandInteraction)
+                .command("role-event", roleEvents::onSlashCommandInteraction)
+                .command("help", help::onSlashCommandInteraction)
+
+                .button("create_ticket", ticket::onButtonInteraction)
+                .button("close_ticket_confirm", ticket::onButtonInteraction)
+                .button("delete_channel", ticket::onButtonInteraction)
+                .button("just_verify", justVerify::onButtonInteraction)
+                .button("send_select_roles_reaction", selectRoles::onButtonInteraction)
+                .button("send_select_roles_dropdown", selectRoles::onButtonInteraction)
+                .button("send_select_roles_buttons", selectRoles::onButtonInteraction)
+                .buttonPrefix("role_select_button_", selectRoles::onButtonInteraction)
+                .buttonPrefix("rules_verify_", rules::onButtonInteraction)
+                .buttonPrefix("help_", help::onButtonInteraction)
+                .buttonPrefix("event_toggle_", roleEvents::onButtonInteraction)
+                .buttonPrefix("event_delete_", roleEvents::onButtonInteraction)
+
+                .stringSelect("role_select_dropdown", selectRoles::onStringSelectInteraction)
+                .stringSelect("event_select_edit", roleEvents::onStringSelectInteraction)
+                .stringSelectPrefix("event_edit_select_", roleEvents::onStringSelectInteraction)
+                .stringSelectPrefix("event_trigger_type_select_", roleEvents::onStringSelectInteraction)
+                .entitySelectPrefix("event_role_select_", roleEvents::onEntitySelectInteraction)
+                .entitySelectPrefix("event_trigger_role_select_", roleEvents::onEntitySelectInteraction)
+
+                .modal("ticket_creation_modal", ticket::onModalInteraction)
+                .modal("rules_modal_creator", rules::onModalInteraction)
+                .modalPrefix("modal_event_", roleEvents::onModalInteraction);
     }
 
     /**
      * Register all system commands globally
      */
-    private static void registerGlobalCommands(JDA api, DatabaseHandler handler) {
+    private static void registerGlobalCommands(JDA api, ShardManager shardManager, DatabaseHandler handler) {
         System.out.println("Registering all system commands globally...");
         //Guild guild = api.getGuildById("1169699077986988112"); // Replace with your test server ID if needed
 
@@ -122,7 +209,8 @@ public class Sloth {
         allCommands.addAll(commandProvider.getAllCommands());
         allCommands.add(Commands.slash("help", "Show help and documentation for Sloth bot"));
 
-        Guild testServer = api.getGuildById("1169699077986988112");
+        // The test server may be on a shard of another process
+        Guild testServer = shardManager.getGuildById(HOME_GUILD_ID);
 
         if (testServer == null) {
             System.out.println("Test server not found. Skipping test server command registration.");
@@ -137,7 +225,6 @@ public class Sloth {
         // Register each command globally
         //guild.updateCommands().addCommands(allCommands).queue();
         api.updateCommands().addCommands(allCommands).queue();
-        assert testServer != null;
         //testServer.updateCommands().addCommands(allCommands).queue();
 
         System.out.println("Finished registering " + allCommands.size() + " global commands");
@@ -0,0 +1,419 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Write-behind buffer for the daily counters in {@code statistics} and {@code user_statistics}.
+ * Increments only touch in-memory cells; a background thread periodically writes the
+ * accumulated deltas in batched {@code INSERT ... ON DUPLICATE KEY UPDATE col = col + VALUES(col)}
+ * statements.
+ *
+ * Increments only do a lock-free lookup and a {@link LongAdder#add(long)}, so concurrent
+ * increments of the same counter do not wait on each other. A flush takes what a cell holds
+ * by subtracting the value it read, so increments racing the flush stay in the cell. Cells
+ * that stayed idle for a whole flush are removed; an increment that still reaches a removed
+ * cell notices it and moves its delta to a new cell.
+ *
+ * The same deltas are added to the rollup tables in the same transaction, so lifetime queries
+ * read one row instead of summing the whole history:
+ * statistics_guild_lifetime (per guild), statistics_guild_monthly (per guild and month) and
+ * user_statistics_lifetime (per guild and user). {@link #rebuildRollups(String)} recomputes
+ * them from the daily tables.
+ *
+ * Configuration (environment):
+ * STATS_FLUSH_INTERVAL_SECONDS - how often pending counters are written (default 10)
+ * STATS_MAX_LAG_SECONDS        - upper bound for how long an increment may stay unflushed,
+ *                                an early flush is triggered once it is exceeded (default 60)
+ */
+public class StatisticsAggregator {
+
+    /** Counter columns of the statistics table (guild-wide rows). */
+    static final List<String> GUILD_COLUMNS = List.of(
+            "warnings_issued", "kicks_performed", "bans_performed", "timeouts_performed",
+            "untimeouts_performed", "tickets_created", "tickets_closed", "verifications_performed"
+    );
+
+    /** Counter columns of the user_statistics table (per-user rows). */
+    static final List<String> USER_COLUMNS = List.of(
+            "warnings_received", "warnings_issued", "kicks_received", "kicks_performed",
+            "bans_received", "bans_performed", "timeouts_received", "timeouts_performed",
+            "untimeouts_received", "untimeouts_performed", "tickets_created", "tickets_closed",
+            "verifications_performed", "messages_sent"
+    );
+
+    /**
+     * Identifies one counter cell. A null userId addresses the guild-wide statistics row.
+     */
+    private static final class CounterKey {
+        final String guildId;
+        final String userId;
+        final String date;
+        final String column;
+
+        CounterKey(String guildId, String userId, String date, String column) {
+            this.guildId = guildId;
+            this.userId = userId;
+            this.date = date;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CounterKey)) return false;
+            CounterKey other = (CounterKey) o;
+            return guildId.equals(other.guildId)
+                    && Objects.equals(userId, other.userId)
+                    && date.equals(other.date)
+                    && column.equals(other.column);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(guildId, userId, date, column);
+        }
+    }
+
+    private final DatabaseHandler handler;
+    private final ConcurrentHashMap<CounterKey, LongAdder> cells = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final long flushIntervalMillis;
+    private final long maxLagMillis;
+    private final Object flushLock = new Object();
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean(false);
+    // Timestamp of the oldest increment that has not been written yet, 0 if nothing is pending
+    private final AtomicLong oldestPendingAt = new AtomicLong(0);
+    private volatile boolean shutdown = false;
+
+    public StatisticsAggregator(DatabaseHandler handler) {
+        this(handler,
+                EnvConfig.getLong("STATS_FLUSH_INTERVAL_SECONDS", 10) * 1000,
+                EnvConfig.getLong("STATS_MAX_LAG_SECONDS", 60) * 1000);
+    }
+
+    public StatisticsAggregator(DatabaseHandler handler, long flushIntervalMillis, long maxLagMillis) {
+        this.handler = handler;
+        this.flushIntervalMillis = Math.max(1000, flushIntervalMillis);
+        this.maxLagMillis = Math.max(this.flushIntervalMillis, maxLagMillis);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Sloth-StatisticsFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly,
+                this.flushIntervalMillis, this.flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Count one action for today. userId == null targets the guild row in statistics,
+     * otherwise the user's row in user_statistics.
+     */
+    public void increment(String guildId, String userId, String column) {
+        List<String> allowed = userId == null ? GUILD_COLUMNS : USER_COLUMNS;
+        if (!allowed.contains(column)) {
+            throw new IllegalArgumentException("Ungültiger Spaltenname für Statistik: " + column);
+        }
+        add(new CounterKey(guildId, userId, java.time.LocalDate.now().toString(), column), 1);
+    }
+
+    private void add(CounterKey key, long delta) {
+        addToCell(key, delta);
+
+        long now = System.currentTimeMillis();
+        oldestPendingAt.compareAndSet(0, now);
+        long oldest = oldestPendingAt.get();
+        if (oldest != 0 && now - oldest >= maxLagMillis && !shutdown
+                && earlyFlushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                earlyFlushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void addToCell(CounterKey key, long delta) {
+        LongAdder cell = cells.computeIfAbsent(key, k -> new LongAdder());
+        cell.add(delta);
+        if (cells.get(key) != cell) {
+            // flush() removed the cell meanwhile and may not have seen this delta
+            drainRemoved(key, cell);
+        }
+    }
+
+    /**
+     * Move whatever a removed cell still holds to the current cell of its key. Runs under the
+     * cell's monitor, so the flush and late incrementers never move the same delta twice.
+     */
+    private void drainRemoved(CounterKey key, LongAdder cell) {
+        synchronized (cell) {
+            long late = cell.sum();
+            if (late != 0) {
+                cell.add(-late);
+                addToCell(key, late);
+            }
+        }
+    }
+
+    /**
+     * Number of counter cells waiting to be written.
+     */
+    public int getPendingCount() {
+        int pending = 0;
+        for (LongAdder cell : cells.values()) {
+            if (cell.sum() != 0) pending++;
+        }
+        return pending;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Error flushing statistics: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write all pending counters to the database. Deltas of a failed batch are put back
+     * into the buffer so they are retried with the next flush.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            if (cells.isEmpty()) {
+                oldestPendingAt.set(0);
+                return;
+            }
+            oldestPendingAt.set(System.currentTimeMillis());
+
+            // Drain cells, grouped by target row: (guild, user, date) -> column -> delta
+            Map<CounterKey, Map<String, Long>> guildRows = new LinkedHashMap<>();
+            Map<CounterKey, Map<String, Long>> userRows = new LinkedHashMap<>();
+            for (Map.Entry<CounterKey, LongAdder> entry : new ArrayList<>(cells.entrySet())) {
+                CounterKey key = entry.getKey();
+                LongAdder cell = entry.getValue();
+                long delta = cell.sum();
+                if (delta == 0) {
+                    // Idle since the last flush; anything added while it is removed is moved back
+                    if (cells.remove(key, cell)) {
+                        drainRemoved(key, cell);
+                    }
+                    continue;
+                }
+                // Increments after the read stay in the cell for the next flush
+                cell.add(-delta);
+                CounterKey rowKey = new CounterKey(key.guildId, key.userId, key.date, "");
+                Map<CounterKey, Map<String, Long>> target = key.userId == null ? guildRows : userRows;
+                target.computeIfAbsent(rowKey, k -> new HashMap<>()).merge(key.column, delta, Long::sum);
+            }
+
+            boolean failed = false;
+            if (!guildRows.isEmpty() && !writeRows(false, guildRows)) {
+                restore(guildRows);
+                failed = true;
+            }
+            if (!userRows.isEmpty() && !writeRows(true, userRows)) {
+                restore(userRows);
+                failed = true;
+            }
+            if (!failed) {
+                oldestPendingAt.set(0);
+            }
+        }
+    }
+
+    /**
+     * Write the daily rows and their rollups in one transaction, so the rollups never drift
+     * from the daily tables when a batch fails and is retried.
+     */
+    private boolean writeRows(boolean userRows, Map<CounterKey, Map<String, Long>> rows) {
+        String table = userRows ? "user_statistics" : "statistics";
+        try (Connection connection = handler.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (userRows) {
+                    upsert(connection, "user_statistics", List.of("guild_id", "user_id", "date"), USER_COLUMNS, rows,
+                            key -> List.of(key.guildId, key.userId, key.date));
+                    upsert(connection, "user_statistics_lifetime", List.of("guild_id", "user_id"), USER_COLUMNS, rows,
+                            key -> List.of(key.guildId, key.userId));
+                } else {
+                    upsert(connection, "statistics", List.of("guild_id", "date"), GUILD_COLUMNS, rows,
+                            key -> List.of(key.guildId, key.date));
+                    upsert(connection, "statistics_guild_lifetime", List.of("guild_id"), GUILD_COLUMNS, rows,
+                            key -> List.of(key.guildId));
+                    // date is YYYY-MM-DD, the month bucket is YYYY-MM
+                    upsert(connection, "statistics_guild_monthly", List.of("guild_id", "month"), GUILD_COLUMNS, rows,
+                            key -> List.of(key.guildId, key.date.substring(0, 7)));
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error writing buffered " + table + " counters (" + rows.size() + " rows): " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Merge the daily rows by the key columns of the target table and add them with one batched upsert
+     */
+    private void upsert(Connection connection, String table, List<String> keyColumns, List<String> columns,
+                        Map<CounterKey, Map<String, Long>> rows, Function<CounterKey, List<String>> keyOf) throws SQLException {
+        Map<List<String>, Map<String, Long>> merged = new LinkedHashMap<>();
+        for (Map.Entry<CounterKey, Map<String, Long>> row : rows.entrySet()) {
+            Map<String, Long> target = merged.computeIfAbsent(keyOf.apply(row.getKey()), k -> new HashMap<>());
+            for (Map.Entry<String, Long> column : row.getValue().entrySet()) {
+                target.merge(column.getKey(), column.getValue(), Long::sum);
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                .append(String.join(", ", keyColumns));
+        for (String column : columns) sql.append(", ").append(column);
+        sql.append(") VALUES (");
+        for (int i = 0; i < keyColumns.size() + columns.size(); i++) sql.append(i > 0 ? ", ?" : "?");
+        sql.append(") ON DUPLICATE KEY UPDATE ");
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            if (i > 0) sql.append(", ");
+            sql.append(column).append(" = ").append(column).append(" + VALUES(").append(column).append(")");
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            for (Map.Entry<List<String>, Map<String, Long>> row : merged.entrySet()) {
+                int index = 1;
+                for (String keyValue : row.getKey()) {
+                    stmt.setString(index++, keyValue);
+                }
+                for (String column : columns) {
+                    stmt.setLong(index++, row.getValue().getOrDefault(column, 0L));
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Recompute the rollup tables from statistics and user_statistics, for one guild or for all
+     * guilds if guildId is null. Pending counters are written first; flushes wait until the
+     * rebuild is done, so no delta is counted twice or lost.
+     * @return true if the rollups were rebuilt
+     */
+    public boolean rebuildRollups(String guildId) {
+        synchronized (flushLock) {
+            flush();
+            String where = guildId != null ? " WHERE guild_id = ?" : "";
+            String guildSums = sums(GUILD_COLUMNS);
+            String[] statements = {
+                    "DELETE FROM statistics_guild_lifetime" + where,
+                    "INSERT INTO statistics_guild_lifetime (guild_id, " + String.join(", ", GUILD_COLUMNS) + ") " +
+                            "SELECT guild_id, " + guildSums + " FROM statistics" + where + " GROUP BY guild_id",
+                    "DELETE FROM statistics_guild_monthly" + where,
+                    "INSERT INTO statistics_guild_monthly (guild_id, month, " + String.join(", ", GUILD_COLUMNS) + ") " +
+                            "SELECT guild_id, DATE_FORMAT(date, '%Y-%m'), " + guildSums + " FROM statistics" + where +
+                            " GROUP BY guild_id, DATE_FORMAT(date, '%Y-%m')",
+                    "DELETE FROM user_statistics_lifetime" + where,
+                    "INSERT INTO user_statistics_lifetime (guild_id, user_id, " + String.join(", ", USER_COLUMNS) + ") " +
+                            "SELECT guild_id, user_id, " + sums(USER_COLUMNS) + " FROM user_statistics" + where +
+                            " GROUP BY guild_id, user_id"
+            };
+
+            long startTime = System.currentTimeMillis();
+            try (Connection connection = handler.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    for (String statement : statements) {
+                        try (PreparedStatement stmt = connection.prepareStatement(statement)) {
+                            if (guildId != null) {
+                                stmt.setString(1, guildId);
+                            }
+                            stmt.executeUpdate();
+                        }
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                System.out.println("Rebuilt statistics rollups for " + (guildId != null ? "guild " + guildId : "all guilds")
+                        + " in " + (System.currentTimeMillis() - startTime) + "ms");
+                return true;
+            } catch (SQLException e) {
+                System.err.println("Error rebuilding statistics rollups: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+    }
+
+    private static String sums(List<String> columns) {
+        StringBuilder sql = new StringBuilder();
+        for (String column : columns) {
+            if (sql.length() > 0) sql.append(", ");
+            sql.append("COALESCE(SUM(").append(column).append("), 0)");
+        }
+        return sql.toString();
+    }
+
+    private void restore(Map<CounterKey, Map<String, Long>> rows) {
+        for (Map.Entry<CounterKey, Map<String, Long>> row : rows.entrySet()) {
+            CounterKey rowKey = row.getKey();
+            for (Map.Entry<String, Long> column : row.getValue().entrySet()) {
+                addToCell(new CounterKey(rowKey.guildId, rowKey.userId, rowKey.date, column.getKey()), column.getValue());
+            }
+        }
+    }
+
+    /**
+     * Stop the background flusher and write everything that is still buffered.
+     */
+    public void shutdown() {
+        shutdown = true;
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        int pending = getPendingCount();
+        if (pending > 0) {
+            System.err.println("Could not persist " + pending + " statistics counters on shutdown");
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package org.ToastiCodingStuff.Sloth;
 
-import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
@@ -55,9 +54,24 @@ public class StatisticsCommandListener extends ListenerAdapter {
                 handler.insertOrUpdateGlobalStatistic("stats-lifetime");
                 handleStatsCommand(event, guildId);
                 break;
+            case "rebuild":
+                if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
+                handler.insertOrUpdateGlobalStatistic("stats-rebuild");
+                handleRebuildCommand(event, guildId);
+                break;
         }
     }
 
+    private void handleRebuildCommand(SlashCommandInteractionEvent event, String guildId) {
+        handler.runDeferred(event, true, () -> {
+            if (!handler.rebuildStatisticsRollups(guildId)) {
+                event.getHook().sendMessage("❌ Lifetime statistics could not be rebuilt. Please try again later.").queue();
+                return;
+            }
+            event.getHook().sendMessage("✅ Lifetime statistics have been recalculated.").queue();
+        });
+    }
+
     private void handleStatsCommand (SlashCommandInteractionEvent event, String guildId) {
         // Check if user has moderate members permission
         if (!event.getMember().hasPermission(Permission.MODERATE_MEMBERS)) {
@@ -65,8 +79,8 @@ public class StatisticsCommandListener extends ListenerAdapter {
             return;
         }
 
-        EmbedBuilder embed = handler.getLifetimeModerationStatisticsEmbed(guildId);
-        event.replyEmbeds(embed.build()).setEphemeral(false).queue();
+        handler.runDeferred(event, false, () ->
+                event.getHook().sendMessageEmbeds(handler.getLifetimeModerationStatisticsEmbed(guildId).build()).queue());
     }
 
     private void handleTodayStatsCommand(SlashCommandInteractionEvent event, String guildId) {
@@ -76,8 +90,8 @@ public class StatisticsCommandListener extends ListenerAdapter {
             return;
         }
 
-        EmbedBuilder embed = handler.getTodaysModerationStatisticsEmbed(guildId);
-        event.replyEmbeds(embed.build()).setEphemeral(false).queue();
+        handler.runDeferred(event, false, () ->
+                event.getHook().sendMessageEmbeds(handler.getTodaysModerationStatisticsEmbed(guildId).build()).queue());
     }
 
     private void handleWeeklyStatsCommand(SlashCommandInteractionEvent event, String guildId) {
@@ -89,8 +103,8 @@ public class StatisticsCommandListener extends ListenerAdapter {
 
         String currentDate = LocalDate.now().minusDays(7).toString(); // Get date 7 days ago
 
-        EmbedBuilder embed = handler.getWeeklyModerationStatisticsEmbed(guildId, currentDate);
-        event.replyEmbeds(embed.build()).setEphemeral(false).queue();
+        handler.runDeferred(event, false, () ->
+                event.getHook().sendMessageEmbeds(handler.getWeeklyModerationStatisticsEmbed(guildId, currentDate).build()).queue());
     }
 
     private void handleDateStatsCommand(SlashCommandInteractionEvent event, String guildId) {
@@ -110,8 +124,8 @@ public class StatisticsCommandListener extends ListenerAdapter {
             return;
         }
 
-        EmbedBuilder embed = handler.getModerationStatisticsForDateEmbed(guildId);
-        event.replyEmbeds(embed.build()).setEphemeral(false).queue();
+        handler.runDeferred(event, false, () ->
+                event.getHook().sendMessageEmbeds(handler.getModerationStatisticsForDateEmbed(guildId, dateString).build()).queue());
     }
 
     private void handleUserInfoCommand(SlashCommandInteractionEvent event, String guildId) {
@@ -132,12 +146,12 @@ public class StatisticsCommandListener extends ListenerAdapter {
                 event.reply("❌ Invalid date format. Please use YYYY-MM-DD (e.g., 2024-01-15).").setEphemeral(true).queue();
                 return;
             }
-            EmbedBuilder embed = handler.getUserStatisticsForDateEmbed(guildId, userId, dateString);
-            event.replyEmbeds(embed.build()).setEphemeral(false).queue();
+            handler.runDeferred(event, false, () ->
+                    event.getHook().sendMessageEmbeds(handler.getUserStatisticsForDateEmbed(guildId, userId, dateString).build()).queue());
             return;
         }
         
-        EmbedBuilder embed = handler.getUserInfoEmbed(guildId, userId);
-        event.replyEmbeds(embed.build()).setEphemeral(false).queue();
+        handler.runDeferred(event, false, () ->
+                event.getHook().sendMessageEmbeds(handler.getUserInfoEmbed(guildId, userId).build()).queue());
     }
-}
\ No newline at end of file
+}
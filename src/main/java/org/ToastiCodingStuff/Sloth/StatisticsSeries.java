@@ -0,0 +1,200 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+/**
+ * Counters of statistics (guild) or user_statistics (one user) over a date range, summed into
+ * day, week or month buckets. Loaded with one range query on (guild_id, date), so the unique
+ * key of the daily table is used; buckets without rows are kept as zeros, values are stored in
+ * a flat long array (bucket-major) instead of one object per day.
+ */
+public final class StatisticsSeries {
+
+    public enum Bucket {
+        DAY, WEEK, MONTH
+    }
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Bucket bucket;
+    private final List<String> columns;
+    private final LocalDate[] bucketStarts;
+    private final long[] values;
+    private final boolean[] hasRows;
+    private int rowCount;
+
+    private StatisticsSeries(LocalDate from, LocalDate to, Bucket bucket, List<String> columns) {
+        this.from = from;
+        this.to = to;
+        this.bucket = bucket;
+        this.columns = columns;
+        LocalDate first = bucketStart(from, bucket);
+        int size = (int) unitsBetween(first, bucketStart(to, bucket), bucket) + 1;
+        this.bucketStarts = new LocalDate[size];
+        for (int i = 0; i < size; i++) {
+            bucketStarts[i] = plusUnits(first, i, bucket);
+        }
+        this.values = new long[size * columns.size()];
+        this.hasRows = new boolean[size];
+    }
+
+    /**
+     * Load the series of a guild (userId == null) or of one user of a guild, from and to inclusive
+     */
+    public static StatisticsSeries load(Connection connection, String guildId, String userId,
+                                        LocalDate from, LocalDate to, Bucket bucket) throws SQLException {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Range end " + to + " is before start " + from);
+        }
+        List<String> columns = userId == null ? StatisticsAggregator.GUILD_COLUMNS : StatisticsAggregator.USER_COLUMNS;
+        StatisticsSeries series = new StatisticsSeries(from, to, bucket, columns);
+
+        StringBuilder query = new StringBuilder("SELECT ").append(bucketExpression(bucket)).append(" AS bucket_start, COUNT(*) AS row_count");
+        for (String column : columns) {
+            query.append(", SUM(").append(column).append(") AS ").append(column);
+        }
+        query.append(" FROM ").append(userId == null ? "statistics" : "user_statistics")
+                .append(" WHERE guild_id = ?");
+        if (userId != null) {
+            query.append(" AND user_id = ?");
+        }
+        // Plain range on the DATE column, no function around it, so the (guild_id, date) key is used
+        query.append(" AND date BETWEEN ? AND ? GROUP BY bucket_start ORDER BY bucket_start");
+
+        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+            int index = 1;
+            stmt.setString(index++, guildId);
+            if (userId != null) {
+                stmt.setString(index++, userId);
+            }
+            stmt.setDate(index++, java.sql.Date.valueOf(from));
+            stmt.setDate(index, java.sql.Date.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int bucketIndex = series.indexOf(rs.getDate("bucket_start").toLocalDate());
+                    if (bucketIndex < 0) continue;
+                    series.hasRows[bucketIndex] = true;
+                    series.rowCount += rs.getInt("row_count");
+                    int offset = bucketIndex * columns.size();
+                    for (int c = 0; c < columns.size(); c++) {
+                        series.values[offset + c] += rs.getLong(columns.get(c));
+                    }
+                }
+            }
+        }
+        return series;
+    }
+
+    private static String bucketExpression(Bucket bucket) {
+        switch (bucket) {
+            case WEEK:
+                // Monday of the ISO week
+                return "DATE_SUB(date, INTERVAL WEEKDAY(date) DAY)";
+            case MONTH:
+                return "DATE_SUB(date, INTERVAL DAYOFMONTH(date) - 1 DAY)";
+            default:
+                return "date";
+        }
+    }
+
+    private static LocalDate bucketStart(LocalDate date, Bucket bucket) {
+        switch (bucket) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    private static long unitsBetween(LocalDate start, LocalDate end, Bucket bucket) {
+        switch (bucket) {
+            case WEEK:
+                return ChronoUnit.WEEKS.between(start, end);
+            case MONTH:
+                return ChronoUnit.MONTHS.between(start, end);
+            default:
+                return ChronoUnit.DAYS.between(start, end);
+        }
+    }
+
+    private static LocalDate plusUnits(LocalDate start, long units, Bucket bucket) {
+        switch (bucket) {
+            case WEEK:
+                return start.plusWeeks(units);
+            case MONTH:
+                return start.plusMonths(units);
+            default:
+                return start.plusDays(units);
+        }
+    }
+
+    private int indexOf(LocalDate bucketStart) {
+        long index = unitsBetween(bucketStarts[0], bucketStart, bucket);
+        return index >= 0 && index < bucketStarts.length ? (int) index : -1;
+    }
+
+    private int columnIndex(String column) {
+        int index = columns.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown statistics column: " + column);
+        }
+        return index;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public Bucket getBucket() {
+        return bucket;
+    }
+
+    public int size() {
+        return bucketStarts.length;
+    }
+
+    public LocalDate getBucketStart(int bucketIndex) {
+        return bucketStarts[bucketIndex];
+    }
+
+    /**
+     * Whether any daily row fell into the bucket (a bucket can have rows that are all zero)
+     */
+    public boolean hasRows(int bucketIndex) {
+        return hasRows[bucketIndex];
+    }
+
+    /**
+     * Number of daily rows in the whole range
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long get(int bucketIndex, String column) {
+        return values[bucketIndex * columns.size() + columnIndex(column)];
+    }
+
+    public long getTotal(String column) {
+        int c = columnIndex(column);
+        long total = 0;
+        for (int offset = c; offset < values.length; offset += columns.size()) {
+            total += values[offset];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,215 @@
+package org.ToastiCodingStuff.Sloth;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.channel.concrete.Category;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the channels of a guild's ticket category ordered: ticket panel first, then open tickets
+ * by priority (URGENT to LOW), then every other channel. Priorities of open tickets are held in
+ * memory and updated by the DatabaseHandler, sort requests are coalesced per guild within a
+ * debounce window, and the category is only reordered (with one bulk position request) if the
+ * computed order differs from the current one.
+ *
+ * Configuration (environment):
+ * TICKET_SORT_DEBOUNCE_MS - how long sort requests of a guild are collected (default 2000)
+ */
+public class TicketChannelSorter {
+
+    private static final class OpenTicket {
+        final String guildId;
+        final String channelId;
+        volatile String priority;
+
+        OpenTicket(String guildId, String channelId, String priority) {
+            this.guildId = guildId;
+            this.channelId = channelId;
+            this.priority = priority;
+        }
+    }
+
+    private final DatabaseHandler handler;
+    private final ConcurrentHashMap<Integer, OpenTicket> ticketsById = new ConcurrentHashMap<>();
+    // guild id -> channel id -> ticket
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, OpenTicket>> ticketsByGuild = new ConcurrentHashMap<>();
+    private final Set<String> pendingGuilds = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    private final long debounceMillis;
+
+    public TicketChannelSorter(DatabaseHandler handler) {
+        this(handler, EnvConfig.getInt("TICKET_SORT_DEBOUNCE_MS", 2000));
+    }
+
+    public TicketChannelSorter(DatabaseHandler handler, int debounceMillis) {
+        this.handler = handler;
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Sloth-TicketSorter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load the priorities of all open tickets
+     */
+    public void loadOpenTickets() {
+        String query = "SELECT id, guild_id, channel_id, priority FROM tickets " +
+                "WHERE status IN ('OPEN', 'IN_PROGRESS') AND channel_id IS NOT NULL" +
+                handler.getShardRange().sqlFilter("guild_id");
+        try (Connection connection = handler.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                ticketOpened(rs.getInt("id"), rs.getString("guild_id"), rs.getString("channel_id"), rs.getString("priority"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading open ticket priorities: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public void ticketOpened(int ticketId, String guildId, String channelId, String priority) {
+        OpenTicket ticket = new OpenTicket(guildId, channelId, priority);
+        ticketsById.put(ticketId, ticket);
+        ticketsByGuild.computeIfAbsent(guildId, id -> new ConcurrentHashMap<>()).put(channelId, ticket);
+    }
+
+    public void priorityChanged(int ticketId, String priority) {
+        OpenTicket ticket = ticketsById.get(ticketId);
+        if (ticket != null) {
+            ticket.priority = priority;
+        }
+    }
+
+    public void ticketClosed(int ticketId) {
+        OpenTicket ticket = ticketsById.remove(ticketId);
+        if (ticket != null) {
+            Map<String, OpenTicket> guildTickets = ticketsByGuild.get(ticket.guildId);
+            if (guildTickets != null) {
+                guildTickets.remove(ticket.channelId);
+            }
+        }
+    }
+
+    /**
+     * Sort the ticket category of the guild once the debounce window has passed;
+     * further requests for the same guild within the window are merged into this one
+     */
+    public void requestSort(Guild guild) {
+        String guildId = guild.getId();
+        if (!pendingGuilds.add(guildId)) {
+            return;
+        }
+        JDA jda = guild.getJDA();
+        try {
+            scheduler.schedule(() -> {
+                pendingGuilds.remove(guildId);
+                // Resolve again so the channel positions of the cache are current
+                Guild current = jda.getGuildById(guildId);
+                if (current != null) {
+                    sort(current);
+                }
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            pendingGuilds.remove(guildId);
+        }
+    }
+
+    private void sort(Guild guild) {
+        try {
+            String guildId = guild.getId();
+            String categoryId = handler.getTicketCategory(guildId);
+            if (categoryId == null) return;
+
+            Category ticketCategory = guild.getCategoryById(categoryId);
+            if (ticketCategory == null) return;
+
+            String ticketPanelChannelId = handler.getTicketChannel(guildId);
+            Map<String, OpenTicket> guildTickets = ticketsByGuild.getOrDefault(guildId, new ConcurrentHashMap<>());
+
+            // Current order, the cache returns the channels sorted by position
+            List<TextChannel> current = ticketCategory.getTextChannels();
+            TextChannel ticketPanelChannel = null;
+            List<TextChannel> ticketChannels = new ArrayList<>();
+            List<TextChannel> nonTicketChannels = new ArrayList<>();
+            for (TextChannel textChannel : current) {
+                if (ticketPanelChannelId != null && textChannel.getId().equals(ticketPanelChannelId)) {
+                    ticketPanelChannel = textChannel;
+                } else if (guildTickets.containsKey(textChannel.getId())) {
+                    ticketChannels.add(textChannel);
+                } else {
+                    nonTicketChannels.add(textChannel);
+                }
+            }
+            // Stable sort, tickets of the same priority keep their current order
+            ticketChannels.sort((ch1, ch2) -> getPriorityOrder(guildTickets.get(ch1.getId()).priority)
+                    - getPriorityOrder(guildTickets.get(ch2.getId()).priority));
+
+            List<TextChannel> desired = new ArrayList<>(current.size());
+            if (ticketPanelChannel != null) {
+                desired.add(ticketPanelChannel);
+            }
+            desired.addAll(ticketChannels);
+            desired.addAll(nonTicketChannels);
+
+            int moved = 0;
+            Map<String, Integer> desiredIndex = new HashMap<>();
+            for (int i = 0; i < desired.size(); i++) {
+                desiredIndex.put(desired.get(i).getId(), i);
+                if (!desired.get(i).equals(current.get(i))) {
+                    moved++;
+                }
+            }
+            if (moved == 0) {
+                return;
+            }
+
+            // One bulk request for the whole category instead of one per moved channel
+            ticketCategory.modifyTextChannelPositions()
+                    .sortOrder((ch1, ch2) -> Integer.compare(desiredIndex.getOrDefault(ch1.getId(), Integer.MAX_VALUE),
+                            desiredIndex.getOrDefault(ch2.getId(), Integer.MAX_VALUE)))
+                    .queue(null, error -> System.err.println("Error sorting ticket channels of guild "
+                            + guildId + ": " + error.getMessage()));
+        } catch (Exception e) {
+            System.err.println("Error sorting ticket channels: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    static int getPriorityOrder(String priority) {
+        if (priority == null) {
+            return 5;
+        }
+        switch (priority) {
+            case "URGENT": return 1;
+            case "HIGH": return 2;
+            case "MEDIUM": return 3;
+            case "LOW": return 4;
+            default: return 5;
+        }
+    }
+
+    public int getOpenTicketCount() {
+        return ticketsById.size();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
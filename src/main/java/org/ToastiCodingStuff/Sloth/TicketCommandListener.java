@@ -17,7 +17,6 @@ import net.dv8tion.jda.api.interactions.components.text.TextInputStyle;
 
 import java.awt.*;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.Objects;
 
@@ -46,36 +45,40 @@ public class TicketCommandListener extends ListenerAdapter {
             case "setup":
                 if (!event.getMember().hasPermission(Permission.MANAGE_SERVER)) {event.reply("No permission.").setEphemeral(true).queue(); return;}
                 handler.insertOrUpdateGlobalStatistic("ticket-setup");
-                handleTicketSetup(event, guildId);
+                handler.runDeferred(event, false, () -> handleTicketSetup(event, guildId));
                 break;
             case "panel":
                 if (!event.getMember().hasPermission(Permission.MANAGE_SERVER)) {event.reply("No permission.").setEphemeral(true).queue(); return;}
                 handler.insertOrUpdateGlobalStatistic("ticket-panel");
-                handleTicketPanel(event, guildId);
+                handler.runDeferred(event, true, () -> handleTicketPanel(event, guildId));
                 break;
             case "config":
                 if (!event.getMember().hasPermission(Permission.MANAGE_SERVER)) {event.reply("No permission.").setEphemeral(true).queue(); return;}
                 handler.insertOrUpdateGlobalStatistic("ticket-config");
-                handleSetTicketConfig(event, guildId);
+                handler.runDeferred(event, true, () -> handleSetTicketConfig(event, guildId));
                 break;
             case "close":
                 if (!event.getMember().hasPermission(Permission.MANAGE_SERVER)) {event.reply("No permission.").setEphemeral(true).queue(); return;}
                 handler.insertOrUpdateGlobalStatistic("ticket-close");
-                handleCloseTicket(event, guildId);
+                handler.runDeferred(event, false, () -> handleCloseTicket(event, guildId));
                 break;
             case "assign":
                 if (!event.getMember().hasPermission(Permission.MANAGE_SERVER)) {event.reply("No permission.").setEphemeral(true).queue(); return;}
                 handler.insertOrUpdateGlobalStatistic("ticket-assign");
-                handleAssignTicket(event, guildId);
+                handler.runDeferred(event, false, () -> handleAssignTicket(event, guildId));
                 break;
             case "priority":
                 if (!event.getMember().hasPermission(Permission.MANAGE_SERVER)) {event.reply("No permission.").setEphemeral(true).queue(); return;}
                 handler.insertOrUpdateGlobalStatistic("ticket-priority");
-                handleSetTicketPriority(event, guildId);
+                handler.runDeferred(event, false, () -> handleSetTicketPriority(event, guildId));
                 break;
             case "info":
                 handler.insertOrUpdateGlobalStatistic("ticket-info");
-                handleTicketInfo(event, guildId);
+                handler.runDeferred(event, true, () -> handleTicketInfo(event, guildId));
+                break;
+            case "transcript":
+                handler.insertOrUpdateGlobalStatistic("ticket-transcript");
+                handleTicketTranscript(event, guildId);
                 break;
         }
     }
@@ -87,7 +90,7 @@ public class TicketCommandListener extends ListenerAdapter {
         if (customId.equals("create_ticket")) {
             handleCreateTicketButton(event);
         } else if (customId.equals("close_ticket_confirm")) {
-            handleCloseTicketConfirm(event);
+            handler.runDeferred(event, false, () -> handleCloseTicketConfirm(event));
         } else if (customId.equals("delete_channel")) {
             handleDeleteChannel(event);
         }
@@ -98,14 +101,14 @@ public class TicketCommandListener extends ListenerAdapter {
         String modalId = event.getModalId();
         
         if (modalId.equals("ticket_creation_modal")) {
-            handleTicketCreationModal(event);
+            handler.runDeferred(event, true, () -> handleTicketCreationModal(event));
         }
     }
 
     private void handleTicketSetup(SlashCommandInteractionEvent event, String guildId) {
         // Check if user has admin permissions
         if (!Objects.requireNonNull(event.getMember()).hasPermission(Permission.MANAGE_SERVER)) {
-            event.reply("❌ You need Administrator permissions to set up the ticket system.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ You need Administrator permissions to set up the ticket system.");
             return;
         }
 
@@ -115,8 +118,8 @@ public class TicketCommandListener extends ListenerAdapter {
         if (event.getOption("support-role") != null) {
             supportRole = event.getOption("support-role").getAsRole();
         }
-        //boolean transcriptEnabled = event.getOption("transcript_enabled") == null || Objects.requireNonNull(event.getOption("transcript_enabled")).getAsBoolean();
-        boolean transcriptEnabled = false; // Default to false for now
+        // Transcripts are on unless the option turns them off, like the column default
+        boolean transcriptEnabled = event.getOption("transcript_enabled") == null || Objects.requireNonNull(event.getOption("transcript_enabled")).getAsBoolean();
 
         String supportRoleId = supportRole != null ? supportRole.getId() : null;
         
@@ -129,19 +132,19 @@ public class TicketCommandListener extends ListenerAdapter {
                     .addField("Ticket Category", category.getAsMention(), true)
                     .addField("Ticket Panel Channel", channel.getAsMention(), true)
                     .addField("Support Role", supportRole != null ? supportRole.getAsMention() : "None", true)
-                    //.addField("Transcripts Enabled", transcriptEnabled ? "Yes" : "No", true)
+                    .addField("Transcripts Enabled", transcriptEnabled ? "Yes" : "No", true)
                     .setColor(Color.GREEN);
             
-            event.replyEmbeds(embed.build()).queue();
+            event.getHook().sendMessageEmbeds(embed.build()).queue();
         } else {
-            event.reply("❌ Failed to configure ticket system. Please try again.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to configure ticket system. Please try again.");
         }
     }
 
     private void handleSetTicketConfig(SlashCommandInteractionEvent event, String guildId) {
         // Check if user has manage server permissions
         if (!Objects.requireNonNull(event.getMember()).hasPermission(Permission.MANAGE_SERVER)) {
-            event.reply("❌ You need Manage Server permissions to configure ticket settings.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You need Manage Server permissions to configure ticket settings.").queue();
             return;
         }
 
@@ -159,21 +162,21 @@ public class TicketCommandListener extends ListenerAdapter {
                     .setColor(Color.GREEN)
                     .setFooter("Use /ticket-panel to create a new panel with these settings");
             
-            event.replyEmbeds(embed.build()).setEphemeral(true).queue();
+            event.getHook().sendMessageEmbeds(embed.build()).queue();
         } else {
-            event.reply("❌ Failed to update ticket configuration. Please try again.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Failed to update ticket configuration. Please try again.").queue();
         }
     }
 
     private void handleTicketPanel(SlashCommandInteractionEvent event, String guildId) {
         // Check if user has manage channels permission
         if (!Objects.requireNonNull(event.getMember()).hasPermission(Permission.MANAGE_CHANNEL)) {
-            event.reply("❌ You need Manage Channels permission to create a ticket panel.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You need Manage Channels permission to create a ticket panel.").queue();
             return;
         }
 
         if (!handler.isTicketSystem(guildId)) {
-            event.reply("❌ Ticket system is not configured for this server. Use `/ticket-setup` first.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Ticket system is not configured for this server. Use `/ticket-setup` first.").queue();
             return;
         }
 
@@ -193,7 +196,7 @@ public class TicketCommandListener extends ListenerAdapter {
         event.getChannel().sendMessageEmbeds(embed.build())
                 .setActionRow(createTicketButton)
                 .queue(message -> {
-                    event.reply("✅ Ticket panel created successfully!").setEphemeral(true).queue();
+                    event.getHook().sendMessage("✅ Ticket panel created successfully!").queue();
                     // Sort channels to ensure ticket panel channel stays on top
                     sortTicketChannelsByPriority(event.getGuild(), guildId);
                 });
@@ -204,13 +207,11 @@ public class TicketCommandListener extends ListenerAdapter {
             return;
         }
 
-        String guildId = Objects.requireNonNull(event.getGuild()).getId();
-        
-        if (!handler.isTicketSystem(guildId)) {
-            event.reply("❌ Ticket system is not configured for this server.").setEphemeral(true).queue();
-            return;
-        }
+        // Opened right away, a modal cannot follow a deferred reply; the configuration is checked on submit
+        event.replyModal(buildTicketCreationModal()).queue();
+    }
 
+    private Modal buildTicketCreationModal() {
         TextInput subjectInput = TextInput.create("subject", "Subject", TextInputStyle.SHORT)
                 .setPlaceholder("Brief description of your issue...")
                 .setRequiredRange(5, 100)
@@ -227,13 +228,11 @@ public class TicketCommandListener extends ListenerAdapter {
                 .setRequiredRange(3, 6)
                 .build();
         */
-        Modal modal = Modal.create("ticket_creation_modal", "Create New Ticket")
+        return Modal.create("ticket_creation_modal", "Create New Ticket")
                 .addActionRow(subjectInput)
                 .addActionRow(descriptionInput)
                 //.addActionRow(priorityInput)
                 .build();
-
-        event.replyModal(modal).queue();
     }
 
     private void handleTicketCreationModal(ModalInteractionEvent event) {
@@ -246,15 +245,20 @@ public class TicketCommandListener extends ListenerAdapter {
         // Validate priority
         final String priority = priorityInput.matches("LOW|MEDIUM|HIGH|URGENT") ? priorityInput : "MEDIUM";
 
+        if (!handler.isTicketSystem(guildId)) {
+            event.getHook().sendMessage("❌ Ticket system is not configured for this server.").queue();
+            return;
+        }
+
         String categoryId = handler.getTicketCategory(guildId);
         if (categoryId == null) {
-            event.reply("❌ Ticket system is not properly configured.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Ticket system is not properly configured.").queue();
             return;
         }
 
         Category ticketCategory = event.getGuild().getCategoryById(categoryId);
         if (ticketCategory == null) {
-            event.reply("❌ Ticket category not found.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Ticket category not found.").queue();
             return;
         }
 
@@ -264,8 +268,9 @@ public class TicketCommandListener extends ListenerAdapter {
         ticketCategory.createTextChannel(channelName)
                 .addPermissionOverride(event.getGuild().getPublicRole(), null, EnumSet.of(Permission.VIEW_CHANNEL))
                 .addPermissionOverride(Objects.requireNonNull(event.getMember()), EnumSet.of(Permission.VIEW_CHANNEL, Permission.MESSAGE_SEND, Permission.MESSAGE_HISTORY), null)
-                .addPermissionOverride(Objects.requireNonNull(event.getGuild().getMemberById("1179144350119239831")), EnumSet.of(Permission.VIEW_CHANNEL, Permission.MESSAGE_HISTORY, Permission.MESSAGE_MANAGE, Permission.MANAGE_CHANNEL), null)
-                .queue(channel -> {
+                // By id, the member does not have to be cached
+                .addMemberPermissionOverride(1179144350119239831L, EnumSet.of(Permission.VIEW_CHANNEL, Permission.MESSAGE_HISTORY, Permission.MESSAGE_MANAGE, Permission.MANAGE_CHANNEL), null)
+                .queue(channel -> handler.runFollowUp(event.getHook(), () -> {
                     // Add support role permissions if configured
                     String supportRoleId = handler.getTicketRole(guildId);
                     if (supportRoleId != null) {
@@ -317,13 +322,13 @@ public class TicketCommandListener extends ListenerAdapter {
                         // Sort channels by priority after creating new ticket
                         sortTicketChannelsByPriority(event.getGuild(), guildId);
 
-                        event.reply("✅ Ticket created successfully! " + channel.getAsMention()).setEphemeral(true).queue();
+                        event.getHook().sendMessage("✅ Ticket created successfully! " + channel.getAsMention()).queue();
                     } else {
                         channel.delete().queue();
-                        event.reply("❌ Failed to create ticket in database.").setEphemeral(true).queue();
+                        event.getHook().sendMessage("❌ Failed to create ticket in database.").queue();
                     }
-                }, 
-                error -> event.reply("❌ Failed to create ticket channel.").setEphemeral(true).queue());
+                }), 
+                error -> event.getHook().sendMessage("❌ Failed to create ticket channel.").queue());
     }
 
     private void handleCloseTicket(SlashCommandInteractionEvent event, String guildId) {
@@ -331,7 +336,7 @@ public class TicketCommandListener extends ListenerAdapter {
         String ticketInfo = handler.getTicketByChannelId(channel.getId());
         
         if (ticketInfo == null) {
-            event.reply("❌ This is not a ticket channel.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ This is not a ticket channel.");
             return;
         }
 
@@ -362,13 +367,13 @@ public class TicketCommandListener extends ListenerAdapter {
                     .addField("Closed at", "<t:" + (System.currentTimeMillis() / 1000) + ":F>", true)
                     .setColor(Color.RED);
 
-            event.replyEmbeds(embed.build()).queue();
+            event.getHook().sendMessageEmbeds(embed.build()).queue();
             
             // Archive channel after 5 seconds
             channel.delete().reason("Ticket closed").queue();
             
         } else {
-            event.reply("❌ Failed to close ticket.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to close ticket.");
         }
     }
 
@@ -381,7 +386,7 @@ public class TicketCommandListener extends ListenerAdapter {
         String ticketInfo = handler.getTicketByChannelId(channel.getId());
         
         if (ticketInfo == null) {
-            event.reply("❌ This is not a ticket channel.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ This is not a ticket channel.");
             return;
         }
 
@@ -412,10 +417,10 @@ public class TicketCommandListener extends ListenerAdapter {
 
             Button deleteChannelButton = Button.danger("delete_channel", "🗑️ Delete Channel");
 
-            event.replyEmbeds(embed.build()).setActionRow(deleteChannelButton).queue();
+            event.getHook().sendMessageEmbeds(embed.build()).setActionRow(deleteChannelButton).queue();
             channel.getManager().setName("closed-" + channel.getName()).queue();
         } else {
-            event.reply("❌ Failed to close ticket.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to close ticket.");
         }
     }
 
@@ -433,6 +438,10 @@ public class TicketCommandListener extends ListenerAdapter {
             return;
         }
         
+        handler.runDeferred(event, true, () -> deleteClosedTicketChannel(event, channel, guildId));
+    }
+
+    private void deleteClosedTicketChannel(ButtonInteractionEvent event, TextChannel channel, String guildId) {
         // Check if user has permission to delete the channel
         // Support role members or users with manage channels permission can delete
         String supportRoleId = handler.getTicketRole(guildId);
@@ -446,14 +455,14 @@ public class TicketCommandListener extends ListenerAdapter {
         }
 
         if (!hasPermission) {
-            event.reply("❌ You don't have permission to delete this channel.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You don't have permission to delete this channel.").queue();
             return;
         }
 
         // Acknowledge the interaction and delete the channel
-        event.reply("🗑️ Deleting channel...").setEphemeral(true).queue(
+        event.getHook().sendMessage("🗑️ Deleting channel...").queue(
             success -> channel.delete().reason("Ticket channel deleted by " + event.getUser().getEffectiveName()).queue(),
-            error -> event.reply("❌ Failed to delete channel.").setEphemeral(true).queue()
+            error -> event.getHook().sendMessage("❌ Failed to delete channel.").queue()
         );
     }
 
@@ -462,13 +471,13 @@ public class TicketCommandListener extends ListenerAdapter {
         String ticketInfo = handler.getTicketByChannelId(channel.getId());
         
         if (ticketInfo == null) {
-            event.reply("❌ This is not a ticket channel.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ This is not a ticket channel.");
             return;
         }
 
         Member staffMember = Objects.requireNonNull(event.getOption("staff")).getAsMember();
         if (staffMember == null) {
-            event.reply("❌ Staff member not found.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ Staff member not found.");
             return;
         }
 
@@ -491,9 +500,9 @@ public class TicketCommandListener extends ListenerAdapter {
             } catch (PermissionException pe) {
                 System.err.println("Failed to assign permissions to staff member: " + pe.getMessage());
             }
-            event.replyEmbeds(embed.build()).queue();
+            event.getHook().sendMessageEmbeds(embed.build()).queue();
         } else {
-            event.reply("❌ Failed to assign ticket.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to assign ticket.");
         }
     }
 
@@ -502,7 +511,7 @@ public class TicketCommandListener extends ListenerAdapter {
         String ticketInfo = handler.getTicketByChannelId(channel.getId());
         
         if (ticketInfo == null) {
-            event.reply("❌ This is not a ticket channel.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ This is not a ticket channel.");
             return;
         }
 
@@ -518,7 +527,7 @@ public class TicketCommandListener extends ListenerAdapter {
         }
 
         if (!hasPermission) {
-            event.reply("❌ You don't have permission to change ticket priorities.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ You don't have permission to change ticket priorities.");
             return;
         }
 
@@ -539,97 +548,18 @@ public class TicketCommandListener extends ListenerAdapter {
                     .setColor(getPriorityColor(newPriority))
                     .setTimestamp(java.time.Instant.now());
 
-            event.replyEmbeds(embed.build()).queue();
+            event.getHook().sendMessageEmbeds(embed.build()).queue();
             
             // Sort channels by priority after updating
             sortTicketChannelsByPriority(event.getGuild(), guildId);
         } else {
-            event.reply("❌ Failed to update ticket priority.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "❌ Failed to update ticket priority.");
         }
     }
 
     private void sortTicketChannelsByPriority(Guild guild, String guildId) {
-        try {
-            String categoryId = handler.getTicketCategory(guildId);
-            if (categoryId == null) return;
-            
-            Category ticketCategory = guild.getCategoryById(categoryId);
-            if (ticketCategory == null) return;
-            
-            // Get the ticket panel channel ID
-            String ticketPanelChannelId = handler.getTicketChannel(guildId);
-            
-            // Get all ticket channels with their priorities
-            java.util.List<java.util.Map<String, String>> ticketsWithPriority = handler.getTicketsByGuildWithPriority(guildId);
-            
-            // Create a map for quick priority lookup
-            java.util.Map<String, String> channelToPriority = new java.util.HashMap<>();
-            for (java.util.Map<String, String> ticket : ticketsWithPriority) {
-                channelToPriority.put(ticket.get("channel_id"), ticket.get("priority"));
-            }
-            
-            // Get all text channels in the category and sort them
-            java.util.List<TextChannel> allChannels = ticketCategory.getTextChannels();
-            TextChannel ticketPanelChannel = null;
-            java.util.List<TextChannel> ticketChannels = new java.util.ArrayList<>();
-            java.util.List<TextChannel> nonTicketChannels = new java.util.ArrayList<>();
-            
-            // Separate channels into three groups: ticket panel, ticket channels, other channels
-            for (TextChannel textChannel : allChannels) {
-                if (ticketPanelChannelId != null && textChannel.getId().equals(ticketPanelChannelId)) {
-                    ticketPanelChannel = textChannel;
-                } else if (channelToPriority.containsKey(textChannel.getId())) {
-                    ticketChannels.add(textChannel);
-                } else {
-                    nonTicketChannels.add(textChannel);
-                }
-            }
-            
-            // Sort ticket channels by priority
-            ticketChannels.sort((ch1, ch2) -> {
-                String priority1 = channelToPriority.get(ch1.getId());
-                String priority2 = channelToPriority.get(ch2.getId());
-                return getPriorityOrder(priority1) - getPriorityOrder(priority2);
-            });
-            
-            // Update channel positions - ticket panel first, then ticket channels (by priority), then other channels
-            int position = 0;
-            
-            // Place ticket panel channel at position 0 (top)
-            if (ticketPanelChannel != null && ticketPanelChannel.getPosition() != position) {
-                ticketPanelChannel.getManager().setPosition(position).queue();
-                position++;
-            }
-            
-            // Place ticket channels sorted by priority
-            for (TextChannel channel : ticketChannels) {
-                if (channel.getPosition() != position) {
-                    channel.getManager().setPosition(position).queue();
-                }
-                position++;
-            }
-            
-            // Place other non-ticket channels
-            for (TextChannel channel : nonTicketChannels) {
-                if (channel.getPosition() != position) {
-                    channel.getManager().setPosition(position).queue();
-                }
-                position++;
-            }
-        } catch (Exception e) {
-            System.err.println("Error sorting ticket channels: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private int getPriorityOrder(String priority) {
-        switch (priority) {
-            case "URGENT": return 1;
-            case "HIGH": return 2;
-            case "MEDIUM": return 3;
-            case "LOW": return 4;
-            default: return 5;
-        }
+        // Coalesced per guild, the category is only reordered if the order actually changed
+        handler.getTicketChannelSorter().requestSort(guild);
     }
 
     private void handleTicketInfo(SlashCommandInteractionEvent event, String guildId) {
@@ -637,7 +567,7 @@ public class TicketCommandListener extends ListenerAdapter {
         String ticketInfo = handler.getTicketByChannelId(channel.getId());
         
         if (ticketInfo == null) {
-            event.reply("❌ This is not a ticket channel.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ This is not a ticket channel.").queue();
             return;
         }
 
@@ -647,7 +577,7 @@ public class TicketCommandListener extends ListenerAdapter {
                 .setColor(Color.BLUE)
                 .setTimestamp(java.time.Instant.now());
 
-        event.replyEmbeds(embed.build()).setEphemeral(true).queue();
+        event.getHook().sendMessageEmbeds(embed.build()).queue();
     }
 
     private void handleTicketTranscript(SlashCommandInteractionEvent event, String guildId) {
@@ -656,17 +586,21 @@ public class TicketCommandListener extends ListenerAdapter {
             event.reply("❌ Bot does not have Message Content Intent enabled. Cannot generate transcripts.").setEphemeral(true).queue();
             return;
         }
+        handler.runDeferred(event, true, () -> generateTranscript(event, guildId));
+    }
+
+    private void generateTranscript(SlashCommandInteractionEvent event, String guildId) {
         TextChannel channel = event.getChannel().asTextChannel();
         String ticketInfo = handler.getTicketByChannelId(channel.getId());
         
         if (ticketInfo == null) {
-            event.reply("❌ This is not a ticket channel.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ This is not a ticket channel.").queue();
             return;
         }
 
         // Check if transcripts are enabled for this guild
         if (!handler.areTranscriptsEnabled(guildId)) {
-            event.reply("❌ Transcripts are disabled for this server.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ Transcripts are disabled for this server. Use `/ticket setup transcript_enabled:True` to enable them.").queue();
             return;
         }
 
@@ -694,64 +628,59 @@ public class TicketCommandListener extends ListenerAdapter {
         }
 
         if (!hasPermission) {
-            event.reply("❌ You don't have permission to generate transcripts for this ticket.").setEphemeral(true).queue();
+            event.getHook().sendMessage("❌ You don't have permission to generate transcripts for this ticket.").queue();
             return;
         }
 
-        event.deferReply(true).queue(); // Defer reply as this might take time
-        
-        // Generate transcript from channel history
-        channel.getHistory().retrievePast(100).queue(messages -> {
-            StringBuilder transcript = new StringBuilder();
-            transcript.append("=== TICKET TRANSCRIPT ===\n");
-            transcript.append("Ticket ID: ").append(ticketIdStr).append("\n");
-            transcript.append("Channel: #").append(channel.getName()).append("\n");
-            transcript.append("Generated: ").append(new java.util.Date()).append("\n");
-            transcript.append("=========================\n\n");
-            
-            // Sort messages chronologically (oldest first)
-            messages.sort(Comparator.comparing(ISnowflake::getTimeCreated));
-            
-            for (Message msg : messages) {
-                transcript.append("[").append(msg.getTimeCreated()).append("] ");
-                transcript.append(msg.getAuthor().getEffectiveName()).append(": ");
-                transcript.append(msg.getContentDisplay()).append("\n");
-                
-                // Add attachment info if present
-                if (!msg.getAttachments().isEmpty()) {
-                    for (Message.Attachment attachment : msg.getAttachments()) {
-                        transcript.append("    [Attachment: ").append(attachment.getFileName())
-                                 .append(" (").append(attachment.getUrl()).append(")]\n");
-                    }
-                }
-                transcript.append("\n");
+        // Recorded messages come from ticket_messages, only the rest is paged from the channel history
+        TicketTranscriptWriter.Format format = TicketTranscriptWriter.Format.fromOption(
+                event.getOption("format") != null ? event.getOption("format").getAsString() : null);
+        new TicketTranscriptWriter(handler, channel, ticketIdStr, format).write().whenComplete((transcript, error) -> {
+            if (error != null) {
+                System.err.println("Error generating transcript for ticket " + ticketIdStr + ": " + error.getMessage());
+                event.getHook().sendMessage("❌ Failed to retrieve channel history for transcript.").queue();
+                return;
             }
-            
-            // Send transcript as a file if it's too long, otherwise as embed
-            String transcriptText = transcript.toString();
-            if (transcriptText.length() > 4000) {
-                // Create temporary file and send as attachment
-                try {
-                    java.io.File tempFile = java.io.File.createTempFile("ticket-transcript-" + ticketIdStr, ".txt");
-                    java.nio.file.Files.write(tempFile.toPath(), transcriptText.getBytes());
-                    
-                    event.getHook().sendMessage("📄 Ticket transcript generated:")
-                            .addFiles(net.dv8tion.jda.api.utils.FileUpload.fromData(tempFile, "ticket-" + ticketIdStr + "-transcript.txt"))
-                            .queue(success -> tempFile.delete()); // Clean up temp file
-                } catch (Exception e) {
-                    event.getHook().sendMessage("❌ Failed to generate transcript file.").queue();
-                }
-            } else {
-                // Send as embed if short enough
+            sendTranscript(event, ticketIdStr, transcript);
+        });
+    }
+
+    private void sendTranscript(SlashCommandInteractionEvent event, String ticketIdStr, TicketTranscriptWriter.Transcript transcript) {
+        try {
+            long size = transcript.size();
+            // Send as embed if short enough
+            if (transcript.format == TicketTranscriptWriter.Format.TEXT && size <= 4000) {
+                String transcriptText = new String(java.nio.file.Files.readAllBytes(transcript.file), java.nio.charset.StandardCharsets.UTF_8);
+                transcript.delete();
                 EmbedBuilder embed = new EmbedBuilder()
                         .setTitle("📄 Ticket Transcript #" + ticketIdStr)
                         .setDescription("```\n" + transcriptText + "```")
                         .setColor(Color.BLUE)
                         .setTimestamp(java.time.Instant.now());
-                
                 event.getHook().sendMessageEmbeds(embed.build()).queue();
+                return;
+            }
+
+            if (size > Objects.requireNonNull(event.getGuild()).getMaxFileSize()) {
+                transcript.delete();
+                event.getHook().sendMessage("❌ The transcript (" + (size / 1024) + " KB, " + transcript.messageCount
+                        + " messages) is larger than the upload limit of this server."
+                        + (transcript.format != TicketTranscriptWriter.Format.GZIP ? " Try the gzip format." : "")).queue();
+                return;
             }
-        }, error -> event.getHook().sendMessage("❌ Failed to retrieve channel history for transcript.").queue());
+
+            // Upload straight from the spool file and remove it once the request is done
+            String fileName = "ticket-" + ticketIdStr + "-transcript." + transcript.format.extension;
+            event.getHook().sendMessage("📄 Ticket transcript generated (" + transcript.messageCount + " messages):")
+                    .addFiles(net.dv8tion.jda.api.utils.FileUpload.fromData(java.nio.file.Files.newInputStream(transcript.file), fileName))
+                    .queue(success -> transcript.delete(), failure -> {
+                        transcript.delete();
+                        System.err.println("Error uploading transcript for ticket " + ticketIdStr + ": " + failure.getMessage());
+                    });
+        } catch (java.io.IOException e) {
+            transcript.delete();
+            event.getHook().sendMessage("❌ Failed to generate transcript file.").queue();
+        }
     }
 
     private Color getPriorityColor(String priority) {
@@ -0,0 +1,61 @@
+package org.ToastiCodingStuff.Sloth;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.events.channel.ChannelDeleteEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+/**
+ * Feeds the messages of open ticket channels to the {@link TicketMessageRecorder}
+ */
+public class TicketMessageListener extends ListenerAdapter {
+
+    private final DatabaseHandler handler;
+
+    public TicketMessageListener(DatabaseHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Record messages of open ticket channels for the transcript
+     */
+    @Override
+    public void onMessageReceived(MessageReceivedEvent event) {
+        if (!event.isFromGuild()) {
+            return;
+        }
+        TicketMessageRecorder recorder = handler.getTicketMessageRecorder();
+        Integer ticketId = recorder.getTicketId(event.getChannel().getId());
+        if (ticketId == null) {
+            return;
+        }
+        Message message = event.getMessage();
+        recorder.record(new TicketMessageRecorder.TicketMessage(ticketId,
+                event.getAuthor().getId(),
+                event.getAuthor().getEffectiveName(),
+                message.getId(),
+                message.getContentDisplay(),
+                TicketTranscriptWriter.formatAttachments(message.getAttachments()),
+                isStaff(event),
+                java.sql.Timestamp.from(message.getTimeCreated().toInstant())));
+    }
+
+    private boolean isStaff(MessageReceivedEvent event) {
+        Member member = event.getMember();
+        if (event.getAuthor().isBot() || member == null) {
+            return event.getAuthor().isBot();
+        }
+        if (member.hasPermission(Permission.MANAGE_CHANNEL)) {
+            return true;
+        }
+        String supportRoleId = handler.getTicketRole(event.getGuild().getId());
+        return supportRoleId != null && member.getRoles().stream().anyMatch(role -> role.getId().equals(supportRoleId));
+    }
+
+    @Override
+    public void onChannelDelete(ChannelDeleteEvent event) {
+        handler.getTicketMessageRecorder().unregisterChannel(event.getChannel().getId());
+    }
+}
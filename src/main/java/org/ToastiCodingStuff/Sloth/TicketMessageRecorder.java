@@ -0,0 +1,288 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the messages of open ticket channels into ticket_messages while they are sent,
+ * so transcripts can be read from the database with one range query on (ticket_id, message_id)
+ * instead of paging through the channel history. Ticket channels are kept in memory
+ * (channel id -> ticket id), messages are queued and written with multi-row inserts on a timer.
+ * Tickets that may have missed messages (open while the bot was offline, or messages dropped
+ * at TICKET_MESSAGE_MAX_PENDING) get tickets.messages_incomplete = 1; their transcripts are
+ * read from the channel history instead.
+ *
+ * Configuration (environment):
+ * TICKET_MESSAGE_FLUSH_SECONDS - how often queued messages are written (default 5)
+ * TICKET_MESSAGE_MAX_PENDING   - queued messages above this are dropped if the database is down (default 20000)
+ */
+public class TicketMessageRecorder {
+
+    private static final int MAX_BATCH = 200;
+
+    /**
+     * One message of a ticket channel
+     */
+    public static final class TicketMessage {
+        final int ticketId;
+        final String userId;
+        final String authorName;
+        final String messageId;
+        final String content;
+        final String attachments;
+        final boolean staff;
+        final Timestamp createdAt;
+
+        public TicketMessage(int ticketId, String userId, String authorName, String messageId, String content,
+                             String attachments, boolean staff, Timestamp createdAt) {
+            this.ticketId = ticketId;
+            this.userId = userId;
+            this.authorName = authorName;
+            this.messageId = messageId;
+            this.content = content != null ? content : "";
+            this.attachments = attachments;
+            this.staff = staff;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final DatabaseHandler handler;
+    private final ConcurrentHashMap<String, Integer> ticketChannels = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<TicketMessage> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean(false);
+    private final Object flushLock = new Object();
+    private final int maxPending;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    // Tickets that dropped a message and are not marked in the database yet
+    private final Set<Integer> incompleteTickets = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown = false;
+
+    public TicketMessageRecorder(DatabaseHandler handler) {
+        this(handler, EnvConfig.getInt("TICKET_MESSAGE_FLUSH_SECONDS", 5), EnvConfig.getInt("TICKET_MESSAGE_MAX_PENDING", 20000));
+    }
+
+    public TicketMessageRecorder(DatabaseHandler handler, int flushSeconds, int maxPending) {
+        this.handler = handler;
+        this.maxPending = Math.max(MAX_BATCH, maxPending);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Sloth-TicketMessageFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, flushSeconds);
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Load the channels of all tickets that are not closed yet
+     */
+    public void loadOpenTickets() {
+        String condition = " WHERE status <> 'CLOSED' AND channel_id IS NOT NULL" +
+                handler.getShardRange().sqlFilter("guild_id");
+        try (Connection connection = handler.getConnection();
+             Statement stmt = connection.createStatement()) {
+            // Messages sent while the bot was offline were not recorded
+            stmt.executeUpdate("UPDATE tickets SET messages_incomplete = 1" + condition + " AND messages_incomplete = 0");
+            try (ResultSet rs = stmt.executeQuery("SELECT id, channel_id FROM tickets" + condition)) {
+                while (rs.next()) {
+                    ticketChannels.put(rs.getString("channel_id"), rs.getInt("id"));
+                }
+            }
+            System.out.println("Recording messages of " + ticketChannels.size() + " open ticket channels.");
+        } catch (SQLException e) {
+            System.err.println("Error loading open ticket channels: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public void registerTicket(String channelId, int ticketId) {
+        ticketChannels.put(channelId, ticketId);
+    }
+
+    public void unregisterTicket(int ticketId) {
+        ticketChannels.values().remove(ticketId);
+    }
+
+    public void unregisterChannel(String channelId) {
+        ticketChannels.remove(channelId);
+    }
+
+    /**
+     * @return the ticket id of the channel, or null if it is not an open ticket channel
+     */
+    public Integer getTicketId(String channelId) {
+        return ticketChannels.get(channelId);
+    }
+
+    /**
+     * Queue a message for writing
+     */
+    public void record(TicketMessage message) {
+        if (pendingCount.get() >= maxPending) {
+            // The database is not keeping up (or down); the ticket is marked incomplete on the next
+            // flush, so its transcript is read from the channel history instead of ticket_messages
+            droppedCount.incrementAndGet();
+            incompleteTickets.add(message.ticketId);
+            return;
+        }
+        pending.add(message);
+        int size = pendingCount.incrementAndGet();
+
+        if (size >= MAX_BATCH && !shutdown && earlyFlushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                earlyFlushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Error flushing ticket messages: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write all queued messages. A failed batch is queued again and retried on the next flush.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<TicketMessage> failed = new ArrayList<>();
+            List<TicketMessage> batch = new ArrayList<>();
+            TicketMessage message;
+            while ((message = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                batch.add(message);
+                if (batch.size() == MAX_BATCH) {
+                    if (!write(batch)) failed.addAll(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty() && !write(batch)) {
+                failed.addAll(batch);
+            }
+            for (TicketMessage retry : failed) {
+                pending.add(retry);
+                pendingCount.incrementAndGet();
+            }
+            writeIncompleteMarks();
+        }
+    }
+
+    /**
+     * Mark the tickets that dropped messages; kept for the next flush if the database is down
+     */
+    private void writeIncompleteMarks() {
+        if (incompleteTickets.isEmpty()) {
+            return;
+        }
+        List<Integer> ticketIds = new ArrayList<>(incompleteTickets);
+        StringBuilder sql = new StringBuilder("UPDATE tickets SET messages_incomplete = 1 WHERE id IN (");
+        for (int i = 0; i < ticketIds.size(); i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        sql.append(")");
+
+        try (Connection connection = handler.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < ticketIds.size(); i++) {
+                stmt.setInt(i + 1, ticketIds.get(i));
+            }
+            stmt.executeUpdate();
+            incompleteTickets.removeAll(ticketIds);
+        } catch (SQLException e) {
+            System.err.println("Error marking " + ticketIds.size() + " tickets with dropped messages: " + e.getMessage());
+        }
+    }
+
+    private boolean write(List<TicketMessage> batch) {
+        // message_id is unique, so a message that was already written is ignored
+        StringBuilder sql = new StringBuilder(
+                "INSERT IGNORE INTO ticket_messages (ticket_id, user_id, author_name, message_id, content, attachments, is_staff, created_at) VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+
+        try (Connection connection = handler.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (TicketMessage message : batch) {
+                stmt.setInt(index++, message.ticketId);
+                stmt.setString(index++, message.userId);
+                stmt.setString(index++, message.authorName);
+                stmt.setString(index++, message.messageId);
+                stmt.setString(index++, message.content);
+                stmt.setString(index++, message.attachments);
+                stmt.setInt(index++, message.staff ? 1 : 0);
+                stmt.setTimestamp(index++, message.createdAt);
+            }
+            stmt.executeUpdate();
+            writtenCount.addAndGet(batch.size());
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error writing " + batch.size() + " ticket messages: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Stop the timer and write everything that is still pending
+     */
+    public void shutdown() {
+        shutdown = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    public int getOpenTicketCount() {
+        return ticketChannels.size();
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return true if the ticket dropped messages and the database does not know yet
+     */
+    public boolean hasUnmarkedDrops(int ticketId) {
+        return incompleteTickets.contains(ticketId);
+    }
+}
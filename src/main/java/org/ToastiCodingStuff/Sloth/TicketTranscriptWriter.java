@@ -0,0 +1,348 @@
+package org.ToastiCodingStuff.Sloth;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageHistory;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the complete history of a ticket channel to a spool file. Messages recorded by the
+ * {@link TicketMessageRecorder} are streamed from ticket_messages; the messages before the first
+ * recorded one and after the last recorded one are fetched from Discord. Tickets the recorder may
+ * have missed messages of (tickets.messages_incomplete) and tickets without recorded messages are
+ * read from Discord completely. Discord is paged oldest first in pages of 100, each page written
+ * before the next one is requested, so memory use does not depend on the length of the ticket.
+ * The caller uploads the file and must delete it with {@link Transcript#delete()}.
+ */
+public class TicketTranscriptWriter {
+
+    private static final int PAGE_SIZE = 100;
+
+    public enum Format {
+        TEXT("txt"), GZIP("txt.gz"), HTML("html");
+
+        public final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public static Format fromOption(String value) {
+            if (value == null) {
+                return TEXT;
+            }
+            switch (value.toLowerCase()) {
+                case "gzip": return GZIP;
+                case "html": return HTML;
+                default: return TEXT;
+            }
+        }
+    }
+
+    /**
+     * A finished transcript spooled to disk
+     */
+    public static final class Transcript {
+        public final Path file;
+        public final Format format;
+        public final int messageCount;
+
+        Transcript(Path file, Format format, int messageCount) {
+            this.file = file;
+            this.format = format;
+            this.messageCount = messageCount;
+        }
+
+        public long size() throws IOException {
+            return Files.size(file);
+        }
+
+        public void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Could not delete transcript spool file " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private final DatabaseHandler handler;
+    private final TextChannel channel;
+    private final String ticketId;
+    private final Format format;
+    private Path file;
+    private Writer writer;
+    private int messageCount;
+
+    public TicketTranscriptWriter(DatabaseHandler handler, TextChannel channel, String ticketId, Format format) {
+        this.handler = handler;
+        this.channel = channel;
+        this.ticketId = ticketId;
+        this.format = format;
+    }
+
+    /**
+     * Write the recorded messages and then the rest of the channel history; the future fails if
+     * either cannot be read or the spool file cannot be written, the spool file is deleted in that case
+     */
+    public CompletableFuture<Transcript> write() {
+        try {
+            file = Files.createTempFile("ticket-transcript-" + ticketId + "-", "." + format.extension);
+            OutputStream out = Files.newOutputStream(file);
+            if (format == Format.GZIP) {
+                out = new GZIPOutputStream(out);
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writeHeader();
+        } catch (IOException e) {
+            return failed(e);
+        }
+        // The channel was created before any of its messages, so its id is a valid start anchor
+        return handler.supplyAsync(this::findFirstRecordedMessage)
+                .thenCompose(firstRecordedId -> {
+                    if (firstRecordedId == null) {
+                        return writePagesAfter(channel.getId(), null);
+                    }
+                    return writePagesAfter(channel.getId(), firstRecordedId)
+                            .thenCompose(ignored -> handler.supplyAsync(this::writeStoredMessages))
+                            .thenCompose(lastMessageId -> writePagesAfter(
+                                    lastMessageId != null ? lastMessageId : Long.toString(firstRecordedId - 1), null));
+                })
+                .thenCompose(ignored -> finish())
+                .whenComplete((transcript, error) -> {
+                    if (error != null) {
+                        closeQuietly();
+                        new Transcript(file, format, messageCount).delete();
+                    }
+                });
+    }
+
+    /**
+     * @return id of the first recorded message of the ticket, null if the recorded messages cannot
+     * be used because there are none or the recorder may have missed some
+     */
+    private Long findFirstRecordedMessage() {
+        TicketMessageRecorder recorder = handler.getTicketMessageRecorder();
+        // Messages still queued in the recorder would otherwise be fetched from Discord again,
+        // the flush also marks tickets that dropped messages
+        recorder.flush();
+        int id = Integer.parseInt(ticketId);
+        if (recorder.hasUnmarkedDrops(id)) {
+            return null;
+        }
+        String query = "SELECT t.messages_incomplete, (SELECT MIN(m.message_id) FROM ticket_messages m WHERE m.ticket_id = t.id) AS first_message_id " +
+                "FROM tickets t WHERE t.id = ?";
+        try (Connection connection = handler.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt("messages_incomplete") != 0) {
+                    return null;
+                }
+                long firstMessageId = rs.getLong("first_message_id");
+                return rs.wasNull() ? null : firstMessageId;
+            }
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Stream the messages recorded in ticket_messages into the spool file
+     * @return id of the last written message
+     */
+    private String writeStoredMessages() {
+        String query = "SELECT author_name, user_id, message_id, content, attachments, created_at " +
+                "FROM ticket_messages WHERE ticket_id = ? ORDER BY message_id";
+        String lastMessageId = null;
+        try (Connection connection = handler.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, Integer.parseInt(ticketId));
+            stmt.setFetchSize(PAGE_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String author = rs.getString("author_name");
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    writeEntry(createdAt != null ? createdAt.toInstant().atOffset(ZoneOffset.UTC).toString() : "?",
+                            author != null ? author : rs.getString("user_id"),
+                            rs.getString("content"),
+                            parseAttachments(rs.getString("attachments")));
+                    lastMessageId = rs.getString("message_id");
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new CompletionException(e);
+        }
+        return lastMessageId;
+    }
+
+    /**
+     * Write the channel history after a message, up to the end of the channel or up to (excluding)
+     * the message {@code stopBeforeId} if it is not null
+     */
+    private CompletableFuture<Void> writePagesAfter(String messageId, Long stopBeforeId) {
+        return MessageHistory.getHistoryAfter(channel, messageId).limit(PAGE_SIZE).submit()
+                .thenCompose(history -> {
+                    // A page is ordered newest first
+                    List<Message> page = new ArrayList<>(history.getRetrievedHistory());
+                    Collections.reverse(page);
+                    try {
+                        for (Message message : page) {
+                            if (stopBeforeId != null && message.getIdLong() >= stopBeforeId) {
+                                return CompletableFuture.<Void>completedFuture(null);
+                            }
+                            writeMessage(message);
+                        }
+                    } catch (IOException e) {
+                        return failed(e);
+                    }
+                    if (page.size() < PAGE_SIZE) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+                    return writePagesAfter(page.get(page.size() - 1).getId(), stopBeforeId);
+                });
+    }
+
+    private CompletableFuture<Transcript> finish() {
+        try {
+            writeFooter();
+            writer.close();
+            return CompletableFuture.completedFuture(new Transcript(file, format, messageCount));
+        } catch (IOException e) {
+            return failed(e);
+        }
+    }
+
+    private <T> CompletableFuture<T> failed(Throwable error) {
+        closeQuietly();
+        if (file != null) {
+            new Transcript(file, format, messageCount).delete();
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private void closeQuietly() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // Already failing, the spool file is deleted anyway
+            }
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        if (format == Format.HTML) {
+            writer.write("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Ticket #" + escapeHtml(ticketId) + "</title>\n");
+            writer.write("<style>body{font-family:sans-serif}.msg{margin:6px 0}.time{color:#888}.author{font-weight:bold}</style></head><body>\n");
+            writer.write("<h1>Ticket Transcript #" + escapeHtml(ticketId) + "</h1>\n");
+            writer.write("<p>Channel: #" + escapeHtml(channel.getName()) + "<br>Generated: " + new java.util.Date() + "</p>\n");
+            return;
+        }
+        writer.write("=== TICKET TRANSCRIPT ===\n");
+        writer.write("Ticket ID: " + ticketId + "\n");
+        writer.write("Channel: #" + channel.getName() + "\n");
+        writer.write("Generated: " + new java.util.Date() + "\n");
+        writer.write("=========================\n\n");
+    }
+
+    private void writeMessage(Message message) throws IOException {
+        List<String[]> attachments = new ArrayList<>();
+        for (Message.Attachment attachment : message.getAttachments()) {
+            attachments.add(new String[]{attachment.getFileName(), attachment.getUrl()});
+        }
+        writeEntry(message.getTimeCreated().toString(), message.getAuthor().getEffectiveName(),
+                message.getContentDisplay(), attachments);
+    }
+
+    /**
+     * @param attachments pairs of file name and url
+     */
+    private void writeEntry(String time, String author, String content, List<String[]> attachments) throws IOException {
+        messageCount++;
+        if (format == Format.HTML) {
+            writer.write("<div class=\"msg\"><span class=\"time\">[" + time + "]</span> ");
+            writer.write("<span class=\"author\">" + escapeHtml(author) + "</span>: ");
+            writer.write(escapeHtml(content).replace("\n", "<br>"));
+            for (String[] attachment : attachments) {
+                writer.write("<br>[Attachment: <a href=\"" + escapeHtml(attachment[1]) + "\">"
+                        + escapeHtml(attachment[0]) + "</a>]");
+            }
+            writer.write("</div>\n");
+            return;
+        }
+        writer.write("[" + time + "] ");
+        writer.write(author + ": ");
+        writer.write(content + "\n");
+        for (String[] attachment : attachments) {
+            writer.write("    [Attachment: " + attachment[0] + " (" + attachment[1] + ")]\n");
+        }
+        writer.write("\n");
+    }
+
+    /**
+     * Attachments as stored by the recorder: one "file name TAB url" line per attachment
+     */
+    static String formatAttachments(List<Message.Attachment> attachments) {
+        if (attachments.isEmpty()) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Message.Attachment attachment : attachments) {
+            if (text.length() > 0) text.append('\n');
+            text.append(attachment.getFileName().replace('\t', ' ').replace('\n', ' ')).append('\t').append(attachment.getUrl());
+        }
+        return text.toString();
+    }
+
+    private static List<String[]> parseAttachments(String stored) {
+        List<String[]> attachments = new ArrayList<>();
+        if (stored == null || stored.isEmpty()) {
+            return attachments;
+        }
+        for (String line : stored.split("\n")) {
+            int tab = line.indexOf('\t');
+            if (tab >= 0) {
+                attachments.add(new String[]{line.substring(0, tab), line.substring(tab + 1)});
+            }
+        }
+        return attachments;
+    }
+
+    private void writeFooter() throws IOException {
+        if (format == Format.HTML) {
+            writer.write("<p>" + messageCount + " messages</p>\n</body></html>\n");
+        } else {
+            writer.write("=== END OF TRANSCRIPT (" + messageCount + " messages) ===\n");
+        }
+    }
+
+    private static String escapeHtml(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,329 @@
+package org.ToastiCodingStuff.Sloth;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.UserSnowflake;
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory scheduler for the timed roles in active_timers.
+ * All pending timers are held in a {@link DelayQueue}, hydrated from the database at startup
+ * and kept up to date by {@link DatabaseHandler#addActiveTimer}, {@link DatabaseHandler#extendTimer},
+ * {@link DatabaseHandler#removeTimer} and {@link DatabaseHandler#removeTimerManual}.
+ * Expired timers fire within about a second; the database is only touched to claim
+ * (delete) the processed rows in one batch and for a periodic safety sweep.
+ * Only timers of guilds on this process' shards are loaded and swept (see {@link ShardRange}).
+ *
+ * Configuration (environment):
+ * TIMER_SWEEP_SECONDS - interval of the sweep that picks up rows not known in memory (default 300)
+ */
+public class TimedRoleScheduler {
+
+    private static final int MAX_BATCH = 500;
+
+    /**
+     * One pending timer in the delay queue. Cancelled entries stay in the queue and are skipped.
+     */
+    private static final class ScheduledTimer implements Delayed {
+        final DatabaseHandler.ActiveTimerData data;
+        final long expiresAtMillis;
+        volatile boolean cancelled = false;
+
+        ScheduledTimer(DatabaseHandler.ActiveTimerData data, long expiresAtMillis) {
+            this.data = data;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof ScheduledTimer) {
+                return Long.compare(expiresAtMillis, ((ScheduledTimer) other).expiresAtMillis);
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private final ShardManager shardManager;
+    private final DatabaseHandler handler;
+    private final DelayQueue<ScheduledTimer> queue = new DelayQueue<>();
+    private final ConcurrentHashMap<Integer, ScheduledTimer> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<ScheduledTimer>> byMemberRole = new ConcurrentHashMap<>();
+    // Timers that fired but whose rows are not deleted yet, so the sweep does not schedule them again
+    private final Set<Integer> inFlight = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService sweeper;
+    private final long sweepSeconds;
+    private Thread worker;
+    private volatile boolean running = false;
+
+    public TimedRoleScheduler(ShardManager shardManager, DatabaseHandler handler) {
+        this.shardManager = shardManager;
+        this.handler = handler;
+        this.sweepSeconds = Math.max(10, EnvConfig.getLong("TIMER_SWEEP_SECONDS", 300));
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Sloth-TimerSweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static String memberRoleKey(String guildId, String userId, String roleId) {
+        return guildId + ":" + userId + ":" + roleId;
+    }
+
+    /**
+     * Load all pending timers from the database and start firing them
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+
+        List<DatabaseHandler.ActiveTimerData> timers = handler.getAllActiveTimers();
+        for (DatabaseHandler.ActiveTimerData timer : timers) {
+            schedule(timer);
+        }
+        System.out.println("Timed role scheduler loaded " + timers.size() + " active timers");
+
+        worker = new Thread(this::runLoop, "Sloth-TimedRoleScheduler");
+        worker.setDaemon(true);
+        worker.start();
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop firing timers. Pending timers stay in the database and are loaded again on the next start.
+     * A batch that is being claimed is finished first, so its rows are either deleted and applied
+     * or left for the next start - never applied without being claimed.
+     */
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        sweeper.shutdown();
+        try {
+            if (!sweeper.awaitTermination(5, TimeUnit.SECONDS)) {
+                sweeper.shutdownNow();
+            }
+            if (worker != null) {
+                // Wake the worker with an expired, cancelled entry instead of interrupting a running batch
+                ScheduledTimer wakeUp = new ScheduledTimer(null, 0);
+                wakeUp.cancelled = true;
+                queue.add(wakeUp);
+                worker.join(5000);
+                if (worker.isAlive()) {
+                    worker.interrupt();
+                }
+            }
+        } catch (InterruptedException e) {
+            sweeper.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("Timed role scheduler stopped, " + byId.size() + " pending timers stay in the database");
+    }
+
+    public int getPendingCount() {
+        return byId.size();
+    }
+
+    /**
+     * Register a timer that was written to active_timers
+     */
+    public void schedule(DatabaseHandler.ActiveTimerData timer) {
+        if (timer.expiresAt == null || inFlight.contains(timer.id)) return;
+        ScheduledTimer scheduled = new ScheduledTimer(timer, timer.expiresAt.getTime());
+        if (byId.putIfAbsent(timer.id, scheduled) != null) {
+            return;
+        }
+        byMemberRole.computeIfAbsent(memberRoleKey(timer.guildId, timer.userId, timer.roleId),
+                k -> ConcurrentHashMap.newKeySet()).add(scheduled);
+        queue.add(scheduled);
+    }
+
+    /**
+     * Cancel the timer with the given id
+     */
+    public void cancel(int timerId) {
+        ScheduledTimer scheduled = byId.remove(timerId);
+        if (scheduled != null) {
+            scheduled.cancelled = true;
+            unindex(scheduled);
+        }
+    }
+
+    /**
+     * Cancel all timers of a member for a role
+     */
+    public void cancel(String guildId, String userId, String roleId) {
+        Set<ScheduledTimer> timers = byMemberRole.remove(memberRoleKey(guildId, userId, roleId));
+        if (timers == null) return;
+        for (ScheduledTimer scheduled : timers) {
+            scheduled.cancelled = true;
+            byId.remove(scheduled.data.id, scheduled);
+        }
+    }
+
+    /**
+     * Push back all timers of a member for a role, mirroring DatabaseHandler#extendTimer
+     */
+    public void extend(String guildId, String userId, String roleId, long additionalSeconds) {
+        Set<ScheduledTimer> timers = byMemberRole.get(memberRoleKey(guildId, userId, roleId));
+        if (timers == null) return;
+        for (ScheduledTimer old : new ArrayList<>(timers)) {
+            if (old.cancelled) continue;
+            old.cancelled = true;
+            timers.remove(old);
+            byId.remove(old.data.id, old);
+
+            long expiresAt = old.expiresAtMillis + additionalSeconds * 1000;
+            DatabaseHandler.ActiveTimerData data = old.data;
+            schedule(new DatabaseHandler.ActiveTimerData(data.id, data.guildId, data.userId, data.roleId,
+                    new Timestamp(expiresAt), data.sourceEventId, data.actionType));
+        }
+    }
+
+    private void unindex(ScheduledTimer scheduled) {
+        DatabaseHandler.ActiveTimerData data = scheduled.data;
+        byMemberRole.computeIfPresent(memberRoleKey(data.guildId, data.userId, data.roleId), (k, set) -> {
+            set.remove(scheduled);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                List<ScheduledTimer> batch = new ArrayList<>();
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                List<DatabaseHandler.ActiveTimerData> expired = new ArrayList<>();
+                for (ScheduledTimer scheduled : batch) {
+                    if (scheduled.cancelled || !byId.remove(scheduled.data.id, scheduled)) {
+                        continue;
+                    }
+                    unindex(scheduled);
+                    inFlight.add(scheduled.data.id);
+                    expired.add(scheduled.data);
+                }
+                if (!expired.isEmpty()) {
+                    expire(expired);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                System.err.println("Error in TimedRole scheduler: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Claim the expired timers in the database and apply their role changes
+     */
+    private void expire(List<DatabaseHandler.ActiveTimerData> expired) {
+        List<Integer> ids = new ArrayList<>();
+        for (DatabaseHandler.ActiveTimerData timer : expired) {
+            ids.add(timer.id);
+        }
+        try {
+            // Only rows this process managed to delete are applied, so no timer fires twice
+            Set<Integer> claimed = handler.claimTimers(ids);
+            List<DatabaseHandler.ActiveTimerData> toApply = new ArrayList<>();
+            for (DatabaseHandler.ActiveTimerData timer : expired) {
+                if (claimed.contains(timer.id)) {
+                    toApply.add(timer);
+                }
+            }
+            apply(toApply);
+        } finally {
+            inFlight.removeAll(ids);
+        }
+    }
+
+    /**
+     * Apply the role changes of claimed timers, grouped by guild and role so each guild and
+     * role is resolved once. Members are taken from the cache when possible; otherwise the role
+     * change is sent by user id without fetching the member first.
+     */
+    private void apply(List<DatabaseHandler.ActiveTimerData> timers) {
+        Map<String, Map<String, List<DatabaseHandler.ActiveTimerData>>> byGuildAndRole = new LinkedHashMap<>();
+        for (DatabaseHandler.ActiveTimerData timer : timers) {
+            byGuildAndRole.computeIfAbsent(timer.guildId, k -> new LinkedHashMap<>())
+                    .computeIfAbsent(timer.roleId, k -> new ArrayList<>())
+                    .add(timer);
+        }
+
+        for (Map.Entry<String, Map<String, List<DatabaseHandler.ActiveTimerData>>> guildEntry : byGuildAndRole.entrySet()) {
+            Guild guild = shardManager.getGuildById(guildEntry.getKey());
+            if (guild == null) continue;
+
+            for (Map.Entry<String, List<DatabaseHandler.ActiveTimerData>> roleEntry : guildEntry.getValue().entrySet()) {
+                Role role = guild.getRoleById(roleEntry.getKey());
+                if (role == null) continue;
+
+                for (DatabaseHandler.ActiveTimerData timer : roleEntry.getValue()) {
+                    // Manual timers (/temprole) have no source event and take the role away again
+                    boolean add = timer.actionType != null && timer.actionType.equalsIgnoreCase(String.valueOf(ActionType.ADD));
+                    Member cached = guild.getMemberById(timer.userId);
+                    UserSnowflake target = cached != null ? cached : UserSnowflake.fromId(timer.userId);
+                    if (add) {
+                        guild.addRoleToMember(target, role).reason("Timed Role expired").queue(null,
+                                error -> System.err.println("Member " + timer.userId + " not found/left guild."));
+                    } else {
+                        guild.removeRoleFromMember(target, role).reason("Timed Role expired").queue(null,
+                                error -> System.err.println("Member " + timer.userId + " not found/left guild."));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Process already expired rows in bounded chunks (e.g. after downtime or timers written by
+     * another process), then pick up timers due before the next sweep that are not in memory yet
+     */
+    private void sweep() {
+        try {
+            List<DatabaseHandler.ActiveTimerData> chunk;
+            do {
+                chunk = handler.claimExpiredTimers(MAX_BATCH);
+                for (DatabaseHandler.ActiveTimerData timer : chunk) {
+                    cancel(timer.id);
+                }
+                apply(chunk);
+            } while (chunk.size() == MAX_BATCH && running);
+
+            Timestamp horizon = new Timestamp(System.currentTimeMillis() + sweepSeconds * 1000);
+            int added = 0;
+            for (DatabaseHandler.ActiveTimerData timer : handler.getActiveTimersExpiringBefore(horizon)) {
+                if (!byId.containsKey(timer.id)) {
+                    schedule(timer);
+                    added++;
+                }
+            }
+            if (added > 0) {
+                System.out.println("Timer sweep scheduled " + added + " timers missing from memory");
+            }
+        } catch (Exception e) {
+            System.err.println("Error in timer sweep: " + e.getMessage());
+        }
+    }
+}
@@ -8,7 +8,9 @@ import net.dv8tion.jda.api.events.guild.member.GuildMemberRoleRemoveEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TimedRoleTriggerListener extends ListenerAdapter {
 
@@ -21,99 +23,111 @@ public class TimedRoleTriggerListener extends ListenerAdapter {
     // Trigger: Wenn ein User eine Rolle bekommt ("getrole")
     @Override
     public void onGuildMemberRoleAdd(GuildMemberRoleAddEvent event) {
-        // Wir prüfen für JEDE Rolle, die hinzugefügt wurde
-        for (Role role : event.getRoles()) {
-            processTrigger(event.getGuild(), event.getMember(), RoleEventType.ROLE_ADD, role.getId());
-        }
+        processTriggersAsync(event.getGuild(), event.getMember(), RoleEventType.ROLE_ADD, event.getRoles());
     }
 
     // Trigger: Wenn einem User eine Rolle weggenommen wird ("removerole")
     @Override
     public void onGuildMemberRoleRemove(GuildMemberRoleRemoveEvent event) {
-        for (Role role : event.getRoles()) {
-            processTrigger(event.getGuild(), event.getMember(), RoleEventType.ROLE_REMOVE, role.getId());
-        }
+        processTriggersAsync(event.getGuild(), event.getMember(), RoleEventType.ROLE_REMOVE, event.getRoles());
     }
 
     /**
-     * Die Hauptlogik: Prüft Bedingungen, vergibt Rollen und startet Timer.
-     *
-     * @param guild Der Server
-     * @param member Der betroffene User
-     * @param type Der Event-Typ (ROLE_ADD, ROLE_REMOVE etc.)
-     * @param triggerEntityId Die ID des Auslösers (z.B. die ID der Rolle, die hinzugefügt wurde)
+     * Die Regeln werden auf dem Datenbank-Executor ausgewertet, damit der JDA-Event-Thread nicht blockiert.
      */
+    private void processTriggersAsync(Guild guild, Member member, RoleEventType type, List<Role> roles) {
+        handler.runAsync(() -> processTriggers(guild, member, type, roles))
+                .exceptionally(error -> {
+                    System.err.println("Fehler beim Verarbeiten der Role-Event-Trigger in Guild " + guild.getId() + ": " + error.getMessage());
+                    return null;
+                });
+    }
+
     /**
-     * Die Hauptlogik: Prüft Bedingungen, vergibt Rollen und startet Timer.
+     * Sammelt die passenden Regeln für JEDE geänderte Rolle aus der kompilierten Regel-Engine.
+     * Jede Regel läuft pro Event höchstens einmal, auch wenn sie zu mehreren Rollen passt
+     * (z. B. Regeln ohne Trigger-Rolle). Gibt es keine passende Regel, wird die Datenbank gar nicht angefragt.
      */
-    private void processTrigger(Guild guild, Member member, RoleEventType type, String triggerEntityId) {
+    private void processTriggers(Guild guild, Member member, RoleEventType type, List<Role> roles) {
+        RoleEventRuleEngine engine = handler.getRoleEventRuleEngine();
         String guildId = guild.getId();
+        if (!engine.hasRules(guildId, type)) {
+            return;
+        }
 
-        // 1. Hole alle Regeln aus der DB für diesen Event-Typ
-        List<DatabaseHandler.RoleEventData> events = handler.getRoleEventsByType(guildId, type);
-
-        for (DatabaseHandler.RoleEventData eventConfig : events) {
-
-            // 2. Prüfen, ob die Bedingung (trigger_data) passt
-            if (!checkCondition(eventConfig.triggerData, triggerEntityId)) {
-                continue;
+        Map<Integer, RoleEventRuleEngine.CompiledRule> matches = new LinkedHashMap<>();
+        for (Role role : roles) {
+            for (RoleEventRuleEngine.CompiledRule rule : engine.match(guildId, type, role.getId())) {
+                matches.putIfAbsent(rule.event.id, rule);
             }
+        }
+        if (matches.isEmpty()) {
+            return;
+        }
 
-            // 3. Die Ziel-Rolle (Reward/Punishment) finden
-            Role targetRole = guild.getRoleById(eventConfig.roleId);
-            if (targetRole == null) {
-                // System.out.println("RoleEvent " + eventConfig.id + ": Ziel-Rolle existiert nicht mehr.");
-                continue;
+        // Aktive Timer einmal laden und nur neu laden, wenn eine Regel sie geändert hat
+        List<DatabaseHandler.ActiveTimerData> activeTimers = handler.getActiveTimersForUser(guildId, member.getId());
+        for (RoleEventRuleEngine.CompiledRule rule : matches.values()) {
+            if (processTrigger(guild, member, rule.event, activeTimers)) {
+                activeTimers = handler.getActiveTimersForUser(guildId, member.getId());
             }
+        }
+    }
 
-            // 4. Logik-Verzweigung basierend auf der Dauer
-            if (eventConfig.durationSeconds == 0) {
-                if ("REMOVE".equalsIgnoreCase(eventConfig.actionType)) {
-                    guild.removeRoleFromMember(member, targetRole)
-                            .reason("Auto-Trigger (Permanent): " + eventConfig.name).queue();
-                } else {
-                    guild.addRoleToMember(member, targetRole)
-                            .reason("Auto-Trigger (Permanent): " + eventConfig.name).queue();
+    /**
+     * Die Hauptlogik: Vergibt Rollen und startet Timer für eine passende Regel.
+     *
+     * @param guild Der Server
+     * @param member Der betroffene User
+     * @param eventConfig Die Regel, deren Bedingung bereits erfüllt ist
+     * @param activeTimers Die aktiven Timer des Users
+     * @return true, wenn die aktiven Timer des Users geändert wurden
+     */
+    private boolean processTrigger(Guild guild, Member member, DatabaseHandler.RoleEventData eventConfig,
+                                List<DatabaseHandler.ActiveTimerData> activeTimers) {
+        String guildId = guild.getId();
+
+        // Die Ziel-Rolle (Reward/Punishment) finden
+        Role targetRole = guild.getRoleById(eventConfig.roleId);
+        if (targetRole == null) {
+            // System.out.println("RoleEvent " + eventConfig.id + ": Ziel-Rolle existiert nicht mehr.");
+            return false;
+        }
+
+        // Logik-Verzweigung basierend auf der Dauer
+        if (eventConfig.durationSeconds == 0) {
+            if ("REMOVE".equalsIgnoreCase(eventConfig.actionType)) {
+                guild.removeRoleFromMember(member, targetRole)
+                        .reason("Auto-Trigger (Permanent): " + eventConfig.name).queue();
+            } else {
+                guild.addRoleToMember(member, targetRole)
+                        .reason("Auto-Trigger (Permanent): " + eventConfig.name).queue();
+            }
+            boolean changed = false;
+            for (DatabaseHandler.ActiveTimerData timer : activeTimers) {
+                if (timer.roleId.equals(targetRole.getId()) && timer.sourceEventId == eventConfig.id) {
+                    handler.removeTimer(timer.id);
+                    changed = true;
                 }
-                handler.getActiveTimersForUser(guild.getId(), member.getId()).forEach(timer -> {
+            }
+            return changed;
+        } else {
+            if (eventConfig.stackType.equalsIgnoreCase("EXTEND")) {
+                for (DatabaseHandler.ActiveTimerData timer : activeTimers) {
                     if (timer.roleId.equals(targetRole.getId()) && timer.sourceEventId == eventConfig.id) {
-                        handler.removeTimer(timer.id);
+                        handler.extendTimer(guildId, timer.userId, timer.roleId, eventConfig.durationSeconds);
+                        return true; // Timer verlängert, kein neues Hinzufügen
                     }
-                });
+                }
             } else {
-                List<DatabaseHandler.ActiveTimerData> activeTimers = handler.getActiveTimersForUser(guildId, member.getId());
-                if (eventConfig.stackType.equalsIgnoreCase("EXTEND")) {
-                    for (DatabaseHandler.ActiveTimerData timer : activeTimers) {
-                        if (timer.roleId.equals(targetRole.getId()) && timer.sourceEventId == eventConfig.id) {
-                            handler.extendTimer(guildId, timer.userId, timer.roleId, eventConfig.durationSeconds);
-                            return; // Timer verlängert, kein neues Hinzufügen
-                        }
-                    }
-                } else {
-                    for (DatabaseHandler.ActiveTimerData timer : activeTimers) {
-                        if (timer.roleId.equals(targetRole.getId()) && timer.sourceEventId == eventConfig.id) {
-                            handler.removeTimer(timer.id);
-                        }
+                for (DatabaseHandler.ActiveTimerData timer : activeTimers) {
+                    if (timer.roleId.equals(targetRole.getId()) && timer.sourceEventId == eventConfig.id) {
+                        handler.removeTimer(timer.id);
                     }
                 }
-                handler.addActiveTimer(guildId, member.getId(), targetRole.getId(), eventConfig.durationSeconds, eventConfig.id);
             }
+            handler.addActiveTimer(guildId, member.getId(), targetRole.getId(), eventConfig.durationSeconds, eventConfig.id);
+            return true;
         }
     }
-
-    /**
-     * Hilfsmethode: Parst das JSON und vergleicht IDs.
-     * Erwartet JSON Format: {"trigger_role_id": "12345"}
-     * Wenn triggerData leer/null ist, feuert das Event IMMER (Global Trigger).
-     */
-    private boolean checkCondition(String json, String actualId) {
-        if (json == null || json.isEmpty() || json.equals("{}")) {
-            return true; // Keine Bedingung = Immer ausführen
-        }
-
-        // Simpler String-Check statt teurem JSON-Parser (reicht für einfache IDs)
-        // Prüft, ob die tatsächliche ID im JSON-String vorkommt.
-        // Für komplexere Logik solltest du eine Lib wie Jackson oder Gson nutzen.
-        return json.contains(actualId);
-    }
 }
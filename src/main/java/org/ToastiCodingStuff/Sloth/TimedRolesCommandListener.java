@@ -109,7 +109,7 @@ public class TimedRolesCommandListener extends ListenerAdapter {
             case "my-roles":
                 // Jeder User darf das sehen
                 handler.insertOrUpdateGlobalStatistic("my-roles");
-                handleMyRoles(event, guildId);
+                handler.runDeferred(event, true, () -> handleMyRoles(event, guildId));
                 break;
             case "temprole":
                 // Nur Admins/Mods dürfen das
@@ -131,7 +131,7 @@ public class TimedRolesCommandListener extends ListenerAdapter {
         List<DatabaseHandler.ActiveTimerData> timers = handler.getActiveTimersForUser(guildId, userId);
 
         if (timers.isEmpty()) {
-            event.reply("Du hast aktuell keine zeitbegrenzten Rollen.").setEphemeral(true).queue();
+            event.getHook().sendMessage("Du hast aktuell keine zeitbegrenzten Rollen.").queue();
             return;
         }
 
@@ -157,7 +157,7 @@ public class TimedRolesCommandListener extends ListenerAdapter {
         }
 
         embed.setDescription(content.toString());
-        event.replyEmbeds(embed.build()).setEphemeral(true).queue();
+        event.getHook().sendMessageEmbeds(embed.build()).queue();
     }
 
     /**
@@ -187,31 +187,35 @@ public class TimedRolesCommandListener extends ListenerAdapter {
                 return;
             }
 
-            // Rolle vergeben
+            event.deferReply().queue();
+
+            // Rolle vergeben, der Timer wird auf dem Executor eingetragen
             event.getGuild().addRoleToMember(target, role).queue(
-                    success -> {
+                    success -> handler.runFollowUp(event.getHook(), () -> {
                         // Timer in DB eintragen (EventID 0, da manuell)
                         handler.addActiveTimer(guildId, target.getId(), role.getId(), seconds, 0);
 
                         long unixExpiry = (System.currentTimeMillis() / 1000) + seconds;
-                        event.reply("✅ Rolle " + role.getAsMention() + " an " + target.getAsMention() + " vergeben.\n" +
+                        event.getHook().sendMessage("✅ Rolle " + role.getAsMention() + " an " + target.getAsMention() + " vergeben.\n" +
                                 "Läuft ab: <t:" + unixExpiry + ":R>").queue();
-                    },
-                    error -> event.reply("❌ Fehler beim Vergeben der Rolle. Überprüfe meine Berechtigungen!").setEphemeral(true).queue()
+                    }),
+                    error -> DatabaseHandler.sendEphemeral(event.getHook(), "❌ Fehler beim Vergeben der Rolle. Überprüfe meine Berechtigungen!")
             );
 
         } else if (subcommand.equals("remove")) {
+            event.deferReply().queue();
+
             // Rolle entfernen & Timer löschen
             event.getGuild().removeRoleFromMember(target, role).queue(
-                    success -> {
+                    success -> handler.runFollowUp(event.getHook(), () -> {
                         boolean deleted = handler.removeTimerManual(guildId, target.getId(), role.getId());
                         if (deleted) {
-                            event.reply("✅ Rolle entfernt und Timer gestoppt.").queue();
+                            event.getHook().sendMessage("✅ Rolle entfernt und Timer gestoppt.").queue();
                         } else {
-                            event.reply("⚠️ Rolle entfernt, aber es wurde kein aktiver Timer in der Datenbank gefunden.").queue();
+                            event.getHook().sendMessage("⚠️ Rolle entfernt, aber es wurde kein aktiver Timer in der Datenbank gefunden.").queue();
                         }
-                    },
-                    error -> event.reply("❌ Fehler beim Entfernen der Rolle.").setEphemeral(true).queue()
+                    }),
+                    error -> DatabaseHandler.sendEphemeral(event.getHook(), "❌ Fehler beim Entfernen der Rolle.")
             );
         }
     }
@@ -0,0 +1,256 @@
+package org.ToastiCodingStuff.Sloth;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects user profiles (name, discriminator, avatar) for the users table.
+ * A profile whose fingerprint matches the last one written for that user is skipped
+ * entirely; changed profiles are kept per user (latest wins) and written with multi-row
+ * upserts on a timer, so a moderator issuing many actions causes at most one write per
+ * actual profile change. If a batch fails its profiles are written one at a time, so one bad
+ * row does not block the others; a profile that fails MAX_ATTEMPTS times is dropped.
+ *
+ * Configuration (environment):
+ * USER_PROFILE_FLUSH_SECONDS - how often dirty profiles are written (default 10)
+ * USER_PROFILE_CACHE_SIZE    - number of remembered fingerprints (default 50000)
+ */
+public class UserProfileSink {
+
+    private static final int MAX_BATCH = 500;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final class Profile {
+        final String userId;
+        final String username;
+        final String discriminator;
+        final String avatarUrl;
+        final String fingerprint;
+        // Failed single-row writes, only touched under flushLock
+        int attempts;
+
+        Profile(String userId, String username, String discriminator, String avatarUrl) {
+            this.userId = userId;
+            this.username = username;
+            this.discriminator = discriminator;
+            this.avatarUrl = avatarUrl;
+            this.fingerprint = username + '\u0000' + discriminator + '\u0000' + avatarUrl;
+        }
+    }
+
+    private final DatabaseHandler handler;
+    // Fingerprint of the last profile accepted per user, LRU-bounded
+    private final LinkedHashMap<String, String> fingerprints;
+    private final ConcurrentHashMap<String, Profile> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean(false);
+    private final Object flushLock = new Object();
+
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean shutdown = false;
+
+    public UserProfileSink(DatabaseHandler handler) {
+        this(handler, EnvConfig.getInt("USER_PROFILE_FLUSH_SECONDS", 10), EnvConfig.getInt("USER_PROFILE_CACHE_SIZE", 50000));
+    }
+
+    public UserProfileSink(DatabaseHandler handler, int flushSeconds, int cacheSize) {
+        this.handler = handler;
+        int maxSize = Math.max(1, cacheSize);
+        this.fingerprints = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Sloth-UserProfileFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, flushSeconds);
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue a profile for writing unless it is unchanged since the last write
+     */
+    public void record(String userId, String username, String discriminator, String avatarUrl) {
+        Profile profile = new Profile(userId, username, discriminator, avatarUrl);
+        synchronized (fingerprints) {
+            if (profile.fingerprint.equals(fingerprints.get(userId))) {
+                skippedCount.incrementAndGet();
+                return;
+            }
+            fingerprints.put(userId, profile.fingerprint);
+        }
+        dirty.put(userId, profile);
+
+        if (dirty.size() >= MAX_BATCH && !shutdown && earlyFlushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                earlyFlushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Error flushing user profiles: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write all dirty profiles. A failed batch is retried row by row; profiles that still fail
+     * are queued again with their fingerprints forgotten and retried on the next flush.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<Profile> batch = new ArrayList<>();
+            Iterator<Map.Entry<String, Profile>> it = dirty.entrySet().iterator();
+            while (it.hasNext()) {
+                batch.add(it.next().getValue());
+                it.remove();
+                if (batch.size() == MAX_BATCH) {
+                    write(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        }
+    }
+
+    private void write(List<Profile> batch) {
+        try {
+            upsert(batch);
+            return;
+        } catch (SQLTransientConnectionException e) {
+            // No connection: the rows are not at fault, keep them without counting an attempt
+            System.err.println("Error writing " + batch.size() + " user profiles: " + e.getMessage());
+            restore(batch);
+            return;
+        } catch (SQLException e) {
+            System.err.println("Error writing " + batch.size() + " user profiles, retrying one at a time: " + e.getMessage());
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Profile profile = batch.get(i);
+            try {
+                upsert(Collections.singletonList(profile));
+            } catch (SQLTransientConnectionException e) {
+                restore(batch.subList(i, batch.size()));
+                return;
+            } catch (SQLException e) {
+                if (++profile.attempts >= MAX_ATTEMPTS) {
+                    droppedCount.incrementAndGet();
+                    forget(profile);
+                    System.err.println("Dropping profile of user " + profile.userId + " after " + profile.attempts
+                            + " failed writes: " + e.getMessage());
+                } else {
+                    restore(Collections.singletonList(profile));
+                }
+            }
+        }
+    }
+
+    /**
+     * One multi-row upsert; users.id is the AUTO_INCREMENT key, the Discord id goes into the
+     * unique user_id column
+     */
+    private void upsert(List<Profile> batch) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO users (user_id, username, discriminator, avatar, created_at, updated_at) VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE ")
+                .append("username = VALUES(username), ")
+                .append("discriminator = VALUES(discriminator), ")
+                .append("avatar = VALUES(avatar), ")
+                .append("updated_at = CURRENT_TIMESTAMP");
+
+        try (Connection connection = handler.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Profile profile : batch) {
+                stmt.setString(index++, profile.userId);
+                stmt.setString(index++, profile.username);
+                stmt.setString(index++, profile.discriminator);
+                stmt.setString(index++, profile.avatarUrl);
+            }
+            stmt.executeUpdate();
+            writtenCount.addAndGet(batch.size());
+        }
+    }
+
+    private void restore(List<Profile> batch) {
+        for (Profile profile : batch) {
+            forget(profile);
+            // A newer profile recorded in the meantime wins
+            dirty.putIfAbsent(profile.userId, profile);
+        }
+    }
+
+    /**
+     * Forget the fingerprint of a profile that was not written, so recording it again queues it
+     */
+    private void forget(Profile profile) {
+        synchronized (fingerprints) {
+            if (Objects.equals(fingerprints.get(profile.userId), profile.fingerprint)) {
+                fingerprints.remove(profile.userId);
+            }
+        }
+    }
+
+    /**
+     * Stop the timer and write everything that is still pending
+     */
+    public void shutdown() {
+        shutdown = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    public int getPendingCount() {
+        return dirty.size();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
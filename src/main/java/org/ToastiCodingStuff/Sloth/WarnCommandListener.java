@@ -45,7 +45,7 @@ public class WarnCommandListener extends ListenerAdapter {
             case "settings-get":
                 if (!event.getMember().hasPermission(Permission.ADMINISTRATOR)) {return;}
                 handler.insertOrUpdateGlobalStatistic("warn-settings-get");
-                handleGetWarnSettingsCommand(event, guildId);
+                handler.runDeferred(event, true, () -> handleGetWarnSettingsCommand(event, guildId));
                 break;
         }
     }
@@ -59,7 +59,11 @@ public class WarnCommandListener extends ListenerAdapter {
             event.reply("User not found in this server.").setEphemeral(true).queue();
             return;
         }
+        // Everything below reads or writes the database
+        handler.runDeferred(event, false, () -> issueWarning(event, guildId, targetMember, reason, severity));
+    }
 
+    private void issueWarning(SlashCommandInteractionEvent event, String guildId, Member targetMember, String reason, String severity) {
         String userId = targetMember.getId();
         String moderatorId = event.getMember().getId();
 
@@ -105,7 +109,7 @@ public class WarnCommandListener extends ListenerAdapter {
                         targetMember.timeoutFor(timeoutDuration)
                             .reason("Maximum warnings reached (" + activeWarnings + "/" + maxWarns + ")")
                             .queue(
-                                success -> {
+                                success -> handler.runFollowUp(event.getHook(), () -> {
                                     // Log timeout action
                                     String timeoutExpiresAt = LocalDateTime.now().plusMinutes(timeoutMinutes)
                                             .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
@@ -118,7 +122,7 @@ public class WarnCommandListener extends ListenerAdapter {
                                     // Update user statistics
                                     handler.incrementUserTimeoutsReceived(guildId, userId);
                                     handler.incrementUserTimeoutsPerformed(guildId, moderatorId);
-                                },
+                                }),
                                 error -> {
                                     // Handle timeout failure silently - warning was still issued
                                 }
@@ -130,7 +134,7 @@ public class WarnCommandListener extends ListenerAdapter {
                 }
             }
             
-            event.reply("Warning issued to " + targetMember.getAsMention() + " for: " + reason +
+            event.getHook().sendMessage("Warning issued to " + targetMember.getAsMention() + " for: " + reason +
                     "\nWarning ID: " + warningId +
                     (expiresAt != null ? "\nExpires: " + expiresAt : "") + timeoutMessage).queue();
 
@@ -148,7 +152,7 @@ public class WarnCommandListener extends ListenerAdapter {
             handler.sendAuditLogEntry(event.getGuild(), "WARN", targetMember.getEffectiveName(), 
                     event.getMember().getEffectiveName(), reason);
         } else {
-            event.reply("Failed to issue warning. Please try again or contact an administrator.").setEphemeral(true).queue();
+            DatabaseHandler.sendEphemeral(event.getHook(), "Failed to issue warning. Please try again or contact an administrator.");
         }
     }
 
@@ -164,18 +168,20 @@ public class WarnCommandListener extends ListenerAdapter {
             return;
         }
 
-        // Use existing setWarnSettings method but pass null for roleID since we don't use mute roles anymore
-        handler.setWarnSettings(guildId, maxWarns, timeoutMinutes, null, warnTimeHours);
+        handler.runDeferred(event, false, () -> {
+            // Use existing setWarnSettings method but pass null for roleID since we don't use mute roles anymore
+            handler.setWarnSettings(guildId, maxWarns, timeoutMinutes, null, warnTimeHours);
 
-        event.reply("Warn settings updated successfully!\n" +
-                "Max Warns: " + maxWarns + "\n" +
-                "Timeout Duration: " + timeoutMinutes + " minutes\n" +
-                "Warning Expiry: " + warnTimeHours + " hours").queue();
+            event.getHook().sendMessage("Warn settings updated successfully!\n" +
+                    "Max Warns: " + maxWarns + "\n" +
+                    "Timeout Duration: " + timeoutMinutes + " minutes\n" +
+                    "Warning Expiry: " + warnTimeHours + " hours").queue();
+        });
     }
 
     private void handleGetWarnSettingsCommand(SlashCommandInteractionEvent event, String guildId) {
         if (!handler.hasWarnSystemSettings(guildId)) {
-            event.reply("No warn system settings configured for this server. Use `/warn settings-set` to configure.").setEphemeral(true).queue();
+            event.getHook().sendMessage("No warn system settings configured for this server. Use `/warn settings-set` to configure.").queue();
             return;
         }
 
@@ -184,7 +190,7 @@ public class WarnCommandListener extends ListenerAdapter {
         int timeoutMinutes = handler.getTimeMuted(guildId);
         int warnTimeHours = handler.getWarnTimeHours(guildId);
 
-        event.reply("**Current Warn Settings:**\n" +
+        event.getHook().sendMessage("**Current Warn Settings:**\n" +
                 "Max Warns: " + maxWarns + "\n" +
                 "Timeout Duration: " + timeoutMinutes + " minutes\n" +
                 "Warning Expiry: " + warnTimeHours + " hours\n\n" +
@@ -0,0 +1,116 @@
+package org.ToastiCodingStuff.Sloth;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs the UserProfileSink upsert against the users table as DatabaseHandler creates it,
+ * on an embedded MariaDB.
+ */
+class UserProfileSinkTest {
+
+    private static DB db;
+    private static DatabaseHandler handler;
+
+    private UserProfileSink sink;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0); // any free port
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB("sloth_test");
+
+        System.setProperty("DB_HOST", "localhost");
+        System.setProperty("DB_PORT", String.valueOf(db.getConfiguration().getPort()));
+        System.setProperty("DB_NAME", "sloth_test");
+        System.setProperty("DB_USER", "root");
+        System.setProperty("DB_PASSWORD", "");
+        handler = new DatabaseHandler();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        handler.closeConnection();
+        db.stop();
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        try (Connection connection = handler.getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM users");
+        }
+        // Flushed by the tests only
+        sink = new UserProfileSink(handler, 3600, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sink.shutdown();
+    }
+
+    @Test
+    void upsertsByDiscordId() throws SQLException {
+        sink.record("1169699077986988112", "first", "0", "https://cdn.example/a.png");
+        sink.flush();
+        sink.record("1169699077986988112", "renamed", "0", null);
+        sink.flush();
+
+        assertEquals(1, countUsers());
+        assertEquals("renamed", usernameOf("1169699077986988112"));
+        assertEquals(0, sink.getPendingCount());
+        assertEquals(2, sink.getWrittenCount());
+    }
+
+    @Test
+    void badRowDoesNotBlockBatchAndIsDroppedAfterRetries() throws SQLException {
+        sink.record("1", "one", "0", null);
+        sink.record("2", null, "0", null); // username is NOT NULL
+        sink.record("3", "three", "0", null);
+        sink.flush();
+
+        assertEquals(2, countUsers());
+        assertEquals(1, sink.getPendingCount());
+
+        sink.flush();
+        sink.flush();
+
+        assertEquals(0, sink.getPendingCount());
+        assertEquals(1, sink.getDroppedCount());
+        assertNull(usernameOf("2"));
+    }
+
+    private static int countUsers() throws SQLException {
+        try (Connection connection = handler.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static String usernameOf(String userId) throws SQLException {
+        try (Connection connection = handler.getConnection();
+             PreparedStatement stmt = connection.prepareStatement("SELECT username FROM users WHERE user_id = ?")) {
+            stmt.setString(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+}